@@ -0,0 +1,59 @@
+package com.eomaxl.bankapplication.benchmark;
+
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.TransactionStatus;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import jakarta.persistence.*;
+import lombok.Data;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Copy of the transactions mapping that keeps IDENTITY generation, the baseline for TransactionInsertBenchmark
+ */
+@Entity
+@Table(name = "benchmark_identity_transactions")
+@Data
+public class IdentityTransactionRow {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private long id;
+
+    @Column(name = "transaction_id", unique = true, nullable = false)
+    private String transactionId;
+
+    private BigDecimal amount;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_type", nullable = false)
+    private TransactionType transactionType;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transaction_status")
+    private TransactionStatus status;
+
+    @Column(length = 500)
+    private String description;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "target_account_id", nullable = false)
+    private Account targetAccount;
+
+    @Column(name = "balance_before", precision = 19, scale = 2)
+    private BigDecimal balanceBefore;
+
+    @Column(name = "balance_after", precision = 19, scale = 2)
+    private BigDecimal balanceAfter;
+
+    @Column(name = "transaction_date", nullable = false)
+    private LocalDateTime transactionDate;
+
+    @Column(name = "created_at")
+    private LocalDateTime createdAt;
+}
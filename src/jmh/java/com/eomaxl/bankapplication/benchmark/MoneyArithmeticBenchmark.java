@@ -0,0 +1,162 @@
+package com.eomaxl.bankapplication.benchmark;
+
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.valueObject.MinorUnits;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * BigDecimal against long minor-unit arithmetic on the two hot money paths.
+ * "ledger" applies alternating credits and debits with a funds check to one balance, as a ledger
+ * partition does; "aggregate" sums statement amounts as getAccountStatement does. The FromDecimal variants
+ * include converting each BigDecimal amount, which is the cost paid when amounts come from entities or
+ * requests: ledgerMinorUnitsFromDecimal is what InMemoryLedgerAccountService does per command.
+ * "accountEntity" runs the same credits and debits through Account.credit/debit, balance lock included.
+ * accountEntityRoundTrip is the arithmetic of an earlier Account that converted its BigDecimal balance to
+ * minor units and back on every call; it has no lock, so compare it with ledgerBigDecimal.
+ * Scores are nanoseconds per pass over amountCount amounts.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:java -Dexec.args="MoneyArithmeticBenchmark -prof gc"
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoneyArithmeticBenchmark {
+
+    @Param({"1000"})
+    public int amountCount;
+
+    private BigDecimal[] decimalAmounts;
+    private long[] minorAmounts;
+    private BigDecimal decimalOpening;
+    private long minorOpening;
+    private Account account;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        decimalAmounts = new BigDecimal[amountCount];
+        minorAmounts = new long[amountCount];
+        for (int i = 0; i < amountCount; i++) {
+            long cents = 1 + random.nextInt(500_000);
+            decimalAmounts[i] = BigDecimal.valueOf(cents, MinorUnits.SCALE);
+            minorAmounts[i] = cents;
+        }
+        decimalOpening = new BigDecimal("1000000.00");
+        minorOpening = MinorUnits.of(decimalOpening);
+        account = Account.builder().balance(decimalOpening).build();
+    }
+
+    @Benchmark
+    public BigDecimal ledgerBigDecimal() {
+        BigDecimal balance = decimalOpening;
+        for (int i = 0; i < decimalAmounts.length; i++) {
+            BigDecimal amount = decimalAmounts[i];
+            if ((i & 1) == 0) {
+                balance = balance.add(amount);
+            } else if (balance.compareTo(amount) >= 0) {
+                balance = balance.subtract(amount);
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public long ledgerMinorUnits() {
+        long balance = minorOpening;
+        for (int i = 0; i < minorAmounts.length; i++) {
+            long amount = minorAmounts[i];
+            if ((i & 1) == 0) {
+                balance = MinorUnits.add(balance, amount);
+            } else if (MinorUnits.covers(balance, amount)) {
+                balance = MinorUnits.subtract(balance, amount);
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public long ledgerMinorUnitsFromDecimal() {
+        long balance = minorOpening;
+        for (int i = 0; i < decimalAmounts.length; i++) {
+            long amount = MinorUnits.of(decimalAmounts[i]);
+            if ((i & 1) == 0) {
+                balance = MinorUnits.add(balance, amount);
+            } else if (MinorUnits.covers(balance, amount)) {
+                balance = MinorUnits.subtract(balance, amount);
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public BigDecimal accountEntity() {
+        account.setBalance(decimalOpening);
+        for (int i = 0; i < decimalAmounts.length; i++) {
+            if ((i & 1) == 0) {
+                account.credit(decimalAmounts[i]);
+            } else {
+                account.debit(decimalAmounts[i]);
+            }
+        }
+        return account.getBalance();
+    }
+
+    @Benchmark
+    public BigDecimal accountEntityRoundTrip() {
+        BigDecimal balance = decimalOpening;
+        for (int i = 0; i < decimalAmounts.length; i++) {
+            long amount = MinorUnits.of(decimalAmounts[i]);
+            long current = MinorUnits.of(balance);
+            if ((i & 1) == 0) {
+                balance = MinorUnits.toBigDecimal(MinorUnits.add(current, amount));
+            } else if (MinorUnits.covers(current, amount)) {
+                balance = MinorUnits.toBigDecimal(MinorUnits.subtract(current, amount));
+            }
+        }
+        return balance;
+    }
+
+    @Benchmark
+    public BigDecimal aggregateBigDecimal() {
+        BigDecimal total = BigDecimal.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            total = total.add(amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public long aggregateMinorUnits() {
+        long total = MinorUnits.ZERO;
+        for (long amount : minorAmounts) {
+            total = MinorUnits.add(total, amount);
+        }
+        return total;
+    }
+
+    @Benchmark
+    public BigDecimal aggregateMinorUnitsFromDecimal() {
+        long total = MinorUnits.ZERO;
+        for (BigDecimal amount : decimalAmounts) {
+            total = MinorUnits.add(total, MinorUnits.of(amount));
+        }
+        return MinorUnits.toBigDecimal(total);
+    }
+}
@@ -0,0 +1,193 @@
+package com.eomaxl.bankapplication.benchmark;
+
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountBalanceShard;
+import com.eomaxl.bankapplication.domain.model.AccountHolder;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.domain.model.Bank;
+import com.eomaxl.bankapplication.domain.model.IdempotencyRecord;
+import com.eomaxl.bankapplication.domain.model.NumberSequence;
+import com.eomaxl.bankapplication.domain.model.PendingTransfer;
+import com.eomaxl.bankapplication.domain.model.Person;
+import com.eomaxl.bankapplication.domain.model.PooledSequenceIdGenerator;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.domain.model.TransactionStatus;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Insert throughput of the BatchTransactionService.processBatchTransactions pattern: one transaction
+ * persisting a batch of Transaction rows, with the same JDBC batching settings as the aws profile.
+ * "identity" persists an IDENTITY-keyed copy of the mapping, which forces one INSERT round trip per row;
+ * "pooled" persists the real Transaction entity with its pooled sequence, which Hibernate batches.
+ * Scores are batches per second, multiply by batchSize for rows per second.
+ *
+ * Run with: mvn -Pbenchmark test-compile exec:java -Dexec.args="TransactionInsertBenchmark"
+ * Against Postgres add: -p url=jdbc:postgresql://localhost:5432/bankingdb -p user=banking_user -p password=...
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 12, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+public class TransactionInsertBenchmark {
+
+    @Param({"identity", "pooled"})
+    public String idStrategy;
+
+    @Param({"100", "1000"})
+    public int batchSize;
+
+    @Param({"50"})
+    public int allocationSize;
+
+    @Param({"jdbc:h2:mem:insert-benchmark;DB_CLOSE_DELAY=-1"})
+    public String url;
+
+    @Param({"sa"})
+    public String user;
+
+    @Param({""})
+    public String password;
+
+    private final AtomicLong sequence = new AtomicLong();
+
+    private StandardServiceRegistry registry;
+    private SessionFactory sessionFactory;
+    private Account from;
+    private Account to;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        registry = new StandardServiceRegistryBuilder()
+                .applySetting(AvailableSettings.JAKARTA_JDBC_URL, url)
+                .applySetting(AvailableSettings.JAKARTA_JDBC_USER, user)
+                .applySetting(AvailableSettings.JAKARTA_JDBC_PASSWORD, password)
+                .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+                .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, 25)
+                .applySetting(AvailableSettings.ORDER_INSERTS, true)
+                .applySetting(AvailableSettings.JAKARTA_VALIDATION_MODE, "none")
+                .applySetting(PooledSequenceIdGenerator.ALLOCATION_SIZE_SETTING, allocationSize)
+                .build();
+        sessionFactory = new MetadataSources(registry)
+                .addAnnotatedClasses(Person.class, Bank.class, AccountHolder.class, Account.class, Transaction.class,
+                        AccountBalanceShard.class, IdempotencyRecord.class, PendingTransfer.class,
+                        NumberSequence.class, IdentityTransactionRow.class)
+                .buildMetadata()
+                .buildSessionFactory();
+
+        sessionFactory.inTransaction(session -> {
+            Person person = Person.builder()
+                    .firstName("Bench")
+                    .lastName("Mark")
+                    .email("bench@example.com")
+                    .build();
+            Bank bank = Bank.builder().bankName("Benchmark Bank").bankCode("BENCH").build();
+            AccountHolder holder = AccountHolder.builder()
+                    .person(person)
+                    .customerId("CUST00000001")
+                    .status(AccountHolder.AccountHolderStatus.ACTIVE)
+                    .build();
+            session.persist(person);
+            session.persist(bank);
+            session.persist(holder);
+            from = account(bank, holder, "BENCH000000011");
+            to = account(bank, holder, "BENCH000000029");
+            session.persist(from);
+            session.persist(to);
+        });
+    }
+
+    /** Empties both tables so every iteration inserts into a table of the same size. */
+    @TearDown(Level.Iteration)
+    public void clearRows() {
+        sessionFactory.inTransaction(session -> {
+            session.createMutationQuery("delete from Transaction").executeUpdate();
+            session.createMutationQuery("delete from IdentityTransactionRow").executeUpdate();
+        });
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    public int processBatchTransactions() {
+        boolean identity = "identity".equals(idStrategy);
+        sessionFactory.inTransaction(session -> {
+            LocalDateTime now = LocalDateTime.now();
+            for (int i = 0; i < batchSize; i++) {
+                String transactionId = "TXN" + sequence.incrementAndGet();
+                BigDecimal amount = BigDecimal.valueOf(10);
+                session.persist(identity ? identityRow(transactionId, amount, now) : transaction(transactionId, amount, now));
+            }
+        });
+        return batchSize;
+    }
+
+    private Transaction transaction(String transactionId, BigDecimal amount, LocalDateTime now) {
+        return Transaction.builder()
+                .transactionId(transactionId)
+                .amount(amount)
+                .transactionType(TransactionType.TRANSFER_OUT)
+                .status(TransactionStatus.COMPLETED)
+                .account(from)
+                .targetAccount(to)
+                .balanceBefore(BigDecimal.ZERO)
+                .balanceAfter(BigDecimal.ZERO)
+                .transactionDate(now)
+                .build();
+    }
+
+    private IdentityTransactionRow identityRow(String transactionId, BigDecimal amount, LocalDateTime now) {
+        IdentityTransactionRow row = new IdentityTransactionRow();
+        row.setTransactionId(transactionId);
+        row.setAmount(amount);
+        row.setTransactionType(TransactionType.TRANSFER_OUT);
+        row.setStatus(TransactionStatus.COMPLETED);
+        row.setAccount(from);
+        row.setTargetAccount(to);
+        row.setBalanceBefore(BigDecimal.ZERO);
+        row.setBalanceAfter(BigDecimal.ZERO);
+        row.setTransactionDate(now);
+        row.setCreatedAt(now);
+        return row;
+    }
+
+    private static Account account(Bank bank, AccountHolder holder, String accountNumber) {
+        return Account.builder()
+                .accountNumber(accountNumber)
+                .balance(BigDecimal.ZERO)
+                .accountType(AccountType.CHECKING)
+                .status(AccountStatus.ACTIVE)
+                .bank(bank)
+                .accountHolder(holder)
+                .build();
+    }
+}
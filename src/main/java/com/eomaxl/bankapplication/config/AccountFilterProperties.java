@@ -0,0 +1,28 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the in-memory Bloom filter of existing account numbers
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.account-filter")
+public class AccountFilterProperties {
+
+    private boolean enabled = true;
+
+    // Lower bound for sizing, the filter is sized for twice the current number of accounts when that is larger
+    private long expectedAccounts = 1_000_000;
+
+    private double falsePositiveRate = 0.01;
+
+    // Accounts created on other nodes are read back this often
+    private long syncIntervalMs = 2000;
+
+    // Each sync re-reads accounts created this long before the previous one, covering commits that land late
+    // and clock differences between nodes
+    private long syncOverlapSeconds = 120;
+}
@@ -1,7 +1,9 @@
 package com.eomaxl.bankapplication.config;
 
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.SimpleAsyncTaskExecutor;
 import org.springframework.scheduling.annotation.EnableAsync;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 
@@ -9,10 +11,26 @@ import java.util.concurrent.Executor;
 
 @Configuration
 @EnableAsync
+@Slf4j
 public class AsyncConfig {
 
+    private final ThreadingProperties threading;
+
+    public AsyncConfig(ThreadingProperties threading) {
+        this.threading = threading;
+        if (threading.getMode() == ThreadingMode.VIRTUAL && !threading.isVirtualThreads()) {
+            log.warn("banking.threads.mode=virtual needs Java 21 or newer, running on Java {} with platform threads",
+                    Runtime.version().feature());
+        }
+    }
+
     @Bean(name = "transactionExecutor")
     public Executor transactionExecutor() {
+        if (threading.isVirtualThreads()) {
+            // Concurrency is bounded by connection permits rather than by the number of threads
+            return virtualThreadExecutor("TxnVirtual-");
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
         // High throughput configuration
@@ -29,6 +47,10 @@ public class AsyncConfig {
 
     @Bean(name = "notificationExecutor")
     public Executor notificationExecutor() {
+        if (threading.isVirtualThreads()) {
+            return virtualThreadExecutor("NotifyVirtual-");
+        }
+
         ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
 
         // Separate pool for notifications to avoid blocking transactions
@@ -41,4 +63,12 @@ public class AsyncConfig {
         executor.initialize();
         return executor;
     }
-}
\ No newline at end of file
+
+    private Executor virtualThreadExecutor(String threadNamePrefix) {
+        SimpleAsyncTaskExecutor executor = new SimpleAsyncTaskExecutor(threadNamePrefix);
+        executor.setVirtualThreads(true);
+        // Lets tasks still running at shutdown finish instead of being abandoned
+        executor.setTaskTerminationTimeout(5000);
+        return executor;
+    }
+}
@@ -0,0 +1,39 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Settings for draining the pending-transfers queue of the asynchronous transfer API
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.async-transfers")
+public class AsyncTransferProperties {
+
+    // Transfers handed to the transactionExecutor at once, keeps a backlog from exhausting the connection pool
+    private int maxInFlight = 32;
+
+    // How many queued transfers are read per poll of the table
+    private int batchSize = 100;
+
+    // Poll interval for transfers queued by other nodes or left over from a restart
+    private long pollIntervalMs = 1000;
+
+    // Attempts for failures that are not business rejections (lock timeouts, lost connections) before giving up
+    private int maxAttempts = 5;
+
+    // Delay before retrying a transient failure, doubled per attempt up to the maximum
+    private long retryInitialBackoffMs = 1000;
+    private long retryMaxBackoffMs = 60000;
+
+    // Connect and read timeout of a callback, each
+    private long callbackTimeoutMs = 5000;
+
+    // Hosts callbacks may be sent to; when empty any host is allowed that resolves to public addresses only
+    private List<String> callbackAllowedHosts = new ArrayList<>();
+}
@@ -0,0 +1,14 @@
+package com.eomaxl.bankapplication.config;
+
+/**
+ * Concurrency control used when changing an account balance
+ * Declared from strictest to most relaxed, a transfer between accounts with different modes uses the stricter one
+ */
+public enum BalanceUpdateMode {
+    // SELECT ... FOR UPDATE on the account row for the whole SERIALIZABLE transaction
+    PESSIMISTIC,
+    // Version-checked update without row locks, retried with bounded backoff on conflict
+    OPTIMISTIC,
+    // Single guarded UPDATE that checks status and funds and returns the new balance
+    CONDITIONAL
+}
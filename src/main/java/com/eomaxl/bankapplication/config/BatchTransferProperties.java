@@ -0,0 +1,17 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the bulk transfer endpoint
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.batch-transfers")
+public class BatchTransferProperties {
+
+    // Largest batch accepted in one request, every involved account stays locked until the batch commits
+    private int maxItems = 1000;
+}
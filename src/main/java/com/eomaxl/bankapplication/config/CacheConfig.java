@@ -1,29 +1,195 @@
 package com.eomaxl.bankapplication.config;
 
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.actuate.metrics.cache.CacheMeterBinderProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
 import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.Profile;
+import org.springframework.data.redis.cache.RedisCacheConfiguration;
+import org.springframework.data.redis.cache.RedisCacheManager;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
 
+import java.time.Duration;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Bounded Caffeine caches with per-cache maximum size, expire-after-write and refresh-after-write
+ * Every cache records statistics, which the actuator's cache metrics binder publishes to the Micrometer
+ * registry as cache.gets (hit/miss), cache.puts and cache.evictions tagged with the cache name.
+ * With banking.caches.near.enabled the same caches become the near tier of a TwoTierCacheManager, for
+ * running several instances that must not serve each other's stale entries.
+ * Either manager is transaction aware: puts and evictions made inside a transaction, such as a
+ * CacheEvict on an update, are applied once it commits so a concurrent read cannot cache the old row
+ * again in between.
+ */
 @Configuration
 @EnableCaching
+@Slf4j
 public class CacheConfig {
 
+    public static final String ACCOUNTS = "accounts";
+    public static final String BALANCES = "balances";
+    public static final String BANKS = "banks";
+    public static final String BANKS_BY_CODE = "banksByCode";
+    public static final String ACCOUNT_HOLDERS = "accountHolders";
+    public static final String ACCOUNT_HOLDERS_BY_CUSTOMER_ID = "accountHoldersByCustomerId";
+    public static final String ACCOUNT_TYPES = "accountTypes";
+
+    private static final List<String> KNOWN_CACHES = List.of(ACCOUNTS, BALANCES, BANKS, BANKS_BY_CODE,
+            ACCOUNT_HOLDERS, ACCOUNT_HOLDERS_BY_CUSTOMER_ID, ACCOUNT_TYPES);
+
     @Bean
-    @Profile("!aws")
-    public CacheManager cacheManager() {
-        ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+    @ConditionalOnProperty(name = "banking.caches.near.enabled", havingValue = "false", matchIfMissing = true)
+    public CacheManager cacheManager(CachingProperties properties,
+                                     ObjectProvider<NamedCacheLoader> loaders,
+                                     @Qualifier("transactionExecutor") Executor refreshExecutor) {
+        Map<String, NamedCacheLoader> loadersByCache = loadersByCache(loaders);
+
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
         cacheManager.setAllowNullValues(false);
-        return cacheManager;
+        // Caches not configured here are still created on demand with the default spec
+        cacheManager.setCaffeine(builder(properties.getDefaults(), refreshExecutor, false));
+
+        for (String name : union(KNOWN_CACHES, properties.getSpecs().keySet())) {
+            CachingProperties.Spec spec = properties.specFor(name);
+            NamedCacheLoader loader = loadersByCache.get(name);
+            if (spec.getRefreshAfterWrite() != null && loader == null) {
+                log.warn("Cache {} has refresh-after-write but no loader, entries will only expire", name);
+            }
+            Caffeine<Object, Object> builder = builder(spec, refreshExecutor, loader != null);
+            if (loader != null) {
+                cacheManager.registerCustomCache(name, builder.build(loader::load));
+            } else {
+                cacheManager.registerCustomCache(name, builder.build());
+            }
+            log.info("Cache {}: maximum size {}, expire after write {}, refresh after write {}", name,
+                    spec.getMaximumSize(), spec.getExpireAfterWrite(),
+                    loader != null ? spec.getRefreshAfterWrite() : null);
+        }
+        return new TransactionAwareCacheManagerProxy(cacheManager);
     }
 
+    /**
+     * Near caches in this JVM, a shared tier for the caches listed in banking.caches.near.shared-caches and
+     * invalidations broadcast on the configured transport
+     * Near entries are not refreshed after write: a change made by another instance arrives as an
+     * invalidation, and the near tier's expire-after-write bounds staleness when one is lost.
+     */
     @Bean
-    @Profile("aws")
-    public CacheManager redisCacheManager() {
-        // Redis Configuration would come here for the production env
-        // Using redis for distributed caching across multiple instances
-        return new ConcurrentMapCacheManager(); // PlaceHolder
+    @ConditionalOnProperty(name = "banking.caches.near.enabled", havingValue = "true")
+    public CacheManager twoTierCacheManager(CachingProperties properties,
+                                            ObjectProvider<NamedCacheLoader> loaders,
+                                            @Qualifier("transactionExecutor") Executor executor,
+                                            CacheInvalidationTransport transport,
+                                            ObjectProvider<RedisConnectionFactory> redisConnectionFactory,
+                                            MeterRegistry meterRegistry) {
+        Map<String, NamedCacheLoader> loadersByCache = loadersByCache(loaders);
+        CachingProperties.Near near = properties.getNear();
+        CacheManager sharedCaches = sharedCacheManager(properties, redisConnectionFactory);
+
+        TwoTierCacheManager cacheManager = new TwoTierCacheManager(transport,
+                () -> builder(properties.getDefaults(), executor, false).build(), meterRegistry);
+        for (String name : union(KNOWN_CACHES, properties.getSpecs().keySet())) {
+            CachingProperties.Spec spec = properties.specFor(name);
+            Cache shared = near.getSharedCaches().contains(name) ? sharedCaches.getCache(name) : null;
+            cacheManager.registerCache(name, builder(spec, executor, false).build(), shared, loadersByCache.get(name));
+            log.info("Cache {}: near maximum size {}, expire after write {}, {}", name, spec.getMaximumSize(),
+                    spec.getExpireAfterWrite(), shared != null ? "shared over " + near.getTransport() : "near only");
+        }
+        log.info("Two-tier caching enabled, node {} sends invalidations over {}", cacheManager.getNodeId(),
+                near.getTransport());
+        return new TransactionAwareCacheManagerProxy(cacheManager);
+    }
+
+    @Bean
+    @ConditionalOnProperty(name = "banking.caches.near.enabled", havingValue = "true")
+    public CacheInvalidationTransport cacheInvalidationTransport(CachingProperties properties,
+                                                                 ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        CachingProperties.Near near = properties.getNear();
+        if (CachingProperties.TRANSPORT_REDIS.equals(near.getTransport())) {
+            return new RedisCacheInvalidationTransport(redisConnectionFactory.getObject(), near.getChannel());
+        }
+        return new LoopbackCacheInvalidationTransport();
+    }
+
+    /**
+     * Publishes the hit, miss and eviction statistics of each near tier, as for plain Caffeine caches
+     */
+    @Bean
+    @ConditionalOnProperty(name = "banking.caches.near.enabled", havingValue = "true")
+    public CacheMeterBinderProvider<TwoTierCache> twoTierCacheMeterBinderProvider() {
+        return (cache, tags) -> new CaffeineCacheMetrics<>(cache.getNearCache(), cache.getName(), tags);
+    }
+
+    private static CacheManager sharedCacheManager(CachingProperties properties,
+                                                   ObjectProvider<RedisConnectionFactory> redisConnectionFactory) {
+        CachingProperties.Near near = properties.getNear();
+        if (!CachingProperties.TRANSPORT_REDIS.equals(near.getTransport())) {
+            // In-JVM stand-in for the shared store, entries are only dropped by eviction
+            ConcurrentMapCacheManager cacheManager = new ConcurrentMapCacheManager();
+            cacheManager.setAllowNullValues(false);
+            return cacheManager;
+        }
+
+        // Values are stored with JDK serialization, so shared caches must hold Serializable values
+        RedisCacheConfiguration defaults = RedisCacheConfiguration.defaultCacheConfig()
+                .disableCachingNullValues()
+                .prefixCacheNameWith(near.getKeyPrefix());
+        Map<String, RedisCacheConfiguration> configurations = new LinkedHashMap<>();
+        for (String name : near.getSharedCaches()) {
+            Duration ttl = properties.specFor(name).getExpireAfterWrite();
+            configurations.put(name, ttl != null ? defaults.entryTtl(ttl) : defaults);
+        }
+        RedisCacheManager cacheManager = RedisCacheManager.builder(redisConnectionFactory.getObject())
+                .cacheDefaults(defaults)
+                .withInitialCacheConfigurations(configurations)
+                .build();
+        cacheManager.afterPropertiesSet();
+        return cacheManager;
+    }
+
+    private static Map<String, NamedCacheLoader> loadersByCache(ObjectProvider<NamedCacheLoader> loaders) {
+        return loaders.orderedStream()
+                .collect(Collectors.toMap(NamedCacheLoader::cacheName, Function.identity()));
+    }
+
+    private static Caffeine<Object, Object> builder(CachingProperties.Spec spec, Executor executor,
+                                                    boolean refreshable) {
+        Caffeine<Object, Object> builder = Caffeine.newBuilder()
+                .recordStats()
+                // Reloads run on the transaction pool, not the common ForkJoinPool
+                .executor(executor);
+        if (spec.getMaximumSize() != null) {
+            builder.maximumSize(spec.getMaximumSize());
+        }
+        if (spec.getExpireAfterWrite() != null) {
+            builder.expireAfterWrite(spec.getExpireAfterWrite());
+        }
+        if (refreshable && spec.getRefreshAfterWrite() != null) {
+            builder.refreshAfterWrite(spec.getRefreshAfterWrite());
+        }
+        return builder;
+    }
+
+    private static List<String> union(List<String> first, Collection<String> second) {
+        return Stream.concat(first.stream(), second.stream()).distinct().toList();
     }
 }
@@ -0,0 +1,15 @@
+package com.eomaxl.bankapplication.config;
+
+import java.io.Serializable;
+
+/**
+ * Message telling other instances to drop an entry from their near cache
+ * @param origin node that made the change, which ignores its own messages
+ * @param key the evicted key, or null when the whole cache was cleared
+ */
+public record CacheInvalidation(String origin, String cacheName, Object key) implements Serializable {
+
+    public boolean isClear() {
+        return key == null;
+    }
+}
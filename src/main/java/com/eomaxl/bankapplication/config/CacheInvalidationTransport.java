@@ -0,0 +1,18 @@
+package com.eomaxl.bankapplication.config;
+
+import java.util.function.Consumer;
+
+/**
+ * Carries near cache invalidations between instances
+ * Delivery is best effort: a lost message leaves a stale near entry until it expires, so near caches
+ * are given a short expire-after-write.
+ */
+public interface CacheInvalidationTransport {
+
+    void publish(CacheInvalidation invalidation);
+
+    /**
+     * Registers a listener for every invalidation published, including this instance's own
+     */
+    void subscribe(Consumer<CacheInvalidation> listener);
+}
@@ -0,0 +1,69 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Size and expiry of each named cache, caches without their own spec use the defaults
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.caches")
+public class CachingProperties {
+
+    public static final String TRANSPORT_LOOPBACK = "loopback";
+    public static final String TRANSPORT_REDIS = "redis";
+
+    private Spec defaults = new Spec(10_000L, Duration.ofMinutes(10), null);
+
+    // Per cache overrides, keyed by cache name; unset fields fall back to the defaults
+    private Map<String, Spec> specs = new LinkedHashMap<>();
+
+    // Two-tier caching for running several instances, see TwoTierCacheManager
+    private Near near = new Near();
+
+    public Spec specFor(String cacheName) {
+        Spec spec = specs.get(cacheName);
+        if (spec == null) {
+            return defaults;
+        }
+        return new Spec(
+                spec.getMaximumSize() != null ? spec.getMaximumSize() : defaults.getMaximumSize(),
+                spec.getExpireAfterWrite() != null ? spec.getExpireAfterWrite() : defaults.getExpireAfterWrite(),
+                spec.getRefreshAfterWrite() != null ? spec.getRefreshAfterWrite() : defaults.getRefreshAfterWrite());
+    }
+
+    @Data
+    public static class Near {
+        private boolean enabled = false;
+        // loopback: in-JVM shared store and invalidations, for tests; redis: shared store and pub/sub channel in Redis
+        private String transport = TRANSPORT_LOOPBACK;
+        private String channel = "banking:cache-invalidation";
+        // Caches that also keep entries in the shared store, the rest are near-only and just receive invalidations
+        private List<String> sharedCaches = List.of(CacheConfig.BALANCES);
+        private String keyPrefix = "banking:";
+    }
+
+    @Data
+    public static class Spec {
+        private Long maximumSize;
+        private Duration expireAfterWrite;
+        // Entries older than this are reloaded in the background on their next read, needs a loader for the cache
+        private Duration refreshAfterWrite;
+
+        public Spec() {
+        }
+
+        public Spec(Long maximumSize, Duration expireAfterWrite, Duration refreshAfterWrite) {
+            this.maximumSize = maximumSize;
+            this.expireAfterWrite = expireAfterWrite;
+            this.refreshAfterWrite = refreshAfterWrite;
+        }
+    }
+}
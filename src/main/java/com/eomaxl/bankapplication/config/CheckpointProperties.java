@@ -0,0 +1,31 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the daily balance checkpoints that statements and balance-as-of reads start from
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.checkpoints")
+public class CheckpointProperties {
+
+    private boolean enabled = true;
+
+    // How often the job looks for closed days without checkpoints
+    private long intervalMs = 600000;
+
+    // A day is checkpointed this long after midnight, so transactions still committing for it are included
+    private int closeAfterMinutes = 30;
+
+    // Days checkpointed before the first run, older reads aggregate from the account's first transaction
+    private int backfillDays = 90;
+
+    // Caps catch-up after downtime, the remaining days are taken on the following runs
+    private int maxDaysPerRun = 31;
+
+    // Accounts checkpointed per transaction
+    private int batchSize = 500;
+}
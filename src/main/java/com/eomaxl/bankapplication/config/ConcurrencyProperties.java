@@ -0,0 +1,43 @@
+package com.eomaxl.bankapplication.config;
+
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Balance update concurrency settings, selectable per account type
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.concurrency")
+public class ConcurrencyProperties {
+
+    private BalanceUpdateMode defaultMode = BalanceUpdateMode.PESSIMISTIC;
+
+    // Per account type overrides of the default mode
+    private Map<AccountType, BalanceUpdateMode> modes = new EnumMap<>(AccountType.class);
+
+    private Optimistic optimistic = new Optimistic();
+
+    public BalanceUpdateMode modeFor(AccountType accountType) {
+        return modes.getOrDefault(accountType, defaultMode);
+    }
+
+    /**
+     * True when every account type resolves to the default mode, so no type lookup is needed
+     */
+    public boolean isUniform() {
+        return modes.values().stream().allMatch(mode -> mode == defaultMode);
+    }
+
+    @Data
+    public static class Optimistic {
+        private int maxAttempts = 5;
+        private long initialBackoffMs = 5;
+        private long maxBackoffMs = 100;
+    }
+}
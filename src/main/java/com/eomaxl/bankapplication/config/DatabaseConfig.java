@@ -2,6 +2,10 @@ package com.eomaxl.bankapplication.config;
 
 import com.zaxxer.hikari.HikariConfig;
 import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -10,14 +14,21 @@ import org.springframework.context.annotation.Primary;
 import javax.sql.DataSource;
 
 @Configuration
+@Slf4j
 public class DatabaseConfig {
 
     @Bean
     @Primary
-    @ConfigurationProperties("spring.datasouce.hikari")
-    public HikariConfig hikariConfig() {
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariConfig hikariConfig(DataSourceProperties dataSourceProperties) {
         HikariConfig config = new HikariConfig();
 
+        // Connection settings from spring.datasource, anything under spring.datasource.hikari overrides them
+        config.setJdbcUrl(dataSourceProperties.determineUrl());
+        config.setUsername(dataSourceProperties.determineUsername());
+        config.setPassword(dataSourceProperties.determinePassword());
+        config.setDriverClassName(dataSourceProperties.determineDriverClassName());
+
         // Connection pool optimized for low latency
         config.setMaximumPoolSize(50);
         config.setMinimumIdle(10);
@@ -40,6 +51,7 @@ public class DatabaseConfig {
 
         // PostgreSQL specific Optimizations
         config.addDataSourceProperty("defaultRowFetchSize", "1000");
+        config.addDataSourceProperty("reWriteBatchedInserts", "true");
         config.addDataSourceProperty("logUnclosedConnections", "true");
 
         return config;
@@ -47,7 +59,19 @@ public class DatabaseConfig {
 
     @Bean
     @Primary
-    public DataSource dataSource() {
-        return new HikariDataSource(hikariConfig());
+    public DataSource dataSource(HikariConfig config, ThreadingProperties threading,
+                                 ObjectProvider<MeterRegistry> meterRegistry) {
+        HikariDataSource pool = new HikariDataSource(config);
+        if (!threading.isVirtualThreads()) {
+            return pool;
+        }
+
+        // Virtual threads are not limited by a pool size, so connection checkouts are bounded instead
+        int permits = threading.getConnectionPermits() > 0
+                ? threading.getConnectionPermits() : config.getMaximumPoolSize();
+        long timeoutMs = threading.getPermitTimeoutMs() > 0
+                ? threading.getPermitTimeoutMs() : config.getConnectionTimeout();
+        log.info("Bounding database access to {} concurrent connections for virtual threads", permits);
+        return new ConnectionPermitDataSource(pool, permits, timeoutMs, meterRegistry.getIfAvailable());
     }
 }
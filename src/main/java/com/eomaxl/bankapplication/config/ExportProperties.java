@@ -0,0 +1,26 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for streaming statement exports
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.exports")
+public class ExportProperties {
+
+    // Rows fetched per round trip while the cursor streams, bounds the rows held in memory per export
+    private int fetchSize = 1000;
+
+    // Size of the buffer between the cursor and the response, written out whenever it fills
+    private int bufferBytes = 65536;
+
+    // Exports streaming at once on a node, each holds a connection for its whole run; more get 429
+    private int maxConcurrent = 4;
+
+    // Upper bound for one export, it is cancelled and its connection released once this passes
+    private long timeoutMs = 1_800_000;
+}
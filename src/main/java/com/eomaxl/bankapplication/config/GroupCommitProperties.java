@@ -0,0 +1,25 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for grouping concurrent deposits and withdrawals into shared database commits
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.group-commit")
+public class GroupCommitProperties {
+
+    private boolean enabled = false;
+
+    // How long the first request of a group waits for others to join
+    private long windowMs = 2;
+
+    // A group is committed as soon as it reaches this many requests, even inside the window
+    private int maxGroupSize = 256;
+
+    // Upper bound a caller waits for its group to be committed
+    private long timeoutMs = 30000;
+}
@@ -0,0 +1,34 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for generating business identifiers without database lookups
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.ids")
+public class IdGenerationProperties {
+
+    // Unique per running instance (0-1023); leased from the node_id_leases table when unset
+    private Integer nodeId;
+
+    // How long a leased node ID stays reserved without renewal, it is renewed every third of this
+    private Duration nodeIdLeaseTtl = Duration.ofSeconds(60);
+
+    // Entity IDs reserved per sequence call, must match INCREMENT BY of the *_seq sequences (see V8 migration)
+    private int allocationSize = 50;
+
+    // Account numbers reserved per bank code by each node in one database round trip
+    private int accountNumberBlockSize = 100;
+
+    // Customer IDs reserved by each node in one database round trip
+    private int customerIdBlockSize = 100;
+
+    // Appends a Luhn check digit to account numbers and customer IDs
+    private boolean checkDigit = true;
+}
@@ -0,0 +1,31 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+
+/**
+ * Settings for the Idempotency-Key store
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.idempotency")
+public class IdempotencyProperties {
+
+    // How long a key and its stored response are honoured
+    private Duration ttl = Duration.ofHours(24);
+
+    // Lease of a key whose request is still running. The action commits together with its stored response,
+    // so a key left in progress by a crash had its action rolled back and is free again after the lease.
+    // Must exceed the longest transaction timeout of an idempotent action.
+    private Duration inProgressTtl = Duration.ofMinutes(2);
+
+    // In-memory tier for recent keys, so most retries never reach the database
+    private int hotMaxSize = 10000;
+    private Duration hotTtl = Duration.ofMinutes(10);
+
+    // How often expired keys are deleted from the durable table
+    private Duration purgeInterval = Duration.ofHours(1);
+}
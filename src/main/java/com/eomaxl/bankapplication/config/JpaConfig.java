@@ -1,6 +1,8 @@
 package com.eomaxl.bankapplication.config;
 
+import com.eomaxl.bankapplication.domain.model.PooledSequenceIdGenerator;
 import jakarta.persistence.EntityManagerFactory;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
@@ -23,4 +25,11 @@ public class JpaConfig {
         transactionManager.setRollbackOnCommitFailure(true);
         return transactionManager;
     }
+
+    @Bean
+    public HibernatePropertiesCustomizer idAllocationCustomizer(IdGenerationProperties idGenerationProperties) {
+        // Block size of the pooled entity ID sequences
+        return properties -> properties.put(PooledSequenceIdGenerator.ALLOCATION_SIZE_SETTING,
+                idGenerationProperties.getAllocationSize());
+    }
 }
@@ -0,0 +1,29 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the account ledger engine behind IAccountService
+ * "jpa" keeps the database-locked implementation, "in-memory" enables the partitioned single-writer ledger
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.ledger")
+public class LedgerProperties {
+
+    public static final String ENGINE_JPA = "jpa";
+    public static final String ENGINE_IN_MEMORY = "in-memory";
+
+    private String engine = ENGINE_JPA;
+
+    // Number of single-writer partitions, each owned by one thread
+    private int partitions = Runtime.getRuntime().availableProcessors();
+
+    // How often dirty balances are written back to the accounts table
+    private long flushIntervalMs = 50;
+
+    // Upper bound a caller waits for its command to be applied by the owning partition
+    private long commandTimeoutMs = 30000;
+}
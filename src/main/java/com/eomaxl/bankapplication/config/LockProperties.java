@@ -0,0 +1,17 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the striped account lock table used by DistributedTransactionService
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.locks")
+public class LockProperties {
+
+    // Fixed number of locks, rounded up to a power of two
+    private int stripes = 256;
+}
@@ -0,0 +1,16 @@
+package com.eomaxl.bankapplication.config;
+
+/**
+ * Loads entries of one named cache outside of the cached method
+ * Needed for refresh-after-write, which reloads entries in the background without a caller. A cache with
+ * a loader also uses it on a miss, so it must produce exactly what the cached method would return.
+ */
+public interface NamedCacheLoader {
+
+    String cacheName();
+
+    /**
+     * @return the value to cache for the key, or null when it no longer exists
+     */
+    Object load(Object key);
+}
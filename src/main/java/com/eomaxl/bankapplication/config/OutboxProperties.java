@@ -0,0 +1,42 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for draining the transaction notification outbox
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.outbox")
+public class OutboxProperties {
+
+    public static final String SINK_LOCAL = "local";
+
+    // Which ITransactionNotificationSink delivers events, "local" publishes them inside this JVM
+    private String sink = SINK_LOCAL;
+
+    // How many due events are read per poll of the table
+    private int batchSize = 500;
+
+    // Events handed to the sink in one call
+    private int deliveryBatchSize = 100;
+
+    // Delivery threads, each holds a connection while its batch is locked, so keep this well below the pool size
+    private int concurrency = 4;
+
+    // Poll interval for events committed by other nodes or left over from a restart
+    private long pollIntervalMs = 500;
+
+    // Failed deliveries are retried with exponential backoff starting here
+    private long retryBackoffMs = 1000;
+
+    private long maxRetryBackoffMs = 60000;
+
+    // Attempts before an event is parked as FAILED
+    private int maxAttempts = 10;
+
+    // Delivered events are deleted once they are older than this
+    private int retentionHours = 24;
+}
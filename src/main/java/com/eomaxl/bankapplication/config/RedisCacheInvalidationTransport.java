@@ -0,0 +1,85 @@
+package com.eomaxl.bankapplication.config;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.redis.connection.Message;
+import org.springframework.data.redis.connection.MessageListener;
+import org.springframework.data.redis.connection.RedisConnectionFactory;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.listener.ChannelTopic;
+import org.springframework.data.redis.listener.RedisMessageListenerContainer;
+import org.springframework.data.redis.serializer.RedisSerializer;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * Broadcasts invalidations over a Redis pub/sub channel
+ * Pub/sub does not store messages, an instance that is disconnected when one is sent misses it and
+ * relies on its near cache expiring.
+ */
+@Slf4j
+public class RedisCacheInvalidationTransport implements CacheInvalidationTransport, MessageListener {
+
+    private final RedisTemplate<String, Object> template;
+    private final RedisSerializer<Object> serializer = RedisSerializer.java();
+    private final String channel;
+    private final RedisMessageListenerContainer listenerContainer;
+    private final List<Consumer<CacheInvalidation>> listeners = new CopyOnWriteArrayList<>();
+
+    public RedisCacheInvalidationTransport(RedisConnectionFactory connectionFactory, String channel) {
+        this.channel = channel;
+        this.template = new RedisTemplate<>();
+        template.setConnectionFactory(connectionFactory);
+        template.setKeySerializer(RedisSerializer.string());
+        template.setValueSerializer(serializer);
+        template.afterPropertiesSet();
+
+        this.listenerContainer = new RedisMessageListenerContainer();
+        listenerContainer.setConnectionFactory(connectionFactory);
+        listenerContainer.addMessageListener(this, new ChannelTopic(channel));
+    }
+
+    @PostConstruct
+    public void start() {
+        listenerContainer.afterPropertiesSet();
+        listenerContainer.start();
+        log.info("Listening for cache invalidations on Redis channel {}", channel);
+    }
+
+    @PreDestroy
+    public void stop() throws Exception {
+        listenerContainer.destroy();
+    }
+
+    @Override
+    public void publish(CacheInvalidation invalidation) {
+        try {
+            template.convertAndSend(channel, invalidation);
+        } catch (RuntimeException e) {
+            // The change is committed either way, other instances catch up when their near entries expire
+            log.warn("Failed to publish cache invalidation {}", invalidation, e);
+        }
+    }
+
+    @Override
+    public void subscribe(Consumer<CacheInvalidation> listener) {
+        listeners.add(listener);
+    }
+
+    @Override
+    public void onMessage(Message message, byte[] pattern) {
+        Object body;
+        try {
+            body = serializer.deserialize(message.getBody());
+        } catch (RuntimeException e) {
+            log.warn("Ignoring unreadable cache invalidation on {}", channel, e);
+            return;
+        }
+        if (body instanceof CacheInvalidation invalidation) {
+            listeners.forEach(listener -> listener.accept(invalidation));
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for the daily transaction rollups that reports read instead of raw transactions
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.rollups")
+public class RollupProperties {
+
+    private boolean enabled = true;
+
+    // How often the compactor looks for closed days that are not rolled up
+    private long intervalMs = 600000;
+
+    // A day is rolled up this long after midnight, so transactions still committing for it are included
+    private int closeAfterMinutes = 30;
+
+    // Caps catch-up per run, the first run starts from the earliest transaction
+    private int maxDaysPerRun = 366;
+
+    // Dirty account days rolled up again per transaction when a run catches up on failed recomputes
+    private int dirtyBatchSize = 500;
+}
@@ -0,0 +1,20 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hot accounts whose balance is spread across several sub-balance rows
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.sharding")
+public class ShardingProperties {
+
+    // Account number to number of sub-balance rows, accounts removed from here stay sharded until folded explicitly
+    private Map<String, Integer> hotAccounts = new LinkedHashMap<>();
+}
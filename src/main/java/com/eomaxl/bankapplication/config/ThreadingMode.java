@@ -0,0 +1,11 @@
+package com.eomaxl.bankapplication.config;
+
+/**
+ * Threads used for request handling and the async executors
+ */
+public enum ThreadingMode {
+    // Tomcat's worker pool and bounded ThreadPoolTaskExecutors
+    PLATFORM,
+    // A virtual thread per request and per task, database concurrency bounded by connection permits (Java 21+)
+    VIRTUAL
+}
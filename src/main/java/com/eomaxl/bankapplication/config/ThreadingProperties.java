@@ -0,0 +1,34 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Thread model settings for request handling and the async executors
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.threads")
+public class ThreadingProperties {
+
+    private static final int VIRTUAL_THREADS_MIN_JAVA = 21;
+
+    private ThreadingMode mode = ThreadingMode.PLATFORM;
+
+    // Connections that may be checked out at once in virtual mode, 0 uses the Hikari maximum pool size
+    private int connectionPermits = 0;
+
+    // How long a thread waits for a connection permit, 0 uses the Hikari connection timeout
+    private long permitTimeoutMs = 0;
+
+    // Reports virtual threads pinned to their carrier for at least this long
+    private long pinnedThresholdMs = 20;
+
+    /**
+     * True when virtual threads were requested and the running JVM provides them
+     */
+    public boolean isVirtualThreads() {
+        return mode == ThreadingMode.VIRTUAL && Runtime.version().feature() >= VIRTUAL_THREADS_MIN_JAVA;
+    }
+}
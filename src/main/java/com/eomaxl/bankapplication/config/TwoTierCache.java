@@ -0,0 +1,236 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.support.SimpleValueWrapper;
+
+import java.util.concurrent.Callable;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+
+/**
+ * Near cache in this JVM in front of an optional cache shared by all instances
+ * Reads try the near cache, then the shared cache, then the loader, filling the tiers above on the way
+ * back. Writes and evictions go to the shared cache first and then broadcast an invalidation, so other
+ * instances drop their near copy and read the new value from the shared cache next time. Loads are not
+ * broadcast since they do not change anything, and only fill a shared entry that is still absent.
+ * When the shared tier is unreachable it is skipped: reads fall through to the loader and writes only
+ * reach the near tier and the broadcast, so a shared store outage degrades to near-only caching.
+ */
+@Slf4j
+public class TwoTierCache implements Cache {
+
+    private final String name;
+    private final com.github.benmanes.caffeine.cache.Cache<Object, Object> near;
+    private final Cache shared;
+    private final NamedCacheLoader loader;
+    private final Consumer<Object> invalidator;
+
+    /**
+     * @param shared the shared tier, or null for a near-only cache that still takes part in invalidation
+     * @param loader loads values missing from both tiers, or null
+     * @param invalidator broadcasts the key of a changed entry, null for the whole cache
+     */
+    public TwoTierCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> near,
+                        Cache shared, NamedCacheLoader loader, Consumer<Object> invalidator) {
+        this.name = name;
+        this.near = near;
+        this.shared = shared;
+        this.loader = loader;
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public Object getNativeCache() {
+        return this;
+    }
+
+    public com.github.benmanes.caffeine.cache.Cache<Object, Object> getNearCache() {
+        return near;
+    }
+
+    @Override
+    public ValueWrapper get(Object key) {
+        Object value = near.get(key, this::loadBelow);
+        return value != null ? new SimpleValueWrapper(value) : null;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Class<T> type) {
+        Object value = near.get(key, this::loadBelow);
+        if (value != null && type != null && !type.isInstance(value)) {
+            throw new IllegalStateException("Cached value is not of required type [" + type.getName() + "]: " + value);
+        }
+        return (T) value;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> T get(Object key, Callable<T> valueLoader) {
+        return (T) near.get(key, missing -> {
+            Object value = loadBelow(missing);
+            if (value != null) {
+                return value;
+            }
+            try {
+                value = valueLoader.call();
+            } catch (Exception e) {
+                throw new ValueRetrievalException(missing, valueLoader, e);
+            }
+            if (value != null) {
+                fillShared(missing, value);
+            }
+            return value;
+        });
+    }
+
+    @Override
+    public void put(Object key, Object value) {
+        if (value == null) {
+            evict(key);
+            return;
+        }
+        if (shared != null) {
+            try {
+                shared.put(key, value);
+            } catch (RuntimeException e) {
+                sharedUnavailable("write", key, e);
+            }
+        }
+        near.put(key, value);
+        invalidator.accept(key);
+    }
+
+    @Override
+    public ValueWrapper putIfAbsent(Object key, Object value) {
+        Object existing = near.getIfPresent(key);
+        if (existing == null) {
+            existing = getShared(key);
+        }
+        if (existing != null) {
+            return new SimpleValueWrapper(existing);
+        }
+        put(key, value);
+        return null;
+    }
+
+    /**
+     * Merges the value into the near entry and invalidates the entry everywhere else
+     * The near entry is remapped atomically, so the remapping decides between concurrent writers in this JVM.
+     * The shared entry is deleted rather than compared and replaced: a read-compare-write against the shared
+     * store is not atomic across instances and could put an older value over a newer one, whereas after a
+     * delete the next miss reloads the current value from the loader. Never goes to the loader itself.
+     */
+    public void merge(Object key, Object value, BinaryOperator<Object> remapping) {
+        evictShared(key);
+        near.asMap().merge(key, value, remapping);
+        invalidator.accept(key);
+    }
+
+    @Override
+    public void evict(Object key) {
+        evictShared(key);
+        near.invalidate(key);
+        invalidator.accept(key);
+    }
+
+    @Override
+    public boolean evictIfPresent(Object key) {
+        boolean present = false;
+        if (shared != null) {
+            try {
+                present = shared.evictIfPresent(key);
+            } catch (RuntimeException e) {
+                sharedUnavailable("evict", key, e);
+            }
+        }
+        present |= near.asMap().remove(key) != null;
+        invalidator.accept(key);
+        return present;
+    }
+
+    @Override
+    public void clear() {
+        if (shared != null) {
+            try {
+                shared.clear();
+            } catch (RuntimeException e) {
+                sharedUnavailable("clear", null, e);
+            }
+        }
+        near.invalidateAll();
+        invalidator.accept(null);
+    }
+
+    /**
+     * Drops a near entry changed by another instance, the shared tier already has the new value
+     */
+    void evictNear(Object key) {
+        near.invalidate(key);
+    }
+
+    void clearNear() {
+        near.invalidateAll();
+    }
+
+    private Object loadBelow(Object key) {
+        Object value = getShared(key);
+        if (value != null || loader == null) {
+            return value;
+        }
+        value = loader.load(key);
+        if (value != null) {
+            fillShared(key, value);
+        }
+        return value;
+    }
+
+    private Object getShared(Object key) {
+        if (shared == null) {
+            return null;
+        }
+        try {
+            ValueWrapper wrapper = shared.get(key);
+            return wrapper != null ? wrapper.get() : null;
+        } catch (RuntimeException e) {
+            sharedUnavailable("read", key, e);
+            return null;
+        }
+    }
+
+    // A load never replaces a shared entry. A load that read the database before a concurrent merge deleted
+    // the entry can still fill it with the older value afterwards; the shared expiry bounds how long that lasts
+    private void fillShared(Object key, Object value) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.putIfAbsent(key, value);
+        } catch (RuntimeException e) {
+            sharedUnavailable("fill", key, e);
+        }
+    }
+
+    private void evictShared(Object key) {
+        if (shared == null) {
+            return;
+        }
+        try {
+            shared.evict(key);
+        } catch (RuntimeException e) {
+            // The shared entry may outlive the change until it expires
+            sharedUnavailable("evict", key, e);
+        }
+    }
+
+    private void sharedUnavailable(String operation, Object key, RuntimeException error) {
+        log.warn("Shared tier of cache {} unavailable, {} of {} used the near tier only: {}", name, operation,
+                key, error.getMessage());
+    }
+}
@@ -0,0 +1,99 @@
+package com.eomaxl.bankapplication.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Cache manager for running several instances, each with near caches kept coherent by invalidations
+ * Every change to a cache is broadcast on the transport after it is written to, or deleted from, the
+ * shared tier. Changes to balances are only written once their transaction commits (see BalanceCache), so
+ * an invalidation is never sent for a change that later rolls back. Messages from this instance are
+ * ignored on receipt.
+ */
+@Slf4j
+public class TwoTierCacheManager implements CacheManager {
+
+    private final String nodeId = UUID.randomUUID().toString();
+    private final CacheInvalidationTransport transport;
+    private final Supplier<com.github.benmanes.caffeine.cache.Cache<Object, Object>> defaultNear;
+    private final Map<String, TwoTierCache> caches = new ConcurrentHashMap<>();
+
+    private final Counter sentCounter;
+    private final Counter receivedCounter;
+
+    /**
+     * @param defaultNear builds the near cache of caches that were not registered up front
+     */
+    public TwoTierCacheManager(CacheInvalidationTransport transport,
+                               Supplier<com.github.benmanes.caffeine.cache.Cache<Object, Object>> defaultNear,
+                               MeterRegistry meterRegistry) {
+        this.transport = transport;
+        this.defaultNear = defaultNear;
+        this.sentCounter = Counter.builder("banking.cache.invalidations")
+                .description("Near cache invalidations broadcast to other instances")
+                .tag("direction", "sent")
+                .register(meterRegistry);
+        this.receivedCounter = Counter.builder("banking.cache.invalidations")
+                .description("Near cache invalidations received from other instances")
+                .tag("direction", "received")
+                .register(meterRegistry);
+        transport.subscribe(this::onInvalidation);
+    }
+
+    /**
+     * @param shared the shared tier, or null to keep the cache near-only
+     * @param loader loads values missing from both tiers, or null
+     */
+    public void registerCache(String name, com.github.benmanes.caffeine.cache.Cache<Object, Object> near,
+                              Cache shared, NamedCacheLoader loader) {
+        caches.put(name, new TwoTierCache(name, near, shared, loader, key -> publish(name, key)));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        return caches.computeIfAbsent(name,
+                missing -> new TwoTierCache(missing, defaultNear.get(), null, null, key -> publish(missing, key)));
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return Collections.unmodifiableSet(caches.keySet());
+    }
+
+    private void publish(String cacheName, Object key) {
+        transport.publish(new CacheInvalidation(nodeId, cacheName, key));
+        sentCounter.increment();
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        if (nodeId.equals(invalidation.origin())) {
+            return;
+        }
+        TwoTierCache cache = caches.get(invalidation.cacheName());
+        if (cache == null) {
+            return;
+        }
+        receivedCounter.increment();
+        if (invalidation.isClear()) {
+            cache.clearNear();
+        } else {
+            cache.evictNear(invalidation.key());
+        }
+        log.trace("Dropped near entry {} of cache {} changed by {}", invalidation.key(),
+                invalidation.cacheName(), invalidation.origin());
+    }
+}
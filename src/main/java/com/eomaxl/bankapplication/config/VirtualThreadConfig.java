@@ -0,0 +1,32 @@
+package com.eomaxl.bankapplication.config;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnJava;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.system.JavaVersion;
+import org.springframework.boot.web.embedded.tomcat.TomcatProtocolHandlerCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+
+/**
+ * Virtual thread mode, enabled with banking.threads.mode=virtual on Java 21 or newer
+ * Tomcat handles each request on its own virtual thread, the async executors switch over in AsyncConfig
+ * and connection checkouts are bounded in DatabaseConfig.
+ */
+@Configuration
+@ConditionalOnProperty(name = "banking.threads.mode", havingValue = "virtual")
+@ConditionalOnJava(JavaVersion.TWENTY_ONE)
+public class VirtualThreadConfig {
+
+    @Bean
+    public TomcatProtocolHandlerCustomizer<?> virtualThreadProtocolHandlerCustomizer() {
+        return protocolHandler -> protocolHandler.setExecutor(new VirtualThreadTaskExecutor("TomcatVirtual-"));
+    }
+
+    @Bean
+    public VirtualThreadPinningMonitor virtualThreadPinningMonitor(MeterRegistry meterRegistry,
+                                                                   ThreadingProperties properties) {
+        return new VirtualThreadPinningMonitor(meterRegistry, properties.getPinnedThresholdMs());
+    }
+}
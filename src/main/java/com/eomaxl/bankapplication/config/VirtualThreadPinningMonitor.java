@@ -0,0 +1,101 @@
+package com.eomaxl.bankapplication.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Reports virtual threads that block while pinned to their carrier thread
+ * Listens to the JDK's jdk.VirtualThreadPinned flight recorder event in-process, so it works without
+ * -Djdk.tracePinnedThreads or a recording on disk. Every event is counted and timed; the stack is logged
+ * the first time a call site pins and then every LOG_EVERY occurrences, keyed by the first application frame.
+ */
+@Slf4j
+public class VirtualThreadPinningMonitor {
+
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final String APPLICATION_PACKAGE = "com.eomaxl.bankapplication";
+    private static final int LOG_EVERY = 1000;
+    private static final int LOGGED_FRAMES = 12;
+
+    private final long thresholdMs;
+    private final Counter pinnedCounter;
+    private final Timer pinnedTimer;
+    private final Map<String, AtomicLong> pinsBySite = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    public VirtualThreadPinningMonitor(MeterRegistry meterRegistry, long thresholdMs) {
+        this.thresholdMs = thresholdMs;
+        this.pinnedCounter = Counter.builder("banking.threads.pinned")
+                .description("Virtual threads that blocked while pinned to a carrier")
+                .register(meterRegistry);
+        this.pinnedTimer = Timer.builder("banking.threads.pinned.duration")
+                .description("Time virtual threads spent blocked while pinned")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    public void start() {
+        stream = new RecordingStream();
+        stream.enable(PINNED_EVENT).withThreshold(Duration.ofMillis(thresholdMs)).withStackTrace();
+        stream.onEvent(PINNED_EVENT, this::onPinned);
+        stream.startAsync();
+        log.info("Monitoring virtual thread pinning longer than {}ms", thresholdMs);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    private void onPinned(RecordedEvent event) {
+        pinnedCounter.increment();
+        pinnedTimer.record(event.getDuration());
+
+        RecordedStackTrace stackTrace = event.getStackTrace();
+        List<RecordedFrame> frames = stackTrace == null ? List.of() : stackTrace.getFrames();
+        String site = callSite(frames);
+        long count = pinsBySite.computeIfAbsent(site, key -> new AtomicLong()).incrementAndGet();
+        if (count == 1 || count % LOG_EVERY == 0) {
+            log.warn("Virtual thread pinned for {}ms at {} ({} times so far){}", event.getDuration().toMillis(),
+                    site, count, format(frames));
+        }
+    }
+
+    private static String callSite(List<RecordedFrame> frames) {
+        for (RecordedFrame frame : frames) {
+            if (frame.getMethod().getType().getName().startsWith(APPLICATION_PACKAGE)) {
+                return describe(frame);
+            }
+        }
+        return frames.isEmpty() ? "unknown" : describe(frames.get(0));
+    }
+
+    private static String format(List<RecordedFrame> frames) {
+        StringBuilder builder = new StringBuilder();
+        for (int i = 0; i < Math.min(frames.size(), LOGGED_FRAMES); i++) {
+            builder.append(System.lineSeparator()).append("\tat ").append(describe(frames.get(i)));
+        }
+        return builder.toString();
+    }
+
+    private static String describe(RecordedFrame frame) {
+        return frame.getMethod().getType().getName() + "." + frame.getMethod().getName()
+                + ":" + frame.getLineNumber();
+    }
+}
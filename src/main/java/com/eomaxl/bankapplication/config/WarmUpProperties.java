@@ -0,0 +1,31 @@
+package com.eomaxl.bankapplication.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Settings for warming caches and the JIT before an instance reports ready
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "banking.warm-up")
+public class WarmUpProperties {
+
+    private boolean enabled = true;
+
+    // Most active accounts whose entity and balance are preloaded
+    private int accounts = 2000;
+
+    // Activity is counted over transactions made in this window
+    private int lookbackHours = 24;
+
+    // Threads loading accounts, each holds a connection while it loads
+    private int parallelism = 4;
+
+    // Reads of warmed accounts repeated so the hot read path is compiled before real traffic arrives
+    private int syntheticReads = 20000;
+
+    // The instance reports ready after this even if warm-up has not finished
+    private long timeoutMs = 120000;
+}
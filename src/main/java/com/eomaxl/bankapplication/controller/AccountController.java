@@ -1,5 +1,7 @@
 package com.eomaxl.bankapplication.controller;
 
+import com.eomaxl.bankapplication.config.ExportProperties;
+import com.eomaxl.bankapplication.domain.model.StatementFormat;
 import com.eomaxl.bankapplication.dto.AccountDto;
 import com.eomaxl.bankapplication.dto.TransactionDto;
 import com.eomaxl.bankapplication.dto.request.CreateAccountRequest;
@@ -8,20 +10,30 @@ import com.eomaxl.bankapplication.dto.request.WithdrawalRequest;
 import com.eomaxl.bankapplication.dto.response.ApiResponse;
 import com.eomaxl.bankapplication.mapper.BankingMapper;
 import com.eomaxl.bankapplication.service.IAccountService;
+import com.eomaxl.bankapplication.service.IIdempotencyService;
 import com.eomaxl.bankapplication.service.ITransactionService;
+import com.eomaxl.bankapplication.service.impl.ShardedBalanceService;
+import com.eomaxl.bankapplication.service.impl.StatementExporter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.WebAsyncTask;
 
 import java.math.BigDecimal;
+import java.time.LocalDateTime;
 import java.util.List;
 
 @RestController
@@ -31,8 +43,14 @@ import java.util.List;
 @Tag(name = "Account Management", description = "APIs for managing bank accounts")
 public class AccountController {
 
+    static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
     private final IAccountService accountService;
     private final ITransactionService transactionService;
+    private final IIdempotencyService idempotencyService;
+    private final StatementExporter statementExporter;
+    private final ExportProperties exportProperties;
+    private final ShardedBalanceService shardedBalances;
     private final BankingMapper mapper;
 
     @PostMapping
@@ -70,30 +88,102 @@ public class AccountController {
         return ResponseEntity.ok(ApiResponse.success("Current balance retrieved", balance));
     }
 
+    @GetMapping("/{accountNumber}/balance/as-of")
+    @Operation(summary = "Get historical balance",
+            description = "Retrieves the balance of an account after its completed transactions up to a point in time")
+    public ResponseEntity<ApiResponse<BigDecimal>> getAccountBalanceAsOf(
+            @Parameter(description = "Account number") @PathVariable String accountNumber,
+            @Parameter(description = "Point in time, ISO-8601 date-time")
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime timestamp) {
+        log.info("Retrieving balance for account: {} as of {}", accountNumber, timestamp);
+
+        var balance = transactionService.getBalanceAsOf(accountNumber, timestamp);
+        return ResponseEntity.ok(ApiResponse.success("Balance as of " + timestamp + " retrieved", balance));
+    }
+
+    @GetMapping("/{accountNumber}/statement/export")
+    @Operation(summary = "Export account statement",
+            description = "Streams every transaction of an account in a period as CSV or NDJSON, oldest first")
+    public WebAsyncTask<Void> exportStatement(
+            @Parameter(description = "Account number") @PathVariable String accountNumber,
+            @Parameter(description = "csv or ndjson") @RequestParam(defaultValue = "csv") String format,
+            @Parameter(description = "Start of the period, ISO-8601 date-time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+            @Parameter(description = "End of the period, ISO-8601 date-time")
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+            HttpServletResponse response) {
+        log.info("Exporting statement for account: {} from {} to {} as {}", accountNumber, from, to, format);
+
+        var statementFormat = StatementFormat.fromParameter(format);
+        // Resolved before the body starts, so an unknown account or a full node still gets an error response
+        var account = accountService.getAccountByNumber(accountNumber);
+        var slot = statementExporter.reserve();
+
+        response.setContentType(statementFormat.getMediaType());
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, ContentDisposition.attachment()
+                .filename("statement-" + accountNumber + "." + statementFormat.getFileExtension())
+                .build()
+                .toString());
+
+        // The timeout applies to this endpoint alone, other async requests keep the default
+        WebAsyncTask<Void> task = new WebAsyncTask<>(exportProperties.getTimeoutMs(), () -> {
+            slot.export(account.getId(), from, to, statementFormat, response.getOutputStream());
+            return null;
+        });
+        // Stops the writer before the timed out request completes
+        task.onTimeout(() -> {
+            slot.cancel();
+            throw new AsyncRequestTimeoutException();
+        });
+        // Frees the slot of an export that never started, a no-op once it has run
+        task.onCompletion(slot::cancel);
+        return task;
+    }
+
+    @PostMapping("/{accountNumber}/shards/fold")
+    @Operation(summary = "Fold balance shards", description = "Moves the sub-balances of a formerly hot account back into its account row")
+    public ResponseEntity<ApiResponse<BigDecimal>> foldShards(
+            @Parameter(description = "Account number") @PathVariable String accountNumber) {
+        log.info("Folding balance shards of account: {}", accountNumber);
+
+        var balance = shardedBalances.foldShards(accountNumber);
+        return ResponseEntity.ok(ApiResponse.success("Balance shards folded successfully", balance));
+    }
+
     @PostMapping("/{accountNumber}/deposit")
     @Operation(summary = "Deposit money", description = "Deposits money into an account")
     public ResponseEntity<ApiResponse<TransactionDto>> deposit(
             @Parameter(description = "Account number") @PathVariable String accountNumber,
+            @Parameter(description = "Key that makes retries of this deposit safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody DepositRequest request) {
         log.info("Processing deposit of {} to account: {}", request.getAmount(), accountNumber);
 
-        var transaction = transactionService.deposit(accountNumber, request.getAmount(), request.getDescription());
-        var transactionDto = mapper.toTransactionDto(transaction);
+        var fingerprint = List.of(accountNumber, request);
+        return idempotencyService.execute(idempotencyKey, "DEPOSIT", fingerprint, TransactionDto.class, () -> {
+            var transaction = transactionService.deposit(accountNumber, request.getAmount(), request.getDescription());
+            var transactionDto = mapper.toTransactionDto(transaction);
 
-        return ResponseEntity.ok(ApiResponse.success("Deposit completed successfully", transactionDto));
+            return ResponseEntity.ok(ApiResponse.success("Deposit completed successfully", transactionDto));
+        });
     }
 
     @PostMapping("/{accountNumber}/withdraw")
     @Operation(summary = "Withdraw money", description = "Withdraws money from an account")
     public ResponseEntity<ApiResponse<TransactionDto>> withdraw(
             @Parameter(description = "Account number") @PathVariable String accountNumber,
+            @Parameter(description = "Key that makes retries of this withdrawal safe")
+            @RequestHeader(value = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
             @Valid @RequestBody WithdrawalRequest request) {
         log.info("Processing withdrawal of {} from account: {}", request.getAmount(), accountNumber);
 
-        var transaction = transactionService.withdrawal(accountNumber, request.getAmount(), request.getDescription());
-        var transactionDto = mapper.toTransactionDto(transaction);
+        var fingerprint = List.of(accountNumber, request);
+        return idempotencyService.execute(idempotencyKey, "WITHDRAWAL", fingerprint, TransactionDto.class, () -> {
+            var transaction = transactionService.withdrawal(accountNumber, request.getAmount(), request.getDescription());
+            var transactionDto = mapper.toTransactionDto(transaction);
 
-        return ResponseEntity.ok(ApiResponse.success("Withdrawal completed successfully", transactionDto));
+            return ResponseEntity.ok(ApiResponse.success("Withdrawal completed successfully", transactionDto));
+        });
     }
 
     @GetMapping("/{accountNumber}/transactions")
@@ -1,17 +1,27 @@
 package com.eomaxl.bankapplication.controller;
 
+import com.eomaxl.bankapplication.dto.request.AsyncTransferRequest;
+import com.eomaxl.bankapplication.dto.request.BatchTransferRequest;
 import com.eomaxl.bankapplication.dto.request.TransferRequest;
 import com.eomaxl.bankapplication.dto.response.ApiResponse;
+import com.eomaxl.bankapplication.dto.response.BatchTransferResponse;
 import com.eomaxl.bankapplication.dto.response.TransferResponse;
+import com.eomaxl.bankapplication.dto.response.TransferStatusResponse;
 import com.eomaxl.bankapplication.mapper.BankingMapper;
+import com.eomaxl.bankapplication.service.IAsyncTransferService;
+import com.eomaxl.bankapplication.service.IIdempotencyService;
 import com.eomaxl.bankapplication.service.impl.BankingFacadeServiceImpl;
+import com.eomaxl.bankapplication.service.impl.BatchTransferService;
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 @RestController
 @RequestMapping("/api/v1/transfers")
@@ -22,27 +32,111 @@ public class TransferController {
 
     private final BankingFacadeServiceImpl bankingFacadeService;
     private final BankingMapper mapper;
+    private final IIdempotencyService idempotencyService;
+    private final IAsyncTransferService asyncTransferService;
 
     @PostMapping
     @Operation(summary = "Transfer money", description = "Transfers money between two accounts")
-    public ResponseEntity<ApiResponse<TransferResponse>> transferMoney(@Valid @RequestBody TransferRequest request) {
+    public ResponseEntity<ApiResponse<TransferResponse>> transferMoney(
+            @Parameter(description = "Key that makes retries of this transfer safe")
+            @RequestHeader(value = AccountController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody TransferRequest request) {
         log.info("Processing transfer: {} from {} to {}",
                 request.getAmount(), request.getFromAccountNumber(), request.getToAccountNumber());
 
-        var transferResult = bankingFacadeService.performTransfer(
-                request.getFromAccountNumber(),
-                request.getToAccountNumber(),
-                request.getAmount(),
-                request.getDescription()
-        );
-
-        var transferResponse = mapper.toTransferResponse(transferResult);
-
-        if (transferResult.isSuccess()) {
-            return ResponseEntity.ok(ApiResponse.success("Transfer completed successfully", transferResponse));
-        } else {
-            return ResponseEntity.badRequest()
-                    .body(ApiResponse.error("Transfer failed: " + transferResult.getErrorMessage()));
-        }
+        return idempotencyService.execute(idempotencyKey, "TRANSFER", request, TransferResponse.class, () -> {
+            var transferResult = bankingFacadeService.performTransfer(
+                    request.getFromAccountNumber(),
+                    request.getToAccountNumber(),
+                    request.getAmount(),
+                    request.getDescription()
+            );
+
+            var transferResponse = mapper.toTransferResponse(transferResult);
+
+            if (transferResult.isSuccess()) {
+                return ResponseEntity.ok(ApiResponse.success("Transfer completed successfully", transferResponse));
+            } else {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.error("Transfer failed: " + transferResult.getErrorMessage()));
+            }
+        });
+    }
+
+    @PostMapping("/batch")
+    @Operation(summary = "Transfer money in bulk", description = "Applies a batch of transfers all or nothing, skipping failed items, or netted per account")
+    public ResponseEntity<ApiResponse<BatchTransferResponse>> transferBatch(
+            @Parameter(description = "Key that makes retries of this batch safe")
+            @RequestHeader(value = AccountController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody BatchTransferRequest request) {
+        log.info("Processing batch of {} transfers ({})", request.getTransfers().size(), request.getMode());
+
+        return idempotencyService.execute(idempotencyKey, "BATCH_TRANSFER", request, BatchTransferResponse.class, () -> {
+            var transfers = request.getTransfers().stream()
+                    .map(transfer -> new BatchTransferService.TransferItem(
+                            transfer.getFromAccountNumber(),
+                            transfer.getToAccountNumber(),
+                            transfer.getAmount(),
+                            transfer.getDescription()))
+                    .toList();
+
+            var batchResult = bankingFacadeService.performBatchTransfer(transfers, request.getMode());
+            var batchResponse = mapper.toBatchTransferResponse(batchResult);
+
+            if (batchResult.isSuccess()) {
+                return ResponseEntity.ok(ApiResponse.success("Batch transfer completed successfully", batchResponse));
+            } else if (batchResult.getSucceededCount() > 0) {
+                return ResponseEntity.ok(ApiResponse.success("Batch transfer partially completed: "
+                        + batchResult.getFailedCount() + " of " + batchResult.getTotalCount() + " failed", batchResponse));
+            } else {
+                return ResponseEntity.badRequest()
+                        .body(ApiResponse.<BatchTransferResponse>builder()
+                                .success(false)
+                                .message("Batch transfer failed, no transfers were applied")
+                                .data(batchResponse)
+                                .build());
+            }
+        });
+    }
+
+    @PostMapping("/async")
+    @Operation(summary = "Submit transfer", description = "Queues a transfer for background execution and returns its transfer ID")
+    public ResponseEntity<ApiResponse<TransferStatusResponse>> submitTransfer(
+            @Parameter(description = "Key that makes retries of this submission safe")
+            @RequestHeader(value = AccountController.IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+            @Valid @RequestBody AsyncTransferRequest request) {
+        log.info("Queueing transfer: {} from {} to {}",
+                request.getAmount(), request.getFromAccountNumber(), request.getToAccountNumber());
+
+        return idempotencyService.execute(idempotencyKey, "ASYNC_TRANSFER", request, TransferStatusResponse.class, () -> {
+            var pendingTransfer = asyncTransferService.submit(
+                    request.getFromAccountNumber(),
+                    request.getToAccountNumber(),
+                    request.getAmount(),
+                    request.getDescription(),
+                    request.getCallbackUrl()
+            );
+
+            var location = ServletUriComponentsBuilder.fromCurrentContextPath()
+                    .path("/api/v1/transfers/{transferId}")
+                    .buildAndExpand(pendingTransfer.getTransferId())
+                    .toUri();
+
+            return ResponseEntity.status(HttpStatus.ACCEPTED)
+                    .location(location)
+                    .body(ApiResponse.success("Transfer accepted for processing",
+                            mapper.toTransferStatusResponse(pendingTransfer)));
+        });
+    }
+
+    @GetMapping("/{transferId}")
+    @Operation(summary = "Get transfer status", description = "Retrieves the status of a transfer submitted asynchronously")
+    public ResponseEntity<ApiResponse<TransferStatusResponse>> getTransferStatus(
+            @Parameter(description = "Transfer ID") @PathVariable String transferId) {
+        log.debug("Fetching status of transfer: {}", transferId);
+
+        return asyncTransferService.findByTransferId(transferId)
+                .map(pendingTransfer -> ResponseEntity.ok(ApiResponse.success(mapper.toTransferStatusResponse(pendingTransfer))))
+                .orElse(ResponseEntity.notFound().build());
     }
 }
@@ -0,0 +1,11 @@
+package com.eomaxl.bankapplication.domain.exception;
+
+/**
+ * A balance change lost a race with a concurrent writer
+ * Retried by ConcurrencyRetry at the outermost transaction boundary, surfaced once attempts run out
+ */
+public class ConcurrentUpdateException extends BankingException {
+    public ConcurrentUpdateException(String accountNumber) {
+        super("CONCURRENT_MODIFICATION", "Account " + accountNumber + " was concurrently modified");
+    }
+}
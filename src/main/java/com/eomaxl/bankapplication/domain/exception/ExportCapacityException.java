@@ -0,0 +1,11 @@
+package com.eomaxl.bankapplication.domain.exception;
+
+/**
+ * Every statement export slot of this node is taken
+ * Surfaced as 429 so clients back off instead of queueing for a database connection
+ */
+public class ExportCapacityException extends BankingException {
+    public ExportCapacityException(int maxConcurrent) {
+        super("EXPORT_CAPACITY_EXCEEDED", "All " + maxConcurrent + " statement export slots are in use, retry later");
+    }
+}
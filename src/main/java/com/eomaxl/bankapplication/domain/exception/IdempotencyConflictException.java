@@ -0,0 +1,7 @@
+package com.eomaxl.bankapplication.domain.exception;
+
+public class IdempotencyConflictException extends BankingException {
+    public IdempotencyConflictException(String errorCode, String message) {
+        super(errorCode, message);
+    }
+}
@@ -8,6 +8,7 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
@@ -24,7 +25,7 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 public class Account {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("accounts_seq")
     private long id;
 
     @NotBlank( message = "Account number is required")
@@ -62,6 +63,11 @@ public class Account {
     @Column(name = "updated_at")
     private LocalDateTime updatedAt;
 
+    @Version
+    @ColumnDefault("0")
+    @Column(name = "version", nullable = false)
+    private long version;
+
     @Transient
     private final ReentrantReadWriteLock balanceLock = new ReentrantReadWriteLock();
 
@@ -82,7 +88,7 @@ public class Account {
         updatedAt = LocalDateTime.now();
     }
 
-    public synchronized void credit(BigDecimal amount) {
+    public void credit(BigDecimal amount) {
         balanceLock.writeLock().lock();
         try {
             if(amount.compareTo(BigDecimal.ZERO) <= 0) {
@@ -94,7 +100,7 @@ public class Account {
         }
     }
 
-    public synchronized void debit(BigDecimal amount) {
+    public void debit(BigDecimal amount) {
         balanceLock.writeLock().lock();
         try {
             if(amount.compareTo(BigDecimal.ZERO) <= 0){
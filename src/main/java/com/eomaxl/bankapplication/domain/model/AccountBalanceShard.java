@@ -0,0 +1,42 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * One sub-balance of a sharded hot account
+ * Credits land on a random shard so they do not all serialize on the account row
+ */
+@Entity
+@Table(name = "account_balance_shards",
+        uniqueConstraints = @UniqueConstraint(name = "uk_account_balance_shards_account_shard",
+                columnNames = {"account_id", "shard_no"}))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AccountBalanceShard {
+
+    @Id
+    @PooledSequence("account_balance_shards_seq")
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "shard_no", nullable = false)
+    private int shardNo;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal balance;
+
+    @Column(name = "updated_at")
+    private LocalDateTime updatedAt;
+}
@@ -19,7 +19,7 @@ import java.util.List;
 public class AccountHolder {
 
     @Id
-    @GeneratedValue(strategy =  GenerationType.IDENTITY)
+    @PooledSequence("account_holders_seq")
     private Long id;
 
     @OneToOne(cascade = CascadeType.ALL, fetch = FetchType.EAGER)
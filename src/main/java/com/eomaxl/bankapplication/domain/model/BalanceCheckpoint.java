@@ -0,0 +1,59 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Closing balance of an account at the end of a day, with its running totals up to that point
+ * Totals cover every transaction dated before coveredUntil, whatever its status; the closing balance
+ * only moves with COMPLETED ones.
+ */
+@Entity
+@Table(name = "account_balance_checkpoints",
+        uniqueConstraints = @UniqueConstraint(name = "uk_account_balance_checkpoints_account_date",
+                columnNames = {"account_id", "checkpoint_date"}),
+        indexes = @Index(name = "idx_account_balance_checkpoints_account_covered",
+                columnList = "account_id, covered_until"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BalanceCheckpoint {
+
+    @Id
+    @PooledSequence("account_balance_checkpoints_seq")
+    private long id;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "account_id", nullable = false)
+    private Account account;
+
+    @Column(name = "checkpoint_date", nullable = false)
+    private LocalDate checkpointDate;
+
+    // Exclusive end of the period the checkpoint summarises, the start of the following day
+    @Column(name = "covered_until", nullable = false)
+    private LocalDateTime coveredUntil;
+
+    @Column(name = "closing_balance", precision = 19, scale = 2, nullable = false)
+    private BigDecimal closingBalance;
+
+    @Column(name = "total_credits", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalCredits;
+
+    @Column(name = "total_debits", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalDebits;
+
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
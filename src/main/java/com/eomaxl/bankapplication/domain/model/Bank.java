@@ -21,7 +21,7 @@ import java.util.List;
 public class Bank {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("banks_seq")
     private Long id;
 
     @NotBlank(message = "Bank name is required")
@@ -0,0 +1,10 @@
+package com.eomaxl.bankapplication.domain.model;
+
+public enum BatchTransferMode {
+    // Any failed item rolls back the whole batch
+    ALL_OR_NOTHING,
+    // Failed items are reported and skipped, the rest are applied
+    BEST_EFFORT,
+    // Settled as one multilateral set: funds are checked against each account's net position, all or nothing
+    NETTED
+}
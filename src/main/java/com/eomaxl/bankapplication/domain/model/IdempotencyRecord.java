@@ -0,0 +1,62 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Stored outcome of a request made with an Idempotency-Key header
+ */
+@Entity
+@Table(name = "idempotency_keys",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_keys_principal_key_operation",
+                columnNames = {"principal", "idempotency_key", "operation"}),
+        indexes = @Index(name = "idx_idempotency_keys_expires_at", columnList = "expires_at"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class IdempotencyRecord {
+
+    @Id
+    @PooledSequence("idempotency_keys_seq")
+    private long id;
+
+    // Authenticated caller the key belongs to, two clients may pick the same key independently
+    @Column(length = 100, nullable = false)
+    private String principal;
+
+    @Column(name = "idempotency_key", length = 100, nullable = false)
+    private String idempotencyKey;
+
+    @Column(length = 50, nullable = false)
+    private String operation;
+
+    // SHA-256 of the request, a key reused with a different request is rejected
+    @Column(name = "request_hash", length = 64, nullable = false)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "idempotency_status", length = 20, nullable = false)
+    private IdempotencyStatus status;
+
+    @Column(name = "http_status")
+    private Integer httpStatus;
+
+    @Column(name = "response_body", columnDefinition = "TEXT")
+    private String responseBody;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+
+    public boolean isExpired(LocalDateTime now) {
+        return expiresAt.isBefore(now);
+    }
+}
@@ -0,0 +1,6 @@
+package com.eomaxl.bankapplication.domain.model;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,35 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Node ID embedded in transaction IDs, held by one running instance until its lease expires
+ */
+@Entity
+@Table(name = "node_id_leases")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NodeIdLease {
+
+    @Id
+    @Column(name = "node_id")
+    private int nodeId;
+
+    // Instance holding the lease, unique per process start
+    @Column(length = 200, nullable = false)
+    private String owner;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
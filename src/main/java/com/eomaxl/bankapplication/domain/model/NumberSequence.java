@@ -0,0 +1,35 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Table-backed sequence from which nodes reserve blocks of account numbers and customer IDs
+ */
+@Entity
+@Table(name = "number_sequences")
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class NumberSequence {
+
+    @Id
+    @Column(name = "sequence_name", length = 100)
+    private String sequenceName;
+
+    // First value not yet handed to any node
+    @Column(name = "next_value", nullable = false)
+    private long nextValue;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
@@ -0,0 +1,7 @@
+package com.eomaxl.bankapplication.domain.model;
+
+public enum OutboxEventStatus {
+    PENDING,
+    DELIVERED,
+    FAILED
+}
@@ -0,0 +1,81 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Transfer accepted by the asynchronous API and waiting to be, or already, applied
+ */
+@Entity
+@Table(name = "pending_transfers",
+        indexes = {
+                @Index(name = "idx_pending_transfers_status_created", columnList = "transfer_status, created_at"),
+                @Index(name = "idx_pending_transfers_status_next_attempt", columnList = "transfer_status, next_attempt_at")
+        })
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class PendingTransfer {
+
+    @Id
+    @PooledSequence("pending_transfers_seq")
+    private long id;
+
+    @Column(name = "transfer_id", length = 40, unique = true, nullable = false)
+    private String transferId;
+
+    @Column(name = "from_account_number", nullable = false)
+    private String fromAccountNumber;
+
+    @Column(name = "to_account_number", nullable = false)
+    private String toAccountNumber;
+
+    @Column(precision = 19, scale = 2, nullable = false)
+    private BigDecimal amount;
+
+    @Column(length = 500)
+    private String description;
+
+    @Column(name = "callback_url", length = 2000)
+    private String callbackUrl;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "transfer_status", length = 20, nullable = false)
+    private PendingTransferStatus status;
+
+    @Column(name = "error_message", length = 1000)
+    private String errorMessage;
+
+    @Builder.Default
+    @Column(nullable = false)
+    private int attempts = 0;
+
+    @Column(name = "outgoing_transaction_id")
+    private String outgoingTransactionId;
+
+    @Column(name = "incoming_transaction_id")
+    private String incomingTransactionId;
+
+    @Column(name = "from_balance_after", precision = 19, scale = 2)
+    private BigDecimal fromBalanceAfter;
+
+    @Column(name = "to_balance_after", precision = 19, scale = 2)
+    private BigDecimal toBalanceAfter;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+
+    // Not picked up before this time after a transient failure, null when due immediately
+    @Column(name = "next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name = "completed_at")
+    private LocalDateTime completedAt;
+}
@@ -20,7 +20,7 @@ import java.time.LocalDateTime;
 public class Person {
 
     @Id
-    @GeneratedValue(strategy= GenerationType.IDENTITY)
+    @PooledSequence("persons_seq")
     private Long id;
 
     @NotBlank(message = "First name is required")
@@ -0,0 +1,43 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import org.hibernate.MappingException;
+import org.hibernate.engine.config.spi.ConfigurationService;
+import org.hibernate.generator.AnnotationBasedGenerator;
+import org.hibernate.generator.GeneratorCreationContext;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
+import org.hibernate.internal.util.config.ConfigurationHelper;
+import org.hibernate.service.ServiceRegistry;
+import org.hibernate.type.Type;
+
+import java.lang.reflect.Member;
+import java.util.Properties;
+
+/**
+ * Sequence generator behind {@link PooledSequence}
+ * Each sequence call reserves allocationSize identifiers (pooled-lo: the value returned is the first of the block),
+ * so the database sequence must be created with a matching INCREMENT BY.
+ */
+public class PooledSequenceIdGenerator extends SequenceStyleGenerator implements AnnotationBasedGenerator<PooledSequence> {
+
+    public static final String ALLOCATION_SIZE_SETTING = "banking.ids.allocation_size";
+    public static final int DEFAULT_ALLOCATION_SIZE = 50;
+
+    private String sequenceName;
+
+    @Override
+    public void initialize(PooledSequence annotation, Member member, GeneratorCreationContext context) {
+        this.sequenceName = annotation.value();
+    }
+
+    @Override
+    public void configure(Type type, Properties parameters, ServiceRegistry serviceRegistry) throws MappingException {
+        int allocationSize = ConfigurationHelper.getInt(ALLOCATION_SIZE_SETTING,
+                serviceRegistry.requireService(ConfigurationService.class).getSettings(), DEFAULT_ALLOCATION_SIZE);
+
+        parameters.setProperty(SEQUENCE_PARAM, sequenceName);
+        parameters.setProperty(INCREMENT_PARAM, Integer.toString(allocationSize));
+        parameters.setProperty(INITIAL_PARAM, "1");
+        parameters.setProperty(OPT_PARAM, "pooled-lo");
+        super.configure(type, parameters, serviceRegistry);
+    }
+}
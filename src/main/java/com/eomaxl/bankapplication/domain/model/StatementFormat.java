@@ -0,0 +1,39 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+
+import java.util.Locale;
+
+public enum StatementFormat {
+    // Header row, then one comma separated row per transaction
+    CSV("text/csv", "csv"),
+    // One JSON object per line
+    NDJSON("application/x-ndjson", "ndjson");
+
+    private final String mediaType;
+    private final String fileExtension;
+
+    StatementFormat(String mediaType, String fileExtension) {
+        this.mediaType = mediaType;
+        this.fileExtension = fileExtension;
+    }
+
+    public String getMediaType() {
+        return mediaType;
+    }
+
+    public String getFileExtension() {
+        return fileExtension;
+    }
+
+    /**
+     * Parses a format request parameter, ignoring case
+     */
+    public static StatementFormat fromParameter(String format) {
+        try {
+            return valueOf(format.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            throw new BankingException("INVALID_STATEMENT_FORMAT", "Unsupported statement format: " + format);
+        }
+    }
+}
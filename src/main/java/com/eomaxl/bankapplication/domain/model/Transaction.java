@@ -20,7 +20,7 @@ import java.time.LocalDateTime;
 public class Transaction {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @PooledSequence("transactions_seq")
     private long id;
 
     @Column(name = "transaction_id", unique = true, nullable = false)
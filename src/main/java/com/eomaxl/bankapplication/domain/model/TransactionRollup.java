@@ -0,0 +1,37 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Transactions of one account, day and type, summed
+ * Rows are written with SQL by CustomTransactionRollupRepository, this mapping is for reading them.
+ */
+@Entity
+@Table(name = "transaction_daily_rollups",
+        indexes = @Index(name = "idx_transaction_daily_rollups_date", columnList = "rollup_date"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRollup {
+
+    @EmbeddedId
+    private TransactionRollupId id;
+
+    // Transactions of any status
+    @Column(name = "transaction_count", nullable = false)
+    private long transactionCount;
+
+    @Column(name = "total_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal totalAmount;
+
+    // Amount of the COMPLETED transactions alone
+    @Column(name = "completed_amount", precision = 19, scale = 2, nullable = false)
+    private BigDecimal completedAmount;
+}
@@ -0,0 +1,38 @@
+package com.eomaxl.bankapplication.domain.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * Account day whose rollups a committed write changed and that has not been rolled up again yet
+ * Rows are inserted with the write itself, so a change is never lost when the recompute after it fails.
+ */
+@Entity
+@Table(name = "transaction_rollup_dirty_days",
+        indexes = @Index(name = "idx_transaction_rollup_dirty_days_date_account",
+                columnList = "rollup_date, account_id"))
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransactionRollupDirtyDay {
+
+    @Id
+    @PooledSequence("transaction_rollup_dirty_days_seq")
+    private long id;
+
+    @Column(name = "account_id", nullable = false)
+    private Long accountId;
+
+    @Column(name = "rollup_date", nullable = false)
+    private LocalDate rollupDate;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
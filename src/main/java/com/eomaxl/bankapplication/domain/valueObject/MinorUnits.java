@@ -0,0 +1,62 @@
+package com.eomaxl.bankapplication.domain.valueObject;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Fixed-point money arithmetic on long minor units (cents)
+ * Amounts are plain longs so adding, subtracting and comparing on the ledger and aggregation paths
+ * allocates nothing; overflow raises ArithmeticException instead of wrapping. Conversion to and from
+ * BigDecimal happens only where values enter or leave through JPA entities and DTOs.
+ */
+public final class MinorUnits {
+
+    // Matches the scale of every money column (precision 19, scale 2)
+    public static final int SCALE = 2;
+
+    public static final long ZERO = 0L;
+
+    private MinorUnits() {
+    }
+
+    /**
+     * Converts a decimal amount to minor units. Amounts are never rounded: a value with more than two
+     * significant decimal places is rejected, so a client sending 10.005 gets an error rather than 10.01
+     * @throws IllegalArgumentException if the amount has more than SCALE significant decimal places
+     * @throws ArithmeticException if the amount does not fit in a long
+     */
+    public static long of(BigDecimal amount) {
+        if (amount.scale() > SCALE && amount.stripTrailingZeros().scale() > SCALE) {
+            throw new IllegalArgumentException("Amount must have at most " + SCALE + " decimal places: " + amount);
+        }
+        return amount.setScale(SCALE, RoundingMode.UNNECESSARY).movePointRight(SCALE).longValueExact();
+    }
+
+    public static BigDecimal toBigDecimal(long minorUnits) {
+        return BigDecimal.valueOf(minorUnits, SCALE);
+    }
+
+    public static long add(long left, long right) {
+        return Math.addExact(left, right);
+    }
+
+    public static long subtract(long left, long right) {
+        return Math.subtractExact(left, right);
+    }
+
+    public static long negate(long amount) {
+        return Math.negateExact(amount);
+    }
+
+    public static int compare(long left, long right) {
+        return Long.compare(left, right);
+    }
+
+    public static boolean isPositive(long amount) {
+        return amount > 0;
+    }
+
+    public static boolean covers(long balance, long amount) {
+        return balance >= amount;
+    }
+}
@@ -0,0 +1,39 @@
+package com.eomaxl.bankapplication.dto.request;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AsyncTransferRequest {
+
+    @NotBlank(message = "From account number is required")
+    private String fromAccountNumber;
+
+    @NotBlank(message = "To account number is required")
+    private String toAccountNumber;
+
+    @NotNull(message = "Amount is required")
+    @DecimalMin(value = "0.01", message = "Amount must be positive")
+    @Digits(integer = 17, fraction = 2, message = "Amount must have at most 2 decimal places")
+    private BigDecimal amount;
+
+    @Size(max = 500, message = "Description must not exceed 500 characters")
+    private String description;
+
+    @Size(max = 2000, message = "Callback URL must not exceed 2000 characters")
+    @Pattern(regexp = "^https?://.+", message = "Callback URL must be an http or https URL")
+    private String callbackUrl;
+}
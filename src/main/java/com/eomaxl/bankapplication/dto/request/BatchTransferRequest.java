@@ -0,0 +1,24 @@
+package com.eomaxl.bankapplication.dto.request;
+
+import com.eomaxl.bankapplication.domain.model.BatchTransferMode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferRequest {
+
+    @Builder.Default
+    private BatchTransferMode mode = BatchTransferMode.ALL_OR_NOTHING;
+
+    @NotEmpty(message = "At least one transfer is required")
+    private List<@Valid TransferRequest> transfers;
+}
@@ -2,6 +2,7 @@ package com.eomaxl.bankapplication.dto.request;
 
 import com.eomaxl.bankapplication.domain.model.AccountType;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -27,5 +28,6 @@ public class CreateAccountRequest {
     private String customerId;
 
     @DecimalMin(value = "0.0", message = "Initial deposit cannot be negative")
+    @Digits(integer = 17, fraction = 2, message = "Initial deposit must have at most 2 decimal places")
     private BigDecimal initialDeposit;
 }
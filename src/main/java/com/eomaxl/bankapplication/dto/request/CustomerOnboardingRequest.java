@@ -5,6 +5,7 @@ import com.eomaxl.bankapplication.domain.model.AccountType;
 import com.eomaxl.bankapplication.dto.PersonDto;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.AllArgsConstructor;
@@ -31,5 +32,6 @@ public class CustomerOnboardingRequest {
     private AccountType accountType;
 
     @DecimalMin(value = "0.0", message = "Initial deposit cannot be negative")
+    @Digits(integer = 17, fraction = 2, message = "Initial deposit must have at most 2 decimal places")
     private BigDecimal initialDeposit;
 }
@@ -1,6 +1,7 @@
 package com.eomaxl.bankapplication.dto.request;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
 import lombok.AllArgsConstructor;
@@ -18,6 +19,7 @@ public class DepositRequest {
 
     @NotNull(message = "Amount is required")
     @DecimalMin(value = "0.01", message = "Amount must be positive")
+    @Digits(integer = 17, fraction = 2, message = "Amount must have at most 2 decimal places")
     private BigDecimal amount;
 
     @Size(max = 500, message = "Description must not exceed 500 characters")
@@ -1,6 +1,7 @@
 package com.eomaxl.bankapplication.dto.request;
 
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Size;
@@ -25,6 +26,7 @@ public class TransferRequest {
 
     @NotNull(message = "Amount is required")
     @DecimalMin(value = "0.01", message = "Amount must be positive")
+    @Digits(integer = 17, fraction = 2, message = "Amount must have at most 2 decimal places")
     private BigDecimal amount;
 
     @Size(max = 500, message = "Description must not exceed 500 characters")
@@ -0,0 +1,30 @@
+package com.eomaxl.bankapplication.dto.response;
+
+import com.eomaxl.bankapplication.domain.model.BatchTransferMode;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchTransferResponse {
+
+    private boolean success;
+    private BatchTransferMode mode;
+    private int totalCount;
+    private int succeededCount;
+    private int failedCount;
+
+    // One result per requested transfer, in request order
+    private List<TransferResponse> results;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime transferDate;
+}
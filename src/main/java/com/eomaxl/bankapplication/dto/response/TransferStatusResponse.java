@@ -0,0 +1,36 @@
+package com.eomaxl.bankapplication.dto.response;
+
+import com.eomaxl.bankapplication.domain.model.PendingTransferStatus;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class TransferStatusResponse {
+
+    private String transferId;
+    private PendingTransferStatus status;
+    private String fromAccountNumber;
+    private String toAccountNumber;
+    private BigDecimal amount;
+    private String description;
+    private String outgoingTransactionId;
+    private String incomingTransactionId;
+    private BigDecimal fromBalanceAfter;
+    private BigDecimal toBalanceAfter;
+    private String errorMessage;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdAt;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime completedAt;
+}
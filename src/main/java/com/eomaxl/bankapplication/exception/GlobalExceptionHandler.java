@@ -2,8 +2,11 @@ package com.eomaxl.bankapplication.exception;
 
 import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
 import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.ExportCapacityException;
+import com.eomaxl.bankapplication.domain.exception.IdempotencyConflictException;
 import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
 import com.eomaxl.bankapplication.dto.response.ApiResponse;
+import jakarta.servlet.http.HttpServletResponse;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -11,6 +14,7 @@ import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
 
 import java.util.HashMap;
 import java.util.Map;
@@ -35,6 +39,34 @@ public class GlobalExceptionHandler {
                 .body(ApiResponse.error(ex.getMessage(), ex.getErrorCode()));
     }
 
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ApiResponse<Void>> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        log.warn("Idempotency conflict: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(ApiResponse.error(ex.getMessage(), ex.getErrorCode()));
+    }
+
+    @ExceptionHandler(ExportCapacityException.class)
+    public ResponseEntity<ApiResponse<Void>> handleExportCapacityException(ExportCapacityException ex) {
+        log.warn("Export rejected: {}", ex.getMessage());
+
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .body(ApiResponse.error(ex.getMessage(), ex.getErrorCode()));
+    }
+
+    @ExceptionHandler(AsyncRequestTimeoutException.class)
+    public ResponseEntity<ApiResponse<Void>> handleAsyncRequestTimeoutException(AsyncRequestTimeoutException ex,
+                                                                                HttpServletResponse response) {
+        log.warn("Async request timed out");
+        if (response.isCommitted()) {
+            // A streamed body has already started, the client sees it end early
+            return null;
+        }
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .body(ApiResponse.error("The request timed out", "REQUEST_TIMEOUT"));
+    }
+
     @ExceptionHandler(InsufficientFundsException.class)
     public ResponseEntity<ApiResponse<Void>> handleInsufficientFundsException(InsufficientFundsException ex) {
         log.error("Insufficient funds: {}", ex.getMessage(), ex);
@@ -2,7 +2,9 @@ package com.eomaxl.bankapplication.mapper;
 
 import com.eomaxl.bankapplication.domain.model.*;
 import com.eomaxl.bankapplication.dto.*;
+import com.eomaxl.bankapplication.dto.response.BatchTransferResponse;
 import com.eomaxl.bankapplication.dto.response.TransferResponse;
+import com.eomaxl.bankapplication.dto.response.TransferStatusResponse;
 import com.eomaxl.bankapplication.service.impl.BankingFacadeServiceImpl;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -55,4 +57,9 @@ public interface BankingMapper {
     // Transfer response mapping
     @Mapping(source = "transactions", target = "transactions")
     TransferResponse toTransferResponse(BankingFacadeServiceImpl.TransferResult transferResult);
+
+    BatchTransferResponse toBatchTransferResponse(BankingFacadeServiceImpl.BatchTransferResult batchTransferResult);
+
+    // Asynchronous transfer status mapping
+    TransferStatusResponse toTransferStatusResponse(PendingTransfer pendingTransfer);
 }
\ No newline at end of file
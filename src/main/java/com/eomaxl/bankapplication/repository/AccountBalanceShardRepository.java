@@ -0,0 +1,47 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.AccountBalanceShard;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface AccountBalanceShardRepository extends JpaRepository<AccountBalanceShard, Long> {
+
+    @Modifying
+    @Query("UPDATE AccountBalanceShard s SET s.balance = s.balance + :amount, s.updatedAt = :updatedAt " +
+            "WHERE s.account.id = :accountId AND s.shardNo = :shardNo")
+    int credit(@Param("accountId") Long accountId,
+               @Param("shardNo") int shardNo,
+               @Param("amount") BigDecimal amount,
+               @Param("updatedAt") LocalDateTime updatedAt);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceShard s WHERE s.account.id = :accountId")
+    BigDecimal sumByAccountId(@Param("accountId") Long accountId);
+
+    @Query("SELECT s.account.id, SUM(s.balance) FROM AccountBalanceShard s " +
+            "WHERE s.account.id IN :accountIds GROUP BY s.account.id")
+    List<Object[]> sumByAccountIds(@Param("accountIds") Collection<Long> accountIds);
+
+    @Query("SELECT COALESCE(SUM(s.balance), 0) FROM AccountBalanceShard s WHERE s.account.bank.id = :bankId")
+    BigDecimal sumByBankId(@Param("bankId") Long bankId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM AccountBalanceShard s WHERE s.account.id = :accountId ORDER BY s.shardNo")
+    List<AccountBalanceShard> findByAccountIdWithLock(@Param("accountId") Long accountId);
+
+    @Query("SELECT s.shardNo FROM AccountBalanceShard s WHERE s.account.id = :accountId")
+    List<Integer> findShardNumbers(@Param("accountId") Long accountId);
+
+    @Query("SELECT DISTINCT s.account.id FROM AccountBalanceShard s")
+    List<Long> findShardedAccountIds();
+}
@@ -4,6 +4,7 @@ import com.eomaxl.bankapplication.domain.model.Account;
 import com.eomaxl.bankapplication.domain.model.AccountStatus;
 import com.eomaxl.bankapplication.domain.model.AccountType;
 import com.eomaxl.bankapplication.repository.custom.CustomAccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
 import jakarta.persistence.LockModeType;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -30,6 +31,26 @@ public interface AccountRepository extends JpaRepository<Account, Long>, CustomA
     @Query("SELECT a FROM Account a WHERE a.accountNumber = :accountNumber")
     Optional<Account> findByAccountNumberWithLock(@Param("accountNumber") String accountNumber);
 
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT a FROM Account a WHERE a.id = :id")
+    Optional<Account> findByIdWithLock(@Param("id") Long id);
+
+    @Query("SELECT a.accountType FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountType> findAccountTypeByAccountNumber(@Param("accountNumber") String accountNumber);
+
+    @Query("SELECT new com.eomaxl.bankapplication.repository.projection.AccountBalanceView(" +
+            "a.id, a.accountNumber, a.balance, a.version, a.status, a.accountType) " +
+            "FROM Account a WHERE a.accountNumber = :accountNumber")
+    Optional<AccountBalanceView> findBalanceView(@Param("accountNumber") String accountNumber);
+
+    @Modifying
+    @Query("UPDATE Account a SET a.balance = :balance, a.version = a.version + 1, a.updatedAt = :updatedAt " +
+            "WHERE a.id = :accountId AND a.version = :expectedVersion")
+    int updateBalanceIfVersionMatches(@Param("accountId") Long accountId,
+                                      @Param("balance") BigDecimal balance,
+                                      @Param("expectedVersion") long expectedVersion,
+                                      @Param("updatedAt") LocalDateTime updatedAt);
+
     @Query("SELECT a FROM Account a WHERE a.accountHolder.id = :accountHolder")
     List<Account> findByAccountHolderId(@Param("accountHolderId") Long accountHolderId);
 
@@ -0,0 +1,43 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.BalanceCheckpoint;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BalanceCheckpointRepository extends JpaRepository<BalanceCheckpoint, Long> {
+
+    /**
+     * Latest checkpoint that summarises nothing after the given time
+     */
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndCoveredUntilLessThanEqualOrderByCoveredUntilDesc(
+            Long accountId, LocalDateTime time);
+
+    /**
+     * Earliest checkpoint that summarises everything before the given time
+     */
+    Optional<BalanceCheckpoint> findFirstByAccountIdAndCoveredUntilGreaterThanEqualOrderByCoveredUntilAsc(
+            Long accountId, LocalDateTime time);
+
+    /**
+     * Latest checkpoint of each account taken before the given day, accounts without one are left out
+     */
+    @Query("SELECT c FROM BalanceCheckpoint c WHERE c.account.id IN :accountIds " +
+            "AND c.checkpointDate = (SELECT MAX(p.checkpointDate) FROM BalanceCheckpoint p " +
+            "WHERE p.account.id = c.account.id AND p.checkpointDate < :date)")
+    List<BalanceCheckpoint> findLatestBefore(@Param("accountIds") Collection<Long> accountIds,
+                                             @Param("date") LocalDate date);
+
+    @Modifying
+    @Query("DELETE FROM BalanceCheckpoint c WHERE c.account.id = :accountId AND c.checkpointDate >= :fromDate")
+    int deleteFrom(@Param("accountId") Long accountId, @Param("fromDate") LocalDate fromDate);
+}
@@ -0,0 +1,35 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.NodeIdLease;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface NodeIdLeaseRepository extends JpaRepository<NodeIdLease, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT l FROM NodeIdLease l")
+    List<NodeIdLease> findAllWithLock();
+
+    // A plain insert, unlike save it can never turn into an update of a lease another instance just took
+    @Modifying
+    @Query(value = "INSERT INTO node_id_leases (node_id, owner, expires_at) VALUES (:nodeId, :owner, :expiresAt)",
+            nativeQuery = true)
+    void insert(@Param("nodeId") int nodeId, @Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("UPDATE NodeIdLease l SET l.expiresAt = :expiresAt WHERE l.nodeId = :nodeId AND l.owner = :owner")
+    int renew(@Param("nodeId") int nodeId, @Param("owner") String owner, @Param("expiresAt") LocalDateTime expiresAt);
+
+    @Modifying
+    @Query("DELETE FROM NodeIdLease l WHERE l.nodeId = :nodeId AND l.owner = :owner")
+    int release(@Param("nodeId") int nodeId, @Param("owner") String owner);
+}
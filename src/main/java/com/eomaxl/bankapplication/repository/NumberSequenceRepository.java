@@ -0,0 +1,19 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.NumberSequence;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+@Repository
+public interface NumberSequenceRepository extends JpaRepository<NumberSequence, String> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM NumberSequence s WHERE s.sequenceName = :sequenceName")
+    Optional<NumberSequence> findBySequenceNameWithLock(@Param("sequenceName") String sequenceName);
+}
@@ -0,0 +1,30 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.PendingTransfer;
+import com.eomaxl.bankapplication.domain.model.PendingTransferStatus;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface PendingTransferRepository extends JpaRepository<PendingTransfer, Long> {
+
+    Optional<PendingTransfer> findByTransferId(String transferId);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT p FROM PendingTransfer p WHERE p.id = :id")
+    Optional<PendingTransfer> findByIdWithLock(@Param("id") Long id);
+
+    @Query("SELECT p.id FROM PendingTransfer p WHERE p.status = :status "
+            + "AND (p.nextAttemptAt IS NULL OR p.nextAttemptAt <= :now) ORDER BY p.createdAt")
+    List<Long> findDueIdsByStatus(@Param("status") PendingTransferStatus status, @Param("now") LocalDateTime now,
+                                  Pageable pageable);
+}
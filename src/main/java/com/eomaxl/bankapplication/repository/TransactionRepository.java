@@ -3,6 +3,9 @@ package com.eomaxl.bankapplication.repository;
 import com.eomaxl.bankapplication.domain.model.Transaction;
 import com.eomaxl.bankapplication.domain.model.TransactionStatus;
 import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.repository.custom.CustomTransactionRepository;
+import com.eomaxl.bankapplication.repository.projection.OpeningBalance;
+import com.eomaxl.bankapplication.repository.projection.TransactionTotals;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
@@ -12,11 +15,23 @@ import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface TransactionRepository extends JpaRepository<Transaction, Long> {
+public interface TransactionRepository extends JpaRepository<Transaction, Long>, CustomTransactionRepository {
+
+    String CREDIT_TYPES = "('DEPOSIT', 'CREDIT', 'TRANSFER_IN')";
+    String DEBIT_TYPES = "('WITHDRAWAL', 'DEBIT', 'TRANSFER_OUT')";
+    String SELECT_TOTALS = "SELECT new com.eomaxl.bankapplication.repository.projection.TransactionTotals(" +
+            "t.account.id, COUNT(t), " +
+            "SUM(CASE WHEN t.transactionType IN " + CREDIT_TYPES + " THEN t.amount ELSE 0 END), " +
+            "SUM(CASE WHEN t.transactionType IN " + DEBIT_TYPES + " THEN t.amount ELSE 0 END), " +
+            "SUM(CASE WHEN t.status <> 'COMPLETED' THEN 0 " +
+            "WHEN t.transactionType IN " + CREDIT_TYPES + " THEN t.amount " +
+            "WHEN t.transactionType IN " + DEBIT_TYPES + " THEN -t.amount ELSE 0 END)) " +
+            "FROM Transaction t ";
 
     Optional<Transaction> findByTransactionId(String transactionId);
 
@@ -58,6 +73,12 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
     BigDecimal getTotalAmountByAccountAndType(@Param("accountId") Long accountId,
                                               @Param("transactionType") TransactionType transactionType);
 
+    @Query("SELECT SUM(t.amount) FROM Transaction t WHERE t.account.id = :accountId " +
+            "AND t.transactionType = :transactionType AND t.status = 'COMPLETED' AND t.transactionDate >= :since")
+    BigDecimal getTotalAmountByAccountAndTypeSince(@Param("accountId") Long accountId,
+                                                   @Param("transactionType") TransactionType transactionType,
+                                                   @Param("since") LocalDateTime since);
+
     @Query("SELECT COUNT(t) FROM Transaction t WHERE t.account.id = :accountId " +
             "AND t.transactionDate BETWEEN :startDate AND :endDate")
     Long countTransactionsByAccountAndDateRange(@Param("accountId") Long accountId,
@@ -81,11 +102,54 @@ public interface TransactionRepository extends JpaRepository<Transaction, Long>
             "AND t.transactionDate < :cutoffTime")
     List<Transaction> findPendingTransactionsOlderThan(@Param("cutoffTime") LocalDateTime cutoffTime);
 
-    @Query("SELECT DATE(t.transactionDate) as date, COUNT(t) as count, SUM(t.amount) as total " +
+    @Query("SELECT CAST(t.transactionDate AS LocalDate) as date, COUNT(t) as count, SUM(t.amount) as total " +
             "FROM Transaction t WHERE t.account.id = :accountId " +
             "AND t.transactionDate BETWEEN :startDate AND :endDate " +
-            "GROUP BY DATE(t.transactionDate) ORDER BY DATE(t.transactionDate)")
+            "GROUP BY CAST(t.transactionDate AS LocalDate) ORDER BY CAST(t.transactionDate AS LocalDate)")
     List<Object[]> getDailyTransactionSummary(@Param("accountId") Long accountId,
                                               @Param("startDate") LocalDateTime startDate,
                                               @Param("endDate") LocalDateTime endDate);
+
+    /**
+     * Accounts with the most transactions since the given time, busiest first
+     */
+    @Query("SELECT t.account.accountNumber FROM Transaction t WHERE t.transactionDate >= :since " +
+            "GROUP BY t.account.id, t.account.accountNumber ORDER BY COUNT(t) DESC")
+    List<String> findMostActiveAccountNumbers(@Param("since") LocalDateTime since, Pageable pageable);
+
+    /**
+     * Totals of each account over [from, to), accounts without transactions in the period are left out
+     */
+    @Query(SELECT_TOTALS + "WHERE t.account.id IN :accountIds " +
+            "AND t.transactionDate >= :from AND t.transactionDate < :to GROUP BY t.account.id")
+    List<TransactionTotals> sumByAccountIds(@Param("accountIds") Collection<Long> accountIds,
+                                            @Param("from") LocalDateTime from,
+                                            @Param("to") LocalDateTime to);
+
+    /**
+     * Totals of one account over [from, through], empty when it has no transactions in the period
+     */
+    @Query(SELECT_TOTALS + "WHERE t.account.id = :accountId " +
+            "AND t.transactionDate >= :from AND t.transactionDate <= :through GROUP BY t.account.id")
+    Optional<TransactionTotals> sumByAccountIdThrough(@Param("accountId") Long accountId,
+                                                      @Param("from") LocalDateTime from,
+                                                      @Param("through") LocalDateTime through);
+
+    @Query("SELECT MIN(t.transactionDate) FROM Transaction t")
+    Optional<LocalDateTime> findEarliestTransactionDate();
+
+    @Query("SELECT DISTINCT t.account.id FROM Transaction t WHERE t.transactionDate >= :from AND t.transactionDate < :to")
+    List<Long> findAccountIdsWithTransactionsBetween(@Param("from") LocalDateTime from,
+                                                     @Param("to") LocalDateTime to);
+
+    /**
+     * Balance before the earliest COMPLETED transaction of each account, one row per transaction dated at
+     * that instant
+     */
+    @Query("SELECT new com.eomaxl.bankapplication.repository.projection.OpeningBalance(" +
+            "t.account.id, t.id, t.balanceBefore) FROM Transaction t " +
+            "WHERE t.account.id IN :accountIds AND t.status = 'COMPLETED' " +
+            "AND t.transactionDate = (SELECT MIN(f.transactionDate) FROM Transaction f " +
+            "WHERE f.account.id = t.account.id AND f.status = 'COMPLETED')")
+    List<OpeningBalance> findOpeningBalances(@Param("accountIds") Collection<Long> accountIds);
 }
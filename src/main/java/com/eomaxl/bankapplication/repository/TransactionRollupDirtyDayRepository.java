@@ -0,0 +1,32 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.TransactionRollupDirtyDay;
+import com.eomaxl.bankapplication.repository.projection.AccountDay;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupDirtyDayRepository extends JpaRepository<TransactionRollupDirtyDay, Long> {
+
+    /**
+     * Distinct dirty account days before the given day, oldest first
+     */
+    @Query("SELECT DISTINCT new com.eomaxl.bankapplication.repository.projection.AccountDay(d.accountId, d.rollupDate) " +
+            "FROM TransactionRollupDirtyDay d WHERE d.rollupDate < :toDay ORDER BY d.rollupDate, d.accountId")
+    List<AccountDay> findDirtyBefore(@Param("toDay") LocalDate toDay, Pageable pageable);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollupDirtyDay d WHERE d.accountId = :accountId AND d.rollupDate = :day")
+    int deleteByAccountDay(@Param("accountId") Long accountId, @Param("day") LocalDate day);
+
+    @Modifying
+    @Query("DELETE FROM TransactionRollupDirtyDay d WHERE d.rollupDate = :day")
+    int deleteByDay(@Param("day") LocalDate day);
+}
@@ -0,0 +1,42 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.TransactionRollup;
+import com.eomaxl.bankapplication.domain.model.TransactionRollupId;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.repository.custom.CustomTransactionRollupRepository;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface TransactionRollupRepository extends JpaRepository<TransactionRollup, TransactionRollupId>,
+        CustomTransactionRollupRepository {
+
+    /**
+     * Date, count and total amount of an account's transactions per day in [fromDay, toDay)
+     */
+    @Query("SELECT r.id.rollupDate, SUM(r.transactionCount), SUM(r.totalAmount) FROM TransactionRollup r " +
+            "WHERE r.id.accountId = :accountId AND r.id.rollupDate >= :fromDay AND r.id.rollupDate < :toDay " +
+            "GROUP BY r.id.rollupDate ORDER BY r.id.rollupDate")
+    List<Object[]> summarizeDays(@Param("accountId") Long accountId,
+                                 @Param("fromDay") LocalDate fromDay,
+                                 @Param("toDay") LocalDate toDay);
+
+    @Query("SELECT COALESCE(SUM(r.transactionCount), 0) FROM TransactionRollup r " +
+            "WHERE r.id.accountId = :accountId AND r.id.rollupDate >= :fromDay AND r.id.rollupDate < :toDay")
+    Long countTransactions(@Param("accountId") Long accountId,
+                           @Param("fromDay") LocalDate fromDay,
+                           @Param("toDay") LocalDate toDay);
+
+    @Query("SELECT COALESCE(SUM(r.completedAmount), 0) FROM TransactionRollup r " +
+            "WHERE r.id.accountId = :accountId AND r.id.transactionType = :transactionType " +
+            "AND r.id.rollupDate < :toDay")
+    BigDecimal sumCompletedAmount(@Param("accountId") Long accountId,
+                                  @Param("transactionType") TransactionType transactionType,
+                                  @Param("toDay") LocalDate toDay);
+}
@@ -3,12 +3,17 @@ package com.eomaxl.bankapplication.repository.custom;
 import com.eomaxl.bankapplication.domain.model.Account;
 import com.eomaxl.bankapplication.domain.model.AccountStatus;
 import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import com.eomaxl.bankapplication.repository.projection.BalanceChange;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 public interface CustomAccountRepository {
     List<Account> findAccountsWithComplexCriteria(String customerName,
@@ -24,4 +29,35 @@ public interface CustomAccountRepository {
     List<Account> findHighValueAccounts(BigDecimal threshold);
 
     List<Object[]> getAccountSummaryByBank();
+
+    void refresh(Account account);
+
+    /**
+     * Adds amount to the balance in one statement if the account is ACTIVE
+     * Empty when no row matched, the caller decides which condition failed
+     */
+    Optional<BalanceChange> creditIfActive(String accountNumber, BigDecimal amount, LocalDateTime updatedAt);
+
+    /**
+     * Subtracts amount from the balance in one statement if the account is ACTIVE and the balance covers it
+     * Empty when no row matched, the caller decides which condition failed
+     */
+    Optional<BalanceChange> debitIfActiveAndCovered(String accountNumber, BigDecimal amount, LocalDateTime updatedAt);
+
+    /**
+     * Builds a detached account from the row a guarded update returned
+     * Bank and account holder are uninitialized references, so no query is issued.
+     */
+    Account toAccount(BalanceChange change);
+
+    /**
+     * Locks the given accounts FOR UPDATE in account number order and returns their balance columns
+     * Accounts that do not exist are simply absent from the result
+     */
+    List<AccountBalanceView> lockBalanceViews(Collection<String> accountNumbers);
+
+    /**
+     * Writes final balances by account id in one JDBC batch, bumping the version of every row
+     */
+    void updateBalances(Map<Long, BigDecimal> balancesById, LocalDateTime updatedAt);
 }
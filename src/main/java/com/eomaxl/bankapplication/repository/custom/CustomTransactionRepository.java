@@ -0,0 +1,14 @@
+package com.eomaxl.bankapplication.repository.custom;
+
+import com.eomaxl.bankapplication.domain.model.Transaction;
+
+import java.util.List;
+
+public interface CustomTransactionRepository {
+
+    /**
+     * Inserts new transaction rows in a single JDBC batch, bypassing the persistence context
+     * Generated ids are written back to the given instances, which are returned in the same order
+     */
+    List<Transaction> insertAll(List<Transaction> transactions);
+}
@@ -0,0 +1,18 @@
+package com.eomaxl.bankapplication.repository.custom;
+
+import java.time.LocalDate;
+
+public interface CustomTransactionRollupRepository {
+
+    /**
+     * Replaces the rollups of every account for the day with totals computed from its transactions
+     * @return Number of rollup rows written
+     */
+    int rollUpDay(LocalDate day);
+
+    /**
+     * Replaces the rollups of one account for the day with totals computed from its transactions
+     * @return Number of rollup rows written
+     */
+    int rollUpAccountDay(long accountId, LocalDate day);
+}
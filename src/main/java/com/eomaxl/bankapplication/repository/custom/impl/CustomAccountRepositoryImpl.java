@@ -1,29 +1,72 @@
 package com.eomaxl.bankapplication.repository.custom.impl;
 
 import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountHolder;
 import com.eomaxl.bankapplication.domain.model.AccountStatus;
 import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.domain.model.Bank;
 import com.eomaxl.bankapplication.repository.custom.CustomAccountRepository;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
 import jakarta.persistence.TypedQuery;
 import jakarta.persistence.criteria.*;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import com.eomaxl.bankapplication.repository.projection.BalanceChange;
+import org.hibernate.dialect.Dialect;
+import org.hibernate.dialect.H2Dialect;
+import org.hibernate.dialect.PostgreSQLDialect;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
 import org.springframework.data.domain.Page;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Repository;
 
 import java.math.BigDecimal;
+import java.sql.Timestamp;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
 
 @Repository
 public class CustomAccountRepositoryImpl implements CustomAccountRepository {
 
+    private static final String CREDIT_IF_ACTIVE_SQL = """
+            UPDATE accounts SET balance = balance + :amount, version = version + 1, updated_at = :updatedAt
+            WHERE account_number = :accountNumber AND account_status = 'ACTIVE'
+            """;
+
+    private static final String DEBIT_IF_ACTIVE_AND_COVERED_SQL = """
+            UPDATE accounts SET balance = balance - :amount, version = version + 1, updated_at = :updatedAt
+            WHERE account_number = :accountNumber AND account_status = 'ACTIVE' AND balance >= :amount
+            """;
+
+    private static final String CHANGED_COLUMNS =
+            "id, account_number, balance, version, account_type, account_status, bank_id, account_holder_id, created_at";
+
+    private static final String LOCK_BALANCES_SQL = """
+            SELECT id, account_number, balance, version, account_status, account_type FROM accounts
+            WHERE account_number IN (:accountNumbers)
+            ORDER BY account_number
+            FOR UPDATE
+            """;
+
+    private static final String UPDATE_BALANCE_SQL =
+            "UPDATE accounts SET balance = ?, version = version + 1, updated_at = ? WHERE id = ?";
+
     @PersistenceContext
     private EntityManager entityManager;
 
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomAccountRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
     @Override
     public List<Account> findAccountsWithComplexCriteria(String customerName, AccountType accountType, AccountStatus status, BigDecimal minBalance, BigDecimal maxBalance) {
         CriteriaBuilder builder = entityManager.getCriteriaBuilder();
@@ -167,4 +210,115 @@ public class CustomAccountRepositoryImpl implements CustomAccountRepository {
 
         return entityManager.createQuery(jpql).getResultList();
     }
+
+    @Override
+    public void refresh(Account account) {
+        entityManager.refresh(account);
+    }
+
+    @Override
+    public Optional<BalanceChange> creditIfActive(String accountNumber, BigDecimal amount, LocalDateTime updatedAt) {
+        return updateReturning(CREDIT_IF_ACTIVE_SQL, accountNumber, amount, updatedAt);
+    }
+
+    @Override
+    public Optional<BalanceChange> debitIfActiveAndCovered(String accountNumber, BigDecimal amount, LocalDateTime updatedAt) {
+        return updateReturning(DEBIT_IF_ACTIVE_AND_COVERED_SQL, accountNumber, amount, updatedAt);
+    }
+
+    @Override
+    public Account toAccount(BalanceChange change) {
+        return Account.builder()
+                .id(change.id())
+                .accountNumber(change.accountNumber())
+                .balance(change.balance())
+                .version(change.version())
+                .accountType(change.accountType())
+                .status(change.status())
+                .bank(entityManager.getReference(Bank.class, change.bankId()))
+                .accountHolder(entityManager.getReference(AccountHolder.class, change.accountHolderId()))
+                .createdAt(change.createdAt())
+                .updatedAt(change.updatedAt())
+                .build();
+    }
+
+    @Override
+    public List<AccountBalanceView> lockBalanceViews(Collection<String> accountNumbers) {
+        if (accountNumbers.isEmpty()) {
+            return List.of();
+        }
+        List<?> rows = entityManager.createNativeQuery(LOCK_BALANCES_SQL)
+                .setParameter("accountNumbers", accountNumbers)
+                .getResultList();
+
+        List<AccountBalanceView> views = new ArrayList<>(rows.size());
+        for (Object result : rows) {
+            Object[] row = (Object[]) result;
+            views.add(new AccountBalanceView(((Number) row[0]).longValue(), (String) row[1], (BigDecimal) row[2],
+                    ((Number) row[3]).longValue(),
+                    row[4] == null ? null : AccountStatus.valueOf((String) row[4]),
+                    AccountType.valueOf((String) row[5])));
+        }
+        return views;
+    }
+
+    @Override
+    public void updateBalances(Map<Long, BigDecimal> balancesById, LocalDateTime updatedAt) {
+        if (balancesById.isEmpty()) {
+            return;
+        }
+        Timestamp timestamp = Timestamp.valueOf(updatedAt);
+        List<Object[]> batch = new ArrayList<>(balancesById.size());
+        balancesById.forEach((id, balance) -> batch.add(new Object[]{balance, timestamp, id}));
+        jdbcTemplate.batchUpdate(UPDATE_BALANCE_SQL, batch);
+    }
+
+    private Optional<BalanceChange> updateReturning(String update, String accountNumber,
+                                                    BigDecimal amount, LocalDateTime updatedAt) {
+        Dialect dialect = entityManager.getEntityManagerFactory()
+                .unwrap(SessionFactoryImplementor.class)
+                .getJdbcServices()
+                .getDialect();
+
+        List<?> rows;
+        if (dialect instanceof PostgreSQLDialect) {
+            rows = bind(entityManager.createNativeQuery(update + " RETURNING " + CHANGED_COLUMNS),
+                    accountNumber, amount, updatedAt).getResultList();
+        } else if (dialect instanceof H2Dialect) {
+            // H2 has no RETURNING clause but exposes the updated rows as a data change delta table
+            rows = bind(entityManager.createNativeQuery("SELECT " + CHANGED_COLUMNS + " FROM FINAL TABLE (" + update + ")"),
+                    accountNumber, amount, updatedAt).getResultList();
+        } else {
+            // The UPDATE keeps the row locked, so reading it back in the same transaction sees our own write
+            int updated = bind(entityManager.createNativeQuery(update), accountNumber, amount, updatedAt).executeUpdate();
+            if (updated == 0) {
+                return Optional.empty();
+            }
+            rows = entityManager.createNativeQuery("SELECT " + CHANGED_COLUMNS + " FROM accounts WHERE account_number = :accountNumber")
+                    .setParameter("accountNumber", accountNumber)
+                    .getResultList();
+        }
+
+        if (rows.isEmpty()) {
+            return Optional.empty();
+        }
+        Object[] row = (Object[]) rows.get(0);
+        return Optional.of(new BalanceChange(((Number) row[0]).longValue(), (String) row[1], (BigDecimal) row[2],
+                ((Number) row[3]).longValue(), AccountType.valueOf((String) row[4]),
+                row[5] == null ? null : AccountStatus.valueOf((String) row[5]),
+                ((Number) row[6]).longValue(), ((Number) row[7]).longValue(), toLocalDateTime(row[8]), updatedAt));
+    }
+
+    private static LocalDateTime toLocalDateTime(Object value) {
+        if (value instanceof Timestamp timestamp) {
+            return timestamp.toLocalDateTime();
+        }
+        return (LocalDateTime) value;
+    }
+
+    private Query bind(Query query, String accountNumber, BigDecimal amount, LocalDateTime updatedAt) {
+        return query.setParameter("accountNumber", accountNumber)
+                .setParameter("amount", amount)
+                .setParameter("updatedAt", updatedAt);
+    }
 }
@@ -0,0 +1,94 @@
+package com.eomaxl.bankapplication.repository.custom.impl;
+
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.repository.custom.CustomTransactionRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public class CustomTransactionRepositoryImpl implements CustomTransactionRepository {
+
+    private static final String INSERT_SQL = """
+            INSERT INTO transactions (id, transaction_id, amount, transaction_type, transaction_status, description,
+                                      account_id, target_account_id, balance_before, balance_after,
+                                      transaction_date, created_at)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+            """;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomTransactionRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public List<Transaction> insertAll(List<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return transactions;
+        }
+
+        // IDs come from the entity's own pooled sequence so rows written here and through JPA never collide
+        SharedSessionContractImplementor session = entityManager.unwrap(SharedSessionContractImplementor.class);
+        IdentifierGenerator idGenerator = (IdentifierGenerator) session.getFactory().getMappingMetamodel()
+                .getEntityDescriptor(Transaction.class).getGenerator();
+        for (Transaction transaction : transactions) {
+            transaction.setId(((Number) idGenerator.generate(session, transaction)).longValue());
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        jdbcTemplate.batchUpdate(INSERT_SQL,
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement ps, int i) throws SQLException {
+                        Transaction transaction = transactions.get(i);
+                        if (transaction.getTransactionDate() == null) {
+                            transaction.setTransactionDate(now);
+                        }
+                        transaction.setCreatedAt(now);
+
+                        ps.setLong(1, transaction.getId());
+                        ps.setString(2, transaction.getTransactionId());
+                        ps.setBigDecimal(3, transaction.getAmount());
+                        ps.setString(4, transaction.getTransactionType().name());
+                        ps.setString(5, transaction.getStatus() == null ? null : transaction.getStatus().name());
+                        ps.setString(6, transaction.getDescription());
+                        ps.setLong(7, transaction.getAccount().getId());
+                        setAccountId(ps, 8, transaction.getTargetAccount());
+                        ps.setBigDecimal(9, transaction.getBalanceBefore());
+                        ps.setBigDecimal(10, transaction.getBalanceAfter());
+                        ps.setTimestamp(11, Timestamp.valueOf(transaction.getTransactionDate()));
+                        ps.setTimestamp(12, Timestamp.valueOf(now));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return transactions.size();
+                    }
+                });
+        return transactions;
+    }
+
+    private void setAccountId(PreparedStatement ps, int index, Account account) throws SQLException {
+        if (account == null) {
+            ps.setNull(index, Types.BIGINT);
+        } else {
+            ps.setLong(index, account.getId());
+        }
+    }
+}
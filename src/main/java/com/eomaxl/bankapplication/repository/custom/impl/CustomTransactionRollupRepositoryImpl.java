@@ -0,0 +1,58 @@
+package com.eomaxl.bankapplication.repository.custom.impl;
+
+import com.eomaxl.bankapplication.repository.custom.CustomTransactionRollupRepository;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+
+@Repository
+public class CustomTransactionRollupRepositoryImpl implements CustomTransactionRollupRepository {
+
+    private static final String DELETE_DAY_SQL = "DELETE FROM transaction_daily_rollups WHERE rollup_date = ?";
+
+    private static final String INSERT_DAY_SQL = """
+            INSERT INTO transaction_daily_rollups (account_id, rollup_date, transaction_type, transaction_count,
+                                                   total_amount, completed_amount)
+            SELECT account_id, CAST(? AS DATE), transaction_type, COUNT(*), SUM(amount),
+                   SUM(CASE WHEN transaction_status = 'COMPLETED' THEN amount ELSE 0 END)
+            FROM transactions
+            WHERE transaction_date >= ? AND transaction_date < ?
+            GROUP BY account_id, transaction_type
+            """;
+
+    private static final String DELETE_ACCOUNT_DAY_SQL =
+            "DELETE FROM transaction_daily_rollups WHERE account_id = ? AND rollup_date = ?";
+
+    private static final String INSERT_ACCOUNT_DAY_SQL = """
+            INSERT INTO transaction_daily_rollups (account_id, rollup_date, transaction_type, transaction_count,
+                                                   total_amount, completed_amount)
+            SELECT account_id, CAST(? AS DATE), transaction_type, COUNT(*), SUM(amount),
+                   SUM(CASE WHEN transaction_status = 'COMPLETED' THEN amount ELSE 0 END)
+            FROM transactions
+            WHERE account_id = ? AND transaction_date >= ? AND transaction_date < ?
+            GROUP BY account_id, transaction_type
+            """;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public CustomTransactionRollupRepositoryImpl(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public int rollUpDay(LocalDate day) {
+        jdbcTemplate.update(DELETE_DAY_SQL, Date.valueOf(day));
+        return jdbcTemplate.update(INSERT_DAY_SQL, Date.valueOf(day),
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+
+    @Override
+    public int rollUpAccountDay(long accountId, LocalDate day) {
+        jdbcTemplate.update(DELETE_ACCOUNT_DAY_SQL, accountId, Date.valueOf(day));
+        return jdbcTemplate.update(INSERT_ACCOUNT_DAY_SQL, Date.valueOf(day), accountId,
+                Timestamp.valueOf(day.atStartOfDay()), Timestamp.valueOf(day.plusDays(1).atStartOfDay()));
+    }
+}
@@ -0,0 +1,17 @@
+package com.eomaxl.bankapplication.repository.projection;
+
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+
+import java.math.BigDecimal;
+
+/**
+ * Read-only projection of the columns needed to validate and apply a balance change
+ */
+public record AccountBalanceView(long id,
+                                 String accountNumber,
+                                 BigDecimal balance,
+                                 long version,
+                                 AccountStatus status,
+                                 AccountType accountType) {
+}
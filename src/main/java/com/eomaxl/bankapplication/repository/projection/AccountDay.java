@@ -0,0 +1,10 @@
+package com.eomaxl.bankapplication.repository.projection;
+
+import java.time.LocalDate;
+
+/**
+ * One account on one day
+ */
+public record AccountDay(long accountId,
+                         LocalDate day) {
+}
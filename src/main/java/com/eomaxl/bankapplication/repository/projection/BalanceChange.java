@@ -0,0 +1,23 @@
+package com.eomaxl.bankapplication.repository.projection;
+
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Row state written by a guarded single-statement balance update, as returned by the statement itself
+ * Carries every account column so callers can build the updated account without reading it again.
+ */
+public record BalanceChange(long id,
+                            String accountNumber,
+                            BigDecimal balance,
+                            long version,
+                            AccountType accountType,
+                            AccountStatus status,
+                            long bankId,
+                            long accountHolderId,
+                            LocalDateTime createdAt,
+                            LocalDateTime updatedAt) {
+}
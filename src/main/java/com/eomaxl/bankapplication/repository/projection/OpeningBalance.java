@@ -0,0 +1,11 @@
+package com.eomaxl.bankapplication.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Balance an account had before its first COMPLETED transaction
+ */
+public record OpeningBalance(Long accountId,
+                             Long transactionId,
+                             BigDecimal balanceBefore) {
+}
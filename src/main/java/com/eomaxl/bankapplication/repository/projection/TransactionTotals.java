@@ -0,0 +1,29 @@
+package com.eomaxl.bankapplication.repository.projection;
+
+import java.math.BigDecimal;
+
+/**
+ * Transaction totals of one account over a period
+ * Count, credits and debits include every status, completedNet is the change to the balance made by the
+ * COMPLETED transactions alone.
+ */
+public record TransactionTotals(Long accountId,
+                                Long count,
+                                BigDecimal credits,
+                                BigDecimal debits,
+                                BigDecimal completedNet) {
+
+    public static TransactionTotals none(Long accountId) {
+        return new TransactionTotals(accountId, 0L, BigDecimal.ZERO, BigDecimal.ZERO, BigDecimal.ZERO);
+    }
+
+    public TransactionTotals plus(TransactionTotals other) {
+        return new TransactionTotals(accountId, count + other.count, credits.add(other.credits),
+                debits.add(other.debits), completedNet.add(other.completedNet));
+    }
+
+    public TransactionTotals minus(TransactionTotals other) {
+        return new TransactionTotals(accountId, count - other.count, credits.subtract(other.credits),
+                debits.subtract(other.debits), completedNet.subtract(other.completedNet));
+    }
+}
@@ -104,11 +104,12 @@ public interface IAccountService {
      * @param toAccountNumber Destination account number
      * @param amount Amount to transfer
      * @param description Transfer description
+     * @return Source and destination accounts, in that order, with their balances after the transfer
      * @throws com.eomaxl.bankapplication.domain.exception.AccountNotFoundException if either account not found
      * @throws com.eomaxl.bankapplication.domain.exception.InsufficientFundsException if insufficient balance
      * @throws com.eomaxl.bankapplication.domain.exception.BankingException if transfer invalid
      */
-    void transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String description);
+    List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String description);
 
     /**
      * Updates an account's status
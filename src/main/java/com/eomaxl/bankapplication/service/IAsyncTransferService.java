@@ -0,0 +1,34 @@
+package com.eomaxl.bankapplication.service;
+
+import com.eomaxl.bankapplication.domain.model.PendingTransfer;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+/**
+ * Service interface for asynchronous transfers
+ * Accepts transfers into a durable queue and applies them in the background
+ */
+public interface IAsyncTransferService {
+
+    /**
+     * Validates a transfer and queues it for background execution
+     * @param fromAccountNumber Source account number
+     * @param toAccountNumber Destination account number
+     * @param amount Amount to transfer
+     * @param description Transfer description
+     * @param callbackUrl Optional URL notified with the final status
+     * @return Queued transfer with its generated transfer ID
+     * @throws com.eomaxl.bankapplication.domain.exception.AccountNotFoundException if either account not found
+     * @throws com.eomaxl.bankapplication.domain.exception.BankingException if transfer invalid
+     */
+    PendingTransfer submit(String fromAccountNumber, String toAccountNumber, BigDecimal amount,
+                           String description, String callbackUrl);
+
+    /**
+     * Finds a queued or finished transfer by its transfer ID
+     * @param transferId Transfer ID returned by submit
+     * @return Optional containing the transfer if found
+     */
+    Optional<PendingTransfer> findByTransferId(String transferId);
+}
@@ -2,12 +2,15 @@ package com.eomaxl.bankapplication.service;
 
 import com.eomaxl.bankapplication.domain.model.Account;
 import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.domain.model.BatchTransferMode;
 import com.eomaxl.bankapplication.domain.model.Person;
 import com.eomaxl.bankapplication.service.impl.BankingFacadeServiceImpl;
+import com.eomaxl.bankapplication.service.impl.BatchTransferService;
 import org.springframework.data.domain.Pageable;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Facade service interface for high-level banking operations
@@ -45,6 +48,16 @@ public interface IBankingFacadeService {
     BankingFacadeServiceImpl.TransferResult performTransfer(String fromAccountNumber, String toAccountNumber,
                                                         BigDecimal amount, String description);
 
+    /**
+     * Performs a batch of transfers with the accounts involved locked once for the whole batch
+     * @param transfers Transfers to apply, in order
+     * @param mode Whether one failed transfer rolls back the batch or is skipped
+     * @return Batch result with one transfer result per requested transfer
+     * @throws com.eomaxl.bankapplication.domain.exception.BankingException if the batch is too large
+     */
+    BankingFacadeServiceImpl.BatchTransferResult performBatchTransfer(List<BatchTransferService.TransferItem> transfers,
+                                                                      BatchTransferMode mode);
+
     /**
      * Generates account statement with transactions for a date range
      * @param accountNumber Account number
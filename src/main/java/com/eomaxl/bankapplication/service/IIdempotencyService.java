@@ -0,0 +1,28 @@
+package com.eomaxl.bankapplication.service;
+
+import com.eomaxl.bankapplication.dto.response.ApiResponse;
+import org.springframework.http.ResponseEntity;
+
+import java.util.function.Supplier;
+
+/**
+ * Service interface for Idempotency-Key handling
+ * Makes money-moving endpoints safe to retry by replaying the first response for a repeated key
+ */
+public interface IIdempotencyService {
+
+    /**
+     * Runs the action once per idempotency key and operation
+     * A repeated key with the same request gets the stored response back without running the action again
+     * @param idempotencyKey Value of the Idempotency-Key header, the action simply runs when null or blank
+     * @param operation Operation the key is scoped to (e.g., "TRANSFER")
+     * @param request Request that produced the response, used to detect a key reused for a different request
+     * @param dataType Type of the ApiResponse payload, needed to rebuild a stored response
+     * @param action Action producing the response
+     * @return Response of the first execution for this key
+     * @throws com.eomaxl.bankapplication.domain.exception.IdempotencyConflictException if the key is still in
+     *         progress or was used with a different request
+     */
+    <T> ResponseEntity<ApiResponse<T>> execute(String idempotencyKey, String operation, Object request,
+                                               Class<T> dataType, Supplier<ResponseEntity<ApiResponse<T>>> action);
+}
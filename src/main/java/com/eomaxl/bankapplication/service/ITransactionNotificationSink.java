@@ -0,0 +1,19 @@
+package com.eomaxl.bankapplication.service;
+
+import com.eomaxl.bankapplication.domain.model.OutboxEvent;
+
+import java.util.List;
+
+/**
+ * Destination of transaction notifications drained from the outbox
+ * Delivery is at least once: a batch that throws is retried in smaller batches, and a batch is
+ * redelivered if marking it delivered fails, so implementations must tolerate seeing an event again
+ * and should key on its transaction ID.
+ */
+public interface ITransactionNotificationSink {
+
+    /**
+     * Delivers a batch of events, returning normally only once every event has been accepted
+     */
+    void deliver(List<OutboxEvent> events);
+}
@@ -177,6 +177,15 @@ public interface ITransactionService {
      */
     List<Object[]> getDailyTransactionSummary(Long accountId, LocalDateTime startDate, LocalDateTime endDate);
 
+    /**
+     * Gets the balance an account had at a point in time, counting COMPLETED transactions only
+     * @param accountNumber Account number
+     * @param asOf Transactions dated at or before this time are included
+     * @return Balance as of the given time
+     * @throws com.eomaxl.bankapplication.domain.exception.AccountNotFoundException if account not found
+     */
+    BigDecimal getBalanceAsOf(String accountNumber, LocalDateTime asOf);
+
     /**
      * Updates a transaction's status
      * @param transactionId Transaction ID
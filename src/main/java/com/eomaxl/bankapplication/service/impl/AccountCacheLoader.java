@@ -0,0 +1,36 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.config.NamedCacheLoader;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reloads entries of the accounts cache, keyed by account number, the way findByAccountNumber caches them
+ * ShardedBalanceService is looked up on first load: it depends on the balance cache, which is built by the
+ * cache manager this loader is handed to.
+ */
+@Component
+public class AccountCacheLoader implements NamedCacheLoader {
+
+    private final AccountRepository accountRepository;
+    private final ObjectProvider<ShardedBalanceService> shardedBalances;
+
+    public AccountCacheLoader(AccountRepository accountRepository, ObjectProvider<ShardedBalanceService> shardedBalances) {
+        this.accountRepository = accountRepository;
+        this.shardedBalances = shardedBalances;
+    }
+
+    @Override
+    public String cacheName() {
+        return CacheConfig.ACCOUNTS;
+    }
+
+    @Override
+    public Object load(Object key) {
+        return accountRepository.findByAccountNumber((String) key)
+                .map(account -> shardedBalances.getObject().withTotal(account))
+                .orElse(null);
+    }
+}
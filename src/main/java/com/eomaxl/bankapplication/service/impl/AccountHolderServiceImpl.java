@@ -1,5 +1,6 @@
 package com.eomaxl.bankapplication.service.impl;
 
+import com.eomaxl.bankapplication.config.CacheConfig;
 import com.eomaxl.bankapplication.domain.exception.BankingException;
 import com.eomaxl.bankapplication.domain.model.AccountHolder;
 import com.eomaxl.bankapplication.domain.model.Person;
@@ -9,11 +10,13 @@ import com.eomaxl.bankapplication.service.IPersonService;
 import org.springframework.transaction.annotation.Transactional;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -22,6 +25,7 @@ import java.util.UUID;
 public class AccountHolderServiceImpl implements IAccountHolderService {
     private final AccountHolderRepository accountHolderRepository;
     private final IPersonService personService;
+    private final BusinessNumberGenerator numberGenerator;
 
     @Transactional
     public AccountHolder createAccountHolder(Person person) {
@@ -43,11 +47,8 @@ public class AccountHolderServiceImpl implements IAccountHolderService {
                     .orElseThrow(() -> new BankingException("Person not found with ID: " + person.getId(), "PERSON_NOT_FOUND"));
         }
 
-        // Generate unique customer ID
-        String customerId = generateCustomerId();
-        while (accountHolderRepository.existsByCustomerId(customerId)) {
-            customerId = generateCustomerId();
-        }
+        // Customer IDs come from a block reserved by this node, unique without checking the table
+        String customerId = numberGenerator.nextCustomerId();
 
         AccountHolder accountHolder = AccountHolder.builder()
                 .person(savedPerson)
@@ -60,11 +61,13 @@ public class AccountHolderServiceImpl implements IAccountHolderService {
         return savedAccountHolder;
     }
 
+    @Cacheable(value = CacheConfig.ACCOUNT_HOLDERS, key = "#id", unless = "#result == null")
     public Optional<AccountHolder> findById(Long id) {
         log.debug("Finding account holder by ID: {}", id);
         return accountHolderRepository.findById(id);
     }
 
+    @Cacheable(value = CacheConfig.ACCOUNT_HOLDERS_BY_CUSTOMER_ID, key = "#customerId", unless = "#result == null")
     public Optional<AccountHolder> findByCustomerId(String customerId) {
         log.debug("Finding account holder by customer ID: {}", customerId);
         return accountHolderRepository.findByCustomerId(customerId);
@@ -91,6 +94,10 @@ public class AccountHolderServiceImpl implements IAccountHolderService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.ACCOUNT_HOLDERS, key = "#id"),
+            @CacheEvict(value = CacheConfig.ACCOUNT_HOLDERS_BY_CUSTOMER_ID, key = "#result.customerId")
+    })
     public AccountHolder updateAccountHolderStatus(Long id, AccountHolder.AccountHolderStatus status) {
         log.info("Updating account holder status for ID: {} to {}", id, status);
 
@@ -106,6 +113,10 @@ public class AccountHolderServiceImpl implements IAccountHolderService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.ACCOUNT_HOLDERS, key = "#id"),
+            @CacheEvict(value = CacheConfig.ACCOUNT_HOLDERS_BY_CUSTOMER_ID, key = "#result.customerId")
+    })
     public AccountHolder updateAccountHolder(Long id, AccountHolder updatedAccountHolder) {
         log.info("Updating account holder with ID: {}", id);
 
@@ -129,7 +140,12 @@ public class AccountHolderServiceImpl implements IAccountHolderService {
         return savedAccountHolder;
     }
 
+    // Deletes are rare and only allowed without accounts, the customer ID is not known here
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.ACCOUNT_HOLDERS, key = "#id"),
+            @CacheEvict(value = CacheConfig.ACCOUNT_HOLDERS_BY_CUSTOMER_ID, allEntries = true)
+    })
     public void deleteAccountHolder(Long id) {
         log.info("Deleting account holder with ID: {}", id);
 
@@ -152,10 +168,6 @@ public class AccountHolderServiceImpl implements IAccountHolderService {
         return accountHolderRepository.findAll();
     }
 
-    private String generateCustomerId() {
-        return "CUST" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
-    }
-
     public boolean existsByCustomerId(String customerId) {
         return accountHolderRepository.existsByCustomerId(customerId);
     }
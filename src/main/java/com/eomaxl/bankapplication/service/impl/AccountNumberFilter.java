@@ -0,0 +1,239 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.AccountFilterProperties;
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.config.CacheInvalidation;
+import com.eomaxl.bankapplication.config.CacheInvalidationTransport;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bloom filter of every existing account number, answers lookups of numbers that do not exist without a query
+ * Built from the accounts table on ApplicationReadyEvent, before the application reports that it accepts
+ * traffic, and rebuilt, larger, when it fills past its false positive target. If the first build fails every
+ * number is treated as possibly existing until a sync builds it.
+ * Numbers created here are added immediately, numbers created on other nodes arrive with the accounts
+ * cache invalidation broadcast after their commit (see TwoTierCacheManager) and, as a backstop, from a
+ * periodic read of recently created accounts. A number created elsewhere can therefore be reported missing
+ * for at most one sync interval if its invalidation is lost. While a rebuild runs, numbers are added to both
+ * the live filter and the one being built; the swap and add hold the same lock so no number lands only in
+ * the filter being replaced. Lookups read the live filter without locking.
+ */
+@Component
+@Slf4j
+public class AccountNumberFilter {
+
+    private static final String COUNT_SQL = "SELECT COUNT(*) FROM accounts";
+    private static final String ALL_NUMBERS_SQL = "SELECT account_number FROM accounts";
+    private static final String CREATED_SINCE_SQL = "SELECT account_number FROM accounts WHERE created_at >= ?";
+    private static final int FETCH_SIZE = 10_000;
+
+    private final AccountFilterProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ScheduledExecutorService syncer;
+
+    // Guards building and the swap to a rebuilt filter against concurrent adds
+    private final Object swapLock = new Object();
+    private volatile BloomFilter filter;
+    private BloomFilter building;
+    private volatile LocalDateTime syncedFrom;
+
+    private final Counter negativeCounter;
+    private final Counter falsePositiveCounter;
+    private final Timer rebuildTimer;
+
+    @Autowired
+    public AccountNumberFilter(AccountFilterProperties properties,
+                               DataSource dataSource,
+                               PlatformTransactionManager transactionManager,
+                               ObjectProvider<CacheInvalidationTransport> invalidationTransport,
+                               MeterRegistry meterRegistry) {
+        this(properties, new JdbcTemplate(dataSource), transactionManager, meterRegistry);
+        invalidationTransport.ifAvailable(transport -> transport.subscribe(this::onInvalidation));
+    }
+
+    AccountNumberFilter(AccountFilterProperties properties,
+                        JdbcTemplate jdbcTemplate,
+                        PlatformTransactionManager transactionManager,
+                        MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        // Streams the full scan instead of holding every account number in memory at once
+        this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.syncer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "AccountNumberFilter");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.negativeCounter = Counter.builder("banking.accounts.filter.negatives")
+                .description("Account number lookups answered as missing by the Bloom filter without a query")
+                .register(meterRegistry);
+        this.falsePositiveCounter = Counter.builder("banking.accounts.filter.false_positives")
+                .description("Account numbers the Bloom filter passed that the database did not have")
+                .register(meterRegistry);
+        this.rebuildTimer = Timer.builder("banking.accounts.filter.rebuild")
+                .description("Full rebuilds of the account number Bloom filter")
+                .register(meterRegistry);
+        Gauge.builder("banking.accounts.filter.expected_fpp", this,
+                        self -> self.filter != null ? self.filter.expectedFalsePositiveRate() : 0)
+                .description("False positive rate expected from the bits currently set")
+                .register(meterRegistry);
+        Gauge.builder("banking.accounts.filter.bits", this, self -> self.filter != null ? self.filter.bitCount() : 0)
+                .description("Size of the account number Bloom filter in bits")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Builds the filter on the thread publishing ApplicationReadyEvent, Spring Boot only marks the
+     * application as accepting traffic once its listeners return
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        rebuildSafely();
+        syncer.scheduleWithFixedDelay(this::syncSafely, properties.getSyncIntervalMs(),
+                properties.getSyncIntervalMs(), TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void stop() {
+        syncer.shutdownNow();
+    }
+
+    /**
+     * False only when the account number certainly does not exist, does not count towards the metrics
+     */
+    public boolean mightContain(String accountNumber) {
+        BloomFilter current = filter;
+        return current == null || accountNumber == null || current.mightContain(accountNumber);
+    }
+
+    /**
+     * True when the account number certainly does not exist and no query is needed
+     */
+    public boolean isDefinitelyAbsent(String accountNumber) {
+        if (mightContain(accountNumber)) {
+            return false;
+        }
+        negativeCounter.increment();
+        return true;
+    }
+
+    /**
+     * Records that a number the filter passed was not found
+     */
+    public void falsePositive(String accountNumber) {
+        if (filter != null) {
+            falsePositiveCounter.increment();
+            log.trace("Bloom filter false positive for account {}", accountNumber);
+        }
+    }
+
+    public void add(String accountNumber) {
+        synchronized (swapLock) {
+            if (filter != null) {
+                filter.put(accountNumber);
+            }
+            if (building != null) {
+                building.put(accountNumber);
+            }
+        }
+    }
+
+    private void onInvalidation(CacheInvalidation invalidation) {
+        // Adding a number that turns out not to exist only costs a query, so every key is taken
+        if (CacheConfig.ACCOUNTS.equals(invalidation.cacheName()) && invalidation.key() instanceof String accountNumber) {
+            add(accountNumber);
+        }
+    }
+
+    private void rebuildSafely() {
+        try {
+            rebuild();
+        } catch (RuntimeException e) {
+            log.error("Failed to build the account number filter", e);
+        }
+    }
+
+    void rebuild() {
+        Timer.Sample sample = Timer.start();
+        LocalDateTime started = LocalDateTime.now();
+        Long count = jdbcTemplate.queryForObject(COUNT_SQL, Long.class);
+        long expected = Math.max(properties.getExpectedAccounts(), (count != null ? count : 0) * 2);
+
+        BloomFilter next = BloomFilter.create(expected, properties.getFalsePositiveRate());
+        synchronized (swapLock) {
+            building = next;
+        }
+        try {
+            readOnlyTransaction.executeWithoutResult(status ->
+                    jdbcTemplate.query(ALL_NUMBERS_SQL, (RowCallbackHandler) rs -> next.put(rs.getString(1))));
+        } catch (RuntimeException e) {
+            synchronized (swapLock) {
+                building = null;
+            }
+            throw e;
+        }
+        synchronized (swapLock) {
+            filter = next;
+            building = null;
+        }
+        syncedFrom = started;
+        long nanos = sample.stop(rebuildTimer);
+        log.info("Built account number filter for {} accounts ({} bits) in {}ms", count, next.bitCount(),
+                TimeUnit.NANOSECONDS.toMillis(nanos));
+    }
+
+    private void syncSafely() {
+        try {
+            sync();
+        } catch (RuntimeException e) {
+            log.warn("Failed to sync the account number filter", e);
+        }
+    }
+
+    private void sync() {
+        BloomFilter current = filter;
+        if (current == null) {
+            rebuild();
+            return;
+        }
+        if (current.expectedFalsePositiveRate() > properties.getFalsePositiveRate() * 2) {
+            log.info("Account number filter is over capacity, rebuilding");
+            rebuild();
+            return;
+        }
+
+        LocalDateTime started = LocalDateTime.now();
+        LocalDateTime since = syncedFrom.minusSeconds(properties.getSyncOverlapSeconds());
+        jdbcTemplate.query(CREATED_SINCE_SQL, (RowCallbackHandler) rs -> current.put(rs.getString(1)),
+                Timestamp.valueOf(since));
+        syncedFrom = started;
+    }
+}
@@ -1,8 +1,10 @@
 package com.eomaxl.bankapplication.service.impl;
 
+import com.eomaxl.bankapplication.config.BalanceUpdateMode;
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.config.ConcurrencyProperties;
 import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
 import com.eomaxl.bankapplication.domain.exception.BankingException;
-import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
 import com.eomaxl.bankapplication.domain.model.*;
 import com.eomaxl.bankapplication.repository.AccountRepository;
 import com.eomaxl.bankapplication.service.IAccountHolderService;
@@ -10,19 +12,20 @@ import com.eomaxl.bankapplication.service.IAccountService;
 import com.eomaxl.bankapplication.service.IBankService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.cache.annotation.Cacheable;
-import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -33,6 +36,14 @@ public class AccountServiceImpl implements IAccountService {
     private final AccountRepository accountRepository;
     private final IBankService bankService;
     private final IAccountHolderService accountHolderService;
+    private final ConcurrencyProperties concurrencyProperties;
+    private final List<BalanceUpdater> balanceUpdaters;
+    private final ShardedBalanceService shardedBalances;
+    private final BusinessNumberGenerator numberGenerator;
+    private final BalanceCache balanceCache;
+    private final AccountNumberFilter accountNumberFilter;
+    private final ConcurrencyRetry concurrencyRetry;
+    private final CacheManager cacheManager;
 
     @Transactional
     public Account createAccount(Account account) {
@@ -47,11 +58,8 @@ public class AccountServiceImpl implements IAccountService {
                 .orElseThrow(() -> new BankingException("Account holder not found with ID: " + account.getAccountHolder().getId(),
                         "ACCOUNT_HOLDER_NOT_FOUND"));
 
-        // Generate unique account number
-        String accountNumber = generateAccountNumber(bank.getBankCode());
-        while (accountRepository.existsByAccountNumber(accountNumber)) {
-            accountNumber = generateAccountNumber(bank.getBankCode());
-        }
+        // Numbers come from a block reserved for this bank, unique without checking the table
+        String accountNumber = numberGenerator.nextAccountNumber(bank.getBankCode());
 
         account.setAccountNumber(accountNumber);
         account.setBank(bank);
@@ -66,19 +74,31 @@ public class AccountServiceImpl implements IAccountService {
         }
 
         Account savedAccount = accountRepository.save(account);
+        accountNumberFilter.add(accountNumber);
+        // Broadcasts the new number to the account filters of other nodes once committed
+        balanceCache.evictAfterCommit(accountNumber);
         log.info("Successfully created account with number: {}", savedAccount.getAccountNumber());
         return savedAccount;
     }
 
     public Optional<Account> findById(Long id) {
         log.debug("Finding account by ID: {}", id);
-        return accountRepository.findById(id);
+        return accountRepository.findById(id).map(shardedBalances::withTotal);
     }
 
-    @Cacheable(value = "accounts", key = "#accountNumber")
+    // Numbers the filter rules out skip the cache too, whose loader would query for them
+    @Cacheable(value = "accounts", key = "#accountNumber",
+            condition = "@accountNumberFilter.mightContain(#accountNumber)", unless = "#result == null")
     public Optional<Account> findByAccountNumber(String accountNumber) {
         log.debug("Finding account by number: {}", accountNumber);
-        return accountRepository.findByAccountNumber(accountNumber);
+        if (accountNumberFilter.isDefinitelyAbsent(accountNumber)) {
+            return Optional.empty();
+        }
+        Optional<Account> account = accountRepository.findByAccountNumber(accountNumber).map(shardedBalances::withTotal);
+        if (account.isEmpty()) {
+            accountNumberFilter.falsePositive(accountNumber);
+        }
+        return account;
     }
 
     public Account getAccountByNumber(String accountNumber) {
@@ -88,28 +108,36 @@ public class AccountServiceImpl implements IAccountService {
 
     public List<Account> findByAccountHolderId(Long accountHolderId) {
         log.debug("Finding accounts by account holder ID: {}", accountHolderId);
-        return accountRepository.findByAccountHolderId(accountHolderId);
+        return shardedBalances.withTotals(accountRepository.findByAccountHolderId(accountHolderId));
     }
 
     public List<Account> findByCustomerId(String customerId) {
         log.debug("Finding accounts by customer ID: {}", customerId);
-        return accountRepository.findByCustomerId(customerId);
+        return shardedBalances.withTotals(accountRepository.findByCustomerId(customerId));
     }
 
     public List<Account> findByBankId(Long bankId) {
         log.debug("Finding accounts by bank ID: {}", bankId);
-        return accountRepository.findByBankId(bankId);
+        return shardedBalances.withTotals(accountRepository.findByBankId(bankId));
     }
 
-    @Cacheable(value = "balances", key = "#accountNumber")
     public BigDecimal getBalance(String accountNumber) {
         log.debug("Getting balance for account: {}", accountNumber);
-        Account account = getAccountByNumber(accountNumber);
-        return account.getBalance();
+        if (accountNumberFilter.isDefinitelyAbsent(accountNumber)) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        if (shardedBalances.isSharded(accountNumber)) {
+            // A hot account's total spans shard rows and has no single version, so it is not cached
+            return getAccountByNumber(accountNumber).getBalance();
+        }
+        return balanceCache.getBalance(accountNumber)
+                .orElseThrow(() -> {
+                    accountNumberFilter.falsePositive(accountNumber);
+                    return new AccountNotFoundException(accountNumber);
+                });
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE, timeout = 30)
-    @CacheEvict(value = {"accounts", "balances"}, key = "#accountNumber")
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Account credit(String accountNumber, BigDecimal amount, String description) {
         log.info("Crediting amount {} to account: {}", amount, accountNumber);
 
@@ -117,26 +145,14 @@ public class AccountServiceImpl implements IAccountService {
             throw new BankingException("Credit amount must be positive", "INVALID_AMOUNT");
         }
 
-        // Pessimistic locking ensures consistency under high concurrency
-        Account account = accountRepository.findByAccountNumberWithLock(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
-
-        if (account.getStatus() != AccountStatus.ACTIVE) {
-            throw new BankingException("Account is not active: " + accountNumber, "ACCOUNT_NOT_ACTIVE");
+        if (shardedBalances.isSharded(accountNumber)) {
+            return shardedBalances.credit(accountNumber, amount);
         }
-
-        BigDecimal oldBalance = account.getBalance();
-        account.credit(amount);
-
-        // Force immediate flush to ensure consistency
-        Account savedAccount = accountRepository.saveAndFlush(account);
-        log.info("Successfully credited {} to account {}. Balance: {} -> {}",
-                amount, accountNumber, oldBalance, savedAccount.getBalance());
-
-        return savedAccount;
+        BalanceUpdater updater = updaterFor(modeOf(accountNumber));
+        return concurrencyRetry.execute(() -> updater.credit(accountNumber, amount));
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Account debit(String accountNumber, BigDecimal amount, String description) {
         log.info("Debiting amount {} from account: {}", amount, accountNumber);
 
@@ -144,29 +160,15 @@ public class AccountServiceImpl implements IAccountService {
             throw new BankingException("Debit amount must be positive", "INVALID_AMOUNT");
         }
 
-        Account account = accountRepository.findByAccountNumberWithLock(accountNumber)
-                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
-
-        if (account.getStatus() != AccountStatus.ACTIVE) {
-            throw new BankingException("Account is not active: " + accountNumber, "ACCOUNT_NOT_ACTIVE");
+        if (shardedBalances.isSharded(accountNumber)) {
+            return shardedBalances.debit(accountNumber, amount);
         }
-
-        if (account.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException(accountNumber, amount, account.getBalance());
-        }
-
-        BigDecimal oldBalance = account.getBalance();
-        account.debit(amount);
-
-        Account savedAccount = accountRepository.save(account);
-        log.info("Successfully debited {} from account {}. Balance: {} -> {}",
-                amount, accountNumber, oldBalance, savedAccount.getBalance());
-
-        return savedAccount;
+        BalanceUpdater updater = updaterFor(modeOf(accountNumber));
+        return concurrencyRetry.execute(() -> updater.debit(accountNumber, amount));
     }
 
-    @Transactional(isolation = Isolation.SERIALIZABLE)
-    public void transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String description) {
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String description) {
         log.info("Transferring {} from {} to {}", amount, fromAccountNumber, toAccountNumber);
 
         if (amount.compareTo(BigDecimal.ZERO) <= 0) {
@@ -177,45 +179,17 @@ public class AccountServiceImpl implements IAccountService {
             throw new BankingException("Cannot transfer to the same account", "SAME_ACCOUNT_TRANSFER");
         }
 
-        // Lock both accounts in a consistent order to prevent deadlocks
-        String firstLock = fromAccountNumber.compareTo(toAccountNumber) < 0 ? fromAccountNumber : toAccountNumber;
-        String secondLock = fromAccountNumber.compareTo(toAccountNumber) < 0 ? toAccountNumber : fromAccountNumber;
-
-        Account firstAccount = accountRepository.findByAccountNumberWithLock(firstLock)
-                .orElseThrow(() -> new AccountNotFoundException(firstLock));
-        Account secondAccount = accountRepository.findByAccountNumberWithLock(secondLock)
-                .orElseThrow(() -> new AccountNotFoundException(secondLock));
-
-        Account fromAccount = fromAccountNumber.equals(firstLock) ? firstAccount : secondAccount;
-        Account toAccount = toAccountNumber.equals(firstLock) ? firstAccount : secondAccount;
-
-        // Validate accounts are active
-        if (fromAccount.getStatus() != AccountStatus.ACTIVE) {
-            throw new BankingException("Source account is not active: " + fromAccountNumber, "ACCOUNT_NOT_ACTIVE");
-        }
-
-        if (toAccount.getStatus() != AccountStatus.ACTIVE) {
-            throw new BankingException("Destination account is not active: " + toAccountNumber, "ACCOUNT_NOT_ACTIVE");
-        }
-
-        // Check sufficient funds
-        if (fromAccount.getBalance().compareTo(amount) < 0) {
-            throw new InsufficientFundsException(fromAccountNumber, amount, fromAccount.getBalance());
+        if (shardedBalances.isSharded(fromAccountNumber) || shardedBalances.isSharded(toAccountNumber)) {
+            return shardedBalances.transfer(fromAccountNumber, toAccountNumber, amount);
         }
 
-        // Perform transfer
-        BigDecimal fromOldBalance = fromAccount.getBalance();
-        BigDecimal toOldBalance = toAccount.getBalance();
+        // Both legs share one transaction, so the stricter of the two modes applies
+        BalanceUpdateMode fromMode = modeOf(fromAccountNumber);
+        BalanceUpdateMode toMode = modeOf(toAccountNumber);
+        BalanceUpdateMode mode = fromMode.compareTo(toMode) <= 0 ? fromMode : toMode;
 
-        fromAccount.debit(amount);
-        toAccount.credit(amount);
-
-        accountRepository.save(fromAccount);
-        accountRepository.save(toAccount);
-
-        log.info("Successfully transferred {} from {} (Balance: {} -> {}) to {} (Balance: {} -> {})",
-                amount, fromAccountNumber, fromOldBalance, fromAccount.getBalance(),
-                toAccountNumber, toOldBalance, toAccount.getBalance());
+        BalanceUpdater updater = updaterFor(mode);
+        return concurrencyRetry.execute(() -> updater.transfer(fromAccountNumber, toAccountNumber, amount));
     }
 
     @Transactional
@@ -229,50 +203,80 @@ public class AccountServiceImpl implements IAccountService {
         account.setStatus(status);
 
         Account savedAccount = accountRepository.save(account);
+        balanceCache.afterCommit(savedAccount);
         log.info("Successfully updated account status from {} to {} for ID: {}", oldStatus, status, id);
         return savedAccount;
     }
 
     public List<Account> findByBalanceRange(BigDecimal minBalance, BigDecimal maxBalance) {
         log.debug("Finding accounts with balance between {} and {}", minBalance, maxBalance);
-        return accountRepository.findByBalanceBetween(minBalance, maxBalance);
+        return shardedBalances.withTotals(accountRepository.findByBalanceBetween(minBalance, maxBalance));
     }
 
     public List<Account> findByAccountType(AccountType accountType) {
         log.debug("Finding accounts by type: {}", accountType);
-        return accountRepository.findByAccountType(accountType);
+        return shardedBalances.withTotals(accountRepository.findByAccountType(accountType));
     }
 
     public List<Account> findByStatus(AccountStatus status) {
         log.debug("Finding accounts by status: {}", status);
-        return accountRepository.findByStatus(status);
+        return shardedBalances.withTotals(accountRepository.findByStatus(status));
     }
 
     public Page<Account> findActiveAccountsByAccountHolder(Long accountHolderId, Pageable pageable) {
         log.debug("Finding active accounts for account holder: {}", accountHolderId);
-        return accountRepository.findActiveAccountsByAccountHolder(accountHolderId, pageable);
+        Page<Account> page = accountRepository.findActiveAccountsByAccountHolder(accountHolderId, pageable);
+        return new PageImpl<>(shardedBalances.withTotals(page.getContent()), pageable, page.getTotalElements());
     }
 
     public BigDecimal getTotalBalanceByBankId(Long bankId) {
         log.debug("Getting total balance for bank ID: {}", bankId);
-        return accountRepository.getTotalBalanceByBankId(bankId);
+        BigDecimal total = accountRepository.getTotalBalanceByBankId(bankId);
+        return total == null ? null : total.add(shardedBalances.shardTotalForBank(bankId));
     }
 
     public List<Account> findDormantAccounts(LocalDateTime lastTransactionDate) {
         log.debug("Finding dormant accounts with last transaction before: {}", lastTransactionDate);
-        return accountRepository.findDormantAccounts(lastTransactionDate);
+        return shardedBalances.withTotals(accountRepository.findDormantAccounts(lastTransactionDate));
     }
 
     public List<Account> findHighValueAccounts(BigDecimal threshold) {
         log.debug("Finding high value accounts with balance >= {}", threshold);
-        return accountRepository.findHighValueAccounts(threshold);
+        return shardedBalances.withTotals(accountRepository.findHighValueAccounts(threshold));
     }
 
-    private String generateAccountNumber(String bankCode) {
-        return bankCode + UUID.randomUUID().toString().replaceAll("-", "").substring(0, 10).toUpperCase();
+    private BalanceUpdateMode modeOf(String accountNumber) {
+        if (concurrencyProperties.isUniform()) {
+            return concurrencyProperties.getDefaultMode();
+        }
+        // An account never changes type, so one lookup serves every later balance change on it
+        Cache accountTypes = cacheManager.getCache(CacheConfig.ACCOUNT_TYPES);
+        AccountType accountType = accountTypes.get(accountNumber, AccountType.class);
+        if (accountType == null) {
+            accountType = accountRepository.findAccountTypeByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+            accountTypes.put(accountNumber, accountType);
+        }
+        return concurrencyProperties.modeFor(accountType);
+    }
+
+    private BalanceUpdater updaterFor(BalanceUpdateMode mode) {
+        for (BalanceUpdater updater : balanceUpdaters) {
+            if (updater.mode() == mode) {
+                return updater;
+            }
+        }
+        throw new IllegalStateException("No balance updater registered for mode " + mode);
     }
 
     public boolean existsByAccountNumber(String accountNumber) {
-        return accountRepository.existsByAccountNumber(accountNumber);
+        if (accountNumberFilter.isDefinitelyAbsent(accountNumber)) {
+            return false;
+        }
+        boolean exists = accountRepository.existsByAccountNumber(accountNumber);
+        if (!exists) {
+            accountNumberFilter.falsePositive(accountNumber);
+        }
+        return exists;
     }
 }
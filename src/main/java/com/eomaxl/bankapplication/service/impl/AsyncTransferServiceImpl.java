@@ -0,0 +1,258 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.AsyncTransferProperties;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import com.eomaxl.bankapplication.domain.model.PendingTransfer;
+import com.eomaxl.bankapplication.domain.model.PendingTransferStatus;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.mapper.BankingMapper;
+import com.eomaxl.bankapplication.repository.PendingTransferRepository;
+import com.eomaxl.bankapplication.service.IAccountService;
+import com.eomaxl.bankapplication.service.IAsyncTransferService;
+import com.eomaxl.bankapplication.service.ITransactionService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.SimpleClientHttpRequestFactory;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.client.RestClient;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Asynchronous transfers backed by the pending_transfers table
+ * Submissions are committed as QUEUED rows before the client gets its 202, so an accepted transfer
+ * survives a restart. A PollingDispatcher reads queued rows and hands them one at a time to the
+ * transactionExecutor, at most maxInFlight at once, so the executor's caller-runs fallback only ever
+ * throttles the dispatcher, never request threads.
+ * Each transfer locks its row, so a transfer is applied once even when several nodes drain the table.
+ * A transient failure, including a balance update that lost a race, leaves the transfer queued with a next
+ * attempt time that backs off exponentially.
+ * Callback URLs are vetted by CallbackUrlPolicy on submission and again before each call.
+ */
+@Service
+@Slf4j
+public class AsyncTransferServiceImpl implements IAsyncTransferService {
+
+    private final PendingTransferRepository repository;
+    private final IAccountService accountService;
+    private final ITransactionService transactionService;
+    private final BankingMapper mapper;
+    private final Executor notificationExecutor;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requiresNew;
+    private final AsyncTransferProperties properties;
+    private final RestClient callbackClient;
+    private final CallbackUrlPolicy callbackUrlPolicy;
+
+    private final PollingDispatcher dispatcher;
+
+    public AsyncTransferServiceImpl(PendingTransferRepository repository,
+                                    IAccountService accountService,
+                                    ITransactionService transactionService,
+                                    BankingMapper mapper,
+                                    @Qualifier("transactionExecutor") Executor transactionExecutor,
+                                    @Qualifier("notificationExecutor") Executor notificationExecutor,
+                                    PlatformTransactionManager transactionManager,
+                                    AsyncTransferProperties properties,
+                                    CallbackUrlPolicy callbackUrlPolicy) {
+        this.repository = repository;
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+        this.mapper = mapper;
+        this.notificationExecutor = notificationExecutor;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+
+        SimpleClientHttpRequestFactory requestFactory = new SimpleClientHttpRequestFactory();
+        requestFactory.setConnectTimeout(Duration.ofMillis(properties.getCallbackTimeoutMs()));
+        requestFactory.setReadTimeout(Duration.ofMillis(properties.getCallbackTimeoutMs()));
+        this.callbackClient = RestClient.builder().requestFactory(requestFactory).build();
+        this.callbackUrlPolicy = callbackUrlPolicy;
+
+        this.dispatcher = new PollingDispatcher("TransferDispatcher", transactionExecutor,
+                properties.getMaxInFlight(), 1, properties.getPollIntervalMs(),
+                () -> repository.findDueIdsByStatus(PendingTransferStatus.QUEUED, LocalDateTime.now(),
+                        PageRequest.of(0, properties.getBatchSize())),
+                ids -> process(ids.get(0)),
+                () -> { });
+    }
+
+    @Override
+    public PendingTransfer submit(String fromAccountNumber, String toAccountNumber, BigDecimal amount,
+                                  String description, String callbackUrl) {
+        if (amount == null || amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BankingException("INVALID_AMOUNT", "Transfer amount must be positive");
+        }
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new BankingException("SAME_ACCOUNT_TRANSFER", "Cannot transfer to the same account");
+        }
+        if (callbackUrl != null) {
+            callbackUrlPolicy.check(callbackUrl);
+        }
+        if (!accountService.existsByAccountNumber(fromAccountNumber)) {
+            throw new AccountNotFoundException(fromAccountNumber);
+        }
+        if (!accountService.existsByAccountNumber(toAccountNumber)) {
+            throw new AccountNotFoundException(toAccountNumber);
+        }
+
+        PendingTransfer queued = repository.save(PendingTransfer.builder()
+                .transferId(generateTransferId())
+                .fromAccountNumber(fromAccountNumber)
+                .toAccountNumber(toAccountNumber)
+                .amount(amount)
+                .description(description)
+                .callbackUrl(callbackUrl)
+                .status(PendingTransferStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build());
+
+        log.info("Queued transfer {} of {} from {} to {}", queued.getTransferId(), amount,
+                fromAccountNumber, toAccountNumber);
+        dispatcher.wakeUp();
+        return queued;
+    }
+
+    @Override
+    public Optional<PendingTransfer> findByTransferId(String transferId) {
+        return repository.findByTransferId(transferId);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDispatcher() {
+        // Started once the context is ready so transfers queued before a restart are not picked up half-wired
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.stop();
+    }
+
+    private void process(Long id) {
+        PendingTransfer finished;
+        try {
+            finished = transactionTemplate.execute(status -> {
+                PendingTransfer pending = repository.findByIdWithLock(id).orElse(null);
+                if (pending == null || pending.getStatus() != PendingTransferStatus.QUEUED || !isDue(pending)) {
+                    // Already handled, or put back to wait, by another node
+                    return null;
+                }
+
+                List<Transaction> transactions = transactionService.transfer(pending.getFromAccountNumber(),
+                        pending.getToAccountNumber(), pending.getAmount(), pending.getDescription());
+                Transaction outgoing = transactions.get(0);
+                Transaction incoming = transactions.get(1);
+
+                pending.setStatus(PendingTransferStatus.COMPLETED);
+                pending.setAttempts(pending.getAttempts() + 1);
+                pending.setOutgoingTransactionId(outgoing.getTransactionId());
+                pending.setIncomingTransactionId(incoming.getTransactionId());
+                pending.setFromBalanceAfter(outgoing.getBalanceAfter());
+                pending.setToBalanceAfter(incoming.getBalanceAfter());
+                pending.setCompletedAt(LocalDateTime.now());
+                return pending;
+            });
+            if (finished != null) {
+                log.info("Completed transfer {}", finished.getTransferId());
+            }
+        } catch (ConcurrentUpdateException | ConcurrencyFailureException e) {
+            // The transfer runs inside this transaction, so ConcurrencyRetry leaves a lost race to the next attempt
+            finished = recordFailure(id, e, false);
+        } catch (BankingException e) {
+            finished = recordFailure(id, e, true);
+        } catch (Exception e) {
+            finished = recordFailure(id, e, false);
+        }
+
+        if (finished != null && finished.getCallbackUrl() != null) {
+            PendingTransfer notified = finished;
+            notificationExecutor.execute(() -> notifyCallback(notified));
+        }
+    }
+
+    /**
+     * Marks a transfer failed, or leaves it queued for another attempt when the error was transient
+     * @return the transfer if it reached a final status, null otherwise
+     */
+    private PendingTransfer recordFailure(Long id, Exception error, boolean rejected) {
+        try {
+            return requiresNew.execute(status -> {
+                PendingTransfer pending = repository.findByIdWithLock(id).orElse(null);
+                if (pending == null || pending.getStatus() != PendingTransferStatus.QUEUED) {
+                    return null;
+                }
+                pending.setAttempts(pending.getAttempts() + 1);
+                pending.setErrorMessage(PollingDispatcher.truncate(error.getMessage()));
+                if (!rejected && pending.getAttempts() < properties.getMaxAttempts()) {
+                    long backoffMs = backoffMs(pending.getAttempts());
+                    pending.setNextAttemptAt(LocalDateTime.now().plus(Duration.ofMillis(backoffMs)));
+                    log.warn("Transfer {} failed on attempt {}, it will be retried in {} ms",
+                            pending.getTransferId(), pending.getAttempts(), backoffMs, error);
+                    return null;
+                }
+                pending.setStatus(PendingTransferStatus.FAILED);
+                pending.setCompletedAt(LocalDateTime.now());
+                log.info("Transfer {} failed: {}", pending.getTransferId(), error.getMessage());
+                return pending;
+            });
+        } catch (Exception e) {
+            log.error("Failed to record failure of pending transfer {}", id, e);
+            return null;
+        }
+    }
+
+    /**
+     * Exponential backoff after the given number of failed attempts, with jitter so retries spread out
+     */
+    long backoffMs(int attempts) {
+        long initial = Math.max(1, properties.getRetryInitialBackoffMs());
+        long max = Math.max(initial, properties.getRetryMaxBackoffMs());
+        int doublings = Math.max(0, attempts - 1);
+        long backoff = doublings >= Long.numberOfLeadingZeros(initial) - 1 ? max : Math.min(max, initial << doublings);
+        return backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+    }
+
+    private boolean isDue(PendingTransfer pending) {
+        return pending.getNextAttemptAt() == null || !pending.getNextAttemptAt().isAfter(LocalDateTime.now());
+    }
+
+    private void notifyCallback(PendingTransfer transfer) {
+        try {
+            callbackClient.post()
+                    .uri(callbackUrlPolicy.check(transfer.getCallbackUrl()))
+                    .contentType(MediaType.APPLICATION_JSON)
+                    .body(mapper.toTransferStatusResponse(transfer))
+                    .retrieve()
+                    .toBodilessEntity();
+        } catch (Exception e) {
+            // Callbacks are best effort, the status stays available through polling
+            log.warn("Callback for transfer {} to {} failed: {}", transfer.getTransferId(),
+                    transfer.getCallbackUrl(), e.getMessage());
+        }
+    }
+
+    private static String generateTransferId() {
+        return "TRF" + UUID.randomUUID().toString().replace("-", "").toUpperCase();
+    }
+}
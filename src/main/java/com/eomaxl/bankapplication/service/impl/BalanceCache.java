@@ -0,0 +1,203 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.config.TwoTierCache;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Write-through cache of committed account balances
+ * Every balance change is registered with the surrounding transaction and written to the balances cache
+ * once that transaction commits, so a reader never sees a balance that could still roll back. Entries
+ * carry the account row version and only replace an entry with an older one, so commit callbacks that run
+ * out of order, or a reload racing with a commit, cannot put an older balance back. With a two-tier cache
+ * that holds for the near tier only; the shared entry is deleted and reloaded instead (see TwoTierCache.merge).
+ * The accounts cache, which holds whole entities, is evicted at the same point.
+ */
+@Component
+@Slf4j
+public class BalanceCache {
+
+    private final CacheManager cacheManager;
+    private final AccountRepository accountRepository;
+
+    public BalanceCache(CacheManager cacheManager, AccountRepository accountRepository) {
+        this.cacheManager = cacheManager;
+        this.accountRepository = accountRepository;
+    }
+
+    /**
+     * Committed balance of an account, from the cache when present
+     * @return empty when the account does not exist
+     */
+    public Optional<BigDecimal> getBalance(String accountNumber) {
+        Cache cache = cacheManager.getCache(CacheConfig.BALANCES);
+        if (cache == null || hasPendingChange(accountNumber)) {
+            // This transaction changed the account, what it reads is not committed yet and must not be cached
+            return accountRepository.findBalanceView(accountNumber).map(AccountBalanceView::balance);
+        }
+
+        // Misses are loaded by BalanceCacheLoader when the cache has one
+        CachedBalance cached = cache.get(accountNumber, CachedBalance.class);
+        if (cached == null) {
+            Optional<AccountBalanceView> view = accountRepository.findBalanceView(accountNumber);
+            if (view.isEmpty()) {
+                return Optional.empty();
+            }
+            cached = CachedBalance.of(view.get());
+            putIfNewer(cache, accountNumber, cached);
+        }
+        return Optional.of(cached.balance());
+    }
+
+    /**
+     * Caches the balance and version the account has when the current transaction commits
+     * Takes the entity rather than its values because its version is only bumped when it is flushed
+     */
+    public void afterCommit(Account account) {
+        register(account.getAccountNumber(), () -> new CachedBalance(account.getBalance(), account.getVersion()));
+    }
+
+    /**
+     * Caches a balance written by a direct update, once the current transaction commits
+     */
+    public void afterCommit(String accountNumber, BigDecimal balance, long version) {
+        CachedBalance committed = new CachedBalance(balance, version);
+        register(accountNumber, () -> committed);
+    }
+
+    /**
+     * Caches the balances written by AccountRepository.updateBalances, which bumps each row's version once
+     * @param locked views of the rows as locked before the update
+     */
+    public void afterCommit(Collection<AccountBalanceView> locked, Map<Long, BigDecimal> balancesById) {
+        for (AccountBalanceView view : locked) {
+            BigDecimal balance = balancesById.get(view.id());
+            if (balance != null) {
+                afterCommit(view.accountNumber(), balance, view.version() + 1);
+            }
+        }
+    }
+
+    /**
+     * Drops the cached entries of an account once the current transaction commits
+     * For changes whose resulting balance is not versioned, such as sharded hot accounts
+     */
+    public void evictAfterCommit(String accountNumber) {
+        register(accountNumber, () -> null);
+    }
+
+    private void register(String accountNumber, Supplier<CachedBalance> committed) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            apply(accountNumber, committed.get());
+            return;
+        }
+        // Later changes to the same account in this transaction replace earlier ones
+        pendingChanges(true).put(accountNumber, committed);
+    }
+
+    private boolean hasPendingChange(String accountNumber) {
+        Map<String, Supplier<CachedBalance>> pending = pendingChanges(false);
+        return pending != null && pending.containsKey(accountNumber);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Supplier<CachedBalance>> pendingChanges(boolean create) {
+        Map<String, Supplier<CachedBalance>> pending =
+                (Map<String, Supplier<CachedBalance>>) TransactionSynchronizationManager.getResource(this);
+        if (pending != null || !create || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return pending;
+        }
+
+        Map<String, Supplier<CachedBalance>> created = new LinkedHashMap<>();
+        TransactionSynchronizationManager.bindResource(this, created);
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void suspend() {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BalanceCache.this);
+            }
+
+            @Override
+            public void resume() {
+                TransactionSynchronizationManager.bindResource(BalanceCache.this, created);
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                TransactionSynchronizationManager.unbindResourceIfPossible(BalanceCache.this);
+                if (status == STATUS_COMMITTED) {
+                    created.forEach((accountNumber, committed) -> apply(accountNumber, committed.get()));
+                } else {
+                    // Nothing was written before commit, evicting only guards against reads that slipped in
+                    created.keySet().forEach(accountNumber -> apply(accountNumber, null));
+                }
+            }
+        });
+        return created;
+    }
+
+    private void apply(String accountNumber, CachedBalance committed) {
+        try {
+            Cache accounts = cacheManager.getCache(CacheConfig.ACCOUNTS);
+            if (accounts != null) {
+                accounts.evict(accountNumber);
+            }
+            Cache balances = cacheManager.getCache(CacheConfig.BALANCES);
+            if (balances == null) {
+                return;
+            }
+            if (committed == null) {
+                balances.evict(accountNumber);
+            } else {
+                putIfNewer(balances, accountNumber, committed);
+            }
+        } catch (RuntimeException e) {
+            // The change is committed either way, a cache failure must not surface to the caller
+            log.warn("Failed to update cached balance of account {}", accountNumber, e);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void putIfNewer(Cache cache, String accountNumber, CachedBalance balance) {
+        if (cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) caffeine).asMap()
+                    .merge(accountNumber, balance, (current, candidate) -> newer(current, (CachedBalance) candidate));
+        } else if (cache.getNativeCache() instanceof TwoTierCache twoTier) {
+            twoTier.merge(accountNumber, balance, (current, candidate) -> newer(current, (CachedBalance) candidate));
+        } else {
+            cache.put(accountNumber, balance);
+        }
+    }
+
+    private static Object newer(Object current, CachedBalance candidate) {
+        if (current instanceof CachedBalance cached && cached.version() > candidate.version()) {
+            return cached;
+        }
+        return candidate;
+    }
+
+    /**
+     * Balance of an account together with the row version it was read or written at
+     */
+    public record CachedBalance(BigDecimal balance, long version) implements Serializable {
+
+        public static CachedBalance of(AccountBalanceView view) {
+            return new CachedBalance(view.balance(), view.version());
+        }
+    }
+}
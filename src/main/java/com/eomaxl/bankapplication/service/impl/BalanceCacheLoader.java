@@ -0,0 +1,31 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.config.NamedCacheLoader;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import org.springframework.stereotype.Component;
+
+/**
+ * Reloads entries of the balances cache, keyed by account number, as versioned balances for BalanceCache
+ */
+@Component
+public class BalanceCacheLoader implements NamedCacheLoader {
+
+    private final AccountRepository accountRepository;
+
+    public BalanceCacheLoader(AccountRepository accountRepository) {
+        this.accountRepository = accountRepository;
+    }
+
+    @Override
+    public String cacheName() {
+        return CacheConfig.BALANCES;
+    }
+
+    @Override
+    public Object load(Object key) {
+        return accountRepository.findBalanceView((String) key)
+                .map(BalanceCache.CachedBalance::of)
+                .orElse(null);
+    }
+}
@@ -0,0 +1,310 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CheckpointProperties;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.BalanceCheckpoint;
+import com.eomaxl.bankapplication.domain.model.NumberSequence;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.BalanceCheckpointRepository;
+import com.eomaxl.bankapplication.repository.NumberSequenceRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.projection.OpeningBalance;
+import com.eomaxl.bankapplication.repository.projection.TransactionTotals;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Daily closing balances per account, so statements and balance-as-of reads never scan an account's history
+ * Once a day has closed, every account with transactions that day gets a checkpoint holding its closing
+ * balance and its credit, debit and count totals since its first transaction. A period's totals are then
+ * the difference of two checkpoints plus the rows before the first and after the last, and a past balance
+ * is the latest checkpoint plus the rows after it.
+ *
+ * Progress is kept in the number_sequences row balance_checkpoints as the next epoch day to checkpoint.
+ * Each node claims a day by advancing it under the row lock, so a day is checkpointed once across nodes.
+ * Checkpoints are an accelerator only: a day left half done by a crash, or checkpoints deleted because
+ * a write changed a day they cover, just make reads aggregate over more rows until the account's next
+ * checkpoint.
+ */
+@Component
+@Slf4j
+public class BalanceCheckpoints {
+
+    static final String PROGRESS_SEQUENCE = "balance_checkpoints";
+
+    // Lower bound for aggregating an account without a checkpoint, before any transaction can be dated
+    private static final LocalDateTime BEGINNING = LocalDateTime.of(1970, 1, 1, 0, 0);
+
+    private final BalanceCheckpointRepository checkpointRepository;
+    private final TransactionRepository transactionRepository;
+    private final AccountRepository accountRepository;
+    private final NumberSequenceRepository sequenceRepository;
+    private final TransactionTemplate requiresNew;
+    private final CheckpointProperties properties;
+
+    private final ScheduledExecutorService scheduler;
+    private final Timer dayTimer;
+    private final Counter checkpointsWritten;
+    private final Counter checkpointsInvalidated;
+
+    public BalanceCheckpoints(BalanceCheckpointRepository checkpointRepository,
+                              TransactionRepository transactionRepository,
+                              AccountRepository accountRepository,
+                              NumberSequenceRepository sequenceRepository,
+                              PlatformTransactionManager transactionManager,
+                              CheckpointProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.checkpointRepository = checkpointRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountRepository = accountRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "BalanceCheckpoints");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dayTimer = Timer.builder("banking.checkpoints.day")
+                .description("Time taken to checkpoint the accounts active on one day")
+                .register(meterRegistry);
+        this.checkpointsWritten = Counter.builder("banking.checkpoints.written")
+                .description("Balance checkpoints written")
+                .register(meterRegistry);
+        this.checkpointsInvalidated = Counter.builder("banking.checkpoints.invalidated")
+                .description("Balance checkpoints deleted because a write changed a day they cover")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.isEnabled()) {
+            scheduler.scheduleWithFixedDelay(this::checkpointClosedDays, 0, properties.getIntervalMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scheduler.shutdownNow();
+    }
+
+    /**
+     * Totals of an account's transactions dated within [start, end], whatever their status
+     */
+    public TransactionTotals totalsBetween(long accountId, LocalDateTime start, LocalDateTime end) {
+        Optional<BalanceCheckpoint> first = checkpointRepository
+                .findFirstByAccountIdAndCoveredUntilGreaterThanEqualOrderByCoveredUntilAsc(accountId, start);
+        Optional<BalanceCheckpoint> last = checkpointRepository
+                .findFirstByAccountIdAndCoveredUntilLessThanEqualOrderByCoveredUntilDesc(accountId, end);
+        if (first.isEmpty() || last.isEmpty() || last.get().getCoveredUntil().isBefore(first.get().getCoveredUntil())) {
+            // No checkpoint falls inside the period
+            return sumThrough(accountId, start, end);
+        }
+
+        LocalDateTime headEnd = first.get().getCoveredUntil();
+        TransactionTotals head = transactionRepository.sumByAccountIds(List.of(accountId), start, headEnd).stream()
+                .findFirst()
+                .orElseGet(() -> TransactionTotals.none(accountId));
+        TransactionTotals middle = cumulative(last.get()).minus(cumulative(first.get()));
+        TransactionTotals tail = sumThrough(accountId, last.get().getCoveredUntil(), end);
+        return head.plus(middle).plus(tail);
+    }
+
+    /**
+     * Balance of an account after every COMPLETED transaction dated at or before the given time
+     */
+    public BigDecimal balanceAsOf(long accountId, LocalDateTime asOf) {
+        Optional<BalanceCheckpoint> checkpoint = checkpointRepository
+                .findFirstByAccountIdAndCoveredUntilLessThanEqualOrderByCoveredUntilDesc(accountId, asOf);
+        if (checkpoint.isPresent()) {
+            return checkpoint.get().getClosingBalance()
+                    .add(sumThrough(accountId, checkpoint.get().getCoveredUntil(), asOf).completedNet());
+        }
+        return openingBalances(List.of(accountId)).get(accountId)
+                .add(sumThrough(accountId, BEGINNING, asOf).completedNet());
+    }
+
+    /**
+     * Deletes the checkpoints of an account that cover the given time, within the caller's transaction
+     * For writes that land in, or change the balance effect of, a day that may already be checkpointed.
+     * A checkpoint being written for that day by a job that read the account before the write commits is
+     * not caught, such writes should stay inside the close-after window.
+     */
+    public void invalidate(long accountId, LocalDateTime transactionDate) {
+        if (!transactionDate.isBefore(LocalDate.now().atStartOfDay())) {
+            // Today is never checkpointed yet
+            return;
+        }
+        int deleted = checkpointRepository.deleteFrom(accountId, transactionDate.toLocalDate());
+        if (deleted > 0) {
+            checkpointsInvalidated.increment(deleted);
+            log.debug("Deleted {} checkpoints of account {} from {}", deleted, accountId, transactionDate.toLocalDate());
+        }
+    }
+
+    void checkpointClosedDays() {
+        try {
+            for (int days = 0; days < properties.getMaxDaysPerRun(); days++) {
+                LocalDate day = claimNextDay();
+                if (day == null) {
+                    return;
+                }
+                dayTimer.record(() -> checkpointDay(day));
+            }
+        } catch (RuntimeException e) {
+            // A claimed day that failed is not retried, its accounts are checkpointed on their next active day
+            log.warn("Balance checkpoint run failed", e);
+        }
+    }
+
+    /**
+     * Advances the progress row past the next closed day and returns that day, or null when none is due
+     */
+    private LocalDate claimNextDay() {
+        LocalDate lastClosed = LocalDateTime.now().minusMinutes(properties.getCloseAfterMinutes())
+                .toLocalDate().minusDays(1);
+        try {
+            return requiresNew.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                NumberSequence progress = sequenceRepository.findBySequenceNameWithLock(PROGRESS_SEQUENCE)
+                        .orElseGet(() -> sequenceRepository.saveAndFlush(NumberSequence.builder()
+                                .sequenceName(PROGRESS_SEQUENCE)
+                                .nextValue(lastClosed.minusDays(properties.getBackfillDays() - 1L).toEpochDay())
+                                .updatedAt(now)
+                                .build()));
+                LocalDate next = LocalDate.ofEpochDay(progress.getNextValue());
+                if (next.isAfter(lastClosed)) {
+                    return null;
+                }
+                progress.setNextValue(next.toEpochDay() + 1);
+                progress.setUpdatedAt(now);
+                return next;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the progress row first, it exists now
+            return claimNextDay();
+        }
+    }
+
+    private void checkpointDay(LocalDate day) {
+        List<Long> accountIds = transactionRepository.findAccountIdsWithTransactionsBetween(
+                day.atStartOfDay(), day.plusDays(1).atStartOfDay());
+        int batchSize = Math.max(1, properties.getBatchSize());
+        for (int from = 0; from < accountIds.size(); from += batchSize) {
+            List<Long> batch = accountIds.subList(from, Math.min(from + batchSize, accountIds.size()));
+            requiresNew.executeWithoutResult(status -> checkpointAccounts(batch, day));
+        }
+        log.info("Checkpointed {} accounts for {}", accountIds.size(), day);
+    }
+
+    private void checkpointAccounts(List<Long> accountIds, LocalDate day) {
+        LocalDateTime coveredUntil = day.plusDays(1).atStartOfDay();
+
+        Map<Long, BalanceCheckpoint> previous = new HashMap<>();
+        for (BalanceCheckpoint checkpoint : checkpointRepository.findLatestBefore(accountIds, day)) {
+            previous.put(checkpoint.getAccount().getId(), checkpoint);
+        }
+
+        // Each account is aggregated from its own previous checkpoint, so accounts are queried per start time
+        Map<LocalDateTime, List<Long>> idsByStart = new HashMap<>();
+        List<Long> withoutCheckpoint = new ArrayList<>();
+        for (Long accountId : accountIds) {
+            BalanceCheckpoint checkpoint = previous.get(accountId);
+            idsByStart.computeIfAbsent(checkpoint == null ? BEGINNING : checkpoint.getCoveredUntil(),
+                    start -> new ArrayList<>()).add(accountId);
+            if (checkpoint == null) {
+                withoutCheckpoint.add(accountId);
+            }
+        }
+        Map<Long, TransactionTotals> periods = new HashMap<>();
+        idsByStart.forEach((start, ids) -> transactionRepository.sumByAccountIds(ids, start, coveredUntil)
+                .forEach(totals -> periods.put(totals.accountId(), totals)));
+        Map<Long, BigDecimal> openings = withoutCheckpoint.isEmpty() ? Map.of() : openingBalances(withoutCheckpoint);
+
+        LocalDateTime now = LocalDateTime.now();
+        List<BalanceCheckpoint> checkpoints = new ArrayList<>(accountIds.size());
+        for (Long accountId : accountIds) {
+            BalanceCheckpoint checkpoint = previous.get(accountId);
+            TransactionTotals base = checkpoint != null ? cumulative(checkpoint)
+                    : new TransactionTotals(accountId, 0L, BigDecimal.ZERO, BigDecimal.ZERO, openings.get(accountId));
+            TransactionTotals totals = base.plus(periods.getOrDefault(accountId, TransactionTotals.none(accountId)));
+            checkpoints.add(BalanceCheckpoint.builder()
+                    .account(accountRepository.getReferenceById(accountId))
+                    .checkpointDate(day)
+                    .coveredUntil(coveredUntil)
+                    .closingBalance(totals.completedNet())
+                    .totalCredits(totals.credits())
+                    .totalDebits(totals.debits())
+                    .transactionCount(totals.count())
+                    .createdAt(now)
+                    .build());
+        }
+        checkpointRepository.saveAll(checkpoints);
+        checkpointsWritten.increment(checkpoints.size());
+    }
+
+    /**
+     * Balance of each account before its first COMPLETED transaction, its current balance when it has none
+     */
+    private Map<Long, BigDecimal> openingBalances(List<Long> accountIds) {
+        Map<Long, OpeningBalance> earliest = new HashMap<>();
+        for (OpeningBalance opening : transactionRepository.findOpeningBalances(accountIds)) {
+            // Transactions dated at the same instant are ordered by id
+            earliest.merge(opening.accountId(), opening,
+                    (current, candidate) -> candidate.transactionId() < current.transactionId() ? candidate : current);
+        }
+
+        Map<Long, BigDecimal> balances = new HashMap<>();
+        for (Long accountId : accountIds) {
+            OpeningBalance opening = earliest.get(accountId);
+            if (opening != null) {
+                balances.put(accountId, opening.balanceBefore() == null ? BigDecimal.ZERO : opening.balanceBefore());
+            } else {
+                // Nothing has moved the balance yet
+                balances.put(accountId, accountRepository.findById(accountId)
+                        .map(Account::getBalance)
+                        .orElse(BigDecimal.ZERO));
+            }
+        }
+        return balances;
+    }
+
+    private TransactionTotals sumThrough(long accountId, LocalDateTime from, LocalDateTime through) {
+        return transactionRepository.sumByAccountIdThrough(accountId, from, through)
+                .orElseGet(() -> TransactionTotals.none(accountId));
+    }
+
+    /**
+     * Running totals of a checkpoint, with the closing balance in place of the net change
+     * The difference of two is the totals of the period between them.
+     */
+    private static TransactionTotals cumulative(BalanceCheckpoint checkpoint) {
+        return new TransactionTotals(checkpoint.getAccount().getId(), checkpoint.getTransactionCount(),
+                checkpoint.getTotalCredits(), checkpoint.getTotalDebits(), checkpoint.getClosingBalance());
+    }
+}
@@ -0,0 +1,25 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.BalanceUpdateMode;
+import com.eomaxl.bankapplication.domain.model.Account;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Strategy for applying validated balance changes under one concurrency mode
+ * Implementations own their transaction boundaries and raise the same domain exceptions
+ */
+public interface BalanceUpdater {
+
+    BalanceUpdateMode mode();
+
+    Account credit(String accountNumber, BigDecimal amount);
+
+    Account debit(String accountNumber, BigDecimal amount);
+
+    /**
+     * @return the source and destination accounts, in that order, as the transfer left them
+     */
+    List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount);
+}
@@ -1,11 +1,15 @@
 package com.eomaxl.bankapplication.service.impl;
 
+import com.eomaxl.bankapplication.config.CacheConfig;
 import com.eomaxl.bankapplication.domain.exception.BankingException;
 import com.eomaxl.bankapplication.domain.model.Bank;
 import com.eomaxl.bankapplication.repository.BankRepository;
 import com.eomaxl.bankapplication.service.IBankService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.cache.annotation.CacheEvict;
+import org.springframework.cache.annotation.Cacheable;
+import org.springframework.cache.annotation.Caching;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -33,11 +37,13 @@ public class BankServiceImpl implements IBankService {
         return savedBank;
     }
 
+    @Cacheable(value = CacheConfig.BANKS, key = "#id", unless = "#result == null")
     public Optional<Bank> findById(Long id) {
         log.debug("Finding bank by ID: {}", id);
         return bankRepository.findById(id);
     }
 
+    @Cacheable(value = CacheConfig.BANKS_BY_CODE, key = "#bankCode", unless = "#result == null")
     public Optional<Bank> findByBankCode(String bankCode) {
         log.debug("Finding bank by code: {}", bankCode);
         return bankRepository.findByBankCode(bankCode);
@@ -63,7 +69,12 @@ public class BankServiceImpl implements IBankService {
         return bankRepository.countAccountsByBankId(bankId);
     }
 
+    // The previous bank code is not known here, banks change rarely enough to drop every code
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.BANKS, key = "#id"),
+            @CacheEvict(value = CacheConfig.BANKS_BY_CODE, allEntries = true)
+    })
     public Bank updateBank(Long id, Bank updatedBank) {
         log.info("Updating bank with ID: {}", id);
 
@@ -88,6 +99,10 @@ public class BankServiceImpl implements IBankService {
     }
 
     @Transactional
+    @Caching(evict = {
+            @CacheEvict(value = CacheConfig.BANKS, key = "#id"),
+            @CacheEvict(value = CacheConfig.BANKS_BY_CODE, allEntries = true)
+    })
     public void deleteBank(Long id) {
         log.info("Deleting bank with ID: {}", id);
 
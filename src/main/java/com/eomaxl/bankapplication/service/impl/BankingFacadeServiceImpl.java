@@ -2,12 +2,15 @@ package com.eomaxl.bankapplication.service.impl;
 
 import com.eomaxl.bankapplication.domain.exception.BankingException;
 import com.eomaxl.bankapplication.domain.model.*;
+import com.eomaxl.bankapplication.domain.valueObject.MinorUnits;
+import com.eomaxl.bankapplication.repository.projection.TransactionTotals;
 import com.eomaxl.bankapplication.service.*;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
@@ -29,6 +32,8 @@ public class BankingFacadeServiceImpl implements IBankingFacadeService {
     private final IAccountHolderService accountHolderService;
     private final IAccountService accountService;
     private final ITransactionService transactionService;
+    private final BatchTransferService batchTransferService;
+    private final BalanceCheckpoints balanceCheckpoints;
 
     /**
      * Complete customer onboarding process
@@ -112,29 +117,22 @@ public class BankingFacadeServiceImpl implements IBankingFacadeService {
         log.info("Performing transfer: {} from {} to {}", amount, fromAccountNumber, toAccountNumber);
 
         try {
-            // Validate accounts exist and are active
-            Account fromAccount = accountService.getAccountByNumber(fromAccountNumber);
-            Account toAccount = accountService.getAccountByNumber(toAccountNumber);
-
-            BigDecimal fromBalanceBefore = fromAccount.getBalance();
-            BigDecimal toBalanceBefore = toAccount.getBalance();
-
             // Perform transfer and create transaction records
             List<Transaction> transactions = transactionService.transfer(fromAccountNumber, toAccountNumber, amount, description);
 
-            // Get updated balances
-            Account updatedFromAccount = accountService.getAccountByNumber(fromAccountNumber);
-            Account updatedToAccount = accountService.getAccountByNumber(toAccountNumber);
+            // Balances as recorded on the legs, re-reading the accounts here could return stale entities
+            Transaction outgoing = transactions.get(0);
+            Transaction incoming = transactions.get(1);
 
             TransferResult result = TransferResult.builder()
                     .success(true)
                     .fromAccountNumber(fromAccountNumber)
                     .toAccountNumber(toAccountNumber)
                     .amount(amount)
-                    .fromBalanceBefore(fromBalanceBefore)
-                    .fromBalanceAfter(updatedFromAccount.getBalance())
-                    .toBalanceBefore(toBalanceBefore)
-                    .toBalanceAfter(updatedToAccount.getBalance())
+                    .fromBalanceBefore(outgoing.getBalanceBefore())
+                    .fromBalanceAfter(outgoing.getBalanceAfter())
+                    .toBalanceBefore(incoming.getBalanceBefore())
+                    .toBalanceAfter(incoming.getBalanceAfter())
                     .transactions(transactions)
                     .transferDate(LocalDateTime.now())
                     .build();
@@ -156,6 +154,29 @@ public class BankingFacadeServiceImpl implements IBankingFacadeService {
         }
     }
 
+    /**
+     * Perform a batch of transfers, joining the caller's transaction if there is one (e.g. an idempotent
+     * request that commits with its stored response), otherwise the batch service manages its own
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public BatchTransferResult performBatchTransfer(List<BatchTransferService.TransferItem> transfers,
+                                                    BatchTransferMode mode) {
+        log.info("Performing batch of {} transfers ({})", transfers.size(), mode);
+
+        List<TransferResult> results = batchTransferService.transfer(transfers, mode);
+        int succeeded = (int) results.stream().filter(TransferResult::isSuccess).count();
+
+        return BatchTransferResult.builder()
+                .success(succeeded == results.size())
+                .mode(mode)
+                .totalCount(results.size())
+                .succeededCount(succeeded)
+                .failedCount(results.size() - succeeded)
+                .results(results)
+                .transferDate(LocalDateTime.now())
+                .build();
+    }
+
     /**
      * Get account statement with transactions for a date range
      */
@@ -166,28 +187,18 @@ public class BankingFacadeServiceImpl implements IBankingFacadeService {
         Account account = accountService.getAccountByNumber(accountNumber);
         Page<Transaction> transactions = transactionService.findByAccountNumber(accountNumber, pageable);
 
-        List<Transaction> dateRangeTransactions = transactionService.findByAccountAndDateRange(
-                account.getId(), startDate, endDate);
-
-        BigDecimal totalCredits = dateRangeTransactions.stream()
-                .filter(Transaction::isCreditTransaction)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
-
-        BigDecimal totalDebits = dateRangeTransactions.stream()
-                .filter(Transaction::isDebitTransaction)
-                .map(Transaction::getAmount)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        // Starts from the account's daily checkpoints, only rows outside them are aggregated
+        TransactionTotals totals = balanceCheckpoints.totalsBetween(account.getId(), startDate, endDate);
 
         return AccountStatement.builder()
                 .account(account)
                 .transactions(transactions)
                 .startDate(startDate)
                 .endDate(endDate)
-                .totalCredits(totalCredits)
-                .totalDebits(totalDebits)
-                .netAmount(totalCredits.subtract(totalDebits))
-                .transactionCount((long) dateRangeTransactions.size())
+                .totalCredits(totals.credits())
+                .totalDebits(totals.debits())
+                .netAmount(totals.credits().subtract(totals.debits()))
+                .transactionCount(totals.count())
                 .build();
     }
 
@@ -253,9 +264,11 @@ public class BankingFacadeServiceImpl implements IBankingFacadeService {
     }
 
     private BigDecimal calculateTotalBalance(List<Account> accounts) {
-        return accounts.stream()
-                .map(Account::getBalance)
-                .reduce(BigDecimal.ZERO, BigDecimal::add);
+        long total = MinorUnits.ZERO;
+        for (Account account : accounts) {
+            total = MinorUnits.add(total, MinorUnits.of(account.getBalance()));
+        }
+        return MinorUnits.toBigDecimal(total);
     }
 
     // Inner classes for complex return types
@@ -283,6 +296,18 @@ public class BankingFacadeServiceImpl implements IBankingFacadeService {
         private String errorMessage;
     }
 
+    @lombok.Data
+    @lombok.Builder
+    public static class BatchTransferResult {
+        private boolean success;
+        private BatchTransferMode mode;
+        private int totalCount;
+        private int succeededCount;
+        private int failedCount;
+        private List<TransferResult> results;
+        private LocalDateTime transferDate;
+    }
+
     @lombok.Data
     @lombok.Builder
     public static class AccountStatement {
@@ -17,10 +17,12 @@ import java.util.concurrent.CompletableFuture;
 public class BatchTransactionService {
 
     private final TransactionRepository transactionRepository;
+    private final TransactionOutbox transactionOutbox;
 
     /**
      * Process transactions in batches for high throughput
-     * Uses Hibernate batch processing for optimal performance
+     * Uses Hibernate batch processing for optimal performance, notifications go through the outbox
+     * in the same transaction and are delivered by TransactionOutboxDispatcher
      */
     @Async("transactionExecutor")
     @Transactional
@@ -30,6 +32,7 @@ public class BatchTransactionService {
         try {
             // Hibernate will batch these inserts automatically due to our configuration
             transactionRepository.saveAll(transactions);
+            transactionOutbox.record(transactions);
 
             log.info("Successfully processed batch of {} transactions", transactions.size());
             return CompletableFuture.completedFuture(null);
@@ -39,24 +42,4 @@ public class BatchTransactionService {
             throw new RuntimeException("Batch processing failed", e);
         }
     }
-
-    /**
-     * Async notification processing to avoid blocking main transaction flow
-     */
-    @Async("notificationExecutor")
-    public CompletableFuture<Void> sendTransactionNotifications(List<Transaction> transactions) {
-        log.info("Sending notifications for {} transactions", transactions.size());
-
-        // Process notifications asynchronously
-        transactions.parallelStream().forEach(transaction -> {
-            try {
-                // Send notification logic here
-                log.debug("Notification sent for transaction: {}", transaction.getTransactionId());
-            } catch (Exception e) {
-                log.warn("Failed to send notification for transaction: {}", transaction.getTransactionId(), e);
-            }
-        });
-
-        return CompletableFuture.completedFuture(null);
-    }
 }
@@ -0,0 +1,385 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.BatchTransferProperties;
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.BatchTransferMode;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.domain.model.TransactionStatus;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.domain.valueObject.MinorUnits;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import com.eomaxl.bankapplication.service.ITransactionService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Applies a batch of transfers as one unit of database work
+ * Every account named in the batch is locked once, in account-number order, so two batches can never
+ * deadlock on each other. Legs are then applied in request order against running balances in memory,
+ * and the result is written with one JDBC batch of balance updates and one of Transaction rows.
+ * ALL_OR_NOTHING rolls back on the first failed item; BEST_EFFORT skips failed items and applies the rest.
+ * NETTED settles the batch multilaterally: legs may overdraw an account part way through as long as its
+ * net position across the batch is covered, and each account gets one balance write for its net change
+ * while every leg still gets its TRANSFER_OUT/TRANSFER_IN rows for audit.
+ * Batches touching a sharded account on either side, or running on the in-memory ledger, go through the
+ * regular per-transfer path instead since their balances do not live in a single row.
+ */
+@Service
+@Slf4j
+public class BatchTransferService {
+
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final ITransactionService transactionService;
+    private final ShardedBalanceService shardedBalances;
+    private final BalanceCache balanceCache;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requiresNew;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionOutbox transactionOutbox;
+    private final BatchTransferProperties properties;
+    private final boolean inMemoryLedger;
+
+    public BatchTransferService(AccountRepository accountRepository,
+                                TransactionRepository transactionRepository,
+                                ITransactionService transactionService,
+                                ShardedBalanceService shardedBalances,
+                                BalanceCache balanceCache,
+                                PlatformTransactionManager transactionManager,
+                                TransactionIdGenerator transactionIdGenerator,
+                                TransactionOutbox transactionOutbox,
+                                BatchTransferProperties properties,
+                                LedgerProperties ledgerProperties) {
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionService = transactionService;
+        this.shardedBalances = shardedBalances;
+        this.balanceCache = balanceCache;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.transactionOutbox = transactionOutbox;
+        this.properties = properties;
+        this.inMemoryLedger = LedgerProperties.ENGINE_IN_MEMORY.equals(ledgerProperties.getEngine());
+    }
+
+    /**
+     * Applies the transfers and reports one result per item, in request order
+     */
+    public List<BankingFacadeServiceImpl.TransferResult> transfer(List<TransferItem> items, BatchTransferMode mode) {
+        if (items.isEmpty()) {
+            return Collections.emptyList();
+        }
+        if (items.size() > properties.getMaxItems()) {
+            throw new BankingException("BATCH_TOO_LARGE",
+                    "Batch exceeds the maximum of " + properties.getMaxItems() + " transfers");
+        }
+
+        List<BankingFacadeServiceImpl.TransferResult> results;
+        if (inMemoryLedger || items.stream().anyMatch(this::touchesShardedAccount)) {
+            results = transferOneByOne(items, mode);
+        } else {
+            results = transactionTemplate.execute(status -> {
+                List<BankingFacadeServiceImpl.TransferResult> applied = apply(items, mode);
+                // Nothing was written when every item failed; a caller's transaction is left for it to decide
+                if (status.isNewTransaction()
+                        && applied.stream().noneMatch(BankingFacadeServiceImpl.TransferResult::isSuccess)) {
+                    status.setRollbackOnly();
+                }
+                return applied;
+            });
+        }
+
+        long succeeded = results.stream().filter(BankingFacadeServiceImpl.TransferResult::isSuccess).count();
+        log.info("Batch of {} transfers ({}) applied: {} succeeded, {} failed",
+                items.size(), mode, succeeded, items.size() - succeeded);
+        return results;
+    }
+
+    private boolean touchesShardedAccount(TransferItem item) {
+        return shardedBalances.isSharded(item.fromAccountNumber())
+                || shardedBalances.isSharded(item.toAccountNumber());
+    }
+
+    private List<BankingFacadeServiceImpl.TransferResult> apply(List<TransferItem> items, BatchTransferMode mode) {
+        TreeSet<String> accountNumbers = new TreeSet<>();
+        for (TransferItem item : items) {
+            accountNumbers.add(item.fromAccountNumber());
+            accountNumbers.add(item.toAccountNumber());
+        }
+
+        Map<String, AccountBalanceView> locked = new HashMap<>();
+        for (AccountBalanceView view : accountRepository.lockBalanceViews(accountNumbers)) {
+            locked.put(view.accountNumber(), view);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        List<Transaction> rows = new ArrayList<>(items.size() * 2);
+        List<BankingFacadeServiceImpl.TransferResult> results = new ArrayList<>(items.size());
+
+        boolean netted = mode == BatchTransferMode.NETTED;
+
+        for (int i = 0; i < items.size(); i++) {
+            TransferItem item = items.get(i);
+            try {
+                AccountBalanceView from = requireActive(locked, item.fromAccountNumber());
+                AccountBalanceView to = requireActive(locked, item.toAccountNumber());
+                if (item.amount() == null || item.amount().compareTo(BigDecimal.ZERO) <= 0) {
+                    throw new BankingException("INVALID_AMOUNT", "Transfer amount must be positive");
+                }
+                if (from.id() == to.id()) {
+                    throw new BankingException("SAME_ACCOUNT_TRANSFER", "Cannot transfer to the same account");
+                }
+
+                BigDecimal fromBefore = balances.getOrDefault(from.id(), from.balance());
+                if (!netted && fromBefore.compareTo(item.amount()) < 0) {
+                    throw new InsufficientFundsException(item.fromAccountNumber(), item.amount(), fromBefore);
+                }
+                BigDecimal toBefore = balances.getOrDefault(to.id(), to.balance());
+                BigDecimal fromAfter = fromBefore.subtract(item.amount());
+                BigDecimal toAfter = toBefore.add(item.amount());
+                balances.put(from.id(), fromAfter);
+                balances.put(to.id(), toAfter);
+
+                Account fromAccount = snapshot(from, fromAfter);
+                Account toAccount = snapshot(to, toAfter);
+                List<Transaction> legs = List.of(
+                        leg(item, TransactionType.TRANSFER_OUT, fromAccount, toAccount, fromBefore, fromAfter, now),
+                        leg(item, TransactionType.TRANSFER_IN, toAccount, fromAccount, toBefore, toAfter, now));
+                rows.addAll(legs);
+
+                results.add(BankingFacadeServiceImpl.TransferResult.builder()
+                        .success(true)
+                        .fromAccountNumber(item.fromAccountNumber())
+                        .toAccountNumber(item.toAccountNumber())
+                        .amount(item.amount())
+                        .fromBalanceBefore(fromBefore)
+                        .fromBalanceAfter(fromAfter)
+                        .toBalanceBefore(toBefore)
+                        .toBalanceAfter(toAfter)
+                        .transactions(legs)
+                        .transferDate(now)
+                        .build());
+            } catch (BankingException e) {
+                results.add(failed(item, e.getMessage(), now));
+                if (mode != BatchTransferMode.BEST_EFFORT) {
+                    return abandon(items, results, i, now);
+                }
+            }
+        }
+
+        if (netted) {
+            Map<Long, BigDecimal> settled = settleNetPositions(items, locked, results, now);
+            if (settled == null) {
+                return results;
+            }
+            balances = settled;
+        }
+
+        accountRepository.updateBalances(balances, now);
+        balanceCache.afterCommit(locked.values(), balances);
+        transactionRepository.insertAll(rows);
+        transactionOutbox.record(rows);
+        return results;
+    }
+
+    /**
+     * Checks every account's net position against its locked balance and computes the balances to write
+     * On a shortfall the results are replaced by an abandoned batch and null is returned
+     */
+    private Map<Long, BigDecimal> settleNetPositions(List<TransferItem> items, Map<String, AccountBalanceView> locked,
+                                                     List<BankingFacadeServiceImpl.TransferResult> results,
+                                                     LocalDateTime now) {
+        Map<String, Long> positions = MultilateralNetting.netPositions(items);
+        Map<Long, BigDecimal> settled = new LinkedHashMap<>();
+
+        for (Map.Entry<String, Long> position : positions.entrySet()) {
+            AccountBalanceView view = locked.get(position.getKey());
+            long netPosition = position.getValue();
+            long balanceAfter = MinorUnits.add(MinorUnits.of(view.balance()), netPosition);
+            if (balanceAfter < 0) {
+                int failedIndex = firstDebitOf(items, position.getKey());
+                InsufficientFundsException shortfall = new InsufficientFundsException(position.getKey(),
+                        MinorUnits.toBigDecimal(MinorUnits.negate(netPosition)), view.balance());
+                results.set(failedIndex, failed(items.get(failedIndex),
+                        "Net position not covered: " + shortfall.getMessage(), now));
+                List<BankingFacadeServiceImpl.TransferResult> abandoned =
+                        abandon(items, results.subList(0, failedIndex + 1), failedIndex, now);
+                results.clear();
+                results.addAll(abandoned);
+                return null;
+            }
+            // Accounts that net to zero were locked for the check but need no write
+            if (netPosition != 0) {
+                settled.put(view.id(), MinorUnits.toBigDecimal(balanceAfter));
+            }
+        }
+
+        log.debug("Netted {} transfers across {} accounts into {} balance writes, settlement volume {}",
+                items.size(), positions.size(), settled.size(), MultilateralNetting.settlementVolume(positions));
+        return settled;
+    }
+
+    private int firstDebitOf(List<TransferItem> items, String accountNumber) {
+        for (int i = 0; i < items.size(); i++) {
+            if (items.get(i).fromAccountNumber().equals(accountNumber)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Per-transfer path for batches the single lock pass cannot handle
+     */
+    private List<BankingFacadeServiceImpl.TransferResult> transferOneByOne(List<TransferItem> items,
+                                                                          BatchTransferMode mode) {
+        if (mode == BatchTransferMode.BEST_EFFORT) {
+            List<BankingFacadeServiceImpl.TransferResult> results = new ArrayList<>(items.size());
+            for (TransferItem item : items) {
+                try {
+                    results.add(requiresNew.execute(status -> transferOne(item)));
+                } catch (BankingException e) {
+                    results.add(failed(item, e.getMessage(), LocalDateTime.now()));
+                }
+            }
+            return results;
+        }
+
+        // A netted batch degrades to all-or-nothing here, each leg still needs its own funds
+        if (inMemoryLedger) {
+            // The in-memory ledger applies each leg immediately, so a later failure could not be undone
+            throw new BankingException("BATCH_MODE_UNSUPPORTED",
+                    "All-or-nothing batches are not supported by the in-memory ledger");
+        }
+        List<BankingFacadeServiceImpl.TransferResult> results = new ArrayList<>(items.size());
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                for (TransferItem item : items) {
+                    results.add(transferOne(item));
+                }
+            });
+        } catch (BankingException e) {
+            int failedIndex = results.size();
+            results.clear();
+            results.add(failed(items.get(failedIndex), e.getMessage(), LocalDateTime.now()));
+            return abandon(items, results, failedIndex, LocalDateTime.now());
+        }
+        return results;
+    }
+
+    private BankingFacadeServiceImpl.TransferResult transferOne(TransferItem item) {
+        List<Transaction> legs = transactionService.transfer(item.fromAccountNumber(), item.toAccountNumber(),
+                item.amount(), item.description());
+        Transaction outgoing = legs.get(0);
+        Transaction incoming = legs.get(1);
+        return BankingFacadeServiceImpl.TransferResult.builder()
+                .success(true)
+                .fromAccountNumber(item.fromAccountNumber())
+                .toAccountNumber(item.toAccountNumber())
+                .amount(item.amount())
+                .fromBalanceBefore(outgoing.getBalanceBefore())
+                .fromBalanceAfter(outgoing.getBalanceAfter())
+                .toBalanceBefore(incoming.getBalanceBefore())
+                .toBalanceAfter(incoming.getBalanceAfter())
+                .transactions(legs)
+                .transferDate(outgoing.getTransactionDate())
+                .build();
+    }
+
+    /**
+     * Rewrites the results of an all-or-nothing batch after the item at failedIndex failed
+     * The failure itself is kept at its position, every other item is reported as not applied
+     */
+    private List<BankingFacadeServiceImpl.TransferResult> abandon(List<TransferItem> items,
+                                                                 List<BankingFacadeServiceImpl.TransferResult> results,
+                                                                 int failedIndex, LocalDateTime now) {
+        BankingFacadeServiceImpl.TransferResult failure = results.get(results.size() - 1);
+        String reason = "Not applied, transfer " + (failedIndex + 1) + " of the batch failed";
+
+        List<BankingFacadeServiceImpl.TransferResult> abandoned = new ArrayList<>(items.size());
+        for (int i = 0; i < items.size(); i++) {
+            abandoned.add(i == failedIndex ? failure : failed(items.get(i), reason, now));
+        }
+        return abandoned;
+    }
+
+    private AccountBalanceView requireActive(Map<String, AccountBalanceView> locked, String accountNumber) {
+        AccountBalanceView view = locked.get(accountNumber);
+        if (view == null) {
+            throw new AccountNotFoundException(accountNumber);
+        }
+        if (view.status() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", "Account is not active: " + accountNumber);
+        }
+        return view;
+    }
+
+    private Transaction leg(TransferItem item, TransactionType type, Account account, Account targetAccount,
+                            BigDecimal balanceBefore, BigDecimal balanceAfter, LocalDateTime now) {
+        return Transaction.builder()
+                .transactionId(transactionIdGenerator.nextId())
+                .amount(item.amount())
+                .transactionType(type)
+                .status(TransactionStatus.COMPLETED)
+                .description(item.description())
+                .account(account)
+                .targetAccount(targetAccount)
+                .balanceBefore(balanceBefore)
+                .balanceAfter(balanceAfter)
+                .transactionDate(now)
+                .build();
+    }
+
+    private BankingFacadeServiceImpl.TransferResult failed(TransferItem item, String errorMessage, LocalDateTime now) {
+        return BankingFacadeServiceImpl.TransferResult.builder()
+                .success(false)
+                .fromAccountNumber(item.fromAccountNumber())
+                .toAccountNumber(item.toAccountNumber())
+                .amount(item.amount())
+                .errorMessage(errorMessage)
+                .transferDate(now)
+                .build();
+    }
+
+    private Account snapshot(AccountBalanceView view, BigDecimal balance) {
+        // Detached view of the account as left by this leg, for building the response
+        return Account.builder()
+                .id(view.id())
+                .accountNumber(view.accountNumber())
+                .balance(balance)
+                .accountType(view.accountType())
+                .status(view.status())
+                .version(view.version() + 1)
+                .build();
+    }
+
+    /**
+     * One transfer of a batch
+     */
+    public record TransferItem(String fromAccountNumber, String toAccountNumber, BigDecimal amount,
+                               String description) {
+    }
+}
@@ -0,0 +1,89 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.model.NumberSequence;
+import com.eomaxl.bankapplication.repository.NumberSequenceRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Hands out numbers from blocks reserved in the number_sequences table
+ * Each node reserves a contiguous block per sequence in its own short transaction and serves it from
+ * memory, so numbers are unique across nodes without any existence check. Numbers left in a block when
+ * a node stops are skipped, never reused.
+ */
+@Component
+@Slf4j
+public class BlockNumberAllocator {
+
+    private static final long FIRST_VALUE = 1;
+
+    private final NumberSequenceRepository repository;
+    private final TransactionTemplate requiresNew;
+    private final Map<String, Block> blocks = new ConcurrentHashMap<>();
+
+    public BlockNumberAllocator(NumberSequenceRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Returns the next number of the named sequence, reserving a new block when the current one is used up
+     */
+    public long next(String sequenceName, int blockSize) {
+        Block block = blocks.computeIfAbsent(sequenceName, name -> new Block());
+        // A lock rather than a monitor, a virtual thread reserving a block must not pin its carrier
+        block.lock.lock();
+        try {
+            if (block.next >= block.end) {
+                long start = reserve(sequenceName, Math.max(1, blockSize));
+                block.next = start;
+                block.end = start + Math.max(1, blockSize);
+            }
+            return block.next++;
+        } finally {
+            block.lock.unlock();
+        }
+    }
+
+    /**
+     * Moves the sequence forward by one block and returns the first value of the block
+     */
+    private long reserve(String sequenceName, int blockSize) {
+        try {
+            Long start = requiresNew.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                NumberSequence sequence = repository.findBySequenceNameWithLock(sequenceName)
+                        .orElseGet(() -> repository.saveAndFlush(NumberSequence.builder()
+                                .sequenceName(sequenceName)
+                                .nextValue(FIRST_VALUE)
+                                .updatedAt(now)
+                                .build()));
+                long first = sequence.getNextValue();
+                sequence.setNextValue(first + blockSize);
+                sequence.setUpdatedAt(now);
+                return first;
+            });
+            log.debug("Reserved {} numbers of {} starting at {}", blockSize, sequenceName, start);
+            return start;
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the sequence row first, it exists now
+            return reserve(sequenceName, blockSize);
+        }
+    }
+
+    private static class Block {
+        private final ReentrantLock lock = new ReentrantLock();
+        private long next;
+        private long end;
+    }
+}
@@ -0,0 +1,79 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.IdGenerationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * Generates account numbers and customer IDs from block-allocated sequences
+ * Account numbers are the bank code followed by a zero-padded serial from that bank's own sequence,
+ * customer IDs are "CUST" followed by a zero-padded serial. With check digits enabled the serial is
+ * followed by its Luhn digit, so a mistyped number can be rejected without a lookup.
+ */
+@Component
+public class BusinessNumberGenerator {
+
+    static final String CUSTOMER_ID_PREFIX = "CUST";
+
+    private static final String ACCOUNT_SEQUENCE_PREFIX = "account_number:";
+    private static final String CUSTOMER_SEQUENCE = "customer_id";
+    private static final int ACCOUNT_SERIAL_DIGITS = 9;
+    private static final int CUSTOMER_SERIAL_DIGITS = 7;
+
+    private final BlockNumberAllocator allocator;
+    private final IdGenerationProperties properties;
+
+    public BusinessNumberGenerator(BlockNumberAllocator allocator, IdGenerationProperties properties) {
+        this.allocator = allocator;
+        this.properties = properties;
+    }
+
+    public String nextAccountNumber(String bankCode) {
+        long serial = allocator.next(ACCOUNT_SEQUENCE_PREFIX + bankCode, properties.getAccountNumberBlockSize());
+        return bankCode + withCheckDigit(pad(serial, ACCOUNT_SERIAL_DIGITS));
+    }
+
+    public String nextCustomerId() {
+        long serial = allocator.next(CUSTOMER_SEQUENCE, properties.getCustomerIdBlockSize());
+        return CUSTOMER_ID_PREFIX + withCheckDigit(pad(serial, CUSTOMER_SERIAL_DIGITS));
+    }
+
+    /**
+     * Checks the trailing Luhn digit of an all-digit string
+     */
+    public static boolean hasValidCheckDigit(String digits) {
+        if (digits == null || digits.length() < 2 || !digits.chars().allMatch(Character::isDigit)) {
+            return false;
+        }
+        String payload = digits.substring(0, digits.length() - 1);
+        return luhnDigit(payload) == digits.charAt(digits.length() - 1) - '0';
+    }
+
+    static int luhnDigit(String payload) {
+        int sum = 0;
+        boolean doubled = true;
+        for (int i = payload.length() - 1; i >= 0; i--) {
+            int digit = payload.charAt(i) - '0';
+            if (doubled) {
+                digit *= 2;
+                if (digit > 9) {
+                    digit -= 9;
+                }
+            }
+            sum += digit;
+            doubled = !doubled;
+        }
+        return (10 - sum % 10) % 10;
+    }
+
+    private String withCheckDigit(String serial) {
+        return properties.isCheckDigit() ? serial + luhnDigit(serial) : serial;
+    }
+
+    private static String pad(long serial, int digits) {
+        String value = Long.toString(serial);
+        if (value.length() >= digits) {
+            return value;
+        }
+        return "0".repeat(digits - value.length()) + value;
+    }
+}
@@ -0,0 +1,227 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.config.WarmUpProperties;
+import com.eomaxl.bankapplication.domain.model.Bank;
+import com.eomaxl.bankapplication.repository.BankRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.service.IAccountService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.actuate.health.Health;
+import org.springframework.boot.actuate.health.HealthIndicator;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Warms caches and the JIT after startup, and holds readiness back until it is done
+ * Preloads every bank into the reference-data caches, then the entity and balance of the accounts with
+ * the most recent transactions, then repeats reads of those accounts so the hot read path is compiled.
+ * When the application first reports ACCEPTING_TRAFFIC it switches readiness back to REFUSING_TRAFFIC
+ * and publishes ACCEPTING_TRAFFIC again once warm-up finishes, fails or runs past
+ * banking.warm-up.timeout-ms, so a new instance only gets traffic with warm caches or once waiting
+ * longer would not help. Only the readiness probe sees this; liveness and the root health endpoint stay
+ * UP, and the health indicator just reports progress.
+ */
+@Component
+@Slf4j
+public class CacheWarmUp implements HealthIndicator {
+
+    private enum State { PENDING, RUNNING, DONE, FAILED, DISABLED }
+
+    private final WarmUpProperties properties;
+    private final CacheManager cacheManager;
+    private final BankRepository bankRepository;
+    private final TransactionRepository transactionRepository;
+    private final IAccountService accountService;
+    private final ApplicationEventPublisher eventPublisher;
+
+    private final AtomicBoolean readinessReleased = new AtomicBoolean();
+    private final AtomicInteger warmedAccounts = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile int warmedBanks;
+    private volatile long deadline;
+    private Thread worker;
+
+    public CacheWarmUp(WarmUpProperties properties,
+                       CacheManager cacheManager,
+                       BankRepository bankRepository,
+                       TransactionRepository transactionRepository,
+                       IAccountService accountService,
+                       ApplicationEventPublisher eventPublisher) {
+        this.properties = properties;
+        this.cacheManager = cacheManager;
+        this.bankRepository = bankRepository;
+        this.transactionRepository = transactionRepository;
+        this.accountService = accountService;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Starts warm-up when Spring Boot first marks the application ready, which it does right after
+     * ApplicationReadyEvent, and takes the readiness back until warm-up is over
+     */
+    @EventListener
+    public void onReadinessChange(AvailabilityChangeEvent<ReadinessState> event) {
+        if (event.getState() != ReadinessState.ACCEPTING_TRAFFIC || state != State.PENDING) {
+            return;
+        }
+        if (!properties.isEnabled()) {
+            state = State.DISABLED;
+            return;
+        }
+        deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(properties.getTimeoutMs());
+        state = State.RUNNING;
+        AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.REFUSING_TRAFFIC);
+
+        worker = new Thread(this::run, "CacheWarmUp");
+        worker.setDaemon(true);
+        worker.start();
+        // Warm-up steps check the deadline between reads, this covers one that hangs
+        CompletableFuture.delayedExecutor(properties.getTimeoutMs(), TimeUnit.MILLISECONDS)
+                .execute(() -> acceptTraffic("timed out"));
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (worker != null) {
+            worker.interrupt();
+        }
+    }
+
+    /**
+     * Always UP, a cold instance is slower, not unhealthy; readiness is gated through ReadinessState instead
+     */
+    @Override
+    public Health health() {
+        return Health.up()
+                .withDetail("state", state)
+                .withDetail("timedOut", state == State.RUNNING && pastDeadline())
+                .withDetail("banks", warmedBanks)
+                .withDetail("accounts", warmedAccounts.get())
+                .build();
+    }
+
+    private void run() {
+        long start = System.nanoTime();
+        try {
+            warmBanks();
+
+            List<String> accountNumbers = properties.getAccounts() > 0
+                    ? transactionRepository.findMostActiveAccountNumbers(
+                            LocalDateTime.now().minusHours(properties.getLookbackHours()),
+                            PageRequest.of(0, properties.getAccounts()))
+                    : List.of();
+            warmAccounts(accountNumbers);
+            runSyntheticReads(accountNumbers);
+
+            state = State.DONE;
+            acceptTraffic("finished");
+            log.info("Warm-up finished in {}ms: {} banks, {} of {} active accounts{}",
+                    TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), warmedBanks, warmedAccounts.get(),
+                    accountNumbers.size(), pastDeadline() ? ", stopped at the timeout" : "");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            state = State.FAILED;
+        } catch (RuntimeException e) {
+            // Cold caches are slower, not wrong, so the instance still becomes ready
+            log.warn("Warm-up failed, continuing with cold caches", e);
+            state = State.FAILED;
+            acceptTraffic("failed");
+        }
+    }
+
+    private void acceptTraffic(String outcome) {
+        if (readinessReleased.compareAndSet(false, true)) {
+            log.info("Warm-up {}, accepting traffic", outcome);
+            AvailabilityChangeEvent.publish(eventPublisher, this, ReadinessState.ACCEPTING_TRAFFIC);
+        }
+    }
+
+    private void warmBanks() {
+        Cache byId = cacheManager.getCache(CacheConfig.BANKS);
+        Cache byCode = cacheManager.getCache(CacheConfig.BANKS_BY_CODE);
+        if (byId == null || byCode == null) {
+            return;
+        }
+        int count = 0;
+        for (Bank bank : bankRepository.findAll()) {
+            byId.put(bank.getId(), bank);
+            byCode.put(bank.getBankCode(), bank);
+            count++;
+        }
+        warmedBanks = count;
+    }
+
+    private void warmAccounts(List<String> accountNumbers) throws InterruptedException {
+        if (accountNumbers.isEmpty()) {
+            return;
+        }
+        int parallelism = Math.max(1, Math.min(properties.getParallelism(), accountNumbers.size()));
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "CacheWarmUp-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        AtomicInteger next = new AtomicInteger();
+        for (int i = 0; i < parallelism; i++) {
+            pool.execute(() -> {
+                int index;
+                while (!pastDeadline() && (index = next.getAndIncrement()) < accountNumbers.size()) {
+                    warmAccount(accountNumbers.get(index));
+                }
+            });
+        }
+        pool.shutdown();
+        if (!pool.awaitTermination(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS)) {
+            pool.shutdownNow();
+        }
+    }
+
+    private void warmAccount(String accountNumber) {
+        try {
+            // Through the service so entries are exactly what the cached methods store
+            accountService.findByAccountNumber(accountNumber);
+            accountService.getBalance(accountNumber);
+            warmedAccounts.incrementAndGet();
+        } catch (RuntimeException e) {
+            log.debug("Skipping warm-up of account {}: {}", accountNumber, e.getMessage());
+        }
+    }
+
+    private void runSyntheticReads(List<String> accountNumbers) {
+        if (accountNumbers.isEmpty()) {
+            return;
+        }
+        for (int i = 0; i < properties.getSyntheticReads() && !pastDeadline(); i++) {
+            String accountNumber = accountNumbers.get(i % accountNumbers.size());
+            try {
+                accountService.findByAccountNumber(accountNumber);
+                accountService.getBalance(accountNumber);
+            } catch (RuntimeException e) {
+                log.debug("Synthetic read of account {} failed: {}", accountNumber, e.getMessage());
+            }
+        }
+    }
+
+    private boolean pastDeadline() {
+        return System.nanoTime() - deadline > 0;
+    }
+}
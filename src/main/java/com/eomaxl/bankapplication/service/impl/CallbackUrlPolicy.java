@@ -0,0 +1,86 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.AsyncTransferProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.util.Locale;
+
+/**
+ * Decides which callback URLs the server may call on a client's behalf
+ * With banking.async-transfers.callback-allowed-hosts set, only those hosts are accepted, and they are trusted
+ * wherever they resolve. Otherwise any http or https host is accepted as long as every address it resolves to
+ * is public, so a callback cannot reach loopback, private, link-local (cloud metadata) or multicast addresses.
+ * URLs are checked when a transfer is submitted and again right before the call, since DNS may have changed.
+ */
+@Component
+public class CallbackUrlPolicy {
+
+    private final AsyncTransferProperties properties;
+
+    public CallbackUrlPolicy(AsyncTransferProperties properties) {
+        this.properties = properties;
+    }
+
+    /**
+     * @return the parsed URL
+     * @throws BankingException if the URL must not be called
+     */
+    public URI check(String callbackUrl) {
+        URI uri;
+        try {
+            uri = URI.create(callbackUrl);
+        } catch (IllegalArgumentException e) {
+            throw rejected(callbackUrl, "it is not a valid URL");
+        }
+        String scheme = uri.getScheme() == null ? "" : uri.getScheme().toLowerCase(Locale.ROOT);
+        if (!scheme.equals("http") && !scheme.equals("https")) {
+            throw rejected(callbackUrl, "it is not an http or https URL");
+        }
+        if (uri.getHost() == null || uri.getRawUserInfo() != null) {
+            throw rejected(callbackUrl, "it has no plain host");
+        }
+
+        String host = uri.getHost().toLowerCase(Locale.ROOT);
+        if (!properties.getCallbackAllowedHosts().isEmpty()) {
+            if (!properties.getCallbackAllowedHosts().contains(host)) {
+                throw rejected(callbackUrl, "its host is not allowed");
+            }
+            return uri;
+        }
+
+        InetAddress[] addresses;
+        try {
+            addresses = InetAddress.getAllByName(host);
+        } catch (UnknownHostException e) {
+            throw rejected(callbackUrl, "its host does not resolve");
+        }
+        for (InetAddress address : addresses) {
+            if (!isPublic(address)) {
+                throw rejected(callbackUrl, "its host resolves to a non-public address");
+            }
+        }
+        return uri;
+    }
+
+    static boolean isPublic(InetAddress address) {
+        if (address.isLoopbackAddress() || address.isAnyLocalAddress() || address.isLinkLocalAddress()
+                || address.isSiteLocalAddress() || address.isMulticastAddress()) {
+            return false;
+        }
+        byte[] bytes = address.getAddress();
+        if (bytes.length == 16) {
+            // IPv6 unique local addresses, fc00::/7
+            return (bytes[0] & 0xfe) != 0xfc;
+        }
+        // Carrier-grade NAT, 100.64.0.0/10
+        return !((bytes[0] & 0xff) == 100 && (bytes[1] & 0xc0) == 64);
+    }
+
+    private BankingException rejected(String callbackUrl, String reason) {
+        return new BankingException("INVALID_CALLBACK_URL", "Callback URL " + callbackUrl + " is not allowed, " + reason);
+    }
+}
@@ -0,0 +1,84 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.ConcurrencyProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Retries work that lost a race with a concurrent writer, at the outermost transaction boundary only
+ * A version conflict, serialization failure or deadlock marks the surrounding transaction rollback-only
+ * and, under SERIALIZABLE, a retry inside it would read the same snapshot again. So when a transaction
+ * is already active the work runs once and the failure propagates to whoever owns that transaction;
+ * otherwise each attempt runs in a fresh transaction with jittered exponential backoff in between,
+ * bounded by banking.concurrency.optimistic.
+ */
+@Component
+@Slf4j
+public class ConcurrencyRetry {
+
+    private final ConcurrencyProperties properties;
+    private final PlatformTransactionManager transactionManager;
+
+    public ConcurrencyRetry(ConcurrencyProperties properties, PlatformTransactionManager transactionManager) {
+        this.properties = properties;
+        this.transactionManager = transactionManager;
+    }
+
+    /**
+     * Runs work that opens its own transaction, retrying it when no transaction encloses this call
+     */
+    public <T> T execute(Supplier<T> work) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return work.get();
+        }
+
+        ConcurrencyProperties.Optimistic settings = properties.getOptimistic();
+        long backoffMs = settings.getInitialBackoffMs();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return work.get();
+            } catch (ConcurrentUpdateException | ConcurrencyFailureException e) {
+                if (attempt >= settings.getMaxAttempts()) {
+                    log.warn("Giving up after {} attempts lost to concurrent writers", attempt);
+                    throw e;
+                }
+                log.debug("Concurrent update (attempt {}), retrying in ~{} ms: {}", attempt, backoffMs, e.getMessage());
+                pause(backoffMs);
+                backoffMs = Math.min(backoffMs * 2, settings.getMaxBackoffMs());
+            }
+        }
+    }
+
+    /**
+     * Runs work in a transaction of the given definition, joining an enclosing one if there is any
+     */
+    public <T> T inTransaction(TransactionDefinition definition, Supplier<T> work) {
+        TransactionTemplate template = new TransactionTemplate(transactionManager, definition);
+        return execute(() -> template.execute(status -> work.get()));
+    }
+
+    public <T> T inTransaction(Supplier<T> work) {
+        return inTransaction(TransactionDefinition.withDefaults(), work);
+    }
+
+    private void pause(long backoffMs) {
+        // Full jitter keeps retrying writers from colliding again in lockstep
+        long sleepMs = ThreadLocalRandom.current().nextLong(backoffMs + 1);
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new BankingException("Interrupted while retrying balance update", e, "CONCURRENT_MODIFICATION");
+        }
+    }
+}
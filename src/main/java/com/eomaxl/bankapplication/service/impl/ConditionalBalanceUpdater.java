@@ -0,0 +1,130 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.BalanceUpdateMode;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import com.eomaxl.bankapplication.repository.projection.BalanceChange;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Balance updates as one guarded UPDATE ... RETURNING per account
+ * Status and funds are checked by the statement itself, and the statement returns the updated row,
+ * so a successful change is exactly one round trip with no select-for-update, dirty check or flush.
+ * Only when no row matched is the account read, to report which condition failed.
+ * The returned account is a detached copy; an instance of the same row already loaded into the
+ * persistence context keeps its old state, and fails its version check if it is modified afterwards.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ConditionalBalanceUpdater implements BalanceUpdater {
+
+    // A miss is only retried when a concurrent status or balance change makes the guard pass again
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final AccountRepository accountRepository;
+    private final BalanceCache balanceCache;
+
+    @Override
+    public BalanceUpdateMode mode() {
+        return BalanceUpdateMode.CONDITIONAL;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public Account credit(String accountNumber, BigDecimal amount) {
+        Account account = toAccount(applyCredit(accountNumber, amount, "Account is not active: "));
+        log.info("Successfully credited {} to account {}. Balance: {}", amount, accountNumber, account.getBalance());
+        return account;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public Account debit(String accountNumber, BigDecimal amount) {
+        Account account = toAccount(applyDebit(accountNumber, amount, "Account is not active: "));
+        log.info("Successfully debited {} from account {}. Balance: {}", amount, accountNumber, account.getBalance());
+        return account;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
+        // Each guarded update holds its row until commit, so apply legs in a consistent order
+        BalanceChange fromChange;
+        BalanceChange toChange;
+        if (fromAccountNumber.compareTo(toAccountNumber) < 0) {
+            fromChange = applyDebit(fromAccountNumber, amount, "Source account is not active: ");
+            toChange = applyCredit(toAccountNumber, amount, "Destination account is not active: ");
+        } else {
+            toChange = applyCredit(toAccountNumber, amount, "Destination account is not active: ");
+            fromChange = applyDebit(fromAccountNumber, amount, "Source account is not active: ");
+        }
+
+        log.info("Successfully transferred {} from {} (Balance: {}) to {} (Balance: {})",
+                amount, fromAccountNumber, fromChange.balance(), toAccountNumber, toChange.balance());
+        return List.of(toAccount(fromChange), toAccount(toChange));
+    }
+
+    private BalanceChange applyCredit(String accountNumber, BigDecimal amount, String inactiveMessage) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Optional<BalanceChange> change = accountRepository.creditIfActive(accountNumber, amount, LocalDateTime.now());
+            if (change.isPresent()) {
+                balanceCache.afterCommit(accountNumber, change.get().balance(), change.get().version());
+                return change.get();
+            }
+            requireActive(explainMiss(accountNumber), inactiveMessage);
+        }
+        throw concurrentlyModified(accountNumber);
+    }
+
+    private BalanceChange applyDebit(String accountNumber, BigDecimal amount, String inactiveMessage) {
+        for (int attempt = 1; attempt <= MAX_ATTEMPTS; attempt++) {
+            Optional<BalanceChange> change = accountRepository.debitIfActiveAndCovered(accountNumber, amount, LocalDateTime.now());
+            if (change.isPresent()) {
+                balanceCache.afterCommit(accountNumber, change.get().balance(), change.get().version());
+                return change.get();
+            }
+            AccountBalanceView view = explainMiss(accountNumber);
+            requireActive(view, inactiveMessage);
+            if (view.balance().compareTo(amount) < 0) {
+                throw new InsufficientFundsException(accountNumber, amount, view.balance());
+            }
+        }
+        throw concurrentlyModified(accountNumber);
+    }
+
+    private AccountBalanceView explainMiss(String accountNumber) {
+        return accountRepository.findBalanceView(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+
+    private void requireActive(AccountBalanceView view, String message) {
+        if (view.status() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", message + view.accountNumber());
+        }
+    }
+
+    private ConcurrentUpdateException concurrentlyModified(String accountNumber) {
+        // Left to ConcurrencyRetry, which starts over at the outermost transaction boundary
+        return new ConcurrentUpdateException(accountNumber);
+    }
+
+    private Account toAccount(BalanceChange change) {
+        return accountRepository.toAccount(change);
+    }
+}
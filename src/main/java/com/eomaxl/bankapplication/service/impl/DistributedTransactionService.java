@@ -1,43 +1,50 @@
 package com.eomaxl.bankapplication.service.impl;
 
+import com.eomaxl.bankapplication.config.LockProperties;
 import com.eomaxl.bankapplication.domain.exception.BankingException;
 import com.eomaxl.bankapplication.domain.model.*;
 import com.eomaxl.bankapplication.service.IAccountService;
 import com.eomaxl.bankapplication.service.ITransactionService;
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Isolation;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionDefinition;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.locks.ReentrantLock;
 
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class DistributedTransactionService {
 
+    private static final TransactionDefinition TRANSFER_TRANSACTION = transferTransaction();
+
     private final IAccountService accountService;
     private final ITransactionService transactionService;
-
-    // Account-level locks to prevent deadlocks while maintaining consistency
-    private final ConcurrentHashMap<String, ReentrantLock> accountLocks = new ConcurrentHashMap<>();
+    private final ConcurrencyRetry concurrencyRetry;
+
+    // Bounded striped locks keyed by account number hash, sized via banking.locks.stripes
+    private final StripedLockTable accountLocks;
+
+    public DistributedTransactionService(IAccountService accountService,
+                                         ITransactionService transactionService,
+                                         ConcurrencyRetry concurrencyRetry,
+                                         MeterRegistry meterRegistry,
+                                         LockProperties lockProperties) {
+        this.accountService = accountService;
+        this.transactionService = transactionService;
+        this.concurrencyRetry = concurrencyRetry;
+        this.accountLocks = new StripedLockTable(lockProperties.getStripes());
+        this.accountLocks.bindTo(meterRegistry);
+    }
 
     /**
      * Atomic money transfer with strong consistency guarantees
      * Uses ordered locking to prevent deadlocks
-     * SERIALIZABLE isolation ensures no phantom reads or dirty reads
+     * SERIALIZABLE isolation ensures no phantom reads or dirty reads; a serialization failure or lost
+     * balance race rolls the whole transaction back and retries it, see ConcurrencyRetry
      */
-    @Transactional(
-            isolation = Isolation.SERIALIZABLE,
-            propagation = Propagation.REQUIRED,
-            timeout = 30,
-            rollbackFor = Exception.class
-    )
     public TransferResult atomicTransfer(String fromAccount, String toAccount,
                                          BigDecimal amount, String description) {
 
@@ -47,23 +54,27 @@ public class DistributedTransactionService {
             throw new BankingException("Cannot transfer to the same account", "SAME_ACCOUNT_TRANSFER");
         }
 
-        // Ordered locking to prevent deadlocks
-        String firstLock = fromAccount.compareTo(toAccount) < 0 ? fromAccount : toAccount;
-        String secondLock = fromAccount.compareTo(toAccount) < 0 ? toAccount : fromAccount;
-
-        ReentrantLock lock1 = accountLocks.computeIfAbsent(firstLock, k -> new ReentrantLock());
-        ReentrantLock lock2 = accountLocks.computeIfAbsent(secondLock, k -> new ReentrantLock());
+        // Ordered locking by stripe index to prevent deadlocks
+        int fromStripe = accountLocks.stripeOf(fromAccount);
+        int toStripe = accountLocks.stripeOf(toAccount);
+        int firstLock = Math.min(fromStripe, toStripe);
+        int secondLock = Math.max(fromStripe, toStripe);
 
-        lock1.lock();
+        accountLocks.lock(firstLock);
         try {
-            lock2.lock();
+            // Both accounts hashed to the same stripe, a single acquisition covers them
+            if (secondLock != firstLock) {
+                accountLocks.lock(secondLock);
+            }
             try {
                 return performAtomicTransfer(fromAccount, toAccount, amount, description);
             } finally {
-                lock2.unlock();
+                if (secondLock != firstLock) {
+                    accountLocks.unlock(secondLock);
+                }
             }
         } finally {
-            lock1.unlock();
+            accountLocks.unlock(firstLock);
         }
     }
 
@@ -73,52 +84,13 @@ public class DistributedTransactionService {
         LocalDateTime startTime = LocalDateTime.now();
 
         try {
-            // Step 1: Validate and lock both accounts
-            Account sourceAccount = accountService.getAccountByNumber(fromAccount);
-            Account targetAccount = accountService.getAccountByNumber(toAccount);
-
-            // Step 2: Pre-flight checks
-            validateTransferPreconditions(sourceAccount, targetAccount, amount);
-
-            // Step 3: Record balances before transaction
-            BigDecimal sourceBalanceBefore = sourceAccount.getBalance();
-            BigDecimal targetBalanceBefore = targetAccount.getBalance();
-
-            // Step 4: Perform atomic debit and credit
-            accountService.debit(fromAccount, amount, description);
-            accountService.credit(toAccount, amount, description);
-
-            // Step 5: Create transaction records
-            Transaction debitTxn = createTransactionRecord(sourceAccount, amount,
-                    TransactionType.TRANSFER_OUT, description, targetAccount);
-            Transaction creditTxn = createTransactionRecord(targetAccount, amount,
-                    TransactionType.TRANSFER_IN, description, sourceAccount);
-
-            // Step 6: Save transaction records
-            transactionService.createTransaction(debitTxn);
-            transactionService.createTransaction(creditTxn);
-
-            // Step 7: Get final balances
-            BigDecimal sourceBalanceAfter = accountService.getBalance(fromAccount);
-            BigDecimal targetBalanceAfter = accountService.getBalance(toAccount);
-
-            TransferResult result = TransferResult.builder()
-                    .success(true)
-                    .fromAccount(fromAccount)
-                    .toAccount(toAccount)
-                    .amount(amount)
-                    .sourceBalanceBefore(sourceBalanceBefore)
-                    .sourceBalanceAfter(sourceBalanceAfter)
-                    .targetBalanceBefore(targetBalanceBefore)
-                    .targetBalanceAfter(targetBalanceAfter)
-                    .transactionTime(startTime)
-                    .processingTimeMs(java.time.Duration.between(startTime, LocalDateTime.now()).toMillis())
-                    .build();
-
+            TransferResult result = concurrencyRetry.inTransaction(TRANSFER_TRANSACTION,
+                    () -> transferInTransaction(fromAccount, toAccount, amount, description, startTime));
             log.info("Atomic transfer completed successfully: {}", result);
             return result;
 
         } catch (Exception e) {
+            // The transaction has been rolled back, so neither leg was applied
             log.error("Atomic transfer failed: {} from {} to {}", amount, fromAccount, toAccount, e);
 
             return TransferResult.builder()
@@ -133,6 +105,51 @@ public class DistributedTransactionService {
         }
     }
 
+    private TransferResult transferInTransaction(String fromAccount, String toAccount, BigDecimal amount,
+                                                 String description, LocalDateTime startTime) {
+        // Step 1: Validate and lock both accounts
+        Account sourceAccount = accountService.getAccountByNumber(fromAccount);
+        Account targetAccount = accountService.getAccountByNumber(toAccount);
+
+        // Step 2: Pre-flight checks
+        validateTransferPreconditions(sourceAccount, targetAccount, amount);
+
+        // Step 3: Record balances before transaction
+        BigDecimal sourceBalanceBefore = sourceAccount.getBalance();
+        BigDecimal targetBalanceBefore = targetAccount.getBalance();
+
+        // Step 4: Perform atomic debit and credit
+        accountService.debit(fromAccount, amount, description);
+        accountService.credit(toAccount, amount, description);
+
+        // Step 5: Create transaction records
+        Transaction debitTxn = createTransactionRecord(sourceAccount, amount,
+                TransactionType.TRANSFER_OUT, description, targetAccount);
+        Transaction creditTxn = createTransactionRecord(targetAccount, amount,
+                TransactionType.TRANSFER_IN, description, sourceAccount);
+
+        // Step 6: Save transaction records
+        transactionService.createTransaction(debitTxn);
+        transactionService.createTransaction(creditTxn);
+
+        // Step 7: Get final balances
+        BigDecimal sourceBalanceAfter = accountService.getBalance(fromAccount);
+        BigDecimal targetBalanceAfter = accountService.getBalance(toAccount);
+
+        return TransferResult.builder()
+                .success(true)
+                .fromAccount(fromAccount)
+                .toAccount(toAccount)
+                .amount(amount)
+                .sourceBalanceBefore(sourceBalanceBefore)
+                .sourceBalanceAfter(sourceBalanceAfter)
+                .targetBalanceBefore(targetBalanceBefore)
+                .targetBalanceAfter(targetBalanceAfter)
+                .transactionTime(startTime)
+                .processingTimeMs(java.time.Duration.between(startTime, LocalDateTime.now()).toMillis())
+                .build();
+    }
+
     private void validateTransferPreconditions(Account sourceAccount, Account targetAccount, BigDecimal amount) {
         if (sourceAccount.getStatus() != AccountStatus.ACTIVE) {
             throw new BankingException("Source account is not active", "ACCOUNT_NOT_ACTIVE");
@@ -169,6 +186,13 @@ public class DistributedTransactionService {
                 .build();
     }
 
+    private static TransactionDefinition transferTransaction() {
+        DefaultTransactionDefinition definition = new DefaultTransactionDefinition();
+        definition.setIsolationLevel(TransactionDefinition.ISOLATION_SERIALIZABLE);
+        definition.setTimeout(30);
+        return definition;
+    }
+
     @lombok.Data
     @lombok.Builder
     public static class TransferResult {
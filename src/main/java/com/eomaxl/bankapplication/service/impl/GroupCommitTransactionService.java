@@ -0,0 +1,506 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.GroupCommitProperties;
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.domain.model.TransactionStatus;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import com.eomaxl.bankapplication.service.ITransactionService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeSet;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Group commit stage for deposits and withdrawals
+ * Concurrent requests are collected for a short window by a single committer thread and applied together:
+ * the involved accounts are locked once, balances are written in one JDBC batch, transaction rows in another,
+ * and the whole group shares one database commit. Each caller then completes with its own Transaction.
+ * Requests that fail validation fail individually without affecting the rest of their group.
+ * A caller that times out withdraws its request only while it is still queued; once the committer has taken it
+ * into a group the caller waits for the outcome, so a timeout never hides a commit.
+ * Everything else is delegated to the JPA implementation.
+ * Enabled with banking.group-commit.enabled=true
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "banking.group-commit.enabled", havingValue = "true")
+@Slf4j
+public class GroupCommitTransactionService implements ITransactionService {
+
+    private final TransactionServiceImpl jpaTransactionService;
+    private final AccountRepository accountRepository;
+    private final TransactionRepository transactionRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionOutbox transactionOutbox;
+    private final BalanceCache balanceCache;
+    private final ShardedBalanceService shardedBalances;
+    private final GroupCommitProperties properties;
+
+    // The in-memory ledger owns balances itself, so grouping database writes would bypass it
+    private final boolean passThrough;
+
+    private final BlockingQueue<PendingEntry> queue = new LinkedBlockingQueue<>();
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    private final Timer commitTimer;
+    private final DistributionSummary groupSizeSummary;
+    private final Counter fallbackCounter;
+
+    public GroupCommitTransactionService(TransactionServiceImpl jpaTransactionService,
+                                         AccountRepository accountRepository,
+                                         TransactionRepository transactionRepository,
+                                         PlatformTransactionManager transactionManager,
+                                         TransactionIdGenerator transactionIdGenerator,
+                                         TransactionOutbox transactionOutbox,
+                                         BalanceCache balanceCache,
+                                         ShardedBalanceService shardedBalances,
+                                         MeterRegistry meterRegistry,
+                                         GroupCommitProperties properties,
+                                         LedgerProperties ledgerProperties) {
+        this.jpaTransactionService = jpaTransactionService;
+        this.accountRepository = accountRepository;
+        this.transactionRepository = transactionRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionIdGenerator = transactionIdGenerator;
+        this.transactionOutbox = transactionOutbox;
+        this.balanceCache = balanceCache;
+        this.shardedBalances = shardedBalances;
+        this.properties = properties;
+        this.passThrough = LedgerProperties.ENGINE_IN_MEMORY.equals(ledgerProperties.getEngine());
+
+        this.commitTimer = Timer.builder("banking.groupcommit.commit")
+                .description("Group commits and the time taken to apply and commit each group")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.groupSizeSummary = DistributionSummary.builder("banking.groupcommit.group.size")
+                .description("Number of deposits and withdrawals sharing one commit")
+                .publishPercentileHistogram()
+                .register(meterRegistry);
+        this.fallbackCounter = Counter.builder("banking.groupcommit.fallbacks")
+                .description("Groups that failed as a whole and were retried one request at a time")
+                .register(meterRegistry);
+
+        this.committer = new Thread(this::run, "GroupCommit");
+        this.committer.setDaemon(true);
+        if (passThrough) {
+            log.warn("Group commit disabled because the in-memory ledger engine is active");
+        } else {
+            this.committer.start();
+            log.info("Group commit started with a {} ms window and at most {} requests per group",
+                    properties.getWindowMs(), properties.getMaxGroupSize());
+        }
+    }
+
+    public Transaction createTransaction(Transaction transaction) {
+        return jpaTransactionService.createTransaction(transaction);
+    }
+
+    public Transaction deposit(String accountNumber, BigDecimal amount, String description) {
+        if (bypassGroup(accountNumber)) {
+            return jpaTransactionService.deposit(accountNumber, amount, description);
+        }
+        requirePositive(amount, "Credit amount must be positive");
+        return submit(new PendingEntry(TransactionType.DEPOSIT, accountNumber, amount, description));
+    }
+
+    public Transaction withdrawal(String accountNumber, BigDecimal amount, String description) {
+        if (bypassGroup(accountNumber)) {
+            return jpaTransactionService.withdrawal(accountNumber, amount, description);
+        }
+        requirePositive(amount, "Debit amount must be positive");
+        return submit(new PendingEntry(TransactionType.WITHDRAWAL, accountNumber, amount, description));
+    }
+
+    public List<Transaction> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String description) {
+        return jpaTransactionService.transfer(fromAccountNumber, toAccountNumber, amount, description);
+    }
+
+    public Optional<Transaction> findById(Long id) {
+        return jpaTransactionService.findById(id);
+    }
+
+    public Optional<Transaction> findByTransactionId(String transactionId) {
+        return jpaTransactionService.findByTransactionId(transactionId);
+    }
+
+    public Page<Transaction> findByAccountId(Long accountId, Pageable pageable) {
+        return jpaTransactionService.findByAccountId(accountId, pageable);
+    }
+
+    public Page<Transaction> findByAccountNumber(String accountNumber, Pageable pageable) {
+        return jpaTransactionService.findByAccountNumber(accountNumber, pageable);
+    }
+
+    public Page<Transaction> findByCustomerId(String customerId, Pageable pageable) {
+        return jpaTransactionService.findByCustomerId(customerId, pageable);
+    }
+
+    public List<Transaction> findByDateRange(LocalDateTime startDate, LocalDateTime endDate) {
+        return jpaTransactionService.findByDateRange(startDate, endDate);
+    }
+
+    public List<Transaction> findByAccountAndDateRange(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
+        return jpaTransactionService.findByAccountAndDateRange(accountId, startDate, endDate);
+    }
+
+    public List<Transaction> findByTransactionType(TransactionType transactionType) {
+        return jpaTransactionService.findByTransactionType(transactionType);
+    }
+
+    public List<Transaction> findByStatus(TransactionStatus status) {
+        return jpaTransactionService.findByStatus(status);
+    }
+
+    public List<Transaction> findIncomingTransfers(Long accountId) {
+        return jpaTransactionService.findIncomingTransfers(accountId);
+    }
+
+    public List<Transaction> findOutgoingTransfers(Long accountId) {
+        return jpaTransactionService.findOutgoingTransfers(accountId);
+    }
+
+    public List<Transaction> findAllTransfers(Long accountId) {
+        return jpaTransactionService.findAllTransfers(accountId);
+    }
+
+    public BigDecimal getTotalAmountByAccountAndType(Long accountId, TransactionType transactionType) {
+        return jpaTransactionService.getTotalAmountByAccountAndType(accountId, transactionType);
+    }
+
+    public Long countTransactionsByAccountAndDateRange(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
+        return jpaTransactionService.countTransactionsByAccountAndDateRange(accountId, startDate, endDate);
+    }
+
+    public List<Object[]> getDailyTransactionSummary(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
+        return jpaTransactionService.getDailyTransactionSummary(accountId, startDate, endDate);
+    }
+
+    public BigDecimal getBalanceAsOf(String accountNumber, LocalDateTime asOf) {
+        return jpaTransactionService.getBalanceAsOf(accountNumber, asOf);
+    }
+
+    public Transaction updateTransactionStatus(String transactionId, TransactionStatus status) {
+        return jpaTransactionService.updateTransactionStatus(transactionId, status);
+    }
+
+    public List<Transaction> findPendingTransactionsOlderThan(LocalDateTime cutoffTime) {
+        return jpaTransactionService.findPendingTransactionsOlderThan(cutoffTime);
+    }
+
+    public void cleanupPendingTransactions(LocalDateTime cutoffTime) {
+        jpaTransactionService.cleanupPendingTransactions(cutoffTime);
+    }
+
+    public boolean existsByTransactionId(String transactionId) {
+        return jpaTransactionService.existsByTransactionId(transactionId);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        log.info("Stopping group commit, draining {} pending requests", queue.size());
+        running = false;
+        committer.join(properties.getTimeoutMs());
+    }
+
+    private Transaction submit(PendingEntry entry) {
+        if (!running) {
+            throw new BankingException("GROUP_COMMIT_UNAVAILABLE", "Group commit is shutting down");
+        }
+        queue.add(entry);
+        try {
+            return entry.result.get(properties.getTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            if (entry.cancel()) {
+                throw new BankingException("Group commit timed out", e, "GROUP_COMMIT_TIMEOUT");
+            }
+            // Already part of a group being committed, its outcome is about to be known
+            return join(entry);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (entry.cancel()) {
+                throw new BankingException("Interrupted while waiting for group commit", e, "GROUP_COMMIT_ERROR");
+            }
+            return join(entry);
+        }
+    }
+
+    // Waits for a request the committer has claimed, abandoning it would report a failure for a committed change
+    private Transaction join(PendingEntry entry) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    return entry.result.get();
+                } catch (ExecutionException e) {
+                    throw unwrap(e);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new BankingException("Group commit failed", e.getCause(), "GROUP_COMMIT_ERROR");
+    }
+
+    private void run() {
+        long windowNanos = TimeUnit.MILLISECONDS.toNanos(properties.getWindowMs());
+        int maxGroupSize = Math.max(1, properties.getMaxGroupSize());
+        List<PendingEntry> group = new ArrayList<>(maxGroupSize);
+        List<PendingEntry> drained = new ArrayList<>(maxGroupSize);
+
+        while (running || !queue.isEmpty()) {
+            try {
+                PendingEntry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null || !claim(group, first)) {
+                    continue;
+                }
+
+                long deadline = System.nanoTime() + windowNanos;
+                while (group.size() < maxGroupSize) {
+                    // Take whatever is already queued before waiting for stragglers
+                    if (queue.drainTo(drained, maxGroupSize - group.size()) > 0) {
+                        drained.forEach(entry -> claim(group, entry));
+                        drained.clear();
+                        continue;
+                    }
+                    long remaining = deadline - System.nanoTime();
+                    PendingEntry next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    claim(group, next);
+                }
+
+                commit(group);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.error("Unexpected failure in group commit loop", e);
+                group.forEach(entry -> entry.result.completeExceptionally(e));
+            } finally {
+                group.clear();
+            }
+        }
+    }
+
+    // Callers that gave up before their request was taken are skipped, they have already been told it failed
+    private boolean claim(List<PendingEntry> group, PendingEntry entry) {
+        if (!entry.claim()) {
+            return false;
+        }
+        group.add(entry);
+        return true;
+    }
+
+    private void commit(List<PendingEntry> group) {
+        Timer.Sample sample = Timer.start();
+        try {
+            transactionTemplate.executeWithoutResult(status -> apply(group));
+        } catch (Exception e) {
+            // One bad row must not fail everyone else, fall back to the regular per-request path
+            log.warn("Group commit of {} requests failed, applying them one at a time", group.size(), e);
+            fallbackCounter.increment();
+            group.forEach(this::applyAlone);
+            return;
+        }
+        sample.stop(commitTimer);
+        groupSizeSummary.record(group.size());
+
+        for (PendingEntry entry : group) {
+            if (entry.failure != null) {
+                entry.result.completeExceptionally(entry.failure);
+            } else {
+                entry.result.complete(entry.transaction);
+            }
+        }
+        log.debug("Committed group of {} deposits and withdrawals", group.size());
+    }
+
+    private void apply(List<PendingEntry> group) {
+        TreeSet<String> accountNumbers = new TreeSet<>();
+        group.forEach(entry -> accountNumbers.add(entry.accountNumber));
+
+        Map<String, AccountBalanceView> locked = new HashMap<>();
+        for (AccountBalanceView view : accountRepository.lockBalanceViews(accountNumbers)) {
+            locked.put(view.accountNumber(), view);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        Map<Long, BigDecimal> balances = new LinkedHashMap<>();
+        List<Transaction> rows = new ArrayList<>(group.size());
+
+        // Requests are applied in arrival order so each sees the balance left by the one before it
+        for (PendingEntry entry : group) {
+            entry.transaction = null;
+            entry.failure = null;
+            try {
+                AccountBalanceView view = locked.get(entry.accountNumber);
+                if (view == null) {
+                    throw new AccountNotFoundException(entry.accountNumber);
+                }
+                if (view.status() != AccountStatus.ACTIVE) {
+                    throw new BankingException("ACCOUNT_NOT_ACTIVE", "Account is not active: " + entry.accountNumber);
+                }
+
+                BigDecimal balanceBefore = balances.getOrDefault(view.id(), view.balance());
+                BigDecimal balanceAfter;
+                if (entry.type == TransactionType.WITHDRAWAL) {
+                    if (balanceBefore.compareTo(entry.amount) < 0) {
+                        throw new InsufficientFundsException(entry.accountNumber, entry.amount, balanceBefore);
+                    }
+                    balanceAfter = balanceBefore.subtract(entry.amount);
+                } else {
+                    balanceAfter = balanceBefore.add(entry.amount);
+                }
+                balances.put(view.id(), balanceAfter);
+
+                entry.transaction = Transaction.builder()
+                        .transactionId(transactionIdGenerator.nextId())
+                        .amount(entry.amount)
+                        .transactionType(entry.type)
+                        .status(TransactionStatus.COMPLETED)
+                        .description(entry.description)
+                        .account(snapshot(view, balanceAfter))
+                        .balanceBefore(balanceBefore)
+                        .balanceAfter(balanceAfter)
+                        .transactionDate(now)
+                        .build();
+                rows.add(entry.transaction);
+            } catch (BankingException e) {
+                entry.failure = e;
+            }
+        }
+
+        accountRepository.updateBalances(balances, now);
+        balanceCache.afterCommit(locked.values(), balances);
+        transactionRepository.insertAll(rows);
+        transactionOutbox.record(rows);
+    }
+
+    private void applyAlone(PendingEntry entry) {
+        try {
+            Transaction transaction = entry.type == TransactionType.WITHDRAWAL
+                    ? jpaTransactionService.withdrawal(entry.accountNumber, entry.amount, entry.description)
+                    : jpaTransactionService.deposit(entry.accountNumber, entry.amount, entry.description);
+            entry.result.complete(transaction);
+        } catch (Exception e) {
+            entry.result.completeExceptionally(e);
+        }
+    }
+
+    private Account snapshot(AccountBalanceView view, BigDecimal balance) {
+        // Detached view of the account as left by this request, for building the response
+        return Account.builder()
+                .id(view.id())
+                .accountNumber(view.accountNumber())
+                .balance(balance)
+                .accountType(view.accountType())
+                .status(view.status())
+                .version(view.version() + 1)
+                .build();
+    }
+
+    private boolean bypassGroup(String accountNumber) {
+        // A caller's own transaction must see the change, so it cannot be moved to the committer thread.
+        // Sharded hot accounts already avoid the row lock and are balanced across shard rows instead.
+        return passThrough
+                || TransactionSynchronizationManager.isActualTransactionActive()
+                || shardedBalances.isSharded(accountNumber);
+    }
+
+    private void requirePositive(BigDecimal amount, String message) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BankingException("INVALID_AMOUNT", message);
+        }
+    }
+
+    /**
+     * A deposit or withdrawal waiting for its group, mutated only by the committer thread once claimed
+     */
+    private static class PendingEntry {
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int CANCELLED = 2;
+
+        private final TransactionType type;
+        private final String accountNumber;
+        private final BigDecimal amount;
+        private final String description;
+        private final CompletableFuture<Transaction> result = new CompletableFuture<>();
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private Transaction transaction;
+        private BankingException failure;
+
+        PendingEntry(TransactionType type, String accountNumber, BigDecimal amount, String description) {
+            this.type = type;
+            this.accountNumber = accountNumber;
+            this.amount = amount;
+            this.description = description;
+        }
+
+        /**
+         * Takes the request into a group, fails if its caller already gave up on it
+         */
+        boolean claim() {
+            return state.compareAndSet(QUEUED, CLAIMED);
+        }
+
+        /**
+         * Withdraws the request, fails if the committer already took it
+         */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+    }
+}
@@ -0,0 +1,346 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.IdempotencyProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.IdempotencyConflictException;
+import com.eomaxl.bankapplication.domain.model.IdempotencyRecord;
+import com.eomaxl.bankapplication.domain.model.IdempotencyStatus;
+import com.eomaxl.bankapplication.dto.response.ApiResponse;
+import com.eomaxl.bankapplication.repository.IdempotencyRecordRepository;
+import com.eomaxl.bankapplication.service.IIdempotencyService;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.MapperFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import com.fasterxml.jackson.databind.module.SimpleModule;
+import com.fasterxml.jackson.databind.ser.std.StdSerializer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.authentication.AnonymousAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Two-tier Idempotency-Key store
+ * Completed responses are kept in a bounded in-memory tier with TTL eviction in front of the
+ * idempotency_keys table. Keys are scoped to the authenticated principal and the operation.
+ * A key is reserved in its own transaction before the action runs, so concurrent requests with the
+ * same key across nodes cannot both execute. The action then runs in one transaction with the write that
+ * marks the key completed: either both commit or neither does, and the key is released for a retry.
+ * A reservation is only a short lease, a key left in progress by a crash had its action rolled back and
+ * becomes free once the lease runs out. An action that outlives its lease cannot complete and rolls back.
+ * Work an action commits on its own, such as best-effort batch items on sharded accounts, is outside this
+ * guarantee.
+ */
+@Service
+@Slf4j
+public class IdempotencyServiceImpl implements IIdempotencyService {
+
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final int MAX_KEY_LENGTH = 100;
+
+    private final IdempotencyRecordRepository repository;
+    private final ObjectMapper objectMapper;
+    private final ObjectMapper canonicalMapper;
+    private final TransactionTemplate requiresNew;
+    private final ConcurrencyRetry concurrencyRetry;
+    private final IdempotencyProperties properties;
+
+    private final HotTier hotTier;
+    private final ScheduledExecutorService purger;
+
+    public IdempotencyServiceImpl(IdempotencyRecordRepository repository,
+                                  ObjectMapper objectMapper,
+                                  PlatformTransactionManager transactionManager,
+                                  IdempotencyProperties properties,
+                                  ConcurrencyRetry concurrencyRetry) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.canonicalMapper = canonicalMapper();
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.concurrencyRetry = concurrencyRetry;
+        this.properties = properties;
+        this.hotTier = new HotTier(properties.getHotMaxSize());
+
+        this.purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "IdempotencyPurge");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long purgeMs = properties.getPurgeInterval().toMillis();
+        this.purger.scheduleWithFixedDelay(this::purgeExpired, purgeMs, purgeMs, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public <T> ResponseEntity<ApiResponse<T>> execute(String idempotencyKey, String operation, Object request,
+                                                      Class<T> dataType, Supplier<ResponseEntity<ApiResponse<T>>> action) {
+        if (idempotencyKey == null || idempotencyKey.isBlank()) {
+            return action.get();
+        }
+        if (idempotencyKey.length() > MAX_KEY_LENGTH) {
+            throw new BankingException("INVALID_IDEMPOTENCY_KEY",
+                    "Idempotency-Key must be at most " + MAX_KEY_LENGTH + " characters");
+        }
+
+        String principal = currentPrincipal();
+        String requestHash = hash(operation, request);
+        String hotKey = principal + ":" + operation + ":" + idempotencyKey;
+
+        StoredResponse hot = hotTier.get(hotKey, LocalDateTime.now());
+        if (hot != null) {
+            log.debug("Replaying {} response for idempotency key {} from memory", operation, idempotencyKey);
+            return replay(hot, requestHash, idempotencyKey, dataType);
+        }
+
+        IdempotencyRecord reserved = reserve(principal, idempotencyKey, operation, requestHash);
+        if (reserved.getStatus() == IdempotencyStatus.COMPLETED) {
+            StoredResponse stored = StoredResponse.of(reserved);
+            hotTier.put(hotKey, stored, hotExpiry(stored));
+            log.debug("Replaying {} response for idempotency key {} from the database", operation, idempotencyKey);
+            return replay(stored, requestHash, idempotencyKey, dataType);
+        }
+
+        // Outermost transaction of the request, lost races inside the action are retried here as a whole
+        Completed<T> completed;
+        try {
+            completed = concurrencyRetry.inTransaction(() -> {
+                ResponseEntity<ApiResponse<T>> response = action.get();
+                StoredResponse stored = new StoredResponse(requestHash, response.getStatusCode().value(),
+                        serialize(response.getBody()), LocalDateTime.now().plus(properties.getTtl()));
+                complete(reserved.getId(), idempotencyKey, stored);
+                return new Completed<>(response, stored);
+            });
+        } catch (RuntimeException e) {
+            release(reserved.getId());
+            throw e;
+        }
+
+        hotTier.put(hotKey, completed.stored(), hotExpiry(completed.stored()));
+        return completed.response();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        purger.shutdown();
+    }
+
+    /**
+     * Inserts an in-progress record for the key, or returns the existing record if it is completed
+     */
+    private IdempotencyRecord reserve(String principal, String idempotencyKey, String operation, String requestHash) {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            return requiresNew.execute(status -> repository.saveAndFlush(IdempotencyRecord.builder()
+                    .principal(principal)
+                    .idempotencyKey(idempotencyKey)
+                    .operation(operation)
+                    .requestHash(requestHash)
+                    .status(IdempotencyStatus.IN_PROGRESS)
+                    .createdAt(now)
+                    .expiresAt(now.plus(properties.getInProgressTtl()))
+                    .build()));
+        } catch (DataIntegrityViolationException e) {
+            IdempotencyRecord existing = requiresNew.execute(status -> repository
+                    .findByPrincipalAndIdempotencyKeyAndOperation(principal, idempotencyKey, operation).orElse(null));
+            if (existing == null || existing.isExpired(now)) {
+                // Released or expired between our insert and read, the key is free again
+                if (existing != null) {
+                    requiresNew.executeWithoutResult(status -> repository.deleteIfExpired(existing.getId(), now));
+                }
+                return reserve(principal, idempotencyKey, operation, requestHash);
+            }
+            if (!existing.getRequestHash().equals(requestHash)) {
+                throw keyReused(idempotencyKey);
+            }
+            if (existing.getStatus() == IdempotencyStatus.IN_PROGRESS) {
+                throw new IdempotencyConflictException("IDEMPOTENCY_KEY_IN_PROGRESS",
+                        "A request with Idempotency-Key " + idempotencyKey + " is already in progress");
+            }
+            return existing;
+        }
+    }
+
+    /**
+     * Marks the reservation completed in the action's transaction, and fails it if the lease was lost
+     */
+    private void complete(long recordId, String idempotencyKey, StoredResponse stored) {
+        IdempotencyRecord record = repository.findById(recordId)
+                .filter(reserved -> reserved.getStatus() == IdempotencyStatus.IN_PROGRESS)
+                .orElseThrow(() -> new IdempotencyConflictException("IDEMPOTENCY_KEY_EXPIRED",
+                        "Idempotency-Key " + idempotencyKey + " expired while its request was running"));
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setHttpStatus(stored.httpStatus());
+        record.setResponseBody(stored.body());
+        record.setExpiresAt(stored.expiresAt());
+        repository.saveAndFlush(record);
+    }
+
+    private void release(long recordId) {
+        try {
+            requiresNew.executeWithoutResult(status -> repository.deleteById(recordId));
+        } catch (RuntimeException e) {
+            log.warn("Failed to release idempotency record {}, it stays reserved until it expires", recordId, e);
+        }
+    }
+
+    private <T> ResponseEntity<ApiResponse<T>> replay(StoredResponse stored, String requestHash,
+                                                      String idempotencyKey, Class<T> dataType) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw keyReused(idempotencyKey);
+        }
+        JavaType bodyType = objectMapper.getTypeFactory().constructParametricType(ApiResponse.class, dataType);
+        try {
+            ApiResponse<T> body = stored.body() == null ? null : objectMapper.readValue(stored.body(), bodyType);
+            return ResponseEntity.status(stored.httpStatus())
+                    .header(REPLAYED_HEADER, "true")
+                    .body(body);
+        } catch (JsonProcessingException e) {
+            throw new BankingException("Stored response for Idempotency-Key " + idempotencyKey + " is unreadable",
+                    e, "IDEMPOTENCY_ERROR");
+        }
+    }
+
+    private IdempotencyConflictException keyReused(String idempotencyKey) {
+        return new IdempotencyConflictException("IDEMPOTENCY_KEY_REUSED",
+                "Idempotency-Key " + idempotencyKey + " was already used for a different request");
+    }
+
+    private String currentPrincipal() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        if (authentication == null || !authentication.isAuthenticated()
+                || authentication instanceof AnonymousAuthenticationToken) {
+            return "";
+        }
+        return authentication.getName();
+    }
+
+    private String hash(String operation, Object request) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            digest.update(canonicalMapper.writeValueAsBytes(request));
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new BankingException("Unable to fingerprint request", e, "IDEMPOTENCY_ERROR");
+        }
+    }
+
+    private String serialize(Object body) {
+        try {
+            return body == null ? null : objectMapper.writeValueAsString(body);
+        } catch (JsonProcessingException e) {
+            throw new BankingException("Unable to store response for idempotent request", e, "IDEMPOTENCY_ERROR");
+        }
+    }
+
+    private LocalDateTime hotExpiry(StoredResponse stored) {
+        LocalDateTime hotExpiry = LocalDateTime.now().plus(properties.getHotTtl());
+        return hotExpiry.isBefore(stored.expiresAt()) ? hotExpiry : stored.expiresAt();
+    }
+
+    private void purgeExpired() {
+        try {
+            Integer purged = requiresNew.execute(status -> repository.deleteExpired(LocalDateTime.now()));
+            if (purged != null && purged > 0) {
+                log.info("Purged {} expired idempotency keys", purged);
+            }
+        } catch (Exception e) {
+            log.error("Failed to purge expired idempotency keys", e);
+        }
+    }
+
+    /**
+     * Serializes requests the same way however they were spelled: properties and map entries sorted by name,
+     * and amounts without trailing zeros, so 10, 10.0 and 10.00 fingerprint alike
+     */
+    private static ObjectMapper canonicalMapper() {
+        return JsonMapper.builder()
+                .findAndAddModules()
+                .addModule(new SimpleModule().addSerializer(BigDecimal.class, new CanonicalDecimalSerializer()))
+                .enable(MapperFeature.SORT_PROPERTIES_ALPHABETICALLY)
+                .enable(SerializationFeature.ORDER_MAP_ENTRIES_BY_KEYS)
+                .build();
+    }
+
+    private static class CanonicalDecimalSerializer extends StdSerializer<BigDecimal> {
+        CanonicalDecimalSerializer() {
+            super(BigDecimal.class);
+        }
+
+        @Override
+        public void serialize(BigDecimal value, JsonGenerator generator, SerializerProvider provider) throws IOException {
+            generator.writeString(value.stripTrailingZeros().toPlainString());
+        }
+    }
+
+    private record Completed<T>(ResponseEntity<ApiResponse<T>> response, StoredResponse stored) {
+    }
+
+    private record StoredResponse(String requestHash, int httpStatus, String body, LocalDateTime expiresAt) {
+        static StoredResponse of(IdempotencyRecord record) {
+            return new StoredResponse(record.getRequestHash(), record.getHttpStatus(), record.getResponseBody(),
+                    record.getExpiresAt());
+        }
+    }
+
+    /**
+     * Bounded LRU of completed responses, entries are dropped on access once their TTL has passed
+     */
+    private static class HotTier {
+        private final Map<String, HotEntry> entries;
+
+        HotTier(int maxSize) {
+            this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<String, HotEntry> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized StoredResponse get(String key, LocalDateTime now) {
+            HotEntry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (entry.expiresAt().isBefore(now)) {
+                entries.remove(key);
+                return null;
+            }
+            return entry.response();
+        }
+
+        synchronized void put(String key, StoredResponse response, LocalDateTime expiresAt) {
+            entries.put(key, new HotEntry(response, expiresAt));
+        }
+
+        private record HotEntry(StoredResponse response, LocalDateTime expiresAt) {
+        }
+    }
+}
@@ -0,0 +1,494 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.domain.valueObject.MinorUnits;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.service.IAccountService;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * In-memory ledger engine for account balances
+ * Each account is owned by exactly one partition thread which applies debits and credits in memory,
+ * committed balance changes are written back to the accounts table asynchronously in JDBC batches.
+ * Changes made inside a caller's database transaction are settled when it completes: kept and queued
+ * for write-back on commit, reverted on rollback.
+ * Write-back adds deltas rather than absolute balances, so it never overwrites a change made to the row
+ * by another node or another balance path; the in-memory balance however does not see such changes,
+ * so the ledger should be the only writer of the balances it owns.
+ * Balances are held as long minor units, amounts are converted once on the way in and balances on the way out.
+ * Non-balance operations are delegated to the JPA implementation.
+ * Enabled with banking.ledger.engine=in-memory
+ */
+@Service
+@Primary
+@ConditionalOnProperty(name = "banking.ledger.engine", havingValue = LedgerProperties.ENGINE_IN_MEMORY)
+@Slf4j
+public class InMemoryLedgerAccountService implements IAccountService {
+
+    private static final String FLUSH_DELTA_SQL =
+            "UPDATE accounts SET balance = balance + ?, updated_at = ?, version = version + 1 WHERE account_number = ?";
+
+    private final AccountServiceImpl jpaAccountService;
+    private final AccountRepository accountRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final LedgerProperties properties;
+
+    private final LedgerPartition[] partitions;
+    private final ScheduledExecutorService flusher;
+    // Held for a whole flush: two flushes reading the same pending deltas would add them to the balance twice
+    private final Object flushLock = new Object();
+
+    public InMemoryLedgerAccountService(AccountServiceImpl jpaAccountService,
+                                        AccountRepository accountRepository,
+                                        JdbcTemplate jdbcTemplate,
+                                        PlatformTransactionManager transactionManager,
+                                        LedgerProperties properties) {
+        this.jpaAccountService = jpaAccountService;
+        this.accountRepository = accountRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+
+        this.partitions = new LedgerPartition[Math.max(1, properties.getPartitions())];
+        for (int i = 0; i < partitions.length; i++) {
+            partitions[i] = new LedgerPartition(i);
+        }
+
+        this.flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "LedgerFlush");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.flusher.scheduleWithFixedDelay(this::flushSafely, properties.getFlushIntervalMs(),
+                properties.getFlushIntervalMs(), TimeUnit.MILLISECONDS);
+
+        log.info("In-memory ledger engine started with {} partitions", partitions.length);
+    }
+
+    public Account createAccount(Account account) {
+        // New accounts are picked up lazily by their partition on first use
+        return jpaAccountService.createAccount(account);
+    }
+
+    public Optional<Account> findById(Long id) {
+        return jpaAccountService.findById(id).map(this::overlay);
+    }
+
+    public Optional<Account> findByAccountNumber(String accountNumber) {
+        return jpaAccountService.findByAccountNumber(accountNumber).map(this::overlay);
+    }
+
+    public Account getAccountByNumber(String accountNumber) {
+        return findByAccountNumber(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+
+    public List<Account> findByAccountHolderId(Long accountHolderId) {
+        return overlay(jpaAccountService.findByAccountHolderId(accountHolderId));
+    }
+
+    public List<Account> findByCustomerId(String customerId) {
+        return overlay(jpaAccountService.findByCustomerId(customerId));
+    }
+
+    public List<Account> findByBankId(Long bankId) {
+        return overlay(jpaAccountService.findByBankId(bankId));
+    }
+
+    public BigDecimal getBalance(String accountNumber) {
+        LedgerPartition.LedgerAccount owned = partitionFor(accountNumber).get(accountNumber);
+        if (owned != null) {
+            return owned.getBalance();
+        }
+        return jpaAccountService.getBalance(accountNumber);
+    }
+
+    public Account credit(String accountNumber, BigDecimal amount, String description) {
+        log.info("Crediting amount {} to account: {} (ledger)", amount, accountNumber);
+        requirePositive(amount, "Credit amount must be positive");
+        long minorAmount = MinorUnits.of(amount);
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+
+        LedgerPartition partition = partitionFor(accountNumber);
+        long balance = await(partition.submit(() -> {
+            LedgerPartition.LedgerAccount owned = load(partition, accountNumber);
+            requireActive(owned, "Account is not active: ");
+            apply(partition, owned, minorAmount, transactional);
+            return owned.getBalanceMinor();
+        }));
+        settleOnCompletion(partition, accountNumber, minorAmount, transactional);
+
+        return snapshot(accountNumber, MinorUnits.toBigDecimal(balance));
+    }
+
+    public Account debit(String accountNumber, BigDecimal amount, String description) {
+        log.info("Debiting amount {} from account: {} (ledger)", amount, accountNumber);
+        requirePositive(amount, "Debit amount must be positive");
+        long minorAmount = MinorUnits.of(amount);
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+
+        LedgerPartition partition = partitionFor(accountNumber);
+        long balance = await(partition.submit(() -> {
+            LedgerPartition.LedgerAccount owned = load(partition, accountNumber);
+            requireActive(owned, "Account is not active: ");
+            apply(partition, owned, MinorUnits.negate(minorAmount), transactional);
+            return owned.getBalanceMinor();
+        }));
+        settleOnCompletion(partition, accountNumber, MinorUnits.negate(minorAmount), transactional);
+
+        return snapshot(accountNumber, MinorUnits.toBigDecimal(balance));
+    }
+
+    public List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount, String description) {
+        log.info("Transferring {} from {} to {} (ledger)", amount, fromAccountNumber, toAccountNumber);
+        requirePositive(amount, "Transfer amount must be positive");
+        long minorAmount = MinorUnits.of(amount);
+        boolean transactional = TransactionSynchronizationManager.isSynchronizationActive();
+
+        if (fromAccountNumber.equals(toAccountNumber)) {
+            throw new BankingException("SAME_ACCOUNT_TRANSFER", "Cannot transfer to the same account");
+        }
+
+        LedgerPartition source = partitionFor(fromAccountNumber);
+        LedgerPartition target = partitionFor(toAccountNumber);
+
+        // Validate the destination up front so the common failure case never touches the source
+        await(target.submit(() -> {
+            requireActive(load(target, toAccountNumber), "Destination account is not active: ");
+            return null;
+        }));
+
+        // Debit leg on the source owner, credit leg on the destination owner
+        long fromBalance = await(source.submit(() -> {
+            LedgerPartition.LedgerAccount from = load(source, fromAccountNumber);
+            requireActive(from, "Source account is not active: ");
+            apply(source, from, MinorUnits.negate(minorAmount), transactional);
+            return from.getBalanceMinor();
+        }));
+
+        long toBalance;
+        try {
+            toBalance = await(target.submit(() -> {
+                LedgerPartition.LedgerAccount to = load(target, toAccountNumber);
+                requireActive(to, "Destination account is not active: ");
+                apply(target, to, minorAmount, transactional);
+                return to.getBalanceMinor();
+            }));
+        } catch (RuntimeException e) {
+            // The credit leg failed before touching the balance or was cancelled before it ran, give the money back
+            log.warn("Credit leg failed for transfer {} -> {}, compensating source", fromAccountNumber, toAccountNumber, e);
+            join(source.submit(() -> {
+                if (transactional) {
+                    settle(source, fromAccountNumber, MinorUnits.negate(minorAmount), false);
+                } else {
+                    apply(source, load(source, fromAccountNumber), minorAmount, false);
+                }
+                return null;
+            }));
+            throw e;
+        }
+
+        settleOnCompletion(source, fromAccountNumber, MinorUnits.negate(minorAmount), transactional);
+        settleOnCompletion(target, toAccountNumber, minorAmount, transactional);
+        log.info("Successfully transferred {} from {} to {} (ledger)", amount, fromAccountNumber, toAccountNumber);
+        return List.of(snapshot(fromAccountNumber, MinorUnits.toBigDecimal(fromBalance)),
+                snapshot(toAccountNumber, MinorUnits.toBigDecimal(toBalance)));
+    }
+
+    public Account updateAccountStatus(Long id, AccountStatus status) {
+        Account account = jpaAccountService.findById(id)
+                .orElseThrow(() -> new BankingException("ACCOUNT_NOT_FOUND", "Account not found with ID: " + id));
+        String accountNumber = account.getAccountNumber();
+        LedgerPartition partition = partitionFor(accountNumber);
+
+        // Status-only update so a pending write-back of the balance is never overwritten
+        await(partition.submit(() -> {
+            transactionTemplate.executeWithoutResult(tx -> accountRepository.updateAccountStatus(id, status));
+            LedgerPartition.LedgerAccount owned = partition.get(accountNumber);
+            if (owned != null) {
+                owned.setStatus(status);
+            }
+            return null;
+        }));
+
+        log.info("Successfully updated account status to {} for ID: {} (ledger)", status, id);
+        account.setStatus(status);
+        return overlay(account);
+    }
+
+    public List<Account> findByBalanceRange(BigDecimal minBalance, BigDecimal maxBalance) {
+        return overlay(jpaAccountService.findByBalanceRange(minBalance, maxBalance));
+    }
+
+    public List<Account> findByAccountType(AccountType accountType) {
+        return overlay(jpaAccountService.findByAccountType(accountType));
+    }
+
+    public List<Account> findByStatus(AccountStatus status) {
+        return overlay(jpaAccountService.findByStatus(status));
+    }
+
+    public Page<Account> findActiveAccountsByAccountHolder(Long accountHolderId, Pageable pageable) {
+        return jpaAccountService.findActiveAccountsByAccountHolder(accountHolderId, pageable).map(this::overlay);
+    }
+
+    public BigDecimal getTotalBalanceByBankId(Long bankId) {
+        // Reads the persisted balances, which trail the ledger by at most one flush interval
+        return jpaAccountService.getTotalBalanceByBankId(bankId);
+    }
+
+    public List<Account> findDormantAccounts(LocalDateTime lastTransactionDate) {
+        return overlay(jpaAccountService.findDormantAccounts(lastTransactionDate));
+    }
+
+    public List<Account> findHighValueAccounts(BigDecimal threshold) {
+        return overlay(jpaAccountService.findHighValueAccounts(threshold));
+    }
+
+    public boolean existsByAccountNumber(String accountNumber) {
+        return partitionFor(accountNumber).get(accountNumber) != null
+                || jpaAccountService.existsByAccountNumber(accountNumber);
+    }
+
+    @PreDestroy
+    public void shutdown() throws InterruptedException {
+        log.info("Stopping in-memory ledger, flushing pending balances");
+        flusher.shutdown();
+        if (!flusher.awaitTermination(properties.getCommandTimeoutMs(), TimeUnit.MILLISECONDS)) {
+            log.warn("Scheduled ledger flush still running, the final flush waits for it");
+        }
+        for (LedgerPartition partition : partitions) {
+            partition.shutdown(properties.getCommandTimeoutMs());
+        }
+        for (LedgerPartition partition : partitions) {
+            flush(partition);
+        }
+    }
+
+    // Runs on the owner thread only
+    private LedgerPartition.LedgerAccount load(LedgerPartition partition, String accountNumber) {
+        LedgerPartition.LedgerAccount owned = partition.get(accountNumber);
+        if (owned == null) {
+            Account account = accountRepository.findByAccountNumber(accountNumber)
+                    .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+            owned = new LedgerPartition.LedgerAccount(account.getId(), accountNumber,
+                    MinorUnits.of(account.getBalance()), account.getStatus());
+            partition.put(owned);
+        }
+        return owned;
+    }
+
+    // Runs on the owner thread, inside a caller transaction the change is written back only once it commits
+    private void apply(LedgerPartition partition, LedgerPartition.LedgerAccount account, long delta, boolean transactional) {
+        if (delta < 0 && !MinorUnits.covers(account.getAvailableMinor(), MinorUnits.negate(delta))) {
+            throw new InsufficientFundsException(account.getAccountNumber(),
+                    MinorUnits.toBigDecimal(MinorUnits.negate(delta)), MinorUnits.toBigDecimal(account.getAvailableMinor()));
+        }
+        account.setBalanceMinor(MinorUnits.add(account.getBalanceMinor(), delta));
+        if (!transactional) {
+            partition.recordDelta(account, delta);
+        } else if (delta > 0) {
+            account.setUncommittedCreditMinor(MinorUnits.add(account.getUncommittedCreditMinor(), delta));
+        }
+    }
+
+    // Runs on the owner thread once the transaction a change was applied in has completed
+    private void settle(LedgerPartition partition, String accountNumber, long delta, boolean committed) {
+        LedgerPartition.LedgerAccount account = partition.get(accountNumber);
+        if (delta > 0) {
+            account.setUncommittedCreditMinor(MinorUnits.subtract(account.getUncommittedCreditMinor(), delta));
+        }
+        if (committed) {
+            partition.recordDelta(account, delta);
+        } else {
+            account.setBalanceMinor(MinorUnits.subtract(account.getBalanceMinor(), delta));
+        }
+    }
+
+    private void settleOnCompletion(LedgerPartition partition, String accountNumber, long delta, boolean transactional) {
+        if (!transactional) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_UNKNOWN) {
+                    log.error("Outcome of the transaction that changed account {} by {} is unknown, reverting the ledger change",
+                            accountNumber, MinorUnits.toBigDecimal(delta));
+                }
+                boolean committed = status == STATUS_COMMITTED;
+                partition.submit(() -> {
+                    settle(partition, accountNumber, delta, committed);
+                    return null;
+                }).getResult().whenComplete((ignored, e) -> {
+                    if (e != null) {
+                        log.error("Failed to settle ledger change of {} on account {}", MinorUnits.toBigDecimal(delta),
+                                accountNumber, e);
+                    }
+                });
+            }
+        });
+    }
+
+    private void requireActive(LedgerPartition.LedgerAccount account, String message) {
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", message + account.getAccountNumber());
+        }
+    }
+
+    private void requirePositive(BigDecimal amount, String message) {
+        if (amount.compareTo(BigDecimal.ZERO) <= 0) {
+            throw new BankingException("INVALID_AMOUNT", message);
+        }
+    }
+
+    private LedgerPartition partitionFor(String accountNumber) {
+        return partitions[Math.floorMod(accountNumber.hashCode(), partitions.length)];
+    }
+
+    private <T> T await(LedgerPartition.Command<T> command) {
+        try {
+            return command.getResult().get(properties.getCommandTimeoutMs(), TimeUnit.MILLISECONDS);
+        } catch (ExecutionException e) {
+            throw unwrap(e);
+        } catch (TimeoutException e) {
+            if (command.cancel()) {
+                throw new BankingException("Ledger command timed out", e, "LEDGER_TIMEOUT");
+            }
+            // Already running on the owner thread, its outcome is about to be known
+            return join(command);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (command.cancel()) {
+                throw new BankingException("Interrupted while waiting for ledger", e, "LEDGER_ERROR");
+            }
+            return join(command);
+        }
+    }
+
+    // Waits for a command that must not be abandoned, it has either started already or undoes an applied change
+    private <T> T join(LedgerPartition.Command<T> command) {
+        boolean interrupted = Thread.interrupted();
+        try {
+            while (true) {
+                try {
+                    return command.getResult().get();
+                } catch (ExecutionException e) {
+                    throw unwrap(e);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private RuntimeException unwrap(ExecutionException e) {
+        if (e.getCause() instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        return new BankingException("Ledger command failed", e.getCause(), "LEDGER_ERROR");
+    }
+
+    private Account snapshot(String accountNumber, BigDecimal balance) {
+        Account persisted = jpaAccountService.getAccountByNumber(accountNumber);
+        return copyWithBalance(persisted, balance);
+    }
+
+    private Account overlay(Account account) {
+        LedgerPartition.LedgerAccount owned = partitionFor(account.getAccountNumber()).get(account.getAccountNumber());
+        if (owned == null) {
+            return account;
+        }
+        // Detached copy so the managed entity never picks up the in-memory balance on flush
+        Account copy = copyWithBalance(account, owned.getBalance());
+        copy.setStatus(owned.getStatus());
+        return copy;
+    }
+
+    private List<Account> overlay(List<Account> accounts) {
+        List<Account> result = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            result.add(overlay(account));
+        }
+        return result;
+    }
+
+    private Account copyWithBalance(Account account, BigDecimal balance) {
+        return Account.builder()
+                .id(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .balance(balance)
+                .accountType(account.getAccountType())
+                .status(account.getStatus())
+                .bank(account.getBank())
+                .accountHolder(account.getAccountHolder())
+                .createdAt(account.getCreatedAt())
+                .updatedAt(account.getUpdatedAt())
+                .version(account.getVersion())
+                .build();
+    }
+
+    private void flushSafely() {
+        for (LedgerPartition partition : partitions) {
+            try {
+                flush(partition);
+            } catch (Exception e) {
+                // Entries stay dirty and are retried on the next tick
+                log.error("Failed to flush ledger partition {}", partition.getIndex(), e);
+            }
+        }
+    }
+
+    private void flush(LedgerPartition partition) {
+        synchronized (flushLock) {
+            Map<String, Long> deltas = partition.pendingDeltas();
+            if (deltas.isEmpty()) {
+                return;
+            }
+
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> batch = new ArrayList<>(deltas.size());
+            deltas.forEach((accountNumber, delta) -> batch.add(new Object[]{MinorUnits.toBigDecimal(delta), now, accountNumber}));
+
+            // One transaction, so a failed flush applies none of the deltas and the whole batch is retried
+            transactionTemplate.executeWithoutResult(tx -> jdbcTemplate.batchUpdate(FLUSH_DELTA_SQL, batch));
+            deltas.forEach(partition::markFlushed);
+            log.debug("Flushed {} balance changes from ledger partition {}", deltas.size(), partition.getIndex());
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.valueObject.MinorUnits;
+import lombok.Getter;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * One partition of the in-memory ledger
+ * Every account hashed to this partition is mutated only by the partition's owner thread,
+ * so balance arithmetic needs no locks while other threads can still read published balances
+ */
+class LedgerPartition {
+
+    @Getter
+    private final int index;
+    private final ExecutorService writer;
+
+    // Written only by the owner thread, read by any thread
+    private final ConcurrentHashMap<String, LedgerAccount> accounts = new ConcurrentHashMap<>();
+
+    // Committed balance change per account, in minor units, still waiting to be written back to the database
+    private final ConcurrentHashMap<String, Long> pendingDeltas = new ConcurrentHashMap<>();
+
+    LedgerPartition(int index) {
+        this.index = index;
+        this.writer = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "Ledger-" + index);
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    <T> Command<T> submit(Supplier<T> body) {
+        Command<T> command = new Command<>(body);
+        writer.execute(command::run);
+        return command;
+    }
+
+    LedgerAccount get(String accountNumber) {
+        return accounts.get(accountNumber);
+    }
+
+    void put(LedgerAccount account) {
+        accounts.put(account.getAccountNumber(), account);
+    }
+
+    void recordDelta(LedgerAccount account, long delta) {
+        pendingDeltas.merge(account.getAccountNumber(), delta, MinorUnits::add);
+    }
+
+    Map<String, Long> pendingDeltas() {
+        return Map.copyOf(pendingDeltas);
+    }
+
+    void markFlushed(String accountNumber, long flushedDelta) {
+        // Keeps whatever was recorded while the flush ran
+        pendingDeltas.computeIfPresent(accountNumber, (key, delta) -> {
+            long remaining = MinorUnits.subtract(delta, flushedDelta);
+            return remaining == 0 ? null : remaining;
+        });
+    }
+
+    void shutdown(long timeoutMs) throws InterruptedException {
+        writer.shutdown();
+        writer.awaitTermination(timeoutMs, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * A command queued for the owner thread
+     * The owner thread claims it before running it, so a caller that gave up waiting can cancel it
+     * and know for certain that it never touched a balance.
+     */
+    static class Command<T> {
+        private static final int QUEUED = 0;
+        private static final int CLAIMED = 1;
+        private static final int CANCELLED = 2;
+
+        private final Supplier<T> body;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+        @Getter
+        private final CompletableFuture<T> result = new CompletableFuture<>();
+
+        Command(Supplier<T> body) {
+            this.body = body;
+        }
+
+        private void run() {
+            if (!state.compareAndSet(QUEUED, CLAIMED)) {
+                return;
+            }
+            try {
+                result.complete(body.get());
+            } catch (Throwable e) {
+                result.completeExceptionally(e);
+            }
+        }
+
+        /**
+         * @return true if the command had not been claimed yet and now never will be
+         */
+        boolean cancel() {
+            return state.compareAndSet(QUEUED, CANCELLED);
+        }
+    }
+
+    /**
+     * In-memory state of a ledger-owned account
+     * Fields are volatile so readers outside the owner thread see the latest value.
+     * The balance is kept in minor units so debits and credits on the owner thread allocate nothing.
+     * Credits made inside a database transaction that has not committed yet are part of the balance
+     * but are not available to debits, so money that may still be rolled back is never spent.
+     */
+    @Getter
+    static class LedgerAccount {
+        private final long id;
+        private final String accountNumber;
+        private volatile long balanceMinor;
+        private volatile long uncommittedCreditMinor;
+        private volatile AccountStatus status;
+
+        LedgerAccount(long id, String accountNumber, long balanceMinor, AccountStatus status) {
+            this.id = id;
+            this.accountNumber = accountNumber;
+            this.balanceMinor = balanceMinor;
+            this.status = status;
+        }
+
+        BigDecimal getBalance() {
+            return MinorUnits.toBigDecimal(balanceMinor);
+        }
+
+        long getAvailableMinor() {
+            return MinorUnits.subtract(balanceMinor, uncommittedCreditMinor);
+        }
+
+        void setBalanceMinor(long balanceMinor) {
+            this.balanceMinor = balanceMinor;
+        }
+
+        void setUncommittedCreditMinor(long uncommittedCreditMinor) {
+            this.uncommittedCreditMinor = uncommittedCreditMinor;
+        }
+
+        void setStatus(AccountStatus status) {
+            this.status = status;
+        }
+    }
+}
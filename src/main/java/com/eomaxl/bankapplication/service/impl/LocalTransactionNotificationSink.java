@@ -0,0 +1,49 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.OutboxProperties;
+import com.eomaxl.bankapplication.domain.model.OutboxEvent;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.service.ITransactionNotificationSink;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Delivers outbox events inside this JVM as TransactionNotification application events
+ * Listeners run on the delivery thread, so an exception from a listener fails the batch and it is retried.
+ * Enabled with banking.outbox.sink=local, the default
+ */
+@Component
+@ConditionalOnProperty(name = "banking.outbox.sink", havingValue = OutboxProperties.SINK_LOCAL, matchIfMissing = true)
+@Slf4j
+public class LocalTransactionNotificationSink implements ITransactionNotificationSink {
+
+    private final ApplicationEventPublisher eventPublisher;
+
+    public LocalTransactionNotificationSink(ApplicationEventPublisher eventPublisher) {
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Override
+    public void deliver(List<OutboxEvent> events) {
+        for (OutboxEvent event : events) {
+            eventPublisher.publishEvent(new TransactionNotification(event.getTransactionId(),
+                    event.getAccountNumber(), event.getTransactionType(), event.getAmount(),
+                    event.getBalanceAfter(), event.getTransactionDate()));
+        }
+        log.debug("Published {} transaction notifications locally", events.size());
+    }
+
+    /**
+     * Immutable view of an outbox event handed to in-process listeners
+     */
+    public record TransactionNotification(String transactionId, String accountNumber,
+                                          TransactionType transactionType, BigDecimal amount,
+                                          BigDecimal balanceAfter, LocalDateTime transactionDate) {
+    }
+}
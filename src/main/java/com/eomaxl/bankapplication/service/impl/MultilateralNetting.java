@@ -0,0 +1,44 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.valueObject.MinorUnits;
+
+import java.math.BigDecimal;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Reduces a set of transfers to one net position per account
+ * A position is what the account receives minus what it sends across the whole set, so a sweep of
+ * thousands of legs between a handful of accounts settles with one balance change per account.
+ * Positions are ordered by account number, the same order accounts are locked in, and summed in minor units.
+ */
+final class MultilateralNetting {
+
+    private MultilateralNetting() {
+    }
+
+    static Map<String, Long> netPositions(List<BatchTransferService.TransferItem> items) {
+        Map<String, Long> positions = new TreeMap<>();
+        for (BatchTransferService.TransferItem item : items) {
+            long amount = MinorUnits.of(item.amount());
+            positions.merge(item.fromAccountNumber(), MinorUnits.negate(amount), MinorUnits::add);
+            positions.merge(item.toAccountNumber(), amount, MinorUnits::add);
+        }
+        return Collections.unmodifiableMap(positions);
+    }
+
+    /**
+     * Sum of the positive positions, the amount that actually changes hands after netting
+     */
+    static BigDecimal settlementVolume(Map<String, Long> positions) {
+        long volume = MinorUnits.ZERO;
+        for (long position : positions.values()) {
+            if (MinorUnits.isPositive(position)) {
+                volume = MinorUnits.add(volume, position);
+            }
+        }
+        return MinorUnits.toBigDecimal(volume);
+    }
+}
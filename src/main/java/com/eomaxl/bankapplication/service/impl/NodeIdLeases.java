@@ -0,0 +1,100 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.model.NodeIdLease;
+import com.eomaxl.bankapplication.repository.NodeIdLeaseRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Leases node IDs from the node_id_leases table
+ * Acquisition locks the existing leases, so two instances never take the same free or expired ID;
+ * an instance inserting a never-used ID concurrently with another loses on the primary key and tries again.
+ */
+@Component
+@Slf4j
+public class NodeIdLeases {
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final NodeIdLeaseRepository repository;
+    private final TransactionTemplate requiresNew;
+    private final String owner;
+
+    public NodeIdLeases(NodeIdLeaseRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.owner = ProcessHandle.current().pid() + "-" + UUID.randomUUID();
+    }
+
+    /**
+     * Takes a free or expired node ID in [0, maxNodeId]
+     * @throws IllegalStateException if every ID is held by a live lease
+     */
+    public int acquire(int maxNodeId, Duration ttl) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                Integer nodeId = requiresNew.execute(status -> tryAcquire(maxNodeId, ttl));
+                if (nodeId == null) {
+                    throw new IllegalStateException("All " + (maxNodeId + 1) + " node IDs are leased by live instances");
+                }
+                log.info("Leased node ID {} as {} for {}", nodeId, owner, ttl);
+                return nodeId;
+            } catch (DataIntegrityViolationException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    throw e;
+                }
+                log.debug("Node ID taken concurrently, retrying lease (attempt {})", attempt);
+            }
+        }
+    }
+
+    /**
+     * @return false if the lease expired and was taken over, the ID must no longer be used
+     */
+    public boolean renew(int nodeId, Duration ttl) {
+        Integer renewed = requiresNew.execute(status ->
+                repository.renew(nodeId, owner, LocalDateTime.now().plus(ttl)));
+        return renewed != null && renewed > 0;
+    }
+
+    public void release(int nodeId) {
+        requiresNew.executeWithoutResult(status -> repository.release(nodeId, owner));
+    }
+
+    private Integer tryAcquire(int maxNodeId, Duration ttl) {
+        LocalDateTime now = LocalDateTime.now();
+        Map<Integer, NodeIdLease> leases = new HashMap<>();
+        for (NodeIdLease lease : repository.findAllWithLock()) {
+            leases.put(lease.getNodeId(), lease);
+        }
+
+        // Random starting point so instances starting together rarely race for the same unused ID
+        int start = ThreadLocalRandom.current().nextInt(maxNodeId + 1);
+        for (int i = 0; i <= maxNodeId; i++) {
+            int nodeId = (start + i) % (maxNodeId + 1);
+            NodeIdLease lease = leases.get(nodeId);
+            if (lease == null) {
+                repository.insert(nodeId, owner, now.plus(ttl));
+                return nodeId;
+            }
+            if (lease.getExpiresAt().isBefore(now)) {
+                lease.setOwner(owner);
+                lease.setExpiresAt(now.plus(ttl));
+                return nodeId;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,135 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.BalanceUpdateMode;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Balance updates without row locks, using the account version column
+ * The new balance is written with a version-guarded UPDATE; when a concurrent writer committed first
+ * no row matches and ConcurrentUpdateException is raised. The retry happens at the outermost transaction
+ * boundary (see ConcurrencyRetry), so each attempt starts a fresh READ_COMMITTED transaction that sees
+ * the latest committed version.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OptimisticBalanceUpdater implements BalanceUpdater {
+
+    private final AccountRepository accountRepository;
+    private final BalanceCache balanceCache;
+
+    @Override
+    public BalanceUpdateMode mode() {
+        return BalanceUpdateMode.OPTIMISTIC;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public Account credit(String accountNumber, BigDecimal amount) {
+        Account account = apply(accountNumber, view -> {
+            requireActive(view, "Account is not active: ");
+            return view.balance().add(amount);
+        });
+
+        log.info("Successfully credited {} to account {}. Balance: {}", amount, accountNumber, account.getBalance());
+        return account;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public Account debit(String accountNumber, BigDecimal amount) {
+        Account account = apply(accountNumber, view -> {
+            requireActive(view, "Account is not active: ");
+            requireFunds(view, amount);
+            return view.balance().subtract(amount);
+        });
+
+        log.info("Successfully debited {} from account {}. Balance: {}", amount, accountNumber, account.getBalance());
+        return account;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
+        Function<AccountBalanceView, BigDecimal> debitLeg = view -> {
+            requireActive(view, "Source account is not active: ");
+            requireFunds(view, amount);
+            return view.balance().subtract(amount);
+        };
+        Function<AccountBalanceView, BigDecimal> creditLeg = view -> {
+            requireActive(view, "Destination account is not active: ");
+            return view.balance().add(amount);
+        };
+
+        // A successful guarded update holds the row until commit, so apply legs in a consistent order
+        Account fromAccount;
+        Account toAccount;
+        if (fromAccountNumber.compareTo(toAccountNumber) < 0) {
+            fromAccount = apply(fromAccountNumber, debitLeg);
+            toAccount = apply(toAccountNumber, creditLeg);
+        } else {
+            toAccount = apply(toAccountNumber, creditLeg);
+            fromAccount = apply(fromAccountNumber, debitLeg);
+        }
+
+        log.info("Successfully transferred {} from {} (Balance: {}) to {} (Balance: {})",
+                amount, fromAccountNumber, fromAccount.getBalance(), toAccountNumber, toAccount.getBalance());
+        return List.of(fromAccount, toAccount);
+    }
+
+    private Account apply(String accountNumber, Function<AccountBalanceView, BigDecimal> change) {
+        AccountBalanceView view = accountRepository.findBalanceView(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+
+        BigDecimal newBalance = change.apply(view);
+        int updated = accountRepository.updateBalanceIfVersionMatches(
+                view.id(), newBalance, view.version(), LocalDateTime.now());
+        if (updated != 1) {
+            log.debug("Version conflict on account {} at version {}", accountNumber, view.version());
+            throw new ConcurrentUpdateException(accountNumber);
+        }
+
+        Account account = reload(view.id(), view.version() + 1);
+        balanceCache.afterCommit(account);
+        return account;
+    }
+
+    private Account reload(long accountId, long expectedVersion) {
+        Account account = accountRepository.findById(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+        // The persistence context may still hold the pre-update state of this row
+        if (account.getVersion() != expectedVersion) {
+            accountRepository.refresh(account);
+        }
+        return account;
+    }
+
+    private void requireActive(AccountBalanceView view, String message) {
+        if (view.status() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", message + view.accountNumber());
+        }
+    }
+
+    private void requireFunds(AccountBalanceView view, BigDecimal amount) {
+        if (view.balance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException(view.accountNumber(), amount, view.balance());
+        }
+    }
+}
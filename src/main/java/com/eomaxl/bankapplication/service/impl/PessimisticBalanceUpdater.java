@@ -0,0 +1,127 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.BalanceUpdateMode;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Balance updates under PESSIMISTIC_WRITE row locks in a SERIALIZABLE transaction
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class PessimisticBalanceUpdater implements BalanceUpdater {
+
+    private final AccountRepository accountRepository;
+    private final BalanceCache balanceCache;
+
+    @Override
+    public BalanceUpdateMode mode() {
+        return BalanceUpdateMode.PESSIMISTIC;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE, timeout = 30)
+    public Account credit(String accountNumber, BigDecimal amount) {
+        // Pessimistic locking ensures consistency under high concurrency
+        Account account = accountRepository.findByAccountNumberWithLock(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", "Account is not active: " + accountNumber);
+        }
+
+        BigDecimal oldBalance = account.getBalance();
+        account.credit(amount);
+
+        // Force immediate flush to ensure consistency
+        Account savedAccount = accountRepository.saveAndFlush(account);
+        balanceCache.afterCommit(savedAccount);
+        log.info("Successfully credited {} to account {}. Balance: {} -> {}",
+                amount, accountNumber, oldBalance, savedAccount.getBalance());
+
+        return savedAccount;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public Account debit(String accountNumber, BigDecimal amount) {
+        Account account = accountRepository.findByAccountNumberWithLock(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+
+        if (account.getStatus() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", "Account is not active: " + accountNumber);
+        }
+
+        if (account.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException(accountNumber, amount, account.getBalance());
+        }
+
+        BigDecimal oldBalance = account.getBalance();
+        account.debit(amount);
+
+        Account savedAccount = accountRepository.save(account);
+        balanceCache.afterCommit(savedAccount);
+        log.info("Successfully debited {} from account {}. Balance: {} -> {}",
+                amount, accountNumber, oldBalance, savedAccount.getBalance());
+
+        return savedAccount;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE)
+    public List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
+        // Lock both accounts in a consistent order to prevent deadlocks
+        String firstLock = fromAccountNumber.compareTo(toAccountNumber) < 0 ? fromAccountNumber : toAccountNumber;
+        String secondLock = fromAccountNumber.compareTo(toAccountNumber) < 0 ? toAccountNumber : fromAccountNumber;
+
+        Account firstAccount = accountRepository.findByAccountNumberWithLock(firstLock)
+                .orElseThrow(() -> new AccountNotFoundException(firstLock));
+        Account secondAccount = accountRepository.findByAccountNumberWithLock(secondLock)
+                .orElseThrow(() -> new AccountNotFoundException(secondLock));
+
+        Account fromAccount = fromAccountNumber.equals(firstLock) ? firstAccount : secondAccount;
+        Account toAccount = toAccountNumber.equals(firstLock) ? firstAccount : secondAccount;
+
+        // Validate accounts are active
+        if (fromAccount.getStatus() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", "Source account is not active: " + fromAccountNumber);
+        }
+
+        if (toAccount.getStatus() != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", "Destination account is not active: " + toAccountNumber);
+        }
+
+        // Check sufficient funds
+        if (fromAccount.getBalance().compareTo(amount) < 0) {
+            throw new InsufficientFundsException(fromAccountNumber, amount, fromAccount.getBalance());
+        }
+
+        // Perform transfer
+        BigDecimal fromOldBalance = fromAccount.getBalance();
+        BigDecimal toOldBalance = toAccount.getBalance();
+
+        fromAccount.debit(amount);
+        toAccount.credit(amount);
+
+        balanceCache.afterCommit(accountRepository.save(fromAccount));
+        balanceCache.afterCommit(accountRepository.save(toAccount));
+
+        log.info("Successfully transferred {} from {} (Balance: {} -> {}) to {} (Balance: {} -> {})",
+                amount, fromAccountNumber, fromOldBalance, fromAccount.getBalance(),
+                toAccountNumber, toOldBalance, toAccount.getBalance());
+        return List.of(fromAccount, toAccount);
+    }
+}
@@ -0,0 +1,158 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Polls a work table for due row IDs and hands them to an executor
+ * A single thread reads the due IDs and passes them to the handler batchSize at a time. It holds a
+ * permit per batch, so at most maxInFlight batches run at once and a slow handler stops the polling
+ * instead of queueing work in memory. IDs still in flight on this node are skipped when a later poll
+ * sees them again; handlers must lock their rows, since other nodes poll the same table. Between empty
+ * polls the thread runs onIdle and waits pollIntervalMs, or until wakeUp is called.
+ */
+@Slf4j
+class PollingDispatcher {
+
+    // Length of the error columns failures are recorded in
+    static final int MAX_ERROR_LENGTH = 1000;
+
+    private final String name;
+    private final Executor executor;
+    private final int batchSize;
+    private final long pollIntervalMs;
+    private final Supplier<List<Long>> dueIds;
+    private final Consumer<List<Long>> handler;
+    private final Runnable onIdle;
+
+    private final Semaphore permits;
+    private final Set<Long> inFlight = ConcurrentHashMap.newKeySet();
+    private final Semaphore wakeUp = new Semaphore(0);
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    PollingDispatcher(String name, Executor executor, int maxInFlight, int batchSize, long pollIntervalMs,
+                      Supplier<List<Long>> dueIds, Consumer<List<Long>> handler, Runnable onIdle) {
+        this.name = name;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.pollIntervalMs = pollIntervalMs;
+        this.dueIds = dueIds;
+        this.handler = handler;
+        this.onIdle = onIdle;
+        this.permits = new Semaphore(Math.max(1, maxInFlight));
+
+        this.thread = new Thread(this::pollLoop, name);
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        if (running && !thread.isAlive()) {
+            thread.start();
+        }
+    }
+
+    /**
+     * Stops polling; batches already handed to the executor run to completion
+     */
+    void stop() {
+        running = false;
+        thread.interrupt();
+    }
+
+    /**
+     * Signals that new rows were committed, so they are picked up without waiting for the next poll
+     */
+    void wakeUp() {
+        wakeUp.release();
+    }
+
+    private void pollLoop() {
+        while (running) {
+            try {
+                int dispatched = dispatchDue();
+                if (dispatched == 0) {
+                    onIdle.run();
+                    wakeUp.tryAcquire(pollIntervalMs, TimeUnit.MILLISECONDS);
+                    wakeUp.drainPermits();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                log.error("{} failed to poll for due work", name, e);
+                sleepQuietly(pollIntervalMs);
+            }
+        }
+    }
+
+    /**
+     * Hands due IDs not already in flight on this node to the handler
+     * @return number of IDs dispatched
+     */
+    int dispatchDue() throws InterruptedException {
+        int dispatched = 0;
+        List<Long> batch = new ArrayList<>(batchSize);
+        for (Long id : dueIds.get()) {
+            if (!running) {
+                return dispatched;
+            }
+            if (inFlight.contains(id)) {
+                continue;
+            }
+            batch.add(id);
+            if (batch.size() == batchSize) {
+                dispatched += submit(batch);
+                batch = new ArrayList<>(batchSize);
+            }
+        }
+        if (!batch.isEmpty()) {
+            dispatched += submit(batch);
+        }
+        return dispatched;
+    }
+
+    private int submit(List<Long> batch) throws InterruptedException {
+        permits.acquire();
+        inFlight.addAll(batch);
+        try {
+            executor.execute(() -> {
+                try {
+                    handler.accept(batch);
+                } finally {
+                    batch.forEach(inFlight::remove);
+                    permits.release();
+                }
+            });
+        } catch (RuntimeException e) {
+            batch.forEach(inFlight::remove);
+            permits.release();
+            throw e;
+        }
+        return batch.size();
+    }
+
+    static String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
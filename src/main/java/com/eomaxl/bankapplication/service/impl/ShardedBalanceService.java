@@ -0,0 +1,383 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.config.ShardingProperties;
+import com.eomaxl.bankapplication.domain.exception.AccountNotFoundException;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountBalanceShard;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.repository.AccountBalanceShardRepository;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Sub-balance sharding for hot accounts
+ * The balance of a sharded account is its accounts row plus all of its shard rows. Credits go to a random
+ * shard without touching the accounts row, debits lock the accounts row and only sweep the shards into it
+ * when it cannot cover the amount on its own. Reads through AccountServiceImpl see the aggregated total,
+ * so callers never know an account is sharded. SQL filters and sums over accounts.balance that are not
+ * routed through here see the accounts row only.
+ * Shards are never folded away on startup: during a rolling deploy other nodes may still list the account as hot,
+ * so an account that still has shard rows stays sharded until an operator folds it with foldShards.
+ */
+@Service
+@Slf4j
+public class ShardedBalanceService {
+
+    private final AccountRepository accountRepository;
+    private final AccountBalanceShardRepository shardRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ShardingProperties properties;
+    private final LedgerProperties ledgerProperties;
+    private final BalanceCache balanceCache;
+
+    // Populated once shard rows are provisioned, until then every account behaves as unsharded
+    private final Map<String, HotAccount> hotAccounts = new ConcurrentHashMap<>();
+
+    public ShardedBalanceService(AccountRepository accountRepository,
+                                 AccountBalanceShardRepository shardRepository,
+                                 PlatformTransactionManager transactionManager,
+                                 ShardingProperties properties,
+                                 LedgerProperties ledgerProperties,
+                                 BalanceCache balanceCache) {
+        this.accountRepository = accountRepository;
+        this.shardRepository = shardRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = properties;
+        this.ledgerProperties = ledgerProperties;
+        this.balanceCache = balanceCache;
+    }
+
+    public boolean isSharded(String accountNumber) {
+        return !hotAccounts.isEmpty() && hotAccounts.containsKey(accountNumber);
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public Account credit(String accountNumber, BigDecimal amount) {
+        AccountBalanceView view = accountRepository.findBalanceView(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        requireActive(view.status(), "Account is not active: ", accountNumber);
+
+        creditShard(view.id(), accountNumber, amount);
+        // The total of a sharded account is not versioned, so its cached entries are dropped rather than replaced
+        balanceCache.evictAfterCommit(accountNumber);
+
+        Account account = withTotal(accountRepository.findById(view.id())
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber)));
+        log.info("Successfully credited {} to sharded account {}. Balance: {}", amount, accountNumber, account.getBalance());
+        return account;
+    }
+
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public Account debit(String accountNumber, BigDecimal amount) {
+        Account account = accountRepository.findByAccountNumberWithLock(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+        requireActive(account.getStatus(), "Account is not active: ", accountNumber);
+
+        debitLocked(account, amount);
+        balanceCache.evictAfterCommit(accountNumber);
+
+        Account result = withTotal(account);
+        log.info("Successfully debited {} from sharded account {}. Balance: {}", amount, accountNumber, result.getBalance());
+        return result;
+    }
+
+    /**
+     * Transfer where at least one side is sharded
+     * Accounts rows that need locking are locked in account number order before any shard row is touched
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public List<Account> transfer(String fromAccountNumber, String toAccountNumber, BigDecimal amount) {
+        boolean creditToShard = isSharded(toAccountNumber);
+
+        Account fromAccount;
+        Account toAccount = null;
+        if (creditToShard) {
+            fromAccount = lock(fromAccountNumber);
+        } else if (fromAccountNumber.compareTo(toAccountNumber) < 0) {
+            fromAccount = lock(fromAccountNumber);
+            toAccount = lock(toAccountNumber);
+        } else {
+            toAccount = lock(toAccountNumber);
+            fromAccount = lock(fromAccountNumber);
+        }
+
+        requireActive(fromAccount.getStatus(), "Source account is not active: ", fromAccountNumber);
+        long toAccountId;
+        if (creditToShard) {
+            AccountBalanceView toView = accountRepository.findBalanceView(toAccountNumber)
+                    .orElseThrow(() -> new AccountNotFoundException(toAccountNumber));
+            requireActive(toView.status(), "Destination account is not active: ", toAccountNumber);
+            toAccountId = toView.id();
+        } else {
+            requireActive(toAccount.getStatus(), "Destination account is not active: ", toAccountNumber);
+            toAccountId = toAccount.getId();
+        }
+
+        if (isSharded(fromAccountNumber)) {
+            debitLocked(fromAccount, amount);
+            balanceCache.evictAfterCommit(fromAccountNumber);
+        } else {
+            if (fromAccount.getBalance().compareTo(amount) < 0) {
+                throw new InsufficientFundsException(fromAccountNumber, amount, fromAccount.getBalance());
+            }
+            fromAccount.debit(amount);
+            balanceCache.afterCommit(accountRepository.save(fromAccount));
+        }
+
+        if (creditToShard) {
+            creditShard(toAccountId, toAccountNumber, amount);
+            balanceCache.evictAfterCommit(toAccountNumber);
+            toAccount = accountRepository.findById(toAccountId)
+                    .orElseThrow(() -> new AccountNotFoundException(toAccountNumber));
+        } else {
+            toAccount.credit(amount);
+            balanceCache.afterCommit(accountRepository.save(toAccount));
+        }
+
+        log.info("Successfully transferred {} from {} to {} across sharded balances", amount, fromAccountNumber, toAccountNumber);
+        return List.of(withTotal(fromAccount), withTotal(toAccount));
+    }
+
+    /**
+     * Returns a detached copy carrying the aggregated balance, or the account itself when it is not sharded
+     */
+    public Account withTotal(Account account) {
+        if (account == null || !isSharded(account.getAccountNumber())) {
+            return account;
+        }
+        return copyWithBalance(account, account.getBalance().add(shardRepository.sumByAccountId(account.getId())));
+    }
+
+    public List<Account> withTotals(List<Account> accounts) {
+        if (hotAccounts.isEmpty()) {
+            return accounts;
+        }
+
+        List<Long> shardedIds = new ArrayList<>();
+        for (Account account : accounts) {
+            if (isSharded(account.getAccountNumber())) {
+                shardedIds.add(account.getId());
+            }
+        }
+        if (shardedIds.isEmpty()) {
+            return accounts;
+        }
+
+        Map<Long, BigDecimal> shardTotals = new HashMap<>();
+        for (Object[] row : shardRepository.sumByAccountIds(shardedIds)) {
+            shardTotals.put((Long) row[0], (BigDecimal) row[1]);
+        }
+
+        List<Account> result = new ArrayList<>(accounts.size());
+        for (Account account : accounts) {
+            BigDecimal shardTotal = shardTotals.get(account.getId());
+            result.add(shardTotal == null ? account : copyWithBalance(account, account.getBalance().add(shardTotal)));
+        }
+        return result;
+    }
+
+    public BigDecimal shardTotalForBank(Long bankId) {
+        return hotAccounts.isEmpty() ? BigDecimal.ZERO : shardRepository.sumByBankId(bankId);
+    }
+
+    /**
+     * Creates missing shard rows for configured hot accounts. Accounts that still have shard rows but are no
+     * longer configured keep being treated as sharded, so this node agrees with nodes still running the old
+     * configuration; they are folded back only by an explicit foldShards call.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void provisionShards() {
+        Map<String, Integer> configured = properties.getHotAccounts();
+        boolean ledgerOwnsBalances = LedgerProperties.ENGINE_IN_MEMORY.equals(ledgerProperties.getEngine());
+        if (ledgerOwnsBalances && !configured.isEmpty()) {
+            log.warn("Hot account sharding disabled because the in-memory ledger engine is active");
+        }
+
+        Set<Long> keep = new HashSet<>();
+        if (!ledgerOwnsBalances) {
+            configured.forEach((accountNumber, shards) -> {
+                HotAccount hotAccount = transactionTemplate.execute(status -> provision(accountNumber, shards));
+                if (hotAccount != null) {
+                    keep.add(hotAccount.accountId());
+                    hotAccounts.put(accountNumber, hotAccount);
+                }
+            });
+        }
+
+        for (Long accountId : shardRepository.findShardedAccountIds()) {
+            if (keep.contains(accountId)) {
+                continue;
+            }
+            String accountNumber = accountRepository.findById(accountId).map(Account::getAccountNumber).orElse(null);
+            if (accountNumber == null) {
+                continue;
+            }
+            if (ledgerOwnsBalances) {
+                log.error("Account {} still has shard rows the in-memory ledger does not see, fold them with foldShards",
+                        accountNumber);
+                continue;
+            }
+            int shards = shardRepository.findShardNumbers(accountId).stream().mapToInt(Integer::intValue).max().orElse(0) + 1;
+            hotAccounts.put(accountNumber, new HotAccount(accountId, shards));
+            log.warn("Account {} is not configured as hot but still has {} shards, it stays sharded until folded",
+                    accountNumber, shards);
+        }
+
+        if (!hotAccounts.isEmpty()) {
+            log.info("Sharded balances enabled for {} hot accounts", hotAccounts.size());
+        }
+    }
+
+    /**
+     * Folds every shard of an account back into its accounts row and stops sharding it on this node.
+     * Run it once no node configures the account as hot any more; nodes that still treat it as sharded
+     * find their shard rows gone and credit the accounts row instead. Returns the folded balance.
+     */
+    @Transactional(isolation = Isolation.READ_COMMITTED, timeout = 30)
+    public BigDecimal foldShards(String accountNumber) {
+        if (properties.getHotAccounts().containsKey(accountNumber)) {
+            throw new BankingException("ACCOUNT_SHARDING_CONFIGURED", "Account is still configured as hot: " + accountNumber);
+        }
+        Account account = lock(accountNumber);
+        fold(account.getId(), 0);
+        hotAccounts.remove(accountNumber);
+        balanceCache.evictAfterCommit(accountNumber);
+        return account.getBalance();
+    }
+
+    private HotAccount provision(String accountNumber, int shards) {
+        if (shards < 1) {
+            log.warn("Ignoring hot account {} configured with {} shards", accountNumber, shards);
+            return null;
+        }
+        AccountBalanceView view = accountRepository.findBalanceView(accountNumber).orElse(null);
+        if (view == null) {
+            log.warn("Configured hot account {} does not exist, it will not be sharded", accountNumber);
+            return null;
+        }
+
+        Account reference = accountRepository.getReferenceById(view.id());
+        Set<Integer> existing = new HashSet<>(shardRepository.findShardNumbers(view.id()));
+        for (int shardNo = 0; shardNo < shards; shardNo++) {
+            if (!existing.contains(shardNo)) {
+                shardRepository.save(AccountBalanceShard.builder()
+                        .account(reference)
+                        .shardNo(shardNo)
+                        .balance(BigDecimal.ZERO)
+                        .updatedAt(LocalDateTime.now())
+                        .build());
+            }
+        }
+        // Shard count was lowered, move the balance of the dropped shards back to the account row
+        if (existing.stream().anyMatch(shardNo -> shardNo >= shards)) {
+            fold(view.id(), shards);
+        }
+        return new HotAccount(view.id(), shards);
+    }
+
+    private void fold(long accountId, int fromShardNo) {
+        Account account = accountRepository.findByIdWithLock(accountId)
+                .orElseThrow(() -> new AccountNotFoundException(accountId));
+
+        BigDecimal folded = BigDecimal.ZERO;
+        for (AccountBalanceShard shard : shardRepository.findByAccountIdWithLock(accountId)) {
+            if (shard.getShardNo() >= fromShardNo) {
+                folded = folded.add(shard.getBalance());
+                shardRepository.delete(shard);
+            }
+        }
+
+        if (folded.signum() > 0) {
+            account.credit(folded);
+            accountRepository.save(account);
+        }
+        log.info("Folded {} from shards >= {} back into account {}", folded, fromShardNo, account.getAccountNumber());
+    }
+
+    private void creditShard(long accountId, String accountNumber, BigDecimal amount) {
+        HotAccount hotAccount = hotAccounts.get(accountNumber);
+        int shardNo = ThreadLocalRandom.current().nextInt(hotAccount.shards());
+        if (shardRepository.credit(accountId, shardNo, amount, LocalDateTime.now()) == 0) {
+            // Shard rows were folded away by another node, the account row is always a valid target
+            log.debug("Shard {} of account {} is missing, crediting the account row", shardNo, accountNumber);
+            Account account = lock(accountNumber);
+            account.credit(amount);
+            accountRepository.save(account);
+        }
+    }
+
+    // The accounts row must already be locked by the caller
+    private void debitLocked(Account account, BigDecimal amount) {
+        if (account.getBalance().compareTo(amount) < 0) {
+            // Rebalance: sweep every shard into the account row, credits wait only for this sweep
+            BigDecimal swept = BigDecimal.ZERO;
+            for (AccountBalanceShard shard : shardRepository.findByAccountIdWithLock(account.getId())) {
+                swept = swept.add(shard.getBalance());
+                shard.setBalance(BigDecimal.ZERO);
+                shard.setUpdatedAt(LocalDateTime.now());
+            }
+
+            BigDecimal total = account.getBalance().add(swept);
+            if (total.compareTo(amount) < 0) {
+                throw new InsufficientFundsException(account.getAccountNumber(), amount, total);
+            }
+            account.credit(swept);
+            log.debug("Swept {} from shards into account {}", swept, account.getAccountNumber());
+        }
+
+        account.debit(amount);
+        accountRepository.save(account);
+    }
+
+    private Account lock(String accountNumber) {
+        return accountRepository.findByAccountNumberWithLock(accountNumber)
+                .orElseThrow(() -> new AccountNotFoundException(accountNumber));
+    }
+
+    private void requireActive(AccountStatus status, String message, String accountNumber) {
+        if (status != AccountStatus.ACTIVE) {
+            throw new BankingException("ACCOUNT_NOT_ACTIVE", message + accountNumber);
+        }
+    }
+
+    private Account copyWithBalance(Account account, BigDecimal balance) {
+        // Detached copy so the managed entity never writes the aggregated balance to the accounts row
+        return Account.builder()
+                .id(account.getId())
+                .accountNumber(account.getAccountNumber())
+                .balance(balance)
+                .accountType(account.getAccountType())
+                .status(account.getStatus())
+                .bank(account.getBank())
+                .accountHolder(account.getAccountHolder())
+                .createdAt(account.getCreatedAt())
+                .updatedAt(account.getUpdatedAt())
+                .version(account.getVersion())
+                .build();
+    }
+
+    private record HotAccount(long accountId, int shards) {
+    }
+}
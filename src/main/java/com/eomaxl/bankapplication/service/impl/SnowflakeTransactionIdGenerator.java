@@ -0,0 +1,141 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.IdGenerationProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Time-ordered transaction IDs in the Snowflake layout
+ * A 64-bit value of 41 bits milliseconds since 2024-01-01, 10 bits node ID and 12 bits sequence,
+ * rendered as "TXN" followed by 13 zero-padded base-36 digits so string order matches time order and
+ * new rows land at the right edge of the transaction_id index. IDs are unique per node without any
+ * lookup and strictly increasing even if the clock steps back: the generator keeps counting from the
+ * last timestamp it issued, borrowing milliseconds ahead when a single millisecond's sequence runs out.
+ * The node ID is banking.ids.node-id when set, otherwise it is leased from node_id_leases and renewed in the
+ * background. IDs are only issued while the lease is known to be held: if renewals keep failing the generator
+ * stops before the lease can expire and be taken over, and a lease found taken over is replaced by a new one.
+ */
+@Component
+@Slf4j
+public class SnowflakeTransactionIdGenerator implements TransactionIdGenerator {
+
+    static final String PREFIX = "TXN";
+
+    private static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+    private static final int ENCODED_LENGTH = 13;
+
+    private final NodeIdLeases leases;
+    private final Duration leaseTtl;
+    private final ScheduledExecutorService renewer;
+
+    private volatile long nodeId;
+
+    // Wall-clock millis after which the leased node ID may belong to another instance
+    private volatile long leaseValidUntil = Long.MAX_VALUE;
+
+    // Last issued (millis since epoch << SEQUENCE_BITS | sequence), so one increment carries into the timestamp
+    private final AtomicLong lastIssued = new AtomicLong();
+
+    public SnowflakeTransactionIdGenerator(IdGenerationProperties properties, NodeIdLeases leases) {
+        this.leases = leases;
+        this.leaseTtl = properties.getNodeIdLeaseTtl();
+        Integer configured = properties.getNodeId();
+        if (configured != null) {
+            if (configured < 0 || configured > MAX_NODE_ID) {
+                throw new IllegalStateException("banking.ids.node-id must be between 0 and " + MAX_NODE_ID);
+            }
+            this.nodeId = configured;
+            this.renewer = null;
+            log.info("Transaction IDs generated with configured node ID {}", nodeId);
+            return;
+        }
+
+        long leasedAt = System.currentTimeMillis();
+        this.nodeId = leases.acquire((int) MAX_NODE_ID, leaseTtl);
+        this.leaseValidUntil = validUntil(leasedAt);
+        this.renewer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "NodeIdLease");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long renewMs = Math.max(1, leaseTtl.toMillis() / 3);
+        this.renewer.scheduleWithFixedDelay(this::renewLease, renewMs, renewMs, TimeUnit.MILLISECONDS);
+        log.info("Transaction IDs generated with leased node ID {}", nodeId);
+    }
+
+    @Override
+    public String nextId() {
+        return format(nextValue());
+    }
+
+    long nextValue() {
+        long currentMillis = System.currentTimeMillis();
+        if (currentMillis >= leaseValidUntil) {
+            throw new BankingException("ID_NODE_LEASE_EXPIRED",
+                    "Node ID lease could not be renewed, transaction IDs are unavailable");
+        }
+        long now = (currentMillis - EPOCH_MILLIS) << SEQUENCE_BITS;
+        long issued = lastIssued.updateAndGet(last -> Math.max(now, last + 1));
+
+        long timestamp = issued >>> SEQUENCE_BITS;
+        long sequence = issued & SEQUENCE_MASK;
+        return (timestamp << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | sequence;
+    }
+
+    static String format(long value) {
+        String digits = Long.toString(value, 36).toUpperCase();
+        StringBuilder id = new StringBuilder(PREFIX.length() + ENCODED_LENGTH).append(PREFIX);
+        for (int i = digits.length(); i < ENCODED_LENGTH; i++) {
+            id.append('0');
+        }
+        return id.append(digits).toString();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (renewer == null) {
+            return;
+        }
+        renewer.shutdownNow();
+        try {
+            leases.release((int) nodeId);
+        } catch (RuntimeException e) {
+            log.warn("Failed to release node ID {}, it becomes free once its lease expires", nodeId, e);
+        }
+    }
+
+    void renewLease() {
+        long renewedAt = System.currentTimeMillis();
+        try {
+            if (leases.renew((int) nodeId, leaseTtl)) {
+                leaseValidUntil = validUntil(renewedAt);
+                return;
+            }
+            // Expired and taken over while renewals failed, IDs already stopped so a new lease is safe
+            long previous = nodeId;
+            nodeId = leases.acquire((int) MAX_NODE_ID, leaseTtl);
+            leaseValidUntil = validUntil(renewedAt);
+            log.warn("Node ID {} lease was lost, continuing with node ID {}", previous, nodeId);
+        } catch (RuntimeException e) {
+            log.error("Failed to renew node ID {} lease, IDs stop at {}", nodeId, Instant.ofEpochMilli(leaseValidUntil), e);
+        }
+    }
+
+    private long validUntil(long leasedAt) {
+        // A third of the TTL is kept in reserve for clock differences between instances
+        return leasedAt + leaseTtl.toMillis() - leaseTtl.toMillis() / 3;
+    }
+}
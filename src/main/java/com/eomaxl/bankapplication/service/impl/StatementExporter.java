@@ -0,0 +1,356 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.ExportProperties;
+import com.eomaxl.bankapplication.domain.exception.ExportCapacityException;
+import com.eomaxl.bankapplication.domain.model.StatementFormat;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Writes an account's transactions to a stream as CSV or NDJSON, however many there are
+ * Rows come from a forward-only JDBC cursor read fetchSize at a time inside a read-only transaction, which
+ * Postgres needs to stream rather than buffer the whole result. Each row is written to a fixed-size buffer
+ * as soon as it is read and no entities are created, so memory stays flat from the first row to the last.
+ *
+ * Each export holds a connection for its whole run, so callers reserve one of maxConcurrent slots first and
+ * are turned away when none is free. A reserved slot can be cancelled from another thread, after which the
+ * export writes nothing more and gives its connection back at the next row.
+ */
+@Component
+@Slf4j
+public class StatementExporter {
+
+    private static final String SELECT_SQL = """
+            SELECT t.transaction_id, t.transaction_date, t.transaction_type, t.transaction_status, t.amount,
+                   t.balance_before, t.balance_after, ta.account_number, t.description
+            FROM transactions t LEFT JOIN accounts ta ON ta.id = t.target_account_id
+            WHERE t.account_id = ?
+            """;
+    private static final String ORDER_SQL = " ORDER BY t.transaction_date, t.id";
+
+    // Leading characters that make spreadsheets evaluate a cell as a formula (CSV injection)
+    private static final String FORMULA_PREFIXES = "=+-@\t\r";
+
+    private static final String[] COLUMNS = {"transactionId", "transactionDate", "transactionType", "status",
+            "amount", "balanceBefore", "balanceAfter", "targetAccountNumber", "description"};
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectMapper objectMapper;
+    private final ExportProperties properties;
+    private final MeterRegistry meterRegistry;
+    private final Semaphore slots;
+
+    public StatementExporter(DataSource dataSource,
+                             PlatformTransactionManager transactionManager,
+                             ObjectMapper objectMapper,
+                             ExportProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.jdbcTemplate.setFetchSize(properties.getFetchSize());
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.meterRegistry = meterRegistry;
+        this.slots = new Semaphore(properties.getMaxConcurrent());
+    }
+
+    /**
+     * Takes one of the export slots, to be used for a single export
+     * @throws ExportCapacityException if every slot is in use
+     */
+    public Slot reserve() {
+        if (!slots.tryAcquire()) {
+            throw new ExportCapacityException(properties.getMaxConcurrent());
+        }
+        return new Slot();
+    }
+
+    /**
+     * Writes the account's transactions dated within [from, to] to the stream, oldest first
+     * @param from Start of the period, unbounded when null
+     * @param to End of the period, unbounded when null
+     * @return Number of transactions written
+     * @throws IOException if writing fails, typically because the client went away
+     */
+    public long export(long accountId, LocalDateTime from, LocalDateTime to, StatementFormat format,
+                       OutputStream out) throws IOException {
+        StringBuilder sql = new StringBuilder(SELECT_SQL);
+        List<Object> args = new ArrayList<>();
+        args.add(accountId);
+        if (from != null) {
+            sql.append(" AND t.transaction_date >= ?");
+            args.add(Timestamp.valueOf(from));
+        }
+        if (to != null) {
+            sql.append(" AND t.transaction_date <= ?");
+            args.add(Timestamp.valueOf(to));
+        }
+        sql.append(ORDER_SQL);
+
+        Timer.Sample sample = Timer.start(meterRegistry);
+        // Not closed here, the stream belongs to the response
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8),
+                properties.getBufferBytes());
+        RowWriter rows = format == StatementFormat.NDJSON
+                ? new NdjsonRowWriter(writer, objectMapper)
+                : new CsvRowWriter(writer);
+        long[] count = {0};
+        try {
+            rows.start();
+            readOnlyTransaction.executeWithoutResult(status -> jdbcTemplate.query(sql.toString(),
+                    (RowCallbackHandler) rs -> {
+                        try {
+                            rows.write(rs);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                        count[0]++;
+                    }, args.toArray()));
+            rows.finish();
+            writer.flush();
+        } catch (UncheckedIOException e) {
+            log.info("Statement export of account {} stopped after {} rows: {}", accountId, count[0],
+                    e.getCause().getMessage());
+            throw e.getCause();
+        } finally {
+            Counter.builder("banking.exports.rows")
+                    .description("Transactions written by statement exports")
+                    .tag("format", format.getFileExtension())
+                    .register(meterRegistry)
+                    .increment(count[0]);
+            sample.stop(Timer.builder("banking.exports")
+                    .description("Time taken to stream a statement export")
+                    .tag("format", format.getFileExtension())
+                    .register(meterRegistry));
+        }
+        log.info("Exported {} transactions of account {} as {}", count[0], accountId, format);
+        return count[0];
+    }
+
+    /**
+     * One reserved export, released when its export ends or when it is cancelled before starting
+     */
+    public final class Slot {
+
+        private boolean started;
+        private boolean cancelled;
+        private boolean released;
+
+        /**
+         * Exports through this slot, see {@link StatementExporter#export}; writes nothing once cancelled
+         */
+        public long export(long accountId, LocalDateTime from, LocalDateTime to, StatementFormat format,
+                           OutputStream out) throws IOException {
+            synchronized (this) {
+                if (cancelled) {
+                    return 0;
+                }
+                started = true;
+            }
+            try {
+                return StatementExporter.this.export(accountId, from, to, format, new CancellableOutputStream(out));
+            } finally {
+                release();
+            }
+        }
+
+        /**
+         * Stops the export, waiting for a write in progress; later writes fail and end the export at the next row
+         */
+        public void cancel() {
+            synchronized (this) {
+                cancelled = true;
+                if (started) {
+                    return;
+                }
+            }
+            release();
+        }
+
+        private void release() {
+            synchronized (this) {
+                if (released) {
+                    return;
+                }
+                released = true;
+            }
+            slots.release();
+        }
+
+        private class CancellableOutputStream extends FilterOutputStream {
+
+            CancellableOutputStream(OutputStream out) {
+                super(out);
+            }
+
+            @Override
+            public void write(int b) throws IOException {
+                synchronized (Slot.this) {
+                    checkNotCancelled();
+                    out.write(b);
+                }
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                synchronized (Slot.this) {
+                    checkNotCancelled();
+                    out.write(b, off, len);
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                synchronized (Slot.this) {
+                    checkNotCancelled();
+                    out.flush();
+                }
+            }
+
+            private void checkNotCancelled() throws IOException {
+                if (cancelled) {
+                    throw new IOException("Export cancelled");
+                }
+            }
+        }
+    }
+
+    private interface RowWriter {
+
+        void start() throws IOException;
+
+        void write(ResultSet rs) throws SQLException, IOException;
+
+        void finish() throws IOException;
+    }
+
+    private static class CsvRowWriter implements RowWriter {
+
+        private final Writer writer;
+
+        CsvRowWriter(Writer writer) {
+            this.writer = writer;
+        }
+
+        @Override
+        public void start() throws IOException {
+            writer.write(String.join(",", COLUMNS));
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            for (int column = 1; column <= COLUMNS.length; column++) {
+                if (column > 1) {
+                    writer.write(',');
+                }
+                Object value = rs.getObject(column);
+                if (value instanceof Timestamp timestamp) {
+                    writer.write(timestamp.toLocalDateTime().toString());
+                } else if (value instanceof BigDecimal amount) {
+                    writer.write(amount.toPlainString());
+                } else if (value != null) {
+                    writeText(value.toString());
+                }
+            }
+            writer.write("\r\n");
+        }
+
+        @Override
+        public void finish() {
+        }
+
+        /**
+         * Quotes text containing a separator, quote or line break, doubling any quotes (RFC 4180)
+         * Text a spreadsheet would read as a formula gets a leading apostrophe so it is shown as typed.
+         */
+        private void writeText(String text) throws IOException {
+            if (!text.isEmpty() && FORMULA_PREFIXES.indexOf(text.charAt(0)) >= 0) {
+                text = "'" + text;
+            }
+            boolean quote = false;
+            for (int i = 0; i < text.length() && !quote; i++) {
+                char c = text.charAt(i);
+                quote = c == ',' || c == '"' || c == '\r' || c == '\n';
+            }
+            if (!quote) {
+                writer.write(text);
+                return;
+            }
+            writer.write('"');
+            writer.write(text.replace("\"", "\"\""));
+            writer.write('"');
+        }
+    }
+
+    private static class NdjsonRowWriter implements RowWriter {
+
+        private final JsonGenerator generator;
+
+        NdjsonRowWriter(Writer writer, ObjectMapper objectMapper) throws IOException {
+            this.generator = objectMapper.getFactory().createGenerator(writer)
+                    .disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET)
+                    .enable(JsonGenerator.Feature.WRITE_BIGDECIMAL_AS_PLAIN);
+            // Lines are ended explicitly, so the last record is terminated too
+            this.generator.setRootValueSeparator(null);
+        }
+
+        @Override
+        public void start() {
+        }
+
+        @Override
+        public void write(ResultSet rs) throws SQLException, IOException {
+            generator.writeStartObject();
+            for (int column = 1; column <= COLUMNS.length; column++) {
+                Object value = rs.getObject(column);
+                generator.writeFieldName(COLUMNS[column - 1]);
+                if (value instanceof Timestamp timestamp) {
+                    generator.writeString(timestamp.toLocalDateTime().toString());
+                } else if (value instanceof BigDecimal amount) {
+                    generator.writeNumber(amount);
+                } else if (value != null) {
+                    generator.writeString(value.toString());
+                } else {
+                    generator.writeNull();
+                }
+            }
+            generator.writeEndObject();
+            generator.writeRaw('\n');
+        }
+
+        @Override
+        public void finish() throws IOException {
+            generator.close();
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fixed-size table of locks keyed by a hash of the account number
+ * Memory stays constant regardless of how many accounts are seen, at the cost of
+ * unrelated accounts occasionally sharing a stripe. Contention is published as table-wide
+ * totals plus the contention count of the hottest stripe: a hottest stripe far above the
+ * average points at one hot account, evenly high contention at too few stripes.
+ */
+public class StripedLockTable implements MeterBinder {
+
+    private final ReentrantLock[] locks;
+    private final int mask;
+
+    private final LongAdder acquisitions = new LongAdder();
+    private final LongAdder contentions = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final AtomicLongArray stripeContentions;
+
+    public StripedLockTable(int stripes) {
+        int size = stripes <= 1 ? 1 : Integer.highestOneBit(stripes - 1) << 1;
+        this.locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        this.mask = size - 1;
+        this.stripeContentions = new AtomicLongArray(size);
+    }
+
+    public int stripeCount() {
+        return locks.length;
+    }
+
+    public int stripeOf(String key) {
+        int hash = key.hashCode();
+        // Spread high bits so account numbers sharing a prefix still land on different stripes
+        hash ^= (hash >>> 16);
+        return hash & mask;
+    }
+
+    public void lock(int stripe) {
+        ReentrantLock lock = locks[stripe];
+        acquisitions.increment();
+        if (lock.tryLock()) {
+            return;
+        }
+
+        contentions.increment();
+        stripeContentions.incrementAndGet(stripe);
+        long start = System.nanoTime();
+        lock.lock();
+        waitNanos.add(System.nanoTime() - start);
+    }
+
+    public void unlock(int stripe) {
+        locks[stripe].unlock();
+    }
+
+    /**
+     * Highest number of contended acquisitions seen on any single stripe
+     */
+    public long hottestStripeContentions() {
+        long max = 0;
+        for (int i = 0; i < stripeContentions.length(); i++) {
+            max = Math.max(max, stripeContentions.get(i));
+        }
+        return max;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        Gauge.builder("banking.locks.stripes", this, StripedLockTable::stripeCount)
+                .description("Number of stripes in the account lock table")
+                .register(registry);
+
+        FunctionCounter.builder("banking.locks.acquisitions", acquisitions, LongAdder::sum)
+                .description("Lock acquisitions across all stripes")
+                .register(registry);
+
+        // count = contended acquisitions, total time = time spent waiting for them
+        FunctionTimer.builder("banking.locks.wait", this,
+                        t -> t.contentions.sum(), t -> t.waitNanos.sum(), TimeUnit.NANOSECONDS)
+                .description("Contended acquisitions and time spent waiting across all stripes")
+                .register(registry);
+
+        Gauge.builder("banking.locks.hottest.stripe.contentions", this, StripedLockTable::hottestStripeContentions)
+                .description("Contended acquisitions on the most contended stripe")
+                .register(registry);
+    }
+}
@@ -0,0 +1,10 @@
+package com.eomaxl.bankapplication.service.impl;
+
+/**
+ * Source of transaction IDs
+ * Implementations must return IDs that are unique without consulting the database
+ */
+public interface TransactionIdGenerator {
+
+    String nextId();
+}
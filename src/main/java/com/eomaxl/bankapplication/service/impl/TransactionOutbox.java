@@ -0,0 +1,69 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.model.OutboxEvent;
+import com.eomaxl.bankapplication.domain.model.OutboxEventStatus;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.repository.OutboxEventRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Writes transaction notifications to the outbox table
+ * Must be called inside the transaction that records the transactions, the rows commit or roll back
+ * together with them. The dispatcher is woken once that transaction commits.
+ */
+@Component
+public class TransactionOutbox {
+
+    private final OutboxEventRepository repository;
+    private final TransactionOutboxDispatcher dispatcher;
+
+    public TransactionOutbox(OutboxEventRepository repository, TransactionOutboxDispatcher dispatcher) {
+        this.repository = repository;
+        this.dispatcher = dispatcher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Transaction transaction) {
+        record(List.of(transaction));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void record(Collection<Transaction> transactions) {
+        if (transactions.isEmpty()) {
+            return;
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>(transactions.size());
+        for (Transaction transaction : transactions) {
+            events.add(OutboxEvent.builder()
+                    .transactionId(transaction.getTransactionId())
+                    .accountNumber(transaction.getAccount().getAccountNumber())
+                    .transactionType(transaction.getTransactionType())
+                    .amount(transaction.getAmount())
+                    .balanceAfter(transaction.getBalanceAfter())
+                    .transactionDate(transaction.getTransactionDate() != null ? transaction.getTransactionDate() : now)
+                    .status(OutboxEventStatus.PENDING)
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .build());
+        }
+        repository.saveAll(events);
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                dispatcher.wakeUp();
+            }
+        });
+    }
+}
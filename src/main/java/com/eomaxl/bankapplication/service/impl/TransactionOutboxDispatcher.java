@@ -0,0 +1,194 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.OutboxProperties;
+import com.eomaxl.bankapplication.domain.model.OutboxEvent;
+import com.eomaxl.bankapplication.domain.model.OutboxEventStatus;
+import com.eomaxl.bankapplication.repository.OutboxEventRepository;
+import com.eomaxl.bankapplication.service.ITransactionNotificationSink;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Drains the transaction outbox into the configured notification sink
+ * A PollingDispatcher reads due events and hands them, deliveryBatchSize at a time, to a fixed pool of
+ * delivery threads, so when the sink falls behind the dispatcher stops reading instead of queueing events
+ * in memory. Each batch is locked, delivered and marked in one transaction, which keeps a batch from being
+ * delivered by two nodes at once. When a batch fails it is split in half and each half is delivered on its
+ * own, down to single events, so one event the sink rejects does not hold back the rest; only the events
+ * that fail alone are retried with exponential backoff until maxAttempts, then parked as FAILED.
+ *
+ * Delivery is at least once. The sink is called before the transaction that marks the events delivered
+ * commits, so a crash or commit failure after the sink accepted a batch delivers it again, and a batch
+ * the sink partly accepted before failing is redelivered while it is being split. Sinks deduplicate on
+ * the event's transaction ID.
+ */
+@Component
+@Slf4j
+public class TransactionOutboxDispatcher {
+
+    private static final long PURGE_INTERVAL_MS = 60_000;
+
+    private final OutboxEventRepository repository;
+    private final ITransactionNotificationSink sink;
+    private final TransactionTemplate transactionTemplate;
+    private final TransactionTemplate requiresNew;
+    private final OutboxProperties properties;
+
+    private final ExecutorService deliveryExecutor;
+    private final PollingDispatcher dispatcher;
+    private long lastPurge;
+
+    public TransactionOutboxDispatcher(OutboxEventRepository repository,
+                                       ITransactionNotificationSink sink,
+                                       PlatformTransactionManager transactionManager,
+                                       OutboxProperties properties) {
+        this.repository = repository;
+        this.sink = sink;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+
+        int concurrency = Math.max(1, properties.getConcurrency());
+        AtomicInteger threadCount = new AtomicInteger();
+        this.deliveryExecutor = Executors.newFixedThreadPool(concurrency, runnable -> {
+            Thread thread = new Thread(runnable, "OutboxDelivery-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        this.dispatcher = new PollingDispatcher("OutboxDispatcher", deliveryExecutor, concurrency,
+                properties.getDeliveryBatchSize(), properties.getPollIntervalMs(),
+                () -> repository.findDueIds(OutboxEventStatus.PENDING, LocalDateTime.now(),
+                        PageRequest.of(0, properties.getBatchSize())),
+                this::deliver,
+                this::purgeDelivered);
+    }
+
+    /**
+     * Signals that new events were committed, so they go out without waiting for the next poll
+     */
+    public void wakeUp() {
+        dispatcher.wakeUp();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void startDispatcher() {
+        dispatcher.start();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.stop();
+        deliveryExecutor.shutdown();
+        try {
+            // Undelivered events stay PENDING and are picked up after the restart
+            deliveryExecutor.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Delivers a batch, splitting it in half on failure until the failing events are isolated
+     */
+    void deliver(List<Long> ids) {
+        try {
+            Integer delivered = transactionTemplate.execute(status -> deliverLocked(ids));
+            log.debug("Delivered {} outbox events", delivered);
+        } catch (Exception e) {
+            if (ids.size() == 1) {
+                recordFailure(ids.get(0), e);
+                return;
+            }
+            log.warn("Delivery of {} outbox events failed, retrying them in halves: {}", ids.size(), e.getMessage());
+            int half = ids.size() / 2;
+            deliver(ids.subList(0, half));
+            deliver(ids.subList(half, ids.size()));
+        }
+    }
+
+    private int deliverLocked(List<Long> ids) {
+        List<OutboxEvent> events = repository.findAllByIdWithLock(ids).stream()
+                .filter(event -> event.getStatus() == OutboxEventStatus.PENDING)
+                .toList();
+        if (events.isEmpty()) {
+            // Already delivered by another node
+            return 0;
+        }
+
+        sink.deliver(events);
+
+        LocalDateTime now = LocalDateTime.now();
+        for (OutboxEvent event : events) {
+            event.setStatus(OutboxEventStatus.DELIVERED);
+            event.setAttempts(event.getAttempts() + 1);
+            event.setDeliveredAt(now);
+            event.setLastError(null);
+        }
+        return events.size();
+    }
+
+    /**
+     * Schedules an event that failed on its own for another attempt, or parks it once it ran out of attempts
+     */
+    private void recordFailure(Long id, Exception error) {
+        try {
+            requiresNew.executeWithoutResult(status -> {
+                for (OutboxEvent event : repository.findAllByIdWithLock(List.of(id))) {
+                    if (event.getStatus() != OutboxEventStatus.PENDING) {
+                        continue;
+                    }
+                    event.setAttempts(event.getAttempts() + 1);
+                    event.setLastError(PollingDispatcher.truncate(error.getMessage()));
+                    if (event.getAttempts() >= properties.getMaxAttempts()) {
+                        event.setStatus(OutboxEventStatus.FAILED);
+                        log.error("Outbox event {} for transaction {} parked after {} attempts",
+                                id, event.getTransactionId(), event.getAttempts(), error);
+                    } else {
+                        long backoffMs = backoffMs(event.getAttempts());
+                        event.setNextAttemptAt(LocalDateTime.now().plusNanos(TimeUnit.MILLISECONDS.toNanos(backoffMs)));
+                        log.warn("Delivery of outbox event {} failed on attempt {}, it will be retried in {} ms",
+                                id, event.getAttempts(), backoffMs, error);
+                    }
+                }
+            });
+        } catch (Exception e) {
+            // The event stays due and is retried on the next poll
+            log.error("Failed to record failed delivery of outbox event {}", id, e);
+        }
+    }
+
+    private long backoffMs(int attempts) {
+        long backoff = properties.getRetryBackoffMs() << Math.min(attempts - 1, 20);
+        return Math.min(backoff, properties.getMaxRetryBackoffMs());
+    }
+
+    private void purgeDelivered() {
+        long now = System.currentTimeMillis();
+        if (now - lastPurge < PURGE_INTERVAL_MS) {
+            return;
+        }
+        lastPurge = now;
+        LocalDateTime cutoff = LocalDateTime.now().minusHours(properties.getRetentionHours());
+        Integer purged = transactionTemplate.execute(status ->
+                repository.deleteByStatusAndDeliveredAtBefore(OutboxEventStatus.DELIVERED, cutoff));
+        if (purged != null && purged > 0) {
+            log.debug("Purged {} delivered outbox events", purged);
+        }
+    }
+}
@@ -0,0 +1,355 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.RollupProperties;
+import com.eomaxl.bankapplication.domain.model.NumberSequence;
+import com.eomaxl.bankapplication.domain.model.TransactionRollupDirtyDay;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.repository.NumberSequenceRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.TransactionRollupDirtyDayRepository;
+import com.eomaxl.bankapplication.repository.TransactionRollupRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountDay;
+import com.eomaxl.bankapplication.repository.projection.TransactionTotals;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per account, day and type transaction totals, so reports cost a row per day rather than per transaction
+ * A compactor rolls up each day once it has closed, in one INSERT ... SELECT, and moves the horizon kept in
+ * the number_sequences row transaction_rollups (the first day not rolled up) in the same transaction. Reads
+ * take whole days before the horizon from the rollups and only aggregate raw transactions for the partial
+ * days at either end of the range and for the days after the horizon, today at least.
+ *
+ * A backdated transaction or a change into or out of COMPLETED marks that account's day dirty in the
+ * transaction_rollup_dirty_days table, in the write's own transaction, and once it commits the compactor
+ * thread rolls the account day up again and clears the mark. Recomputes and the compactor hold the progress
+ * row lock, so neither rolls up a day from a snapshot older than the other's. Marks a failed recompute
+ * leaves behind, and those of writes the compactor's day pass could not see, are reprocessed on every run,
+ * so a report reads a stale day at most until the next run.
+ */
+@Component
+@Slf4j
+public class TransactionRollups {
+
+    static final String PROGRESS_SEQUENCE = "transaction_rollups";
+
+    private final TransactionRollupRepository rollupRepository;
+    private final TransactionRollupDirtyDayRepository dirtyDayRepository;
+    private final TransactionRepository transactionRepository;
+    private final NumberSequenceRepository sequenceRepository;
+    private final TransactionTemplate requiresNew;
+    private final RollupProperties properties;
+
+    private final ScheduledExecutorService compactor;
+    private final Timer dayTimer;
+    private final Counter recomputed;
+    private final Counter recomputeFailures;
+
+    public TransactionRollups(TransactionRollupRepository rollupRepository,
+                              TransactionRollupDirtyDayRepository dirtyDayRepository,
+                              TransactionRepository transactionRepository,
+                              NumberSequenceRepository sequenceRepository,
+                              PlatformTransactionManager transactionManager,
+                              RollupProperties properties,
+                              MeterRegistry meterRegistry) {
+        this.rollupRepository = rollupRepository;
+        this.dirtyDayRepository = dirtyDayRepository;
+        this.transactionRepository = transactionRepository;
+        this.sequenceRepository = sequenceRepository;
+        this.requiresNew = new TransactionTemplate(transactionManager);
+        this.requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = properties;
+
+        this.compactor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "TransactionRollups");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dayTimer = Timer.builder("banking.rollups.day")
+                .description("Time taken to roll up the transactions of one day")
+                .register(meterRegistry);
+        this.recomputed = Counter.builder("banking.rollups.recomputed")
+                .description("Account days rolled up again after a write changed them")
+                .register(meterRegistry);
+        this.recomputeFailures = Counter.builder("banking.rollups.recompute_failures")
+                .description("Recomputes that failed and left their account day for the compactor")
+                .register(meterRegistry);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        if (properties.isEnabled()) {
+            compactor.scheduleWithFixedDelay(this::rollUpClosedDays, 0, properties.getIntervalMs(),
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        compactor.shutdownNow();
+    }
+
+    /**
+     * Date, count and total amount of an account's transactions per day within [start, end], oldest first
+     */
+    public List<Object[]> dailySummary(long accountId, LocalDateTime start, LocalDateTime end) {
+        RolledUpDays days = rolledUpDays(start, end);
+        if (days == null) {
+            return transactionRepository.getDailyTransactionSummary(accountId, start, end);
+        }
+
+        List<Object[]> summary = new ArrayList<>();
+        TransactionTotals head = head(accountId, start, days);
+        if (head.count() > 0) {
+            summary.add(new Object[]{start.toLocalDate(), head.count(), head.credits().add(head.debits())});
+        }
+        summary.addAll(rollupRepository.summarizeDays(accountId, days.first(), days.end()));
+        summary.addAll(transactionRepository.getDailyTransactionSummary(accountId, days.end().atStartOfDay(), end));
+        return summary;
+    }
+
+    /**
+     * Number of an account's transactions within [start, end], whatever their status
+     */
+    public long countTransactions(long accountId, LocalDateTime start, LocalDateTime end) {
+        RolledUpDays days = rolledUpDays(start, end);
+        if (days == null) {
+            return transactionRepository.countTransactionsByAccountAndDateRange(accountId, start, end);
+        }
+        return head(accountId, start, days).count()
+                + rollupRepository.countTransactions(accountId, days.first(), days.end())
+                + transactionRepository.countTransactionsByAccountAndDateRange(accountId,
+                        days.end().atStartOfDay(), end);
+    }
+
+    /**
+     * Amount of all an account's COMPLETED transactions of one type
+     */
+    public BigDecimal totalCompletedAmount(long accountId, TransactionType transactionType) {
+        LocalDate horizon = horizon();
+        if (horizon == null) {
+            return orZero(transactionRepository.getTotalAmountByAccountAndType(accountId, transactionType));
+        }
+        return rollupRepository.sumCompletedAmount(accountId, transactionType, horizon)
+                .add(orZero(transactionRepository.getTotalAmountByAccountAndTypeSince(accountId, transactionType,
+                        horizon.atStartOfDay())));
+    }
+
+    /**
+     * Marks the account's day dirty within the current transaction and rolls it up again once that commits
+     */
+    public void recomputeAfterCommit(long accountId, LocalDateTime transactionDate) {
+        if (!transactionDate.isBefore(LocalDate.now().atStartOfDay())) {
+            // Today is never rolled up yet
+            return;
+        }
+        LocalDate day = transactionDate.toLocalDate();
+        dirtyDayRepository.save(TransactionRollupDirtyDay.builder()
+                .accountId(accountId)
+                .rollupDate(day)
+                .createdAt(LocalDateTime.now())
+                .build());
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            submitRecompute(accountId, day);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submitRecompute(accountId, day);
+            }
+        });
+    }
+
+    private void submitRecompute(long accountId, LocalDate day) {
+        try {
+            // Runs on the compactor thread, a day roll holding the progress lock must not stall the writer
+            compactor.execute(() -> recomputeSafely(accountId, day));
+        } catch (RejectedExecutionException e) {
+            log.debug("Shutting down, leaving rollups of account {} for {} to the next run", accountId, day);
+        }
+    }
+
+    private void recomputeSafely(long accountId, LocalDate day) {
+        try {
+            recompute(accountId, day);
+        } catch (RuntimeException e) {
+            // The write and its dirty mark are committed, the compactor recomputes the day on its next run
+            recomputeFailures.increment();
+            log.warn("Failed to recompute rollups of account {} for {}", accountId, day, e);
+        }
+    }
+
+    /**
+     * Rolls the account day up again under the progress row lock and clears its dirty marks
+     */
+    void recompute(long accountId, LocalDate day) {
+        requiresNew.executeWithoutResult(status -> {
+            Optional<NumberSequence> progress = sequenceRepository.findBySequenceNameWithLock(PROGRESS_SEQUENCE);
+            if (progress.isEmpty()) {
+                // The compactor's first run starts from the earliest transaction, the mark is cleared after it
+                return;
+            }
+            // Marks go first: every write whose mark is deleted here is committed, so the roll up below sees it
+            dirtyDayRepository.deleteByAccountDay(accountId, day);
+            if (!day.isBefore(LocalDate.ofEpochDay(progress.get().getNextValue()))) {
+                // The compactor has not reached the day, and cannot before this lock is released
+                return;
+            }
+            rollupRepository.rollUpAccountDay(accountId, day);
+            recomputed.increment();
+        });
+    }
+
+    /**
+     * Rolls up again the dirty account days before the horizon, a batch per transaction
+     */
+    private void recomputeDirtyDays() {
+        int batch;
+        do {
+            batch = requiresNew.execute(status -> {
+                NumberSequence progress = sequenceRepository.findBySequenceNameWithLock(PROGRESS_SEQUENCE)
+                        .orElse(null);
+                if (progress == null) {
+                    return 0;
+                }
+                LocalDate horizon = LocalDate.ofEpochDay(progress.getNextValue());
+                List<AccountDay> dirty = dirtyDayRepository.findDirtyBefore(horizon,
+                        PageRequest.ofSize(properties.getDirtyBatchSize()));
+                for (AccountDay accountDay : dirty) {
+                    dirtyDayRepository.deleteByAccountDay(accountDay.accountId(), accountDay.day());
+                    rollupRepository.rollUpAccountDay(accountDay.accountId(), accountDay.day());
+                }
+                recomputed.increment(dirty.size());
+                return dirty.size();
+            });
+            if (batch > 0) {
+                log.info("Recomputed rollups of {} dirty account days", batch);
+            }
+        } while (batch == properties.getDirtyBatchSize());
+    }
+
+    void rollUpClosedDays() {
+        try {
+            for (int days = 0; days < properties.getMaxDaysPerRun(); days++) {
+                Timer.Sample sample = Timer.start();
+                LocalDate day = rollUpNextDay();
+                if (day == null) {
+                    break;
+                }
+                sample.stop(dayTimer);
+            }
+            recomputeDirtyDays();
+        } catch (RuntimeException e) {
+            log.warn("Transaction rollup run failed", e);
+        }
+    }
+
+    /**
+     * Rolls up the first closed day after the horizon and moves the horizon past it, under the row lock
+     * @return the day rolled up, or null when none is due
+     */
+    private LocalDate rollUpNextDay() {
+        LocalDate lastClosed = LocalDateTime.now().minusMinutes(properties.getCloseAfterMinutes())
+                .toLocalDate().minusDays(1);
+        try {
+            return requiresNew.execute(status -> {
+                LocalDateTime now = LocalDateTime.now();
+                NumberSequence progress = sequenceRepository.findBySequenceNameWithLock(PROGRESS_SEQUENCE)
+                        .orElseGet(() -> sequenceRepository.saveAndFlush(NumberSequence.builder()
+                                .sequenceName(PROGRESS_SEQUENCE)
+                                .nextValue(transactionRepository.findEarliestTransactionDate()
+                                        .map(LocalDateTime::toLocalDate)
+                                        .orElse(lastClosed.plusDays(1))
+                                        .toEpochDay())
+                                .updatedAt(now)
+                                .build()));
+                LocalDate day = LocalDate.ofEpochDay(progress.getNextValue());
+                if (day.isAfter(lastClosed)) {
+                    return null;
+                }
+                // Every write of the day marked before this point is committed and included below
+                dirtyDayRepository.deleteByDay(day);
+                int rows = rollupRepository.rollUpDay(day);
+                progress.setNextValue(day.toEpochDay() + 1);
+                progress.setUpdatedAt(now);
+                log.info("Rolled up transactions of {} into {} rows", day, rows);
+                return day;
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Another node created the progress row first, it exists now
+            return rollUpNextDay();
+        }
+    }
+
+    /**
+     * First day not rolled up yet, null before the compactor has started
+     */
+    private LocalDate horizon() {
+        return sequenceRepository.findById(PROGRESS_SEQUENCE)
+                .map(progress -> LocalDate.ofEpochDay(progress.getNextValue()))
+                .orElse(null);
+    }
+
+    /**
+     * Whole days within [start, end] that can be read from the rollups, null when there are none
+     */
+    private RolledUpDays rolledUpDays(LocalDateTime start, LocalDateTime end) {
+        LocalDate horizon = horizon();
+        if (horizon == null) {
+            return null;
+        }
+        LocalDate first = start.toLocalTime().equals(LocalTime.MIDNIGHT) ? start.toLocalDate()
+                : start.toLocalDate().plusDays(1);
+        LocalDate last = end.toLocalDate().isBefore(horizon) ? end.toLocalDate() : horizon;
+        return first.isBefore(last) ? new RolledUpDays(first, last) : null;
+    }
+
+    /**
+     * Transactions from start up to the first whole day
+     */
+    private TransactionTotals head(long accountId, LocalDateTime start, RolledUpDays days) {
+        LocalDateTime headEnd = days.first().atStartOfDay();
+        if (!start.isBefore(headEnd)) {
+            return TransactionTotals.none(accountId);
+        }
+        return transactionRepository.sumByAccountIds(List.of(accountId), start, headEnd).stream()
+                .findFirst()
+                .orElseGet(() -> TransactionTotals.none(accountId));
+    }
+
+    private static BigDecimal orZero(BigDecimal amount) {
+        return amount != null ? amount : BigDecimal.ZERO;
+    }
+
+    /**
+     * Days [first, end) of a range that are rolled up
+     */
+    private record RolledUpDays(LocalDate first, LocalDate end) {
+    }
+}
@@ -13,13 +13,13 @@ import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
-import java.util.UUID;
 
 @Service
 @RequiredArgsConstructor
@@ -28,6 +28,11 @@ import java.util.UUID;
 public class TransactionServiceImpl implements ITransactionService {
     private final TransactionRepository transactionRepository;
     private final IAccountService accountService;
+    private final TransactionIdGenerator transactionIdGenerator;
+    private final TransactionOutbox transactionOutbox;
+    private final BalanceCheckpoints balanceCheckpoints;
+    private final TransactionRollups transactionRollups;
+    private final ConcurrencyRetry concurrencyRetry;
 
     @Transactional
     public Transaction createTransaction(Transaction transaction) {
@@ -38,13 +43,8 @@ public class TransactionServiceImpl implements ITransactionService {
                 .orElseThrow(() -> new BankingException("Account not found with ID: " + transaction.getAccount().getId(),
                         "ACCOUNT_NOT_FOUND"));
 
-        // Generate unique transaction ID
-        String transactionId = generateTransactionId();
-        while (transactionRepository.existsByTransactionId(transactionId)) {
-            transactionId = generateTransactionId();
-        }
-
-        transaction.setTransactionId(transactionId);
+        // Generated IDs are unique per node, so no lookup is needed before inserting
+        transaction.setTransactionId(transactionIdGenerator.nextId());
         transaction.setAccount(account);
 
         if (transaction.getTransactionDate() == null) {
@@ -56,108 +56,112 @@ public class TransactionServiceImpl implements ITransactionService {
         }
 
         Transaction savedTransaction = transactionRepository.save(transaction);
+        // A backdated transaction changes days that may already be checkpointed and rolled up
+        balanceCheckpoints.invalidate(account.getId(), savedTransaction.getTransactionDate());
+        transactionRollups.recomputeAfterCommit(account.getId(), savedTransaction.getTransactionDate());
+        transactionOutbox.record(savedTransaction);
         log.info("Successfully created transaction with ID: {}", savedTransaction.getTransactionId());
         return savedTransaction;
     }
 
-    @Transactional
+    // Retried as a whole when a balance update loses a race, see ConcurrencyRetry
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Transaction deposit(String accountNumber, BigDecimal amount, String description) {
-        log.info("Processing deposit of {} to account: {}", amount, accountNumber);
-
-        Account account = accountService.getAccountByNumber(accountNumber);
-        BigDecimal balanceBefore = account.getBalance();
-
-        // Update account balance
-        Account updatedAccount = accountService.credit(accountNumber, amount, description);
-
-        // Create transaction record
-        Transaction transaction = Transaction.builder()
-                .amount(amount)
-                .transactionType(TransactionType.DEPOSIT)
-                .status(TransactionStatus.COMPLETED)
-                .description(description)
-                .account(updatedAccount)
-                .balanceBefore(balanceBefore)
-                .balanceAfter(updatedAccount.getBalance())
-                .transactionDate(LocalDateTime.now())
-                .build();
-
-        return createTransaction(transaction);
+        return concurrencyRetry.inTransaction(() -> {
+            log.info("Processing deposit of {} to account: {}", amount, accountNumber);
+
+            // Balances come from the updated row; an account read earlier in this transaction may be stale
+            Account updatedAccount = accountService.credit(accountNumber, amount, description);
+            BigDecimal balanceBefore = updatedAccount.getBalance().subtract(amount);
+
+            // Create transaction record
+            Transaction transaction = Transaction.builder()
+                    .amount(amount)
+                    .transactionType(TransactionType.DEPOSIT)
+                    .status(TransactionStatus.COMPLETED)
+                    .description(description)
+                    .account(updatedAccount)
+                    .balanceBefore(balanceBefore)
+                    .balanceAfter(updatedAccount.getBalance())
+                    .transactionDate(LocalDateTime.now())
+                    .build();
+
+            return createTransaction(transaction);
+        });
     }
 
-    @Transactional
+    // Retried as a whole when a balance update loses a race, see ConcurrencyRetry
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Transaction withdrawal(String accountNumber, BigDecimal amount, String description) {
-        log.info("Processing withdrawal of {} from account: {}", amount, accountNumber);
-
-        Account account = accountService.getAccountByNumber(accountNumber);
-        BigDecimal balanceBefore = account.getBalance();
-
-        // Update account balance
-        Account updatedAccount = accountService.debit(accountNumber, amount, description);
-
-        // Create transaction record
-        Transaction transaction = Transaction.builder()
-                .amount(amount)
-                .transactionType(TransactionType.WITHDRAWAL)
-                .status(TransactionStatus.COMPLETED)
-                .description(description)
-                .account(updatedAccount)
-                .balanceBefore(balanceBefore)
-                .balanceAfter(updatedAccount.getBalance())
-                .transactionDate(LocalDateTime.now())
-                .build();
-
-        return createTransaction(transaction);
+        return concurrencyRetry.inTransaction(() -> {
+            log.info("Processing withdrawal of {} from account: {}", amount, accountNumber);
+
+            // Balances come from the updated row; an account read earlier in this transaction may be stale
+            Account updatedAccount = accountService.debit(accountNumber, amount, description);
+            BigDecimal balanceBefore = updatedAccount.getBalance().add(amount);
+
+            // Create transaction record
+            Transaction transaction = Transaction.builder()
+                    .amount(amount)
+                    .transactionType(TransactionType.WITHDRAWAL)
+                    .status(TransactionStatus.COMPLETED)
+                    .description(description)
+                    .account(updatedAccount)
+                    .balanceBefore(balanceBefore)
+                    .balanceAfter(updatedAccount.getBalance())
+                    .transactionDate(LocalDateTime.now())
+                    .build();
+
+            return createTransaction(transaction);
+        });
     }
 
-    @Transactional
+    // Retried as a whole when a balance update loses a race, see ConcurrencyRetry
+    @Transactional(propagation = Propagation.SUPPORTS)
     public List<Transaction> transfer(String fromAccountNumber, String toAccountNumber,
                                       BigDecimal amount, String description) {
-        log.info("Processing transfer of {} from {} to {}", amount, fromAccountNumber, toAccountNumber);
-
-        Account fromAccount = accountService.getAccountByNumber(fromAccountNumber);
-        Account toAccount = accountService.getAccountByNumber(toAccountNumber);
-
-        BigDecimal fromBalanceBefore = fromAccount.getBalance();
-        BigDecimal toBalanceBefore = toAccount.getBalance();
-
-        // Perform the transfer
-        accountService.transfer(fromAccountNumber, toAccountNumber, amount, description);
-
-        // Refresh account data
-        Account updatedFromAccount = accountService.getAccountByNumber(fromAccountNumber);
-        Account updatedToAccount = accountService.getAccountByNumber(toAccountNumber);
-
-        // Create outgoing transaction
-        Transaction outgoingTransaction = Transaction.builder()
-                .amount(amount)
-                .transactionType(TransactionType.TRANSFER_OUT)
-                .status(TransactionStatus.COMPLETED)
-                .description(description)
-                .account(updatedFromAccount)
-                .targetAccount(updatedToAccount)
-                .balanceBefore(fromBalanceBefore)
-                .balanceAfter(updatedFromAccount.getBalance())
-                .transactionDate(LocalDateTime.now())
-                .build();
-
-        // Create incoming transaction
-        Transaction incomingTransaction = Transaction.builder()
-                .amount(amount)
-                .transactionType(TransactionType.TRANSFER_IN)
-                .status(TransactionStatus.COMPLETED)
-                .description(description)
-                .account(updatedToAccount)
-                .targetAccount(updatedFromAccount)
-                .balanceBefore(toBalanceBefore)
-                .balanceAfter(updatedToAccount.getBalance())
-                .transactionDate(LocalDateTime.now())
-                .build();
-
-        Transaction savedOutgoing = createTransaction(outgoingTransaction);
-        Transaction savedIncoming = createTransaction(incomingTransaction);
-
-        return List.of(savedOutgoing, savedIncoming);
+        return concurrencyRetry.inTransaction(() -> {
+            log.info("Processing transfer of {} from {} to {}", amount, fromAccountNumber, toAccountNumber);
+
+            // Balances come from the updated rows: with conditional updates the rows change in the database
+            // only, so reading the accounts again in this transaction returns the entities from before
+            List<Account> updated = accountService.transfer(fromAccountNumber, toAccountNumber, amount, description);
+            Account updatedFromAccount = updated.get(0);
+            Account updatedToAccount = updated.get(1);
+            BigDecimal fromBalanceBefore = updatedFromAccount.getBalance().add(amount);
+            BigDecimal toBalanceBefore = updatedToAccount.getBalance().subtract(amount);
+
+            // Create outgoing transaction
+            Transaction outgoingTransaction = Transaction.builder()
+                    .amount(amount)
+                    .transactionType(TransactionType.TRANSFER_OUT)
+                    .status(TransactionStatus.COMPLETED)
+                    .description(description)
+                    .account(updatedFromAccount)
+                    .targetAccount(updatedToAccount)
+                    .balanceBefore(fromBalanceBefore)
+                    .balanceAfter(updatedFromAccount.getBalance())
+                    .transactionDate(LocalDateTime.now())
+                    .build();
+
+            // Create incoming transaction
+            Transaction incomingTransaction = Transaction.builder()
+                    .amount(amount)
+                    .transactionType(TransactionType.TRANSFER_IN)
+                    .status(TransactionStatus.COMPLETED)
+                    .description(description)
+                    .account(updatedToAccount)
+                    .targetAccount(updatedFromAccount)
+                    .balanceBefore(toBalanceBefore)
+                    .balanceAfter(updatedToAccount.getBalance())
+                    .transactionDate(LocalDateTime.now())
+                    .build();
+
+            Transaction savedOutgoing = createTransaction(outgoingTransaction);
+            Transaction savedIncoming = createTransaction(incomingTransaction);
+
+            return List.of(savedOutgoing, savedIncoming);
+        });
     }
 
     public Optional<Transaction> findById(Long id) {
@@ -222,18 +226,23 @@ public class TransactionServiceImpl implements ITransactionService {
 
     public BigDecimal getTotalAmountByAccountAndType(Long accountId, TransactionType transactionType) {
         log.debug("Getting total amount for account {} and type {}", accountId, transactionType);
-        BigDecimal total = transactionRepository.getTotalAmountByAccountAndType(accountId, transactionType);
-        return total != null ? total : BigDecimal.ZERO;
+        return transactionRollups.totalCompletedAmount(accountId, transactionType);
     }
 
     public Long countTransactionsByAccountAndDateRange(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
         log.debug("Counting transactions for account {} between {} and {}", accountId, startDate, endDate);
-        return transactionRepository.countTransactionsByAccountAndDateRange(accountId, startDate, endDate);
+        return transactionRollups.countTransactions(accountId, startDate, endDate);
     }
 
     public List<Object[]> getDailyTransactionSummary(Long accountId, LocalDateTime startDate, LocalDateTime endDate) {
         log.debug("Getting daily transaction summary for account {} between {} and {}", accountId, startDate, endDate);
-        return transactionRepository.getDailyTransactionSummary(accountId, startDate, endDate);
+        return transactionRollups.dailySummary(accountId, startDate, endDate);
+    }
+
+    public BigDecimal getBalanceAsOf(String accountNumber, LocalDateTime asOf) {
+        log.debug("Getting balance of account {} as of {}", accountNumber, asOf);
+        Account account = accountService.getAccountByNumber(accountNumber);
+        return balanceCheckpoints.balanceAsOf(account.getId(), asOf);
     }
 
     @Transactional
@@ -246,6 +255,12 @@ public class TransactionServiceImpl implements ITransactionService {
 
         TransactionStatus oldStatus = transaction.getStatus();
         transaction.setStatus(status);
+        if (oldStatus != status && (oldStatus == TransactionStatus.COMPLETED || status == TransactionStatus.COMPLETED)) {
+            // Checkpointed closing balances and rolled up completed amounts only count COMPLETED transactions
+            long accountId = transaction.getAccount().getId();
+            balanceCheckpoints.invalidate(accountId, transaction.getTransactionDate());
+            transactionRollups.recomputeAfterCommit(accountId, transaction.getTransactionDate());
+        }
 
         Transaction savedTransaction = transactionRepository.save(transaction);
         log.info("Successfully updated transaction status from {} to {} for ID: {}", oldStatus, status, transactionId);
@@ -271,10 +286,6 @@ public class TransactionServiceImpl implements ITransactionService {
         log.info("Cleaned up {} pending transactions", pendingTransactions.size());
     }
 
-    private String generateTransactionId() {
-        return "TXN" + UUID.randomUUID().toString().replaceAll("-", "").substring(0, 12).toUpperCase();
-    }
-
     public boolean existsByTransactionId(String transactionId) {
         return transactionRepository.existsByTransactionId(transactionId);
     }
@@ -0,0 +1,21 @@
+-- Daily closing balance per account, with running totals since the account's first transaction.
+-- covered_until is the exclusive end of what a checkpoint summarises (the start of the next day), so a
+-- statement or balance-as-of read starts from the nearest checkpoint and only aggregates the rows after it.
+
+CREATE SEQUENCE IF NOT EXISTS account_balance_checkpoints_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS account_balance_checkpoints (
+    id BIGINT PRIMARY KEY,
+    account_id BIGINT NOT NULL REFERENCES accounts(id),
+    checkpoint_date DATE NOT NULL,
+    covered_until TIMESTAMP NOT NULL,
+    closing_balance NUMERIC(19, 2) NOT NULL,
+    total_credits NUMERIC(19, 2) NOT NULL,
+    total_debits NUMERIC(19, 2) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    created_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_account_balance_checkpoints_account_date UNIQUE (account_id, checkpoint_date)
+);
+
+CREATE INDEX IF NOT EXISTS idx_account_balance_checkpoints_account_covered
+    ON account_balance_checkpoints(account_id, covered_until);
@@ -0,0 +1,15 @@
+-- Transaction count and amounts per account, day and transaction type, so reports read one row per day
+-- instead of every transaction. Closed days are written by TransactionRollups, a day changed later by a
+-- backdated transaction or a status change is recomputed for that account.
+
+CREATE TABLE IF NOT EXISTS transaction_daily_rollups (
+    account_id BIGINT NOT NULL REFERENCES accounts(id),
+    rollup_date DATE NOT NULL,
+    transaction_type VARCHAR(50) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    total_amount NUMERIC(19, 2) NOT NULL,
+    completed_amount NUMERIC(19, 2) NOT NULL,
+    PRIMARY KEY (account_id, rollup_date, transaction_type)
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_daily_rollups_date ON transaction_daily_rollups(rollup_date);
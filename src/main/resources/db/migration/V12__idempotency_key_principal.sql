@@ -0,0 +1,9 @@
+-- Idempotency keys are scoped to the authenticated caller, so two clients choosing the same key
+-- no longer collide or replay each other's responses. Existing keys belong to no known caller.
+
+ALTER TABLE idempotency_keys ADD COLUMN IF NOT EXISTS principal VARCHAR(100) NOT NULL DEFAULT '';
+ALTER TABLE idempotency_keys ALTER COLUMN principal DROP DEFAULT;
+
+ALTER TABLE idempotency_keys DROP CONSTRAINT IF EXISTS uk_idempotency_keys_key_operation;
+ALTER TABLE idempotency_keys ADD CONSTRAINT uk_idempotency_keys_principal_key_operation
+    UNIQUE (principal, idempotency_key, operation);
@@ -0,0 +1,7 @@
+-- A transfer that failed transiently waits until next_attempt_at before the dispatcher picks it up again,
+-- with exponential backoff between attempts instead of retrying on every poll
+
+ALTER TABLE pending_transfers ADD COLUMN IF NOT EXISTS next_attempt_at TIMESTAMP;
+
+CREATE INDEX IF NOT EXISTS idx_pending_transfers_status_next_attempt
+    ON pending_transfers(transfer_status, next_attempt_at);
@@ -0,0 +1,8 @@
+-- Node IDs of transaction IDs are leased by running instances instead of derived from host names,
+-- which could collide. A lease is renewed while the instance runs and taken over once it expires.
+
+CREATE TABLE IF NOT EXISTS node_id_leases (
+    node_id INT PRIMARY KEY,
+    owner VARCHAR(200) NOT NULL,
+    expires_at TIMESTAMP NOT NULL
+);
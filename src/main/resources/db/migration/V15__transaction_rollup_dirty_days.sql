@@ -0,0 +1,15 @@
+-- Account days whose rollups a write changed, inserted in the same database transaction as the write.
+-- TransactionRollups deletes a row once it has rolled that account day up again, the compactor picks up
+-- whatever a failed or lost recompute left behind. Rows are not unique, concurrent writes each add one.
+
+CREATE SEQUENCE IF NOT EXISTS transaction_rollup_dirty_days_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS transaction_rollup_dirty_days (
+    id BIGINT PRIMARY KEY,
+    account_id BIGINT NOT NULL REFERENCES accounts(id),
+    rollup_date DATE NOT NULL,
+    created_at TIMESTAMP NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_rollup_dirty_days_date_account
+    ON transaction_rollup_dirty_days(rollup_date, account_id);
@@ -0,0 +1,3 @@
+-- Optimistic concurrency control for account balance updates
+
+ALTER TABLE accounts ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
@@ -0,0 +1,10 @@
+-- Sub-balance rows for hot accounts, the account total is accounts.balance plus all of its shards
+
+CREATE TABLE IF NOT EXISTS account_balance_shards (
+    id BIGSERIAL PRIMARY KEY,
+    account_id BIGINT NOT NULL REFERENCES accounts(id),
+    shard_no INT NOT NULL,
+    balance NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP,
+    CONSTRAINT uk_account_balance_shards_account_shard UNIQUE (account_id, shard_no)
+);
@@ -0,0 +1,16 @@
+-- Durable tier of the Idempotency-Key store for transfers, deposits and withdrawals
+
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    id BIGSERIAL PRIMARY KEY,
+    idempotency_key VARCHAR(100) NOT NULL,
+    operation VARCHAR(50) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    idempotency_status VARCHAR(20) NOT NULL,
+    http_status INT,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL,
+    expires_at TIMESTAMP NOT NULL,
+    CONSTRAINT uk_idempotency_keys_key_operation UNIQUE (idempotency_key, operation)
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
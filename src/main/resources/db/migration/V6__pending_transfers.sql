@@ -0,0 +1,22 @@
+-- Durable queue behind POST /api/v1/transfers/async
+
+CREATE TABLE IF NOT EXISTS pending_transfers (
+    id BIGSERIAL PRIMARY KEY,
+    transfer_id VARCHAR(40) NOT NULL UNIQUE,
+    from_account_number VARCHAR(255) NOT NULL,
+    to_account_number VARCHAR(255) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    description VARCHAR(500),
+    callback_url VARCHAR(2000),
+    transfer_status VARCHAR(20) NOT NULL,
+    error_message VARCHAR(1000),
+    attempts INTEGER NOT NULL DEFAULT 0,
+    outgoing_transaction_id VARCHAR(255),
+    incoming_transaction_id VARCHAR(255),
+    from_balance_after NUMERIC(19, 2),
+    to_balance_after NUMERIC(19, 2),
+    created_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_pending_transfers_status_created ON pending_transfers(transfer_status, created_at);
@@ -0,0 +1,7 @@
+-- Block allocation of account numbers (one row per bank code) and customer IDs
+
+CREATE TABLE IF NOT EXISTS number_sequences (
+    sequence_name VARCHAR(100) PRIMARY KEY,
+    next_value BIGINT NOT NULL,
+    updated_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,52 @@
+-- Pooled sequences for entity IDs, replacing IDENTITY so Hibernate can batch inserts.
+-- INCREMENT BY must equal banking.ids.allocation-size: each nextval reserves that many IDs (pooled-lo),
+-- so change both together (ALTER SEQUENCE ... INCREMENT BY n). Each sequence starts after the current
+-- maximum ID. The old identity/serial defaults are dropped at the end so every ID comes from the pooled
+-- sequence; an INSERT that omits the ID now fails instead of drawing from a second, diverging source.
+
+CREATE SEQUENCE IF NOT EXISTS persons_seq INCREMENT BY 50;
+SELECT setval('persons_seq', COALESCE((SELECT MAX(id) FROM persons), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS banks_seq INCREMENT BY 50;
+SELECT setval('banks_seq', COALESCE((SELECT MAX(id) FROM banks), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS account_holders_seq INCREMENT BY 50;
+SELECT setval('account_holders_seq', COALESCE((SELECT MAX(id) FROM account_holders), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS accounts_seq INCREMENT BY 50;
+SELECT setval('accounts_seq', COALESCE((SELECT MAX(id) FROM accounts), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS transactions_seq INCREMENT BY 50;
+SELECT setval('transactions_seq', COALESCE((SELECT MAX(id) FROM transactions), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS account_balance_shards_seq INCREMENT BY 50;
+SELECT setval('account_balance_shards_seq', COALESCE((SELECT MAX(id) FROM account_balance_shards), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS idempotency_keys_seq INCREMENT BY 50;
+SELECT setval('idempotency_keys_seq', COALESCE((SELECT MAX(id) FROM idempotency_keys), 0) + 1, false);
+
+CREATE SEQUENCE IF NOT EXISTS pending_transfers_seq INCREMENT BY 50;
+SELECT setval('pending_transfers_seq', COALESCE((SELECT MAX(id) FROM pending_transfers), 0) + 1, false);
+
+-- Drop the identity (created by Hibernate) or BIGSERIAL (V4-V6) defaults; each statement is a no-op when absent.
+ALTER TABLE persons ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE persons ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE banks ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE banks ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE account_holders ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE account_holders ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE accounts ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE accounts ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE transactions ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE transactions ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE account_balance_shards ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE account_balance_shards ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE idempotency_keys ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE idempotency_keys ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE pending_transfers ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE pending_transfers ALTER COLUMN id DROP DEFAULT;
+
+-- The sequences behind the BIGSERIAL columns are no longer referenced.
+DROP SEQUENCE IF EXISTS account_balance_shards_id_seq;
+DROP SEQUENCE IF EXISTS idempotency_keys_id_seq;
+DROP SEQUENCE IF EXISTS pending_transfers_id_seq;
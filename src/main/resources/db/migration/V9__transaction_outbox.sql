@@ -0,0 +1,21 @@
+-- Transaction notifications written in the same database transaction as the transaction rows
+
+CREATE SEQUENCE IF NOT EXISTS transaction_outbox_seq INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS transaction_outbox (
+    id BIGINT PRIMARY KEY,
+    transaction_id VARCHAR(255) NOT NULL,
+    account_number VARCHAR(255) NOT NULL,
+    transaction_type VARCHAR(50) NOT NULL,
+    amount NUMERIC(19, 2) NOT NULL,
+    balance_after NUMERIC(19, 2),
+    transaction_date TIMESTAMP NOT NULL,
+    event_status VARCHAR(20) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL,
+    last_error VARCHAR(1000),
+    created_at TIMESTAMP NOT NULL,
+    delivered_at TIMESTAMP
+);
+
+CREATE INDEX IF NOT EXISTS idx_transaction_outbox_status_next ON transaction_outbox(event_status, next_attempt_at);
@@ -0,0 +1,91 @@
+package com.eomaxl.bankapplication.config;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CacheConfigTest {
+
+    private final CachingProperties properties = new CachingProperties();
+    private final AtomicReference<Object> loaded = new AtomicReference<>();
+
+    @Test
+    void cacheIsBoundedByItsOwnSpec() {
+        CachingProperties.Spec banks = new CachingProperties.Spec();
+        banks.setMaximumSize(2L);
+        properties.getSpecs().put(CacheConfig.BANKS, banks);
+        Cache cache = cacheManager().getCache(CacheConfig.BANKS);
+
+        for (long id = 0; id < 50; id++) {
+            cache.put(id, "bank " + id);
+        }
+
+        com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine = caffeine(cache);
+        caffeine.cleanUp();
+        assertThat(caffeine.estimatedSize()).isLessThanOrEqualTo(2);
+        // Fields the spec leaves out come from the defaults
+        assertThat(properties.specFor(CacheConfig.BANKS).getExpireAfterWrite())
+                .isEqualTo(properties.getDefaults().getExpireAfterWrite());
+    }
+
+    @Test
+    void cacheWithALoaderLoadsMissesThroughIt() {
+        loaded.set("committed");
+
+        assertThat(cacheManager().getCache(CacheConfig.BALANCES).get("ACC1").get()).isEqualTo("committed");
+    }
+
+    @Test
+    void staleEntryIsRefreshedAndKeptWhenTheReloadFails() throws InterruptedException {
+        CachingProperties.Spec balances = new CachingProperties.Spec();
+        balances.setRefreshAfterWrite(Duration.ofMillis(20));
+        properties.getSpecs().put(CacheConfig.BALANCES, balances);
+        Cache cache = cacheManager().getCache(CacheConfig.BALANCES);
+        cache.put("ACC1", "first");
+
+        // The reload runs on the calling thread here and throws, the entry it would replace stays
+        loaded.set(new IllegalStateException("database unavailable"));
+        Thread.sleep(50);
+        assertThat(cache.get("ACC1").get()).isEqualTo("first");
+        assertThat(cache.get("ACC1").get()).isEqualTo("first");
+
+        loaded.set("second");
+        Thread.sleep(50);
+        cache.get("ACC1");
+        assertThat(cache.get("ACC1").get()).isEqualTo("second");
+    }
+
+    @Test
+    void cacheNotConfiguredIsCreatedWithTheDefaults() {
+        assertThat(cacheManager().getCache("reports")).isNotNull();
+    }
+
+    private CacheManager cacheManager() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("balanceLoader", new NamedCacheLoader() {
+            @Override
+            public String cacheName() {
+                return CacheConfig.BALANCES;
+            }
+
+            @Override
+            public Object load(Object key) {
+                if (loaded.get() instanceof RuntimeException failure) {
+                    throw failure;
+                }
+                return loaded.get();
+            }
+        }));
+        return new CacheConfig().cacheManager(properties, beans.getBeanProvider(NamedCacheLoader.class), Runnable::run);
+    }
+
+    private static com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine(Cache cache) {
+        return (com.github.benmanes.caffeine.cache.Cache<?, ?>) cache.getNativeCache();
+    }
+}
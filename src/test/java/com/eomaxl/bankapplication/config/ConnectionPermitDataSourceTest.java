@@ -0,0 +1,104 @@
+package com.eomaxl.bankapplication.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.SQLTransientConnectionException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ConnectionPermitDataSourceTest {
+
+    private final DataSource pool = mock(DataSource.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+    @Test
+    void connectionBeyondThePermitsTimesOutWithATransientError() throws SQLException {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(pool, 2, 50, meterRegistry);
+
+        Connection first = dataSource.getConnection();
+        dataSource.getConnection();
+
+        assertThatThrownBy(dataSource::getConnection).isInstanceOf(SQLTransientConnectionException.class);
+
+        first.close();
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+
+    @Test
+    void waitingThreadGetsTheConnectionReleasedByAnother() throws Exception {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(pool, 1, 5000, meterRegistry);
+        Connection held = dataSource.getConnection();
+
+        CompletableFuture<Connection> waiting = CompletableFuture.supplyAsync(() -> {
+            try {
+                return dataSource.getConnection();
+            } catch (SQLException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> meterRegistry.get("banking.db.permits.waiting").gauge().value() == 1);
+        assertThat(waiting).isNotDone();
+
+        held.close();
+
+        assertThat(waiting.get(5, TimeUnit.SECONDS)).isNotNull();
+    }
+
+    @Test
+    void closingAConnectionTwiceReturnsOnePermit() throws SQLException {
+        when(pool.getConnection()).thenAnswer(invocation -> mock(Connection.class));
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(pool, 2, 50, meterRegistry);
+        dataSource.getConnection();
+        Connection closedTwice = dataSource.getConnection();
+
+        closedTwice.close();
+        closedTwice.close();
+
+        assertThat(meterRegistry.get("banking.db.permits.available").gauge().value()).isEqualTo(1);
+    }
+
+    @Test
+    void failedCheckoutReturnsItsPermit() throws SQLException {
+        AtomicBoolean poolFails = new AtomicBoolean(true);
+        when(pool.getConnection()).thenAnswer(invocation -> {
+            if (poolFails.get()) {
+                throw new SQLException("connection refused");
+            }
+            return mock(Connection.class);
+        });
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(pool, 1, 50, meterRegistry);
+
+        assertThatThrownBy(dataSource::getConnection).hasMessage("connection refused");
+
+        poolFails.set(false);
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+
+    @Test
+    void closeFailureStillReturnsThePermit() throws SQLException {
+        Connection broken = mock(Connection.class);
+        doThrow(new SQLException("socket closed")).when(broken).close();
+        when(pool.getConnection()).thenReturn(broken);
+        ConnectionPermitDataSource dataSource = new ConnectionPermitDataSource(pool, 1, 50, meterRegistry);
+
+        Connection connection = dataSource.getConnection();
+        assertThatThrownBy(connection::close).hasMessage("socket closed");
+
+        assertThat(dataSource.getConnection()).isNotNull();
+    }
+}
@@ -0,0 +1,107 @@
+package com.eomaxl.bankapplication.config;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.concurrent.ConcurrentMapCache;
+import org.springframework.data.redis.RedisConnectionFailureException;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class TwoTierCacheTest {
+
+    private static final BinaryOperator<Object> NEWER =
+            (current, candidate) -> (Integer) current > (Integer) candidate ? current : candidate;
+
+    private final ConcurrentMapCache shared = new ConcurrentMapCache("balances", false);
+    private final List<Object> invalidations = new ArrayList<>();
+
+    @Test
+    void mergeDeletesTheSharedEntryInsteadOfOverwritingIt() {
+        TwoTierCache cache = cache(shared, key -> 7);
+        shared.put("ACC1", 5);
+
+        cache.merge("ACC1", 6, NEWER);
+
+        assertThat(shared.get("ACC1")).isNull();
+        assertThat(cache.getNearCache().getIfPresent("ACC1")).isEqualTo(6);
+        assertThat(invalidations).containsExactly("ACC1");
+    }
+
+    @Test
+    void lateMergeOfAnOlderValueCannotPutItInTheSharedTier() {
+        TwoTierCache first = cache(shared, key -> 2);
+        TwoTierCache second = cache(shared, key -> 2);
+        first.merge("ACC1", 2, NEWER);
+
+        // The other instance's commit callback for version 1 runs last
+        second.merge("ACC1", 1, NEWER);
+
+        assertThat(shared.get("ACC1")).isNull();
+        TwoTierCache third = cache(shared, key -> 2);
+        assertThat(third.get("ACC1", Integer.class)).isEqualTo(2);
+        assertThat(shared.get("ACC1").get()).isEqualTo(2);
+    }
+
+    @Test
+    void mergeKeepsTheNewerNearEntry() {
+        TwoTierCache cache = cache(shared, null);
+        cache.merge("ACC1", 3, NEWER);
+
+        cache.merge("ACC1", 2, NEWER);
+
+        assertThat(cache.getNearCache().getIfPresent("ACC1")).isEqualTo(3);
+    }
+
+    @Test
+    void loadsDoNotReplaceAnEntryWrittenToTheSharedTierMeanwhile() {
+        TwoTierCache cache = cache(shared, key -> {
+            // Another instance writes while this one is loading
+            shared.put(key, 9);
+            return 8;
+        });
+
+        assertThat(cache.get("ACC1", Integer.class)).isEqualTo(8);
+        assertThat(shared.get("ACC1").get()).isEqualTo(9);
+    }
+
+    @Test
+    void unreachableSharedTierDegradesToTheNearTier() {
+        Cache down = mock(Cache.class, invocation -> {
+            throw new RedisConnectionFailureException("connection refused");
+        });
+        TwoTierCache cache = cache(down, key -> 4);
+
+        assertThat(cache.get("ACC1", Integer.class)).isEqualTo(4);
+
+        cache.merge("ACC1", 5, NEWER);
+        assertThat(cache.get("ACC1", Integer.class)).isEqualTo(5);
+
+        cache.put("ACC2", 1);
+        cache.evict("ACC1");
+        assertThat(cache.evictIfPresent("ACC2")).isTrue();
+        cache.clear();
+        assertThat(invalidations).containsExactly("ACC1", "ACC2", "ACC1", "ACC2", null);
+    }
+
+    private TwoTierCache cache(Cache sharedTier, Function<Object, Object> load) {
+        NamedCacheLoader loader = load == null ? null : new NamedCacheLoader() {
+            @Override
+            public String cacheName() {
+                return "balances";
+            }
+
+            @Override
+            public Object load(Object key) {
+                return load.apply(key);
+            }
+        };
+        return new TwoTierCache("balances", Caffeine.newBuilder().build(), sharedTier, loader, invalidations::add);
+    }
+}
@@ -0,0 +1,143 @@
+package com.eomaxl.bankapplication.controller;
+
+import com.eomaxl.bankapplication.config.ExportProperties;
+import com.eomaxl.bankapplication.domain.exception.ExportCapacityException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.StatementFormat;
+import com.eomaxl.bankapplication.exception.GlobalExceptionHandler;
+import com.eomaxl.bankapplication.service.IAccountService;
+import com.eomaxl.bankapplication.service.IIdempotencyService;
+import com.eomaxl.bankapplication.service.ITransactionService;
+import com.eomaxl.bankapplication.service.impl.ShardedBalanceService;
+import com.eomaxl.bankapplication.service.impl.StatementExporter;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.web.MockAsyncContext;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.request.async.AsyncRequestTimeoutException;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class AccountControllerExportTest {
+
+    private static final String EXPORT_URL = "/api/v1/accounts/ACC1/statement/export";
+
+    private final IAccountService accountService = mock(IAccountService.class);
+    private final StatementExporter statementExporter = mock(StatementExporter.class);
+    private final StatementExporter.Slot slot = mock(StatementExporter.Slot.class);
+    private final ExportProperties exportProperties = new ExportProperties();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        exportProperties.setTimeoutMs(5000);
+        AccountController controller = new AccountController(accountService, mock(ITransactionService.class),
+                mock(IIdempotencyService.class), statementExporter, exportProperties,
+                mock(ShardedBalanceService.class), null);
+        mockMvc = MockMvcBuilders.standaloneSetup(controller)
+                .setControllerAdvice(new GlobalExceptionHandler())
+                .build();
+        when(accountService.getAccountByNumber("ACC1")).thenReturn(Account.builder().id(1).accountNumber("ACC1").build());
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+    }
+
+    @Test
+    void exportIsRejectedWith429WhenEverySlotIsTaken() throws Exception {
+        when(statementExporter.reserve()).thenThrow(new ExportCapacityException(4));
+
+        mockMvc.perform(get(EXPORT_URL))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(jsonPath("$.errorCode").value("EXPORT_CAPACITY_EXCEEDED"));
+    }
+
+    @Test
+    void exportStreamsThroughItsSlotWithTheEndpointTimeout() throws Exception {
+        when(statementExporter.reserve()).thenReturn(slot);
+        doAnswer(invocation -> {
+            OutputStream out = invocation.getArgument(4);
+            out.write("transactionId\r\nTXN1\r\n".getBytes(StandardCharsets.UTF_8));
+            return 1L;
+        }).when(slot).export(anyLong(), any(), any(), eq(StatementFormat.CSV), any());
+
+        MvcResult result = mockMvc.perform(get(EXPORT_URL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        assertThat(result.getRequest().getAsyncContext().getTimeout()).isEqualTo(5000);
+
+        mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType("text/csv"))
+                .andExpect(content().string("transactionId\r\nTXN1\r\n"));
+    }
+
+    @Test
+    void timedOutExportIsCancelled() throws Exception {
+        when(statementExporter.reserve()).thenReturn(slot);
+        // Like a query stuck on the socket, the export does not react to the interrupt Spring sends on timeout
+        doAnswer(invocation -> {
+            while (release.getCount() > 0) {
+                try {
+                    release.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException ignored) {
+                    // keep waiting
+                }
+            }
+            return 0L;
+        }).when(slot).export(anyLong(), any(), any(), any(), any());
+
+        MvcResult result = mockMvc.perform(get(EXPORT_URL))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        MockAsyncContext asyncContext = (MockAsyncContext) result.getRequest().getAsyncContext();
+        for (AsyncListener listener : asyncContext.getListeners()) {
+            listener.onTimeout(new AsyncEvent(asyncContext));
+        }
+
+        verify(slot).cancel();
+        assertThat(WebAsyncUtils.getAsyncManager(result.getRequest()).getConcurrentResult())
+                .isInstanceOf(AsyncRequestTimeoutException.class);
+    }
+
+    @Test
+    void timeoutIsAnsweredWith503UnlessTheBodyHasStarted() {
+        GlobalExceptionHandler handler = new GlobalExceptionHandler();
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(handler.handleAsyncRequestTimeoutException(new AsyncRequestTimeoutException(), response)
+                .getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+
+        response.setCommitted(true);
+        assertThat(handler.handleAsyncRequestTimeoutException(new AsyncRequestTimeoutException(), response)).isNull();
+    }
+}
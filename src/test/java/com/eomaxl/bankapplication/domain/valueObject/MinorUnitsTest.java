@@ -0,0 +1,66 @@
+package com.eomaxl.bankapplication.domain.valueObject;
+
+import com.eomaxl.bankapplication.dto.request.DepositRequest;
+import jakarta.validation.Validation;
+import jakarta.validation.Validator;
+import jakarta.validation.ValidatorFactory;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MinorUnitsTest {
+
+    private static ValidatorFactory validatorFactory;
+    private static Validator validator;
+
+    @BeforeAll
+    static void setUpValidator() {
+        validatorFactory = Validation.buildDefaultValidatorFactory();
+        validator = validatorFactory.getValidator();
+    }
+
+    @AfterAll
+    static void closeValidator() {
+        validatorFactory.close();
+    }
+
+    @Test
+    void convertsAmountsAtOrBelowTheColumnScale() {
+        assertThat(MinorUnits.of(new BigDecimal("10"))).isEqualTo(1000L);
+        assertThat(MinorUnits.of(new BigDecimal("10.5"))).isEqualTo(1050L);
+        assertThat(MinorUnits.of(new BigDecimal("10.01"))).isEqualTo(1001L);
+        assertThat(MinorUnits.of(new BigDecimal("10.0100"))).isEqualTo(1001L);
+        assertThat(MinorUnits.toBigDecimal(1001L)).isEqualByComparingTo("10.01");
+    }
+
+    @Test
+    void rejectsAmountsThatWouldNeedRounding() {
+        assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("10.005")))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessageContaining("10.005");
+        assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("0.001")))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void overflowRaisesInsteadOfWrapping() {
+        assertThatThrownBy(() -> MinorUnits.of(new BigDecimal("92233720368547758.08")))
+                .isInstanceOf(ArithmeticException.class);
+        assertThatThrownBy(() -> MinorUnits.add(Long.MAX_VALUE, 1L))
+                .isInstanceOf(ArithmeticException.class);
+    }
+
+    @Test
+    void requestValidationRejectsMoreThanTwoDecimals() {
+        assertThat(validator.validate(DepositRequest.builder().amount(new BigDecimal("10.005")).build()))
+                .extracting(violation -> violation.getPropertyPath().toString())
+                .containsExactly("amount");
+        assertThat(validator.validate(DepositRequest.builder().amount(new BigDecimal("10.05")).build()))
+                .isEmpty();
+    }
+}
@@ -0,0 +1,79 @@
+package com.eomaxl.bankapplication.repository;
+
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.projection.BalanceChange;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+class AccountRepositoryTest {
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO banks (id, bank_name, bank_code) VALUES (1, 'Test Bank', 'TB01')");
+        jdbcTemplate.update("INSERT INTO persons (id, first_name, last_name, email) VALUES (1, 'Test', 'Person', 'test@example.com')");
+        jdbcTemplate.update("INSERT INTO account_holders (id, person_id, customer_id) VALUES (1, 1, 'CUST1')");
+        insertAccount(1, "ACC1", "100.00", "ACTIVE");
+        insertAccount(2, "ACC2", "100.00", "SUSPENDED");
+    }
+
+    @Test
+    void guardedCreditReturnsTheUpdatedRow() {
+        LocalDateTime now = LocalDateTime.now();
+
+        Optional<BalanceChange> change = accountRepository.creditIfActive("ACC1", new BigDecimal("25.50"), now);
+
+        assertThat(change).hasValueSatisfying(row -> {
+            assertThat(row.id()).isEqualTo(1L);
+            assertThat(row.accountNumber()).isEqualTo("ACC1");
+            assertThat(row.balance()).isEqualByComparingTo("125.50");
+            assertThat(row.version()).isEqualTo(1L);
+            assertThat(row.accountType()).isEqualTo(AccountType.SAVINGS);
+            assertThat(row.status()).isEqualTo(AccountStatus.ACTIVE);
+            assertThat(row.bankId()).isEqualTo(1L);
+            assertThat(row.accountHolderId()).isEqualTo(1L);
+        });
+
+        Account account = accountRepository.toAccount(change.get());
+        assertThat(account.getBalance()).isEqualByComparingTo("125.50");
+        assertThat(account.getVersion()).isEqualTo(1L);
+        assertThat(account.getBank().getId()).isEqualTo(1L);
+    }
+
+    @Test
+    void guardedDebitMatchesNoRowWhenFundsOrStatusFail() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThat(accountRepository.debitIfActiveAndCovered("ACC1", new BigDecimal("100.01"), now)).isEmpty();
+        assertThat(accountRepository.debitIfActiveAndCovered("ACC2", BigDecimal.ONE, now)).isEmpty();
+        assertThat(accountRepository.creditIfActive("ACC2", BigDecimal.ONE, now)).isEmpty();
+
+        assertThat(accountRepository.debitIfActiveAndCovered("ACC1", new BigDecimal("100.00"), now))
+                .hasValueSatisfying(row -> assertThat(row.balance()).isEqualByComparingTo("0.00"));
+    }
+
+    private void insertAccount(long id, String accountNumber, String balance, String status) {
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, account_type, account_status, bank_id, "
+                        + "account_holder_id, created_at, updated_at, version) VALUES (?, ?, ?, 'SAVINGS', ?, 1, 1, ?, ?, 0)",
+                id, accountNumber, new BigDecimal(balance), status, LocalDateTime.now(), LocalDateTime.now());
+    }
+}
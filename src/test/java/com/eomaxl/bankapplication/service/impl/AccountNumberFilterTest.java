@@ -0,0 +1,138 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.AccountFilterProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AccountNumberFilterTest {
+
+    private final AccountFilterProperties properties = new AccountFilterProperties();
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final List<String> existing = Collections.synchronizedList(new ArrayList<>());
+    private final AccountNumberFilter filter;
+
+    AccountNumberFilterTest() {
+        properties.setExpectedAccounts(10_000);
+        when(jdbcTemplate.queryForObject(anyString(), eq(Long.class))).thenAnswer(invocation -> (long) existing.size());
+        filter = new AccountNumberFilter(properties, jdbcTemplate, mock(PlatformTransactionManager.class),
+                new SimpleMeterRegistry());
+    }
+
+    @Test
+    void everyNumberPassesUntilTheFirstBuild() {
+        assertThat(filter.isDefinitelyAbsent("ACC404")).isFalse();
+    }
+
+    @Test
+    void filterIsBuiltBeforeTheApplicationTakesTraffic() {
+        existing.add("ACC1");
+        scanRunning(() -> { });
+
+        // Spring Boot reports the application ready once the ApplicationReadyEvent listeners return
+        filter.start();
+        try {
+            assertThat(filter.mightContain("ACC1")).isTrue();
+            assertThat(filter.isDefinitelyAbsent("ACC404")).isTrue();
+        } finally {
+            filter.stop();
+        }
+    }
+
+    @Test
+    void numbersAddedDuringTheScanSurviveTheSwap() {
+        existing.add("ACC1");
+        scanRunning(() -> filter.add("ACC2"));
+
+        filter.rebuild();
+
+        assertThat(filter.mightContain("ACC1")).isTrue();
+        assertThat(filter.mightContain("ACC2")).isTrue();
+    }
+
+    @Test
+    void failedRebuildKeepsTheCurrentFilter() {
+        existing.add("ACC1");
+        scanRunning(() -> { });
+        filter.rebuild();
+        doThrow(new IllegalStateException("connection reset"))
+                .when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+
+        assertThatThrownBy(filter::rebuild).isInstanceOf(IllegalStateException.class);
+
+        filter.add("ACC2");
+        assertThat(filter.mightContain("ACC1")).isTrue();
+        assertThat(filter.mightContain("ACC2")).isTrue();
+    }
+
+    @Test
+    void noAddIsLostWhileFiltersAreSwapped() throws Exception {
+        scanRunning(() -> { });
+        filter.rebuild();
+        CountDownLatch adderStarted = new CountDownLatch(1);
+        AtomicBoolean adding = new AtomicBoolean(true);
+        int added = 20_000;
+
+        Thread rebuilder = new Thread(() -> {
+            try {
+                adderStarted.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+            while (adding.get()) {
+                filter.rebuild();
+            }
+        });
+        rebuilder.start();
+        adderStarted.countDown();
+        for (int i = 0; i < added; i++) {
+            // Committed first, so a rebuild starting later finds the number in its scan
+            existing.add("ACC" + i);
+            filter.add("ACC" + i);
+        }
+        adding.set(false);
+        rebuilder.join(TimeUnit.SECONDS.toMillis(10));
+
+        for (int i = 0; i < added; i++) {
+            assertThat(filter.mightContain("ACC" + i)).as("ACC" + i).isTrue();
+        }
+    }
+
+    private void scanRunning(Runnable duringScan) {
+        doAnswer(invocation -> {
+            List<String> snapshot;
+            synchronized (existing) {
+                snapshot = List.copyOf(existing);
+            }
+            duringScan.run();
+            RowCallbackHandler handler = invocation.getArgument(1);
+            for (String accountNumber : snapshot) {
+                ResultSet row = mock(ResultSet.class);
+                when(row.getString(1)).thenReturn(accountNumber);
+                handler.processRow(row);
+            }
+            return null;
+        }).when(jdbcTemplate).query(anyString(), any(RowCallbackHandler.class));
+    }
+}
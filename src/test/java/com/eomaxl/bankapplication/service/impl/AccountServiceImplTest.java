@@ -0,0 +1,83 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.BalanceUpdateMode;
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.config.ConcurrencyProperties;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.service.IAccountHolderService;
+import com.eomaxl.bankapplication.service.IBankService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AccountServiceImplTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final BalanceUpdater conditional = updater(BalanceUpdateMode.CONDITIONAL);
+    private final BalanceUpdater pessimistic = updater(BalanceUpdateMode.PESSIMISTIC);
+    private final ConcurrencyProperties concurrencyProperties = new ConcurrencyProperties();
+    private AccountServiceImpl accountService;
+
+    @BeforeEach
+    void setUp() {
+        concurrencyProperties.setDefaultMode(BalanceUpdateMode.CONDITIONAL);
+        concurrencyProperties.getModes().put(AccountType.BUSINESS, BalanceUpdateMode.PESSIMISTIC);
+        when(accountRepository.findAccountTypeByAccountNumber("BIZ1")).thenReturn(Optional.of(AccountType.BUSINESS));
+        when(accountRepository.findAccountTypeByAccountNumber("SAV1")).thenReturn(Optional.of(AccountType.SAVINGS));
+
+        accountService = new AccountServiceImpl(accountRepository, mock(IBankService.class),
+                mock(IAccountHolderService.class), concurrencyProperties, List.of(conditional, pessimistic),
+                mock(ShardedBalanceService.class), mock(BusinessNumberGenerator.class), mock(BalanceCache.class),
+                mock(AccountNumberFilter.class),
+                new ConcurrencyRetry(concurrencyProperties, mock(PlatformTransactionManager.class)),
+                new ConcurrentMapCacheManager(CacheConfig.ACCOUNT_TYPES));
+    }
+
+    @Test
+    void accountTypeIsLookedUpOncePerAccount() {
+        for (int i = 0; i < 3; i++) {
+            accountService.credit("BIZ1", BigDecimal.TEN, "deposit");
+            accountService.debit("SAV1", BigDecimal.ONE, "withdrawal");
+        }
+
+        verify(accountRepository, times(1)).findAccountTypeByAccountNumber("BIZ1");
+        verify(accountRepository, times(1)).findAccountTypeByAccountNumber("SAV1");
+        verify(pessimistic, times(3)).credit("BIZ1", BigDecimal.TEN);
+        verify(conditional, times(3)).debit("SAV1", BigDecimal.ONE);
+    }
+
+    @Test
+    void uniformModesNeedNoTypeLookup() {
+        concurrencyProperties.getModes().clear();
+
+        accountService.credit("BIZ1", BigDecimal.TEN, "deposit");
+
+        verify(accountRepository, never()).findAccountTypeByAccountNumber("BIZ1");
+        verify(conditional).credit("BIZ1", BigDecimal.TEN);
+    }
+
+    @Test
+    void transferUsesTheStricterModeOfBothAccounts() {
+        accountService.transfer("SAV1", "BIZ1", BigDecimal.ONE, "transfer");
+
+        verify(pessimistic).transfer("SAV1", "BIZ1", BigDecimal.ONE);
+    }
+
+    private static BalanceUpdater updater(BalanceUpdateMode mode) {
+        BalanceUpdater updater = mock(BalanceUpdater.class);
+        when(updater.mode()).thenReturn(mode);
+        return updater;
+    }
+}
@@ -0,0 +1,104 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.AsyncTransferProperties;
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.PendingTransfer;
+import com.eomaxl.bankapplication.domain.model.PendingTransferStatus;
+import com.eomaxl.bankapplication.repository.PendingTransferRepository;
+import com.eomaxl.bankapplication.service.IAccountService;
+import com.eomaxl.bankapplication.service.ITransactionService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class AsyncTransferServiceImplTest {
+
+    private final PendingTransferRepository repository = mock(PendingTransferRepository.class);
+    private final ITransactionService transactionService = mock(ITransactionService.class);
+    private final AsyncTransferProperties properties = new AsyncTransferProperties();
+    private final AsyncTransferServiceImpl service = new AsyncTransferServiceImpl(repository,
+            mock(IAccountService.class), transactionService, null, Runnable::run, Runnable::run,
+            mock(PlatformTransactionManager.class), properties, new CallbackUrlPolicy(properties));
+
+    private final LocalDateTime before = LocalDateTime.now();
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void transientFailureIsRetriedOnlyAfterABackoff() {
+        PendingTransfer pending = failOnce(new QueryTimeoutException("lock timeout"));
+
+        assertThat(pending.getStatus()).isEqualTo(PendingTransferStatus.QUEUED);
+        assertThat(pending.getAttempts()).isEqualTo(1);
+        assertThat(pending.getNextAttemptAt()).isAfter(before.plusNanos(properties.getRetryInitialBackoffMs() * 400_000));
+    }
+
+    @Test
+    void lostBalanceRaceIsRetriedRatherThanFailed() {
+        PendingTransfer pending = failOnce(new ConcurrentUpdateException("ACC1"));
+
+        assertThat(pending.getStatus()).isEqualTo(PendingTransferStatus.QUEUED);
+        assertThat(pending.getNextAttemptAt()).isNotNull();
+    }
+
+    @Test
+    void rejectedTransferFailsWithoutRetry() {
+        PendingTransfer pending = failOnce(new InsufficientFundsException("ACC1", BigDecimal.TEN, BigDecimal.ONE));
+
+        assertThat(pending.getStatus()).isEqualTo(PendingTransferStatus.FAILED);
+        assertThat(pending.getNextAttemptAt()).isNull();
+    }
+
+    @Test
+    void backoffDoublesPerAttemptUpToTheMaximum() {
+        properties.setRetryInitialBackoffMs(1000);
+        properties.setRetryMaxBackoffMs(8000);
+
+        assertThat(service.backoffMs(1)).isBetween(500L, 1000L);
+        assertThat(service.backoffMs(3)).isBetween(2000L, 4000L);
+        assertThat(service.backoffMs(10)).isBetween(4000L, 8000L);
+        assertThat(service.backoffMs(Integer.MAX_VALUE)).isBetween(4000L, 8000L);
+    }
+
+    private PendingTransfer failOnce(RuntimeException failure) {
+        PendingTransfer pending = PendingTransfer.builder()
+                .id(1L)
+                .transferId("TRF1")
+                .fromAccountNumber("ACC1")
+                .toAccountNumber("ACC2")
+                .amount(BigDecimal.TEN)
+                .status(PendingTransferStatus.QUEUED)
+                .createdAt(LocalDateTime.now())
+                .build();
+        when(repository.findDueIdsByStatus(eq(PendingTransferStatus.QUEUED), any(), any()))
+                .thenReturn(List.of(1L), List.of());
+        when(repository.findByIdWithLock(1L)).thenReturn(Optional.of(pending));
+        when(transactionService.transfer(anyString(), anyString(), any(), any())).thenThrow(failure);
+
+        service.startDispatcher();
+
+        // The failure is recorded last as the next attempt time when retried, or as the final status
+        await().atMost(5, TimeUnit.SECONDS).until(() ->
+                pending.getNextAttemptAt() != null || pending.getStatus() == PendingTransferStatus.FAILED);
+        return pending;
+    }
+}
@@ -0,0 +1,107 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BalanceCacheTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final CaffeineCacheManager cacheManager = new CaffeineCacheManager(CacheConfig.ACCOUNTS, CacheConfig.BALANCES);
+    private BalanceCache balanceCache;
+
+    @BeforeEach
+    void setUp() {
+        balanceCache = new BalanceCache(cacheManager, accountRepository);
+        row("100.00", 1);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void changeIsCachedOnlyOnceItsTransactionCommits() {
+        assertThat(balanceCache.getBalance("ACC1")).contains(new BigDecimal("100.00"));
+
+        TransactionSynchronizationManager.initSynchronization();
+        balanceCache.afterCommit("ACC1", new BigDecimal("60.00"), 2);
+        // Inside the writing transaction the row is read again, the cached entry is still the committed one
+        row("60.00", 2);
+        assertThat(balanceCache.getBalance("ACC1")).contains(new BigDecimal("60.00"));
+        assertThat(cachedBalance()).isEqualByComparingTo("100.00");
+
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        assertThat(cachedBalance()).isEqualByComparingTo("60.00");
+    }
+
+    @Test
+    void rolledBackChangeEvictsInsteadOfCaching() {
+        balanceCache.getBalance("ACC1");
+
+        TransactionSynchronizationManager.initSynchronization();
+        balanceCache.afterCommit("ACC1", new BigDecimal("60.00"), 2);
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        assertThat(cacheManager.getCache(CacheConfig.BALANCES).get("ACC1")).isNull();
+        assertThat(balanceCache.getBalance("ACC1")).contains(new BigDecimal("100.00"));
+    }
+
+    @Test
+    void commitCallbacksRunningOutOfOrderKeepTheNewestVersion() {
+        balanceCache.afterCommit("ACC1", new BigDecimal("40.00"), 3);
+        balanceCache.afterCommit("ACC1", new BigDecimal("60.00"), 2);
+
+        assertThat(cachedBalance()).isEqualByComparingTo("40.00");
+        assertThat(balanceCache.getBalance("ACC1")).contains(new BigDecimal("40.00"));
+    }
+
+    @Test
+    void cacheFailureAfterCommitDoesNotReachTheCaller() {
+        CacheManager failing = mock(CacheManager.class);
+        when(failing.getCache(CacheConfig.ACCOUNTS)).thenThrow(new IllegalStateException("cache unavailable"));
+        BalanceCache cache = new BalanceCache(failing, accountRepository);
+
+        TransactionSynchronizationManager.initSynchronization();
+        cache.afterCommit("ACC1", new BigDecimal("60.00"), 2);
+
+        assertThatCode(() -> complete(TransactionSynchronization.STATUS_COMMITTED)).doesNotThrowAnyException();
+    }
+
+    private BigDecimal cachedBalance() {
+        return cacheManager.getCache(CacheConfig.BALANCES).get("ACC1", BalanceCache.CachedBalance.class).balance();
+    }
+
+    private void row(String balance, long version) {
+        when(accountRepository.findBalanceView("ACC1")).thenReturn(Optional.of(new AccountBalanceView(1L, "ACC1",
+                new BigDecimal(balance), version, AccountStatus.ACTIVE, AccountType.SAVINGS)));
+    }
+
+    private static void complete(int status) {
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            synchronization.afterCompletion(status);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+    }
+}
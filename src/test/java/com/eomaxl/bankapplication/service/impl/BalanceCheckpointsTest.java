@@ -0,0 +1,155 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CheckpointProperties;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.BalanceCheckpointRepository;
+import com.eomaxl.bankapplication.repository.NumberSequenceRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.projection.TransactionTotals;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BalanceCheckpointsTest {
+
+    private static final long ACCOUNT_ID = 1;
+    private static final LocalDate TODAY = LocalDate.now();
+
+    @Autowired
+    private BalanceCheckpointRepository checkpointRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private AccountRepository accountRepository;
+
+    @Autowired
+    private NumberSequenceRepository sequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final CheckpointProperties properties = new CheckpointProperties();
+    private long nextTransactionId = 1;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO banks (id, bank_name, bank_code) VALUES (1, 'Test Bank', 'TB01')");
+        jdbcTemplate.update("INSERT INTO persons (id, first_name, last_name, email) VALUES (1, 'Test', 'Person', 'test@example.com')");
+        jdbcTemplate.update("INSERT INTO account_holders (id, person_id, customer_id) VALUES (1, 1, 'CUST1')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, account_type, account_status, bank_id, "
+                        + "account_holder_id, created_at, updated_at, version) VALUES (1, 'ACC1', 85, 'SAVINGS', 'ACTIVE', 1, 1, ?, ?, 0)",
+                LocalDateTime.now(), LocalDateTime.now());
+
+        // Five closed days of a deposit and a withdrawal each on top of an opening balance of 50, and one failed debit
+        for (int daysAgo = 5; daysAgo >= 1; daysAgo--) {
+            LocalDate day = TODAY.minusDays(daysAgo);
+            insertTransaction("DEPOSIT", "COMPLETED", "10.00", day.atTime(9, 0), daysAgo == 5 ? "50.00" : null);
+            insertTransaction("WITHDRAWAL", "COMPLETED", "3.00", day.atTime(15, 0), null);
+        }
+        insertTransaction("WITHDRAWAL", "FAILED", "100.00", TODAY.minusDays(3).atTime(12, 0), null);
+
+        properties.setCloseAfterMinutes(0);
+        properties.setBackfillDays(10);
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : new String[]{"account_balance_checkpoints", "transactions", "number_sequences",
+                "accounts", "account_holders", "persons", "banks"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void readsFromCheckpointsMatchAFullScan() {
+        BalanceCheckpoints checkpoints = node(new SimpleMeterRegistry());
+        LocalDateTime periodStart = TODAY.minusDays(4).atStartOfDay();
+        LocalDateTime periodEnd = TODAY.minusDays(2).atTime(12, 0);
+        BigDecimal scannedBalance = checkpoints.balanceAsOf(ACCOUNT_ID, periodEnd);
+        TransactionTotals scannedTotals = checkpoints.totalsBetween(ACCOUNT_ID, periodStart, periodEnd);
+
+        checkpoints.checkpointClosedDays();
+
+        assertThat(checkpointRepository.count()).isEqualTo(5);
+        assertThat(scannedBalance).isEqualByComparingTo("81.00");
+        assertThat(checkpoints.balanceAsOf(ACCOUNT_ID, periodEnd)).isEqualByComparingTo(scannedBalance);
+        assertThat(checkpoints.balanceAsOf(ACCOUNT_ID, TODAY.atStartOfDay())).isEqualByComparingTo("85.00");
+        TransactionTotals totals = checkpoints.totalsBetween(ACCOUNT_ID, periodStart, periodEnd);
+        assertThat(totals.count()).isEqualTo(scannedTotals.count()).isEqualTo(6);
+        assertThat(totals.credits()).isEqualByComparingTo(scannedTotals.credits());
+        assertThat(totals.debits()).isEqualByComparingTo(scannedTotals.debits()).isEqualByComparingTo("106.00");
+        assertThat(totals.completedNet()).isEqualByComparingTo(scannedTotals.completedNet());
+    }
+
+    @Test
+    void backdatedWriteDropsTheCheckpointsItChanges() {
+        BalanceCheckpoints checkpoints = node(new SimpleMeterRegistry());
+        checkpoints.checkpointClosedDays();
+
+        LocalDateTime backdated = TODAY.minusDays(3).atTime(18, 0);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            insertTransaction("DEPOSIT", "COMPLETED", "20.00", backdated, null);
+            checkpoints.invalidate(ACCOUNT_ID, backdated);
+        });
+
+        assertThat(checkpointRepository.count()).isEqualTo(2);
+        assertThat(checkpoints.balanceAsOf(ACCOUNT_ID, TODAY.atStartOfDay())).isEqualByComparingTo("105.00");
+    }
+
+    @Test
+    void nodesRunningTogetherCheckpointEachDayOnce() throws Exception {
+        SimpleMeterRegistry firstRegistry = new SimpleMeterRegistry();
+        SimpleMeterRegistry secondRegistry = new SimpleMeterRegistry();
+        BalanceCheckpoints first = node(firstRegistry);
+        BalanceCheckpoints second = node(secondRegistry);
+
+        CompletableFuture.allOf(
+                CompletableFuture.runAsync(first::checkpointClosedDays),
+                CompletableFuture.runAsync(second::checkpointClosedDays)).get(30, TimeUnit.SECONDS);
+
+        assertThat(checkpointRepository.count()).isEqualTo(5);
+        assertThat(firstRegistry.counter("banking.checkpoints.written").count()
+                + secondRegistry.counter("banking.checkpoints.written").count()).isEqualTo(5);
+        assertThat(first.balanceAsOf(ACCOUNT_ID, TODAY.atStartOfDay())).isEqualByComparingTo("85.00");
+    }
+
+    private BalanceCheckpoints node(SimpleMeterRegistry meterRegistry) {
+        return new BalanceCheckpoints(checkpointRepository, transactionRepository, accountRepository,
+                sequenceRepository, transactionManager, properties, meterRegistry);
+    }
+
+    private void insertTransaction(String type, String status, String amount, LocalDateTime transactionDate,
+                                   String balanceBefore) {
+        long id = nextTransactionId++;
+        jdbcTemplate.update("INSERT INTO transactions (id, transaction_id, amount, transaction_type, transaction_status, "
+                        + "account_id, target_account_id, balance_before, transaction_date, created_at) "
+                        + "VALUES (?, ?, ?, ?, ?, 1, 1, ?, ?, ?)",
+                id, "TXN" + id, new BigDecimal(amount), type, status,
+                balanceBefore == null ? null : new BigDecimal(balanceBefore), transactionDate, transactionDate);
+    }
+}
@@ -0,0 +1,158 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.CacheConfig;
+import com.eomaxl.bankapplication.domain.model.Bank;
+import com.eomaxl.bankapplication.repository.BankRepository;
+import com.eomaxl.bankapplication.service.IBankService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.cache.transaction.TransactionAwareCacheManagerProxy;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.test.context.junit.jupiter.SpringJUnitConfig;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@SpringJUnitConfig(BankServiceImplCacheTest.Config.class)
+class BankServiceImplCacheTest {
+
+    @Autowired
+    private IBankService bankService;
+
+    @Autowired
+    private BankRepository bankRepository;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void setUp() {
+        reset(bankRepository);
+        cacheManager.getCacheNames().forEach(name -> cacheManager.getCache(name).clear());
+    }
+
+    @Test
+    void lookupsByIdAndCodeAreServedFromTheCache() {
+        Bank bank = bank("TB01");
+        when(bankRepository.findById(1L)).thenReturn(Optional.of(bank));
+        when(bankRepository.findByBankCode("TB01")).thenReturn(Optional.of(bank));
+
+        for (int i = 0; i < 3; i++) {
+            assertThat(bankService.findById(1L)).contains(bank);
+            assertThat(bankService.findByBankCode("TB01")).contains(bank);
+        }
+
+        verify(bankRepository, times(1)).findById(1L);
+        verify(bankRepository, times(1)).findByBankCode("TB01");
+    }
+
+    @Test
+    void missingBankIsNotCached() {
+        when(bankRepository.findByBankCode("TB01")).thenReturn(Optional.empty());
+        assertThat(bankService.findByBankCode("TB01")).isEmpty();
+
+        // Created afterwards, the next lookup has to find it
+        when(bankRepository.findByBankCode("TB01")).thenReturn(Optional.of(bank("TB01")));
+
+        assertThat(bankService.findByBankCode("TB01")).isPresent();
+    }
+
+    @Test
+    void updateEvictsOnlyOnceItsTransactionCommits() {
+        Bank cached = bank("TB01");
+        when(bankRepository.findById(1L)).thenReturn(Optional.of(cached));
+        when(bankRepository.findByBankCode("TB01")).thenReturn(Optional.of(cached));
+        bankService.findById(1L);
+        bankService.findByBankCode("TB01");
+
+        // From here the repository has the renamed row, only the cache can still answer TB01
+        Bank renamed = bank("TB02");
+        when(bankRepository.findById(1L)).thenReturn(Optional.of(renamed));
+        when(bankRepository.save(any())).thenReturn(renamed);
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            bankService.updateBank(1L, renamed);
+            // Until the update commits, readers keep getting the committed row
+            assertThat(bankService.findById(1L)).get().extracting(Bank::getBankCode).isEqualTo("TB01");
+        });
+
+        assertThat(bankService.findById(1L)).get().extracting(Bank::getBankCode).isEqualTo("TB02");
+        when(bankRepository.findByBankCode("TB01")).thenReturn(Optional.empty());
+        assertThat(bankService.findByBankCode("TB01")).isEmpty();
+    }
+
+    private static Bank bank(String code) {
+        return Bank.builder().id(1L).bankName("Test Bank").bankCode(code).build();
+    }
+
+    @Configuration
+    @EnableCaching
+    @EnableTransactionManagement
+    static class Config {
+
+        @Bean
+        BankRepository bankRepository() {
+            return mock(BankRepository.class);
+        }
+
+        @Bean
+        BankServiceImpl bankService(BankRepository bankRepository) {
+            return new BankServiceImpl(bankRepository);
+        }
+
+        @Bean
+        CacheManager cacheManager() {
+            return new TransactionAwareCacheManagerProxy(
+                    new ConcurrentMapCacheManager(CacheConfig.BANKS, CacheConfig.BANKS_BY_CODE));
+        }
+
+        @Bean
+        PlatformTransactionManager transactionManager() {
+            // Runs the transaction synchronizations the cache proxy relies on, without a database
+            return new AbstractPlatformTransactionManager() {
+                @Override
+                protected Object doGetTransaction() {
+                    return new Object();
+                }
+
+                @Override
+                protected boolean isExistingTransaction(Object transaction) {
+                    return TransactionSynchronizationManager.isActualTransactionActive();
+                }
+
+                @Override
+                protected void doBegin(Object transaction, TransactionDefinition definition) {
+                }
+
+                @Override
+                protected void doCommit(DefaultTransactionStatus status) {
+                }
+
+                @Override
+                protected void doRollback(DefaultTransactionStatus status) {
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.BatchTransferProperties;
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.domain.model.BatchTransferMode;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BatchTransferServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private final TransactionIdGenerator idGenerator = mock(TransactionIdGenerator.class);
+    private final TransactionServiceImpl transactionService = mock(TransactionServiceImpl.class);
+    private final ShardedBalanceService shardedBalances = mock(ShardedBalanceService.class);
+    private final BatchTransferProperties properties = new BatchTransferProperties();
+    private final Map<String, BigDecimal> openingBalances = Map.of(
+            "ACC1", new BigDecimal("100.00"),
+            "ACC2", new BigDecimal("20.00"),
+            "ACC3", new BigDecimal("0.00"));
+    private BatchTransferService service;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(idGenerator.nextId()).thenReturn("TXN1");
+        when(accountRepository.lockBalanceViews(any())).thenAnswer(invocation -> {
+            Collection<String> accountNumbers = invocation.getArgument(0);
+            return accountNumbers.stream()
+                    .filter(openingBalances::containsKey)
+                    .map(number -> new AccountBalanceView(Long.parseLong(number.substring(3)), number,
+                            openingBalances.get(number), 0L, AccountStatus.ACTIVE, AccountType.SAVINGS))
+                    .toList();
+        });
+        service = new BatchTransferService(accountRepository, transactionRepository,
+                transactionService, shardedBalances, mock(BalanceCache.class),
+                transactionManager, idGenerator, mock(TransactionOutbox.class), properties, new LedgerProperties());
+    }
+
+    @Test
+    void locksEveryAccountOnceInAccountNumberOrder() {
+        service.transfer(List.of(
+                item("ACC3", "ACC1", "0.00"),
+                item("ACC2", "ACC1", "5.00"),
+                item("ACC1", "ACC3", "10.00")), BatchTransferMode.BEST_EFFORT);
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<String>> locked = ArgumentCaptor.forClass(Collection.class);
+        verify(accountRepository).lockBalanceViews(locked.capture());
+        assertThat(locked.getValue()).containsExactly("ACC1", "ACC2", "ACC3");
+    }
+
+    @Test
+    void allOrNothingBatchWritesNothingWhenOneItemFails() {
+        List<BankingFacadeServiceImpl.TransferResult> results = service.transfer(List.of(
+                item("ACC1", "ACC2", "10.00"),
+                item("ACC3", "ACC2", "1.00"),
+                item("ACC2", "ACC1", "1.00")), BatchTransferMode.ALL_OR_NOTHING);
+
+        assertThat(results).extracting(BankingFacadeServiceImpl.TransferResult::isSuccess)
+                .containsExactly(false, false, false);
+        assertThat(results.get(0).getErrorMessage()).contains("transfer 2 of the batch failed");
+        assertThat(results.get(1).getErrorMessage()).doesNotStartWith("Not applied");
+        verify(accountRepository, never()).updateBalances(anyMap(), any());
+        verify(transactionRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void bestEffortBatchSkipsFailedItemsAndAppliesTheRest() {
+        List<BankingFacadeServiceImpl.TransferResult> results = service.transfer(List.of(
+                item("ACC1", "ACC2", "10.00"),
+                item("ACC404", "ACC2", "1.00"),
+                item("ACC3", "ACC3", "1.00"),
+                item("ACC2", "ACC3", "30.00")), BatchTransferMode.BEST_EFFORT);
+
+        assertThat(results).extracting(BankingFacadeServiceImpl.TransferResult::isSuccess)
+                .containsExactly(true, false, false, true);
+        // The last leg spends what the first one credited
+        assertThat(results.get(3).getFromBalanceBefore()).isEqualByComparingTo("30.00");
+        verify(accountRepository).updateBalances(eq(Map.of(
+                1L, new BigDecimal("90.00"), 2L, new BigDecimal("0.00"), 3L, new BigDecimal("30.00"))), any());
+    }
+
+    @Test
+    void nettedBatchAcceptsALegThatOverdrawsWhenTheNetPositionIsCovered() {
+        List<BankingFacadeServiceImpl.TransferResult> results = service.transfer(List.of(
+                item("ACC3", "ACC2", "50.00"),
+                item("ACC1", "ACC3", "60.00")), BatchTransferMode.NETTED);
+
+        assertThat(results).allMatch(BankingFacadeServiceImpl.TransferResult::isSuccess);
+        verify(accountRepository).updateBalances(eq(Map.of(
+                1L, new BigDecimal("40.00"), 2L, new BigDecimal("70.00"), 3L, new BigDecimal("10.00"))), any());
+    }
+
+    @Test
+    void nettedBatchIsAbandonedWhenANetPositionIsNotCovered() {
+        List<BankingFacadeServiceImpl.TransferResult> results = service.transfer(List.of(
+                item("ACC1", "ACC2", "10.00"),
+                item("ACC3", "ACC2", "50.00"),
+                item("ACC1", "ACC3", "40.00")), BatchTransferMode.NETTED);
+
+        assertThat(results).noneMatch(BankingFacadeServiceImpl.TransferResult::isSuccess);
+        assertThat(results.get(1).getErrorMessage()).startsWith("Net position not covered");
+        verify(accountRepository, never()).updateBalances(anyMap(), any());
+    }
+
+    @Test
+    void batchCreditingAShardedAccountGoesThroughThePerTransferPath() {
+        when(shardedBalances.isSharded("ACC2")).thenReturn(true);
+        // Base row 20.00 plus 100.00 held in the shards
+        when(transactionService.transfer("ACC1", "ACC2", new BigDecimal("10.00"), null)).thenReturn(List.of(
+                leg(TransactionType.TRANSFER_OUT, "100.00", "90.00"),
+                leg(TransactionType.TRANSFER_IN, "120.00", "130.00")));
+
+        List<BankingFacadeServiceImpl.TransferResult> results = service.transfer(List.of(
+                item("ACC1", "ACC2", "10.00")), BatchTransferMode.ALL_OR_NOTHING);
+
+        assertThat(results.get(0).getToBalanceBefore()).isEqualByComparingTo("120.00");
+        assertThat(results.get(0).getToBalanceAfter()).isEqualByComparingTo("130.00");
+        verify(accountRepository, never()).lockBalanceViews(any());
+        verify(transactionRepository, never()).insertAll(anyList());
+    }
+
+    @Test
+    void oversizedBatchIsRejectedBeforeAnyLock() {
+        properties.setMaxItems(1);
+
+        assertThatThrownBy(() -> service.transfer(List.of(
+                item("ACC1", "ACC2", "1.00"),
+                item("ACC2", "ACC1", "1.00")), BatchTransferMode.BEST_EFFORT))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("BATCH_TOO_LARGE"));
+        verify(accountRepository, never()).lockBalanceViews(any());
+    }
+
+    private static Transaction leg(TransactionType type, String before, String after) {
+        return Transaction.builder()
+                .transactionType(type)
+                .balanceBefore(new BigDecimal(before))
+                .balanceAfter(new BigDecimal(after))
+                .build();
+    }
+
+    private static BatchTransferService.TransferItem item(String from, String to, String amount) {
+        return new BatchTransferService.TransferItem(from, to, new BigDecimal(amount), null);
+    }
+}
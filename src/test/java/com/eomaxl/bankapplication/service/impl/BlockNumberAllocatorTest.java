@@ -0,0 +1,108 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.repository.NumberSequenceRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class BlockNumberAllocatorTest {
+
+    private static final String SEQUENCE = "test_numbers";
+
+    @Autowired
+    private NumberSequenceRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void tearDown() {
+        jdbcTemplate.update("DELETE FROM number_sequences");
+    }
+
+    @Test
+    void nodesDrawingConcurrentlyNeverShareANumber() throws Exception {
+        // Two allocators stand in for two nodes reserving blocks from the same row
+        List<BlockNumberAllocator> nodes = List.of(
+                new BlockNumberAllocator(repository, transactionManager),
+                new BlockNumberAllocator(repository, transactionManager));
+        Set<Long> drawn = ConcurrentHashMap.newKeySet();
+        int threads = 8;
+        int perThread = 250;
+
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                BlockNumberAllocator node = nodes.get(t % nodes.size());
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < perThread; i++) {
+                        assertThat(drawn.add(node.next(SEQUENCE, 7))).isTrue();
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(drawn).hasSize(threads * perThread);
+        Long reservedUpTo = jdbcTemplate.queryForObject(
+                "SELECT next_value FROM number_sequences WHERE sequence_name = ?", Long.class, SEQUENCE);
+        assertThat(drawn).allMatch(number -> number >= 1 && number < reservedUpTo);
+    }
+
+    @Test
+    void failedReservationLeavesTheBlockExhaustedForTheNextCall() {
+        AtomicBoolean reserveFails = new AtomicBoolean();
+        NumberSequenceRepository flakyRepository = mock(NumberSequenceRepository.class, delegatesTo(repository));
+        doAnswer(invocation -> {
+            if (reserveFails.get()) {
+                throw new QueryTimeoutException("lock wait timed out");
+            }
+            return repository.findBySequenceNameWithLock(invocation.getArgument(0));
+        }).when(flakyRepository).findBySequenceNameWithLock(anyString());
+        BlockNumberAllocator allocator = new BlockNumberAllocator(flakyRepository, transactionManager);
+
+        assertThat(allocator.next(SEQUENCE, 2)).isEqualTo(1);
+        assertThat(allocator.next(SEQUENCE, 2)).isEqualTo(2);
+        reserveFails.set(true);
+
+        assertThatThrownBy(() -> allocator.next(SEQUENCE, 2)).isInstanceOf(QueryTimeoutException.class);
+
+        reserveFails.set(false);
+        assertThat(allocator.next(SEQUENCE, 2)).isEqualTo(3);
+        assertThat(allocator.next(SEQUENCE, 2)).isEqualTo(4);
+    }
+}
@@ -0,0 +1,115 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.WarmUpProperties;
+import com.eomaxl.bankapplication.repository.BankRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.service.IAccountService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.actuate.health.Status;
+import org.springframework.boot.availability.AvailabilityChangeEvent;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class CacheWarmUpTest {
+
+    private final WarmUpProperties properties = new WarmUpProperties();
+    private final BankRepository bankRepository = mock(BankRepository.class);
+    private final List<Object> events = new CopyOnWriteArrayList<>();
+    private final CountDownLatch release = new CountDownLatch(1);
+    private CacheWarmUp warmUp;
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        if (warmUp != null) {
+            warmUp.stop();
+        }
+    }
+
+    @Test
+    void holdsReadinessBackUntilWarmUpFinishes() {
+        properties.setAccounts(0);
+        warmUp = warmUp(new ConcurrentMapCacheManager());
+
+        warmUp.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> events.size() == 2);
+        assertThat(readinessStates()).containsExactly(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(String.valueOf(warmUp.health().getDetails().get("state"))).isEqualTo("DONE");
+    }
+
+    @Test
+    void acceptsTrafficAtTheTimeoutWhenWarmUpHangs() throws Exception {
+        properties.setTimeoutMs(100);
+        when(bankRepository.findAll()).thenAnswer(invocation -> {
+            release.await(10, TimeUnit.SECONDS);
+            return List.of();
+        });
+        warmUp = warmUp(new ConcurrentMapCacheManager());
+
+        warmUp.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> events.size() == 2);
+        assertThat(readinessStates()).containsExactly(ReadinessState.REFUSING_TRAFFIC, ReadinessState.ACCEPTING_TRAFFIC);
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+        assertThat(warmUp.health().getDetails()).containsEntry("timedOut", true);
+
+        // Finishing late does not announce readiness a second time
+        release.countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> "DONE".equals(String.valueOf(warmUp.health().getDetails().get("state"))));
+        assertThat(events).hasSize(2);
+    }
+
+    @Test
+    void ownReadinessEventDoesNotStartAnotherRun() {
+        properties.setAccounts(0);
+        warmUp = warmUp(new ConcurrentMapCacheManager());
+        warmUp.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> events.size() == 2);
+
+        warmUp.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+
+        assertThat(events).hasSize(2);
+    }
+
+    @Test
+    void disabledWarmUpLeavesReadinessAlone() {
+        properties.setEnabled(false);
+        warmUp = warmUp(new ConcurrentMapCacheManager());
+
+        warmUp.onReadinessChange(new AvailabilityChangeEvent<>(this, ReadinessState.ACCEPTING_TRAFFIC));
+
+        assertThat(events).isEmpty();
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    @Test
+    void healthIndicatorReportsUpBeforeWarmUpStarts() {
+        warmUp = warmUp(new ConcurrentMapCacheManager());
+
+        assertThat(warmUp.health().getStatus()).isEqualTo(Status.UP);
+    }
+
+    private CacheWarmUp warmUp(CacheManager cacheManager) {
+        return new CacheWarmUp(properties, cacheManager, bankRepository, mock(TransactionRepository.class),
+                mock(IAccountService.class), events::add);
+    }
+
+    private List<ReadinessState> readinessStates() {
+        return events.stream()
+                .map(event -> (ReadinessState) ((AvailabilityChangeEvent<?>) event).getState())
+                .toList();
+    }
+}
@@ -0,0 +1,52 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.AsyncTransferProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class CallbackUrlPolicyTest {
+
+    private final AsyncTransferProperties properties = new AsyncTransferProperties();
+    private final CallbackUrlPolicy policy = new CallbackUrlPolicy(properties);
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "http://127.0.0.1/hook",
+            "http://localhost:8080/hook",
+            "http://10.1.2.3/hook",
+            "http://192.168.0.10/hook",
+            "http://169.254.169.254/latest/meta-data",
+            "http://100.64.0.1/hook",
+            "http://0.0.0.0/hook",
+            "http://[::1]/hook",
+            "http://[fd00::1]/hook",
+            "http://user@93.184.216.34/hook",
+            "ftp://93.184.216.34/hook",
+            "file:///etc/passwd"
+    })
+    void rejectsUrlsThatReachInternalAddresses(String url) {
+        assertThatThrownBy(() -> policy.check(url))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("INVALID_CALLBACK_URL"));
+    }
+
+    @Test
+    void acceptsPublicAddresses() {
+        assertThat(policy.check("https://93.184.216.34/hook").getHost()).isEqualTo("93.184.216.34");
+    }
+
+    @Test
+    void allowlistIsExclusiveAndTrusted() {
+        properties.setCallbackAllowedHosts(List.of("127.0.0.1"));
+
+        assertThat(policy.check("http://127.0.0.1/hook")).isNotNull();
+        assertThatThrownBy(() -> policy.check("https://93.184.216.34/hook")).isInstanceOf(BankingException.class);
+    }
+}
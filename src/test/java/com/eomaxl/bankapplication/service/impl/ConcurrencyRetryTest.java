@@ -0,0 +1,100 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.ConcurrencyProperties;
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConcurrencyRetryTest {
+
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private ConcurrencyRetry retry;
+
+    @BeforeEach
+    void setUp() {
+        ConcurrencyProperties properties = new ConcurrencyProperties();
+        properties.getOptimistic().setMaxAttempts(3);
+        properties.getOptimistic().setInitialBackoffMs(1);
+        properties.getOptimistic().setMaxBackoffMs(2);
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        retry = new ConcurrencyRetry(properties, transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void retriesLostRacesInAFreshTransactionEachTime() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = retry.inTransaction(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new ConcurrentUpdateException("ACC1");
+            }
+            return "applied";
+        });
+
+        assertThat(result).isEqualTo("applied");
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any(TransactionStatus.class));
+        verify(transactionManager, times(1)).commit(any(TransactionStatus.class));
+    }
+
+    @Test
+    void givesUpWhenAttemptsRunOut() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new PessimisticLockingFailureException("could not serialize access");
+        })).isInstanceOf(PessimisticLockingFailureException.class);
+
+        assertThat(attempts).hasValue(3);
+    }
+
+    @Test
+    void runsOnceInsideAnEnclosingTransaction() {
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // The enclosing transaction is rollback-only now, only its owner can start over
+        assertThatThrownBy(() -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new ConcurrentUpdateException("ACC1");
+        })).isInstanceOf(ConcurrentUpdateException.class);
+
+        assertThat(attempts).hasValue(1);
+        verify(transactionManager, never()).getTransaction(any());
+    }
+
+    @Test
+    void otherFailuresAreNotRetried() {
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThatThrownBy(() -> retry.execute(() -> {
+            attempts.incrementAndGet();
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(attempts).hasValue(1);
+    }
+}
@@ -0,0 +1,74 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import com.eomaxl.bankapplication.repository.projection.BalanceChange;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ConditionalBalanceUpdaterTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final BalanceCache balanceCache = mock(BalanceCache.class);
+    private final ConditionalBalanceUpdater updater = new ConditionalBalanceUpdater(accountRepository, balanceCache);
+
+    @Test
+    void successfulCreditIsOneStatementWithoutReads() {
+        BalanceChange change = change("110.00", 8L);
+        when(accountRepository.creditIfActive(eq("ACC1"), eq(BigDecimal.TEN), any())).thenReturn(Optional.of(change));
+        when(accountRepository.toAccount(change)).thenReturn(Account.builder().id(1L).balance(change.balance()).build());
+
+        Account account = updater.credit("ACC1", BigDecimal.TEN);
+
+        assertThat(account.getBalance()).isEqualByComparingTo("110.00");
+        verify(accountRepository, never()).findById(any());
+        verify(accountRepository, never()).findBalanceView(anyString());
+        verify(balanceCache).afterCommit("ACC1", change.balance(), 8L);
+    }
+
+    @Test
+    void missIsExplainedFromTheAccountRow() {
+        when(accountRepository.debitIfActiveAndCovered(eq("ACC1"), any(), any())).thenReturn(Optional.empty());
+        when(accountRepository.findBalanceView("ACC1")).thenReturn(Optional.of(
+                new AccountBalanceView(1L, "ACC1", new BigDecimal("5.00"), 8L, AccountStatus.ACTIVE, AccountType.SAVINGS)));
+
+        assertThatThrownBy(() -> updater.debit("ACC1", BigDecimal.TEN))
+                .isInstanceOf(InsufficientFundsException.class);
+    }
+
+    @Test
+    void missThatKeepsPassingTheGuardIsAConcurrentUpdate() {
+        when(accountRepository.debitIfActiveAndCovered(eq("ACC1"), any(), any())).thenReturn(Optional.empty());
+        when(accountRepository.findBalanceView("ACC1")).thenReturn(Optional.of(
+                new AccountBalanceView(1L, "ACC1", new BigDecimal("500.00"), 8L, AccountStatus.ACTIVE, AccountType.SAVINGS)));
+
+        assertThatThrownBy(() -> updater.debit("ACC1", BigDecimal.TEN))
+                .isInstanceOf(ConcurrentUpdateException.class);
+        verify(accountRepository, times(3)).debitIfActiveAndCovered(eq("ACC1"), any(), any());
+    }
+
+    private static BalanceChange change(String balance, long version) {
+        LocalDateTime now = LocalDateTime.now();
+        return new BalanceChange(1L, "ACC1", new BigDecimal(balance), version, AccountType.SAVINGS,
+                AccountStatus.ACTIVE, 1L, 1L, now, now);
+    }
+}
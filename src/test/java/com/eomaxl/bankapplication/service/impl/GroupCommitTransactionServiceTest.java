@@ -0,0 +1,98 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.GroupCommitProperties;
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class GroupCommitTransactionServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final TransactionIdGenerator idGenerator = mock(TransactionIdGenerator.class);
+    private final CountDownLatch release = new CountDownLatch(1);
+    private final CountDownLatch firstGroupStarted = new CountDownLatch(1);
+    private GroupCommitTransactionService service;
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        release.countDown();
+        service.shutdown();
+    }
+
+    @Test
+    void requestThatTimesOutWhileQueuedIsNeverCommitted() throws Exception {
+        service = blockingService(100);
+
+        CompletableFuture<Transaction> first = CompletableFuture.supplyAsync(
+                () -> service.deposit("ACC1", BigDecimal.TEN, "first"));
+        assertThat(firstGroupStarted.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> service.deposit("ACC2", BigDecimal.ONE, "second"))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("GROUP_COMMIT_TIMEOUT"));
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getAmount()).isEqualByComparingTo(BigDecimal.TEN);
+        service.shutdown();
+        verify(accountRepository, times(1)).lockBalanceViews(any());
+    }
+
+    @Test
+    void requestAlreadyInAGroupWaitsPastTheTimeoutForItsOutcome() throws Exception {
+        service = blockingService(50);
+
+        CompletableFuture<Transaction> first = CompletableFuture.supplyAsync(
+                () -> service.deposit("ACC1", BigDecimal.TEN, "first"));
+        assertThat(firstGroupStarted.await(5, TimeUnit.SECONDS)).isTrue();
+        Thread.sleep(200);
+        assertThat(first).isNotDone();
+
+        release.countDown();
+        assertThat(first.get(5, TimeUnit.SECONDS).getBalanceAfter()).isEqualByComparingTo("110");
+    }
+
+    private GroupCommitTransactionService blockingService(long timeoutMs) {
+        when(idGenerator.nextId()).thenReturn("TXN1");
+        when(accountRepository.lockBalanceViews(any())).thenAnswer(invocation -> {
+            firstGroupStarted.countDown();
+            release.await();
+            Collection<String> accountNumbers = invocation.getArgument(0);
+            return accountNumbers.stream()
+                    .map(number -> new AccountBalanceView(1L, number, new BigDecimal("100"), 0L,
+                            AccountStatus.ACTIVE, AccountType.SAVINGS))
+                    .toList();
+        });
+
+        GroupCommitProperties properties = new GroupCommitProperties();
+        properties.setMaxGroupSize(1);
+        properties.setTimeoutMs(timeoutMs);
+        return new GroupCommitTransactionService(mock(TransactionServiceImpl.class), accountRepository,
+                mock(TransactionRepository.class), mock(PlatformTransactionManager.class), idGenerator,
+                mock(TransactionOutbox.class), mock(BalanceCache.class), mock(ShardedBalanceService.class),
+                new SimpleMeterRegistry(), properties, new LedgerProperties());
+    }
+}
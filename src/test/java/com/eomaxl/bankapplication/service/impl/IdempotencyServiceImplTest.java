@@ -0,0 +1,174 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.ConcurrencyProperties;
+import com.eomaxl.bankapplication.config.IdempotencyProperties;
+import com.eomaxl.bankapplication.domain.exception.IdempotencyConflictException;
+import com.eomaxl.bankapplication.domain.model.IdempotencyStatus;
+import com.eomaxl.bankapplication.dto.response.ApiResponse;
+import com.eomaxl.bankapplication.exception.GlobalExceptionHandler;
+import com.eomaxl.bankapplication.repository.IdempotencyRecordRepository;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class IdempotencyServiceImplTest {
+
+    @Autowired
+    private IdempotencyRecordRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private IdempotencyServiceImpl service;
+    private final AtomicInteger runs = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        IdempotencyProperties properties = new IdempotencyProperties();
+        service = new IdempotencyServiceImpl(repository, JsonMapper.builder().findAndAddModules().build(), transactionManager, properties,
+                new ConcurrencyRetry(new ConcurrencyProperties(), transactionManager));
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+        SecurityContextHolder.clearContext();
+        jdbcTemplate.update("DELETE FROM idempotency_keys");
+        jdbcTemplate.update("DELETE FROM banks");
+    }
+
+    @Test
+    void failureToStoreTheResponseRollsBackTheActionAndReleasesTheKey() {
+        assertThatThrownBy(() -> service.execute("K1", "DEPOSIT", Map.of("amount", BigDecimal.TEN), Object.class,
+                () -> {
+                    insertBank();
+                    // An empty bean cannot be serialized, so storing the response fails after the action ran
+                    return ResponseEntity.ok(ApiResponse.success(new Object()));
+                }));
+
+        assertThat(countBanks()).isZero();
+        assertThat(repository.count()).isZero();
+    }
+
+    @Test
+    void responseIsStoredWithTheActionsWrites() {
+        service.execute("K1", "DEPOSIT", Map.of("amount", BigDecimal.TEN), String.class, this::depositOnce);
+
+        assertThat(countBanks()).isEqualTo(1);
+        assertThat(repository.findAll()).singleElement()
+                .satisfies(record -> assertThat(record.getStatus()).isEqualTo(IdempotencyStatus.COMPLETED));
+    }
+
+    @Test
+    void amountsSpelledDifferentlyAreTheSameRequest() {
+        service.execute("K1", "DEPOSIT", Map.of("amount", new BigDecimal("10.0")), String.class, this::depositOnce);
+        ResponseEntity<ApiResponse<String>> replayed = service.execute("K1", "DEPOSIT",
+                Map.of("amount", new BigDecimal("10.00")), String.class, this::depositOnce);
+
+        assertThat(runs).hasValue(1);
+        assertThat(replayed.getHeaders().getFirst(IdempotencyServiceImpl.REPLAYED_HEADER)).isEqualTo("true");
+    }
+
+    @Test
+    void keysAreScopedToThePrincipal() {
+        authenticate("alice");
+        service.execute("K1", "DEPOSIT", Map.of("amount", BigDecimal.TEN), String.class, this::depositOnce);
+        authenticate("bob");
+        service.execute("K1", "DEPOSIT", Map.of("amount", BigDecimal.ONE), String.class, this::depositOnce);
+
+        assertThat(runs).hasValue(2);
+        assertThat(repository.count()).isEqualTo(2);
+    }
+
+    @Test
+    void actionThatLostItsLeaseRollsBack() {
+        TransactionTemplate requiresNew = new TransactionTemplate(transactionManager);
+        requiresNew.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        assertThatThrownBy(() -> service.execute("K1", "DEPOSIT", Map.of("amount", BigDecimal.TEN), String.class,
+                () -> {
+                    // Another request took the key over after the lease ran out
+                    requiresNew.executeWithoutResult(status -> repository.deleteAll());
+                    return depositOnce();
+                }))
+                .isInstanceOfSatisfying(IdempotencyConflictException.class, this::isConflict)
+                .extracting("errorCode").isEqualTo("IDEMPOTENCY_KEY_EXPIRED");
+
+        assertThat(countBanks()).isZero();
+    }
+
+    @Test
+    void keyReusedForADifferentRequestIsAConflict() {
+        service.execute("K1", "DEPOSIT", Map.of("amount", BigDecimal.TEN), String.class, this::depositOnce);
+
+        assertThatThrownBy(() -> service.execute("K1", "DEPOSIT", Map.of("amount", BigDecimal.ONE), String.class,
+                this::depositOnce))
+                .isInstanceOfSatisfying(IdempotencyConflictException.class, this::isConflict)
+                .extracting("errorCode").isEqualTo("IDEMPOTENCY_KEY_REUSED");
+        assertThat(runs).hasValue(1);
+    }
+
+    @Test
+    void retryWhileTheFirstRequestRunsIsAConflict() {
+        Map<String, Object> request = Map.of("amount", BigDecimal.TEN);
+
+        assertThatThrownBy(() -> service.execute("K1", "DEPOSIT", request, String.class,
+                () -> service.execute("K1", "DEPOSIT", request, String.class, this::depositOnce)))
+                .isInstanceOfSatisfying(IdempotencyConflictException.class, this::isConflict)
+                .extracting("errorCode").isEqualTo("IDEMPOTENCY_KEY_IN_PROGRESS");
+        assertThat(runs).hasValue(0);
+    }
+
+    private void isConflict(IdempotencyConflictException e) {
+        assertThat(new GlobalExceptionHandler().handleIdempotencyConflictException(e).getStatusCode())
+                .isEqualTo(HttpStatus.CONFLICT);
+    }
+
+    private ResponseEntity<ApiResponse<String>> depositOnce() {
+        runs.incrementAndGet();
+        insertBank();
+        return ResponseEntity.ok(ApiResponse.success("done"));
+    }
+
+    private void insertBank() {
+        jdbcTemplate.update("INSERT INTO banks (id, bank_name, bank_code) VALUES (?, 'Test Bank', ?)",
+                runs.get() + 100, "TB" + runs.get());
+    }
+
+    private int countBanks() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM banks", Integer.class);
+    }
+
+    private void authenticate(String name) {
+        SecurityContextHolder.getContext().setAuthentication(
+                new UsernamePasswordAuthenticationToken(name, null, List.of()));
+    }
+}
@@ -0,0 +1,203 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class InMemoryLedgerAccountServiceTest {
+
+    private final AccountServiceImpl jpaAccountService = mock(AccountServiceImpl.class);
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final LedgerProperties properties = new LedgerProperties();
+    private InMemoryLedgerAccountService ledger;
+
+    @BeforeEach
+    void setUp() {
+        properties.setPartitions(1);
+        properties.setFlushIntervalMs(20);
+        properties.setCommandTimeoutMs(200);
+        stubAccount("ACC1", 1L, "100.00");
+        stubAccount("ACC2", 2L, "0.00");
+        when(jpaAccountService.getAccountByNumber(anyString()))
+                .thenAnswer(invocation -> account(invocation.getArgument(0), 0L, "0.00"));
+        ledger = new InMemoryLedgerAccountService(jpaAccountService, accountRepository, jdbcTemplate,
+                mock(PlatformTransactionManager.class), properties);
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        ledger.shutdown();
+    }
+
+    @Test
+    void creditIsRevertedWhenTheCallerTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.credit("ACC1", new BigDecimal("50.00"), "deposit");
+        assertThat(ledger.getBalance("ACC1")).isEqualByComparingTo("150.00");
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        // A later command on the same partition runs after the settlement
+        ledger.credit("ACC1", new BigDecimal("1.00"), "deposit");
+        assertThat(ledger.getBalance("ACC1")).isEqualByComparingTo("101.00");
+    }
+
+    @Test
+    void uncommittedCreditCannotBeSpent() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.credit("ACC2", new BigDecimal("50.00"), "deposit");
+        List<TransactionSynchronization> pending = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+
+        assertThatThrownBy(() -> ledger.debit("ACC2", new BigDecimal("50.00"), "withdrawal"))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        pending.forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        ledger.debit("ACC2", new BigDecimal("50.00"), "withdrawal");
+        assertThat(ledger.getBalance("ACC2")).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void debitIsRestoredWhenTheCallerTransactionRollsBack() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.transfer("ACC1", "ACC2", new BigDecimal("30.00"), "transfer");
+
+        complete(TransactionSynchronization.STATUS_ROLLED_BACK);
+
+        ledger.credit("ACC1", new BigDecimal("1.00"), "deposit");
+        assertThat(ledger.getBalance("ACC1")).isEqualByComparingTo("101.00");
+        assertThat(ledger.getBalance("ACC2")).isEqualByComparingTo("0.00");
+    }
+
+    @Test
+    void committedChangesAreWrittenBackAsDeltas() {
+        TransactionSynchronizationManager.initSynchronization();
+        ledger.debit("ACC1", new BigDecimal("25.50"), "withdrawal");
+        complete(TransactionSynchronization.STATUS_COMMITTED);
+
+        verify(jdbcTemplate, timeout(2000)).batchUpdate(eq(
+                        "UPDATE accounts SET balance = balance + ?, updated_at = ?, version = version + 1 WHERE account_number = ?"),
+                argThat((List<Object[]> batch) -> batch.size() == 1
+                        && new BigDecimal("-25.50").compareTo((BigDecimal) batch.get(0)[0]) == 0
+                        && "ACC1".equals(batch.get(0)[2])));
+    }
+
+    @Test
+    void rejectedRequestsCarryTheirErrorCode() {
+        assertThatThrownBy(() -> ledger.transfer("ACC1", "ACC1", BigDecimal.ONE, "transfer"))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("SAME_ACCOUNT_TRANSFER"));
+        assertThatThrownBy(() -> ledger.credit("ACC1", BigDecimal.ZERO, "deposit"))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("INVALID_AMOUNT"));
+    }
+
+    @Test
+    void flushRunningAtShutdownIsNotAppliedAgain() throws Exception {
+        CountDownLatch flushing = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenAnswer(invocation -> {
+            flushing.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return new int[]{1};
+        });
+        ledger.credit("ACC1", new BigDecimal("50.00"), "deposit");
+        assertThat(flushing.await(5, TimeUnit.SECONDS)).isTrue();
+
+        CompletableFuture<Void> stopping = CompletableFuture.runAsync(() -> {
+            try {
+                ledger.shutdown();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+        // Longer than the shutdown waits for the scheduled flush, the final flush has to wait on its own
+        Thread.sleep(properties.getCommandTimeoutMs() + 100);
+        release.countDown();
+        stopping.get(5, TimeUnit.SECONDS);
+
+        verify(jdbcTemplate, times(1)).batchUpdate(anyString(), anyList());
+    }
+
+    @Test
+    void timedOutCommandIsCancelledBeforeItTouchesTheBalance() throws Exception {
+        ledger.credit("ACC1", new BigDecimal("1.00"), "warm up");
+
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(accountRepository.findByAccountNumber("SLOW")).thenAnswer(invocation -> {
+            loading.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return Optional.of(account("SLOW", 3L, "0.00"));
+        });
+        CompletableFuture<Account> slow = CompletableFuture.supplyAsync(
+                () -> ledger.credit("SLOW", BigDecimal.ONE, "deposit"));
+        assertThat(loading.await(1, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> ledger.credit("ACC1", new BigDecimal("10.00"), "deposit"))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("LEDGER_TIMEOUT"));
+
+        release.countDown();
+        // The blocked command was already running, so its caller waits for the outcome instead of failing
+        slow.get(5, TimeUnit.SECONDS);
+        ledger.credit("ACC1", new BigDecimal("1.00"), "deposit");
+        assertThat(ledger.getBalance("ACC1")).isEqualByComparingTo("102.00");
+    }
+
+    private void complete(int status) {
+        List<TransactionSynchronization> synchronizations = TransactionSynchronizationManager.getSynchronizations();
+        TransactionSynchronizationManager.clearSynchronization();
+        synchronizations.forEach(sync -> sync.afterCompletion(status));
+    }
+
+    private void stubAccount(String accountNumber, long id, String balance) {
+        when(accountRepository.findByAccountNumber(accountNumber))
+                .thenReturn(Optional.of(account(accountNumber, id, balance)));
+    }
+
+    private static Account account(String accountNumber, long id, String balance) {
+        return Account.builder()
+                .id(id)
+                .accountNumber(accountNumber)
+                .balance(new BigDecimal(balance))
+                .accountType(AccountType.SAVINGS)
+                .status(AccountStatus.ACTIVE)
+                .build();
+    }
+}
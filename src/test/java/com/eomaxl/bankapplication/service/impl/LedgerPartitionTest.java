@@ -0,0 +1,84 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LedgerPartitionTest {
+
+    private final LedgerPartition partition = new LedgerPartition(0);
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        partition.shutdown(1000);
+    }
+
+    @Test
+    void cancelledCommandNeverRuns() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        LedgerPartition.Command<Void> blocker = partition.submit(() -> {
+            awaitQuietly(release);
+            return null;
+        });
+        AtomicBoolean ran = new AtomicBoolean();
+        LedgerPartition.Command<Void> queued = partition.submit(() -> {
+            ran.set(true);
+            return null;
+        });
+
+        assertThat(queued.cancel()).isTrue();
+        release.countDown();
+        blocker.getResult().get(1, TimeUnit.SECONDS);
+        partition.submit(() -> null).getResult().get(1, TimeUnit.SECONDS);
+
+        assertThat(ran).isFalse();
+        assertThat(queued.getResult()).isNotDone();
+    }
+
+    @Test
+    void runningCommandCannotBeCancelled() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        LedgerPartition.Command<String> running = partition.submit(() -> {
+            started.countDown();
+            awaitQuietly(release);
+            return "applied";
+        });
+
+        assertThat(started.await(1, TimeUnit.SECONDS)).isTrue();
+        assertThat(running.cancel()).isFalse();
+        release.countDown();
+
+        assertThat(running.getResult().get(1, TimeUnit.SECONDS)).isEqualTo("applied");
+    }
+
+    @Test
+    void flushKeepsDeltasRecordedWhileItRan() {
+        LedgerPartition.LedgerAccount account = new LedgerPartition.LedgerAccount(1L, "ACC1", 0L, AccountStatus.ACTIVE);
+        partition.recordDelta(account, 500L);
+        Map<String, Long> flushed = partition.pendingDeltas();
+
+        partition.recordDelta(account, -200L);
+        flushed.forEach(partition::markFlushed);
+
+        assertThat(partition.pendingDeltas()).containsExactly(Map.entry("ACC1", -200L));
+
+        partition.markFlushed("ACC1", -200L);
+        assertThat(partition.pendingDeltas()).isEmpty();
+    }
+
+    private static void awaitQuietly(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
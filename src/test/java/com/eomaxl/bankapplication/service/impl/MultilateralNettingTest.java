@@ -0,0 +1,51 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MultilateralNettingTest {
+
+    @Test
+    void circularTransfersNetToNothing() {
+        Map<String, Long> positions = MultilateralNetting.netPositions(List.of(
+                item("ACC1", "ACC2", "25.00"),
+                item("ACC2", "ACC3", "25.00"),
+                item("ACC3", "ACC1", "25.00")));
+
+        assertThat(positions).containsExactly(Map.entry("ACC1", 0L), Map.entry("ACC2", 0L), Map.entry("ACC3", 0L));
+        assertThat(MultilateralNetting.settlementVolume(positions)).isEqualByComparingTo("0");
+    }
+
+    @Test
+    void positionsSumToZeroAndAreOrderedLikeTheLocks() {
+        Map<String, Long> positions = MultilateralNetting.netPositions(List.of(
+                item("ACC3", "ACC1", "100.00"),
+                item("ACC1", "ACC2", "40.05"),
+                item("ACC2", "ACC3", "10.00"),
+                item("ACC1", "ACC3", "0.01")));
+
+        assertThat(positions.keySet()).containsExactly("ACC1", "ACC2", "ACC3");
+        assertThat(positions).containsEntry("ACC1", 5994L).containsEntry("ACC2", 3005L).containsEntry("ACC3", -8999L);
+        assertThat(positions.values().stream().mapToLong(Long::longValue).sum()).isZero();
+        assertThat(MultilateralNetting.settlementVolume(positions)).isEqualByComparingTo("89.99");
+    }
+
+    @Test
+    void subCentAmountRejectsTheWholeSet() {
+        List<BatchTransferService.TransferItem> items = List.of(
+                item("ACC1", "ACC2", "10.00"),
+                item("ACC2", "ACC1", "0.005"));
+
+        assertThatThrownBy(() -> MultilateralNetting.netPositions(items)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private static BatchTransferService.TransferItem item(String from, String to, String amount) {
+        return new BatchTransferService.TransferItem(from, to, new BigDecimal(amount), null);
+    }
+}
@@ -0,0 +1,68 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.repository.NodeIdLeaseRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class NodeIdLeasesTest {
+
+    private static final Duration TTL = Duration.ofMinutes(1);
+
+    @Autowired
+    private NodeIdLeaseRepository repository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void tearDown() {
+        repository.deleteAllInBatch();
+    }
+
+    @Test
+    void liveLeasesAreNeverShared() {
+        NodeIdLeases first = new NodeIdLeases(repository, transactionManager);
+        NodeIdLeases second = new NodeIdLeases(repository, transactionManager);
+
+        int a = first.acquire(1, TTL);
+        int b = second.acquire(1, TTL);
+
+        assertThat(a).isNotEqualTo(b);
+        assertThatThrownBy(() -> new NodeIdLeases(repository, transactionManager).acquire(1, TTL))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndItsFormerOwnerCannotRenew() {
+        NodeIdLeases crashed = new NodeIdLeases(repository, transactionManager);
+        NodeIdLeases successor = new NodeIdLeases(repository, transactionManager);
+        int nodeId = crashed.acquire(0, Duration.ofMillis(-1));
+
+        assertThat(successor.acquire(0, TTL)).isEqualTo(nodeId);
+        assertThat(crashed.renew(nodeId, TTL)).isFalse();
+        assertThat(successor.renew(nodeId, TTL)).isTrue();
+    }
+
+    @Test
+    void releasedIdIsFreeAgain() {
+        NodeIdLeases first = new NodeIdLeases(repository, transactionManager);
+        int nodeId = first.acquire(0, TTL);
+        first.release(nodeId);
+
+        assertThat(new NodeIdLeases(repository, transactionManager).acquire(0, TTL)).isEqualTo(nodeId);
+    }
+}
@@ -0,0 +1,56 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.exception.ConcurrentUpdateException;
+import com.eomaxl.bankapplication.domain.exception.InsufficientFundsException;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import com.eomaxl.bankapplication.repository.projection.AccountBalanceView;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class OptimisticBalanceUpdaterTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final BalanceCache balanceCache = mock(BalanceCache.class);
+    private final OptimisticBalanceUpdater updater = new OptimisticBalanceUpdater(accountRepository, balanceCache);
+
+    @BeforeEach
+    void setUp() {
+        when(accountRepository.findBalanceView("ACC1")).thenReturn(Optional.of(
+                new AccountBalanceView(1L, "ACC1", new BigDecimal("100.00"), 7L, AccountStatus.ACTIVE, AccountType.SAVINGS)));
+    }
+
+    @Test
+    void versionConflictIsLeftToTheOutermostTransaction() {
+        when(accountRepository.updateBalanceIfVersionMatches(eq(1L), any(), eq(7L), any())).thenReturn(0);
+
+        assertThatThrownBy(() -> updater.credit("ACC1", BigDecimal.TEN))
+                .isInstanceOf(ConcurrentUpdateException.class);
+
+        // One attempt only, retrying here would reuse the caller's snapshot
+        verify(accountRepository, times(1)).findBalanceView("ACC1");
+        verify(balanceCache, never()).afterCommit(any());
+    }
+
+    @Test
+    void insufficientFundsIsNotAConflict() {
+        assertThatThrownBy(() -> updater.debit("ACC1", new BigDecimal("100.01")))
+                .isInstanceOf(InsufficientFundsException.class);
+
+        verify(accountRepository, never()).updateBalanceIfVersionMatches(anyLong(), any(), anyLong(), any());
+    }
+}
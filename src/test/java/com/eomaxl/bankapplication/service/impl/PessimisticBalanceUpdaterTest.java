@@ -0,0 +1,52 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountStatus;
+import com.eomaxl.bankapplication.domain.model.AccountType;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PessimisticBalanceUpdaterTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final PessimisticBalanceUpdater updater =
+            new PessimisticBalanceUpdater(accountRepository, mock(BalanceCache.class));
+
+    @Test
+    void inactiveAccountIsRejectedWithItsErrorCode() {
+        stubAccount("ACC1", 1L, AccountStatus.ACTIVE);
+        stubAccount("ACC2", 2L, AccountStatus.SUSPENDED);
+
+        assertThatThrownBy(() -> updater.credit("ACC2", BigDecimal.TEN))
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("ACCOUNT_NOT_ACTIVE"));
+        assertThatThrownBy(() -> updater.transfer("ACC1", "ACC2", BigDecimal.TEN))
+                .isInstanceOfSatisfying(BankingException.class, e -> {
+                    assertThat(e.getErrorCode()).isEqualTo("ACCOUNT_NOT_ACTIVE");
+                    assertThat(e.getMessage()).isEqualTo("Destination account is not active: ACC2");
+                });
+        verify(accountRepository, never()).save(any());
+    }
+
+    private void stubAccount(String accountNumber, long id, AccountStatus status) {
+        when(accountRepository.findByAccountNumberWithLock(accountNumber)).thenReturn(Optional.of(Account.builder()
+                .id(id)
+                .accountNumber(accountNumber)
+                .balance(new BigDecimal("100.00"))
+                .accountType(AccountType.SAVINGS)
+                .status(status)
+                .build()));
+    }
+}
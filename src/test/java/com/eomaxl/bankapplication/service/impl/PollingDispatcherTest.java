@@ -0,0 +1,145 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PollingDispatcherTest {
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void groupsDueIdsIntoBatches() throws Exception {
+        List<List<Long>> batches = Collections.synchronizedList(new ArrayList<>());
+        PollingDispatcher dispatcher = new PollingDispatcher("Test", Runnable::run, 1, 2, 10,
+                () -> List.of(1L, 2L, 3L, 4L, 5L), batches::add, () -> { });
+
+        assertThat(dispatcher.dispatchDue()).isEqualTo(5);
+        assertThat(batches).containsExactly(List.of(1L, 2L), List.of(3L, 4L), List.of(5L));
+    }
+
+    @Test
+    void idsStillInFlightAreNotDispatchedAgain() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger handled = new AtomicInteger();
+        PollingDispatcher dispatcher = new PollingDispatcher("Test", executor, 4, 1, 10,
+                () -> List.of(1L, 2L),
+                ids -> {
+                    handled.incrementAndGet();
+                    await(release);
+                },
+                () -> { });
+
+        assertThat(dispatcher.dispatchDue()).isEqualTo(2);
+        // The same rows are still due while their handlers run
+        assertThat(dispatcher.dispatchDue()).isZero();
+
+        release.countDown();
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(handled).hasValue(2);
+    }
+
+    @Test
+    void atMostMaxInFlightBatchesRunAtOnce() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        PollingDispatcher dispatcher = new PollingDispatcher("Test", executor, 2, 1, 10,
+                () -> List.of(1L, 2L, 3L, 4L, 5L, 6L),
+                ids -> {
+                    peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    sleep(20);
+                    running.decrementAndGet();
+                },
+                () -> { });
+
+        assertThat(dispatcher.dispatchDue()).isEqualTo(6);
+        executor.shutdown();
+        assertThat(executor.awaitTermination(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(peak.get()).isLessThanOrEqualTo(2);
+    }
+
+    @Test
+    void failingHandlerReleasesItsPermitAndIds() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        PollingDispatcher dispatcher = new PollingDispatcher("Test", Runnable::run, 1, 1, 10,
+                () -> List.of(1L),
+                ids -> {
+                    calls.incrementAndGet();
+                    throw new IllegalStateException("handler failed");
+                },
+                () -> { });
+
+        for (int i = 0; i < 3; i++) {
+            try {
+                dispatcher.dispatchDue();
+            } catch (IllegalStateException expected) {
+                // Runnable::run rethrows on the caller
+            }
+        }
+        assertThat(calls).hasValue(3);
+    }
+
+    @Test
+    void wakeUpTriggersAPollBeforeTheIntervalElapses() throws Exception {
+        AtomicInteger polls = new AtomicInteger();
+        CountDownLatch secondPoll = new CountDownLatch(2);
+        PollingDispatcher dispatcher = new PollingDispatcher("Test", Runnable::run, 1, 1, 60_000,
+                () -> {
+                    polls.incrementAndGet();
+                    secondPoll.countDown();
+                    return List.of();
+                },
+                ids -> { },
+                () -> { });
+        dispatcher.start();
+        try {
+            while (polls.get() == 0) {
+                Thread.onSpinWait();
+            }
+            dispatcher.wakeUp();
+            assertThat(secondPoll.await(5, TimeUnit.SECONDS)).isTrue();
+        } finally {
+            dispatcher.stop();
+        }
+    }
+
+    @Test
+    void truncatesErrorsToTheColumnLength() {
+        assertThat(PollingDispatcher.truncate(null)).isNull();
+        assertThat(PollingDispatcher.truncate("short")).isEqualTo("short");
+        assertThat(PollingDispatcher.truncate("x".repeat(PollingDispatcher.MAX_ERROR_LENGTH + 5)))
+                .hasSize(PollingDispatcher.MAX_ERROR_LENGTH);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.LedgerProperties;
+import com.eomaxl.bankapplication.config.ShardingProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.AccountBalanceShard;
+import com.eomaxl.bankapplication.repository.AccountBalanceShardRepository;
+import com.eomaxl.bankapplication.repository.AccountRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ShardedBalanceServiceTest {
+
+    private final AccountRepository accountRepository = mock(AccountRepository.class);
+    private final AccountBalanceShardRepository shardRepository = mock(AccountBalanceShardRepository.class);
+    private final ShardingProperties properties = new ShardingProperties();
+    private final ShardedBalanceService service = new ShardedBalanceService(accountRepository, shardRepository,
+            mock(PlatformTransactionManager.class), properties, new LedgerProperties(), mock(BalanceCache.class));
+
+    private final Account account = Account.builder().id(7L).accountNumber("HOT1").balance(new BigDecimal("10.00")).build();
+
+    @Test
+    void unconfiguredAccountWithShardsStaysShardedOnStartup() {
+        when(shardRepository.findShardedAccountIds()).thenReturn(List.of(7L));
+        when(shardRepository.findShardNumbers(7L)).thenReturn(List.of(0, 1, 2, 3));
+        when(accountRepository.findById(7L)).thenReturn(Optional.of(account));
+
+        service.provisionShards();
+
+        assertThat(service.isSharded("HOT1")).isTrue();
+        verify(shardRepository, never()).delete(any());
+        verify(accountRepository, never()).save(any());
+    }
+
+    @Test
+    void foldingMovesShardsIntoTheAccountRowAndStopsSharding() {
+        when(shardRepository.findShardedAccountIds()).thenReturn(List.of(7L));
+        when(shardRepository.findShardNumbers(7L)).thenReturn(List.of(0, 1));
+        when(accountRepository.findById(7L)).thenReturn(Optional.of(account));
+        when(accountRepository.findByAccountNumberWithLock("HOT1")).thenReturn(Optional.of(account));
+        when(accountRepository.findByIdWithLock(7L)).thenReturn(Optional.of(account));
+        when(shardRepository.findByAccountIdWithLock(7L)).thenReturn(List.of(shard(0, "5.00"), shard(1, "2.50")));
+        service.provisionShards();
+
+        BigDecimal balance = service.foldShards("HOT1");
+
+        assertThat(balance).isEqualByComparingTo("17.50");
+        assertThat(service.isSharded("HOT1")).isFalse();
+    }
+
+    @Test
+    void accountStillConfiguredAsHotIsNotFolded() {
+        properties.getHotAccounts().put("HOT1", 4);
+
+        assertThatThrownBy(() -> service.foldShards("HOT1")).isInstanceOf(BankingException.class);
+        verify(accountRepository, never()).findByAccountNumberWithLock(any());
+    }
+
+    private AccountBalanceShard shard(int shardNo, String balance) {
+        return AccountBalanceShard.builder().account(account).shardNo(shardNo).balance(new BigDecimal(balance)).build();
+    }
+}
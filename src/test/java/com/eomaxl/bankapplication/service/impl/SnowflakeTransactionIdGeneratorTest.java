@@ -0,0 +1,70 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.IdGenerationProperties;
+import com.eomaxl.bankapplication.domain.exception.BankingException;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SnowflakeTransactionIdGeneratorTest {
+
+    private final NodeIdLeases leases = mock(NodeIdLeases.class);
+    private final IdGenerationProperties properties = new IdGenerationProperties();
+
+    @Test
+    void configuredNodeIdNeedsNoLease() {
+        properties.setNodeId(7);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(properties, leases);
+
+        assertThat(generator.nextValue() >>> 12 & 1023).isEqualTo(7);
+        verify(leases, never()).acquire(anyInt(), any());
+    }
+
+    @Test
+    void idsStopWhenTheLeaseCannotBeRenewed() {
+        when(leases.acquire(anyInt(), any())).thenReturn(5);
+        when(leases.renew(anyInt(), any())).thenThrow(new IllegalStateException("database unavailable"));
+        properties.setNodeIdLeaseTtl(Duration.ofMillis(30));
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(properties, leases);
+
+        assertThat(generator.nextValue() >>> 12 & 1023).isEqualTo(5);
+        generator.renewLease();
+        sleep(40);
+
+        assertThatThrownBy(generator::nextValue)
+                .isInstanceOfSatisfying(BankingException.class,
+                        e -> assertThat(e.getErrorCode()).isEqualTo("ID_NODE_LEASE_EXPIRED"));
+        generator.shutdown();
+    }
+
+    @Test
+    void lostLeaseIsReplacedWithANewNodeId() {
+        properties.setNodeIdLeaseTtl(Duration.ofHours(1));
+        when(leases.acquire(anyInt(), any())).thenReturn(5, 9);
+        when(leases.renew(anyInt(), any())).thenReturn(false);
+        SnowflakeTransactionIdGenerator generator = new SnowflakeTransactionIdGenerator(properties, leases);
+
+        generator.renewLease();
+
+        assertThat(generator.nextValue() >>> 12 & 1023).isEqualTo(9);
+        generator.shutdown();
+        verify(leases).release(9);
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,155 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.ExportProperties;
+import com.eomaxl.bankapplication.domain.exception.ExportCapacityException;
+import com.eomaxl.bankapplication.domain.model.StatementFormat;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.sql.DataSource;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class StatementExporterTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final ExportProperties properties = new ExportProperties();
+    private StatementExporter exporter;
+    private long nextTransactionId = 1;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO banks (id, bank_name, bank_code) VALUES (1, 'Test Bank', 'TB01')");
+        jdbcTemplate.update("INSERT INTO persons (id, first_name, last_name, email) VALUES (1, 'Test', 'Person', 'test@example.com')");
+        jdbcTemplate.update("INSERT INTO account_holders (id, person_id, customer_id) VALUES (1, 1, 'CUST1')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, account_type, account_status, bank_id, "
+                        + "account_holder_id, created_at, updated_at, version) VALUES (1, 'ACC1', 0, 'SAVINGS', 'ACTIVE', 1, 1, ?, ?, 0)",
+                LocalDateTime.now(), LocalDateTime.now());
+
+        properties.setMaxConcurrent(1);
+        exporter = new StatementExporter(dataSource, transactionManager, new ObjectMapper(), properties,
+                new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        for (String table : new String[]{"transactions", "accounts", "account_holders", "persons", "banks"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void csvCellsThatWouldRunAsFormulasAreWrittenAsText() throws IOException {
+        insertTransaction("=HYPERLINK(\"http://evil.example\",\"statement\")");
+        insertTransaction("@SUM(1+1)");
+        insertTransaction("-2+3,plain");
+        insertTransaction("Salary");
+
+        String[] lines = export(StatementFormat.CSV).split("\r\n");
+
+        assertThat(lines).hasSize(5);
+        assertThat(lines[1]).endsWith(",\"'=HYPERLINK(\"\"http://evil.example\"\",\"\"statement\"\")\"");
+        assertThat(lines[2]).endsWith(",'@SUM(1+1)");
+        assertThat(lines[3]).endsWith(",\"'-2+3,plain\"");
+        assertThat(lines[4]).endsWith(",Salary");
+        // Amounts are numbers and keep their sign
+        assertThat(lines[1]).contains(",-10.00,");
+    }
+
+    @Test
+    void ndjsonValuesAreLeftAsTheyAre() throws IOException {
+        insertTransaction("=1+1");
+
+        assertThat(export(StatementFormat.NDJSON)).contains("\"description\":\"=1+1\"");
+    }
+
+    @Test
+    void slotsAreLimitedAndFreedWhenTheExportEnds() throws IOException {
+        StatementExporter.Slot slot = exporter.reserve();
+
+        assertThatThrownBy(exporter::reserve).isInstanceOf(ExportCapacityException.class);
+
+        slot.export(1, null, null, StatementFormat.CSV, new ByteArrayOutputStream());
+        exporter.reserve().cancel();
+    }
+
+    @Test
+    void slotCancelledBeforeItStartsWritesNothingAndIsFreed() throws IOException {
+        StatementExporter.Slot slot = exporter.reserve();
+
+        slot.cancel();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        assertThat(slot.export(1, null, null, StatementFormat.CSV, out)).isZero();
+        assertThat(out.size()).isZero();
+        exporter.reserve().cancel();
+    }
+
+    @Test
+    void cancellingARunningExportStopsItAtTheNextWrite() {
+        // Several times the encoder's own 8 KiB buffer, so the stream is written to more than once
+        for (int i = 0; i < 60; i++) {
+            insertTransaction("Row " + i + " " + "x".repeat(400));
+        }
+        properties.setBufferBytes(16);
+        exporter = new StatementExporter(dataSource, transactionManager, new ObjectMapper(), properties,
+                new SimpleMeterRegistry());
+        StatementExporter.Slot slot = exporter.reserve();
+        ByteArrayOutputStream out = new ByteArrayOutputStream() {
+            @Override
+            public synchronized void write(byte[] b, int off, int len) {
+                super.write(b, off, len);
+                // The request times out while the first chunk is written
+                slot.cancel();
+            }
+        };
+
+        assertThatThrownBy(() -> slot.export(1, null, null, StatementFormat.CSV, out))
+                .isInstanceOf(IOException.class)
+                .hasMessage("Export cancelled");
+        assertThat(out.toString(StandardCharsets.UTF_8)).doesNotContain("Row 59");
+        exporter.reserve().cancel();
+    }
+
+    private String export(StatementFormat format) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        exporter.export(1, null, null, format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    private void insertTransaction(String description) {
+        long id = nextTransactionId++;
+        jdbcTemplate.update("INSERT INTO transactions (id, transaction_id, amount, transaction_type, transaction_status, "
+                        + "account_id, target_account_id, description, transaction_date, created_at) "
+                        + "VALUES (?, ?, ?, 'WITHDRAWAL', 'COMPLETED', 1, 1, ?, ?, ?)",
+                id, "TXN" + id, new BigDecimal("-10.00"), description, LocalDateTime.now().plusSeconds(id),
+                LocalDateTime.now());
+    }
+}
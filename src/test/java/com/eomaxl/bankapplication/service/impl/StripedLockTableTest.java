@@ -0,0 +1,53 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class StripedLockTableTest {
+
+    @Test
+    void stripeCountIsRoundedUpToAPowerOfTwo() {
+        assertThat(new StripedLockTable(256).stripeCount()).isEqualTo(256);
+        assertThat(new StripedLockTable(300).stripeCount()).isEqualTo(512);
+        assertThat(new StripedLockTable(1).stripeCount()).isEqualTo(1);
+    }
+
+    @Test
+    void everyKeyMapsToAStripeInRange() {
+        StripedLockTable table = new StripedLockTable(64);
+        for (int i = 0; i < 10_000; i++) {
+            assertThat(table.stripeOf("ACC" + i)).isBetween(0, 63);
+        }
+    }
+
+    @Test
+    void contentionIsPublishedAsAggregatesRatherThanPerStripe() throws Exception {
+        StripedLockTable table = new StripedLockTable(256);
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        table.bindTo(registry);
+
+        int stripe = table.stripeOf("ACC1");
+        table.lock(stripe);
+        CompletableFuture<Void> waiter = CompletableFuture.runAsync(() -> {
+            table.lock(stripe);
+            table.unlock(stripe);
+        });
+        // Give the waiter time to find the stripe held
+        Thread.sleep(100);
+        table.unlock(stripe);
+        waiter.get(1, TimeUnit.SECONDS);
+
+        assertThat(registry.getMeters()).hasSize(4);
+        assertThat(registry.get("banking.locks.acquisitions").functionCounter().count()).isEqualTo(2);
+        FunctionTimer wait = registry.get("banking.locks.wait").functionTimer();
+        assertThat(wait.count()).isEqualTo(1);
+        assertThat(wait.totalTime(TimeUnit.MILLISECONDS)).isPositive();
+        assertThat(registry.get("banking.locks.hottest.stripe.contentions").gauge().value()).isEqualTo(1);
+    }
+}
@@ -0,0 +1,112 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.OutboxProperties;
+import com.eomaxl.bankapplication.domain.model.OutboxEvent;
+import com.eomaxl.bankapplication.domain.model.OutboxEventStatus;
+import com.eomaxl.bankapplication.repository.OutboxEventRepository;
+import com.eomaxl.bankapplication.service.ITransactionNotificationSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionOutboxDispatcherTest {
+
+    private final OutboxEventRepository repository = mock(OutboxEventRepository.class);
+    private final OutboxProperties properties = new OutboxProperties();
+    private final List<List<String>> sinkCalls = new ArrayList<>();
+    private final List<String> delivered = new ArrayList<>();
+
+    private final ITransactionNotificationSink sink = events -> {
+        List<String> transactionIds = events.stream().map(OutboxEvent::getTransactionId).toList();
+        sinkCalls.add(transactionIds);
+        if (transactionIds.contains("TXN-POISON")) {
+            throw new IllegalStateException("sink rejected TXN-POISON");
+        }
+        delivered.addAll(transactionIds);
+    };
+
+    private final TransactionOutboxDispatcher dispatcher = new TransactionOutboxDispatcher(repository, sink,
+            mock(PlatformTransactionManager.class), properties);
+
+    @AfterEach
+    void tearDown() {
+        dispatcher.shutdown();
+    }
+
+    @Test
+    void oneFailingEventDoesNotHoldBackTheRestOfItsBatch() {
+        Map<Long, OutboxEvent> events = events("TXN-1", "TXN-2", "TXN-POISON", "TXN-4");
+
+        LocalDateTime before = LocalDateTime.now();
+        dispatcher.deliver(List.of(1L, 2L, 3L, 4L));
+
+        assertThat(delivered).containsExactlyInAnyOrder("TXN-1", "TXN-2", "TXN-4");
+        assertThat(events.get(1L).getStatus()).isEqualTo(OutboxEventStatus.DELIVERED);
+        assertThat(events.get(4L).getStatus()).isEqualTo(OutboxEventStatus.DELIVERED);
+
+        OutboxEvent poison = events.get(3L);
+        assertThat(poison.getStatus()).isEqualTo(OutboxEventStatus.PENDING);
+        assertThat(poison.getAttempts()).isEqualTo(1);
+        assertThat(poison.getLastError()).contains("TXN-POISON");
+        assertThat(poison.getNextAttemptAt()).isAfter(before);
+        // Whole batch, two halves, then the failing half one event at a time
+        assertThat(sinkCalls).hasSize(5);
+    }
+
+    @Test
+    void eventThatKeepsFailingIsParkedAfterMaxAttempts() {
+        Map<Long, OutboxEvent> events = events("TXN-1", "TXN-POISON");
+        events.get(2L).setAttempts(properties.getMaxAttempts() - 1);
+
+        dispatcher.deliver(List.of(1L, 2L));
+
+        assertThat(events.get(1L).getStatus()).isEqualTo(OutboxEventStatus.DELIVERED);
+        assertThat(events.get(2L).getStatus()).isEqualTo(OutboxEventStatus.FAILED);
+        assertThat(events.get(2L).getAttempts()).isEqualTo(properties.getMaxAttempts());
+    }
+
+    @Test
+    void eventsAlreadyDeliveredByAnotherNodeAreNotSentAgain() {
+        Map<Long, OutboxEvent> events = events("TXN-1");
+        events.get(1L).setStatus(OutboxEventStatus.DELIVERED);
+
+        dispatcher.deliver(List.of(1L));
+
+        assertThat(sinkCalls).isEmpty();
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<Long, OutboxEvent> events(String... transactionIds) {
+        LocalDateTime now = LocalDateTime.now();
+        List<OutboxEvent> events = new ArrayList<>();
+        for (int i = 0; i < transactionIds.length; i++) {
+            events.add(OutboxEvent.builder()
+                    .id(i + 1)
+                    .transactionId(transactionIds[i])
+                    .status(OutboxEventStatus.PENDING)
+                    .nextAttemptAt(now)
+                    .createdAt(now)
+                    .build());
+        }
+        Map<Long, OutboxEvent> byId = events.stream().collect(Collectors.toMap(OutboxEvent::getId, Function.identity()));
+        when(repository.findAllByIdWithLock(anyCollection())).thenAnswer(invocation ->
+                ((Collection<Long>) invocation.getArgument(0)).stream()
+                        .flatMap(id -> Stream.ofNullable(byId.get(id)))
+                        .toList());
+        return byId;
+    }
+}
@@ -0,0 +1,179 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.RollupProperties;
+import com.eomaxl.bankapplication.repository.NumberSequenceRepository;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.repository.TransactionRollupDirtyDayRepository;
+import com.eomaxl.bankapplication.repository.TransactionRollupRepository;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+@DataJpaTest
+@ActiveProfiles("test")
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class TransactionRollupsTest {
+
+    private static final long ACCOUNT_ID = 1;
+    private static final LocalDate DAY = LocalDate.now().minusDays(3);
+
+    @Autowired
+    private TransactionRollupRepository rollupRepository;
+
+    @Autowired
+    private TransactionRollupDirtyDayRepository dirtyDayRepository;
+
+    @Autowired
+    private TransactionRepository transactionRepository;
+
+    @Autowired
+    private NumberSequenceRepository sequenceRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private final AtomicBoolean recomputeFails = new AtomicBoolean();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private TransactionRollups rollups;
+    private TransactionTemplate transaction;
+    private long nextTransactionId = 1;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("INSERT INTO banks (id, bank_name, bank_code) VALUES (1, 'Test Bank', 'TB01')");
+        jdbcTemplate.update("INSERT INTO persons (id, first_name, last_name, email) VALUES (1, 'Test', 'Person', 'test@example.com')");
+        jdbcTemplate.update("INSERT INTO account_holders (id, person_id, customer_id) VALUES (1, 1, 'CUST1')");
+        jdbcTemplate.update("INSERT INTO accounts (id, account_number, balance, account_type, account_status, bank_id, "
+                        + "account_holder_id, created_at, updated_at, version) VALUES (1, 'ACC1', 0, 'SAVINGS', 'ACTIVE', 1, 1, ?, ?, 0)",
+                LocalDateTime.now(), LocalDateTime.now());
+
+        // Recomputes can be made to fail while the compactor's day pass keeps working
+        TransactionRollupRepository flakyRollups = mock(TransactionRollupRepository.class, delegatesTo(rollupRepository));
+        doAnswer(invocation -> {
+            if (recomputeFails.get()) {
+                throw new QueryTimeoutException("statement timed out");
+            }
+            return rollupRepository.rollUpAccountDay(invocation.getArgument(0), invocation.getArgument(1));
+        }).when(flakyRollups).rollUpAccountDay(anyLong(), any());
+
+        RollupProperties properties = new RollupProperties();
+        properties.setCloseAfterMinutes(0);
+        rollups = new TransactionRollups(flakyRollups, dirtyDayRepository, transactionRepository, sequenceRepository,
+                transactionManager, properties, meterRegistry);
+        transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        rollups.shutdown();
+        for (String table : new String[]{"transaction_rollup_dirty_days", "transaction_daily_rollups", "transactions",
+                "number_sequences", "accounts", "account_holders", "persons", "banks"}) {
+            jdbcTemplate.update("DELETE FROM " + table);
+        }
+    }
+
+    @Test
+    void backdatedWriteRollsItsDayUpAgainAfterCommit() {
+        insertTransaction(DAY.atTime(9, 0));
+        rollups.rollUpClosedDays();
+
+        writeBackdated(DAY.atTime(12, 0));
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> rolledUpCount() == 2);
+        assertThat(dirtyDayRepository.count()).isZero();
+    }
+
+    @Test
+    void compactorReprocessesADayWhoseRecomputeFailed() {
+        insertTransaction(DAY.atTime(9, 0));
+        rollups.rollUpClosedDays();
+        recomputeFails.set(true);
+
+        writeBackdated(DAY.atTime(12, 0));
+
+        await().atMost(5, TimeUnit.SECONDS)
+                .until(() -> meterRegistry.counter("banking.rollups.recompute_failures").count() == 1);
+        assertThat(rolledUpCount()).isEqualTo(1);
+        assertThat(dirtyDayRepository.count()).isEqualTo(1);
+
+        recomputeFails.set(false);
+        rollups.rollUpClosedDays();
+
+        assertThat(rolledUpCount()).isEqualTo(2);
+        assertThat(dirtyDayRepository.count()).isZero();
+    }
+
+    @Test
+    void rolledBackWriteLeavesNoMark() {
+        insertTransaction(DAY.atTime(9, 0));
+        rollups.rollUpClosedDays();
+
+        transaction.executeWithoutResult(status -> {
+            insertTransaction(DAY.atTime(12, 0));
+            rollups.recomputeAfterCommit(ACCOUNT_ID, DAY.atTime(12, 0));
+            status.setRollbackOnly();
+        });
+
+        assertThat(dirtyDayRepository.count()).isZero();
+        assertThat(rolledUpCount()).isEqualTo(1);
+    }
+
+    @Test
+    void markWrittenBeforeTheFirstRunIsClearedByTheDayPass() {
+        insertTransaction(DAY.atTime(9, 0));
+        writeBackdated(DAY.atTime(12, 0));
+        assertThat(dirtyDayRepository.count()).isEqualTo(1);
+
+        rollups.rollUpClosedDays();
+
+        assertThat(rolledUpCount()).isEqualTo(2);
+        assertThat(dirtyDayRepository.count()).isZero();
+    }
+
+    private void writeBackdated(LocalDateTime transactionDate) {
+        transaction.executeWithoutResult(status -> {
+            insertTransaction(transactionDate);
+            rollups.recomputeAfterCommit(ACCOUNT_ID, transactionDate);
+        });
+    }
+
+    private long rolledUpCount() {
+        return rollupRepository.countTransactions(ACCOUNT_ID, DAY, DAY.plusDays(1));
+    }
+
+    private void insertTransaction(LocalDateTime transactionDate) {
+        long id = nextTransactionId++;
+        jdbcTemplate.update("INSERT INTO transactions (id, transaction_id, amount, transaction_type, transaction_status, "
+                        + "account_id, target_account_id, transaction_date, created_at) "
+                        + "VALUES (?, ?, ?, 'DEPOSIT', 'COMPLETED', 1, 1, ?, ?)",
+                id, "TXN" + id, new BigDecimal("10.00"), transactionDate, LocalDateTime.of(DAY, LocalTime.NOON));
+    }
+}
@@ -0,0 +1,84 @@
+package com.eomaxl.bankapplication.service.impl;
+
+import com.eomaxl.bankapplication.config.ConcurrencyProperties;
+import com.eomaxl.bankapplication.domain.model.Account;
+import com.eomaxl.bankapplication.domain.model.Transaction;
+import com.eomaxl.bankapplication.domain.model.TransactionType;
+import com.eomaxl.bankapplication.repository.TransactionRepository;
+import com.eomaxl.bankapplication.service.IAccountService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class TransactionServiceImplTest {
+
+    private final TransactionRepository transactionRepository = mock(TransactionRepository.class);
+    private final IAccountService accountService = mock(IAccountService.class);
+    private final PlatformTransactionManager transactionManager = mock(PlatformTransactionManager.class);
+    private TransactionServiceImpl transactionService;
+
+    @BeforeEach
+    void setUp() {
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(transactionRepository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+        TransactionIdGenerator idGenerator = mock(TransactionIdGenerator.class);
+        when(idGenerator.nextId()).thenReturn("TXN1");
+        transactionService = new TransactionServiceImpl(transactionRepository, accountService, idGenerator,
+                mock(TransactionOutbox.class), mock(BalanceCheckpoints.class), mock(TransactionRollups.class),
+                new ConcurrencyRetry(new ConcurrencyProperties(), transactionManager));
+
+        // Entities loaded before the update, as the persistence context keeps handing them out afterwards
+        stale(1L, "ACC1");
+        stale(2L, "ACC2");
+    }
+
+    @Test
+    void transferRecordsTheBalancesOfTheUpdatedRows() {
+        when(accountService.transfer("ACC1", "ACC2", BigDecimal.TEN, "rent"))
+                .thenReturn(List.of(account(1L, "ACC1", "90.00"), account(2L, "ACC2", "110.00")));
+
+        List<Transaction> legs = transactionService.transfer("ACC1", "ACC2", BigDecimal.TEN, "rent");
+
+        assertThat(legs).extracting(Transaction::getTransactionType)
+                .containsExactly(TransactionType.TRANSFER_OUT, TransactionType.TRANSFER_IN);
+        assertThat(legs.get(0).getBalanceBefore()).isEqualByComparingTo("100.00");
+        assertThat(legs.get(0).getBalanceAfter()).isEqualByComparingTo("90.00");
+        assertThat(legs.get(1).getBalanceBefore()).isEqualByComparingTo("100.00");
+        assertThat(legs.get(1).getBalanceAfter()).isEqualByComparingTo("110.00");
+    }
+
+    @Test
+    void depositAndWithdrawalRecordTheBalancesOfTheUpdatedRow() {
+        when(accountService.credit("ACC1", BigDecimal.TEN, "salary")).thenReturn(account(1L, "ACC1", "110.00"));
+        when(accountService.debit("ACC1", BigDecimal.TEN, "cash")).thenReturn(account(1L, "ACC1", "100.00"));
+
+        Transaction deposit = transactionService.deposit("ACC1", BigDecimal.TEN, "salary");
+        Transaction withdrawal = transactionService.withdrawal("ACC1", BigDecimal.TEN, "cash");
+
+        assertThat(deposit.getBalanceBefore()).isEqualByComparingTo("100.00");
+        assertThat(deposit.getBalanceAfter()).isEqualByComparingTo("110.00");
+        assertThat(withdrawal.getBalanceBefore()).isEqualByComparingTo("110.00");
+        assertThat(withdrawal.getBalanceAfter()).isEqualByComparingTo("100.00");
+    }
+
+    private void stale(long id, String accountNumber) {
+        Account account = account(id, accountNumber, "100.00");
+        when(accountService.getAccountByNumber(accountNumber)).thenReturn(account);
+        when(accountService.findByAccountNumber(accountNumber)).thenReturn(Optional.of(account));
+        when(accountService.findById(id)).thenReturn(Optional.of(account));
+    }
+
+    private static Account account(long id, String accountNumber, String balance) {
+        return Account.builder().id(id).accountNumber(accountNumber).balance(new BigDecimal(balance)).build();
+    }
+}